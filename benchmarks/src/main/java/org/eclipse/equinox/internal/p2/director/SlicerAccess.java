@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.director;
+
+import java.util.Set;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+
+/**
+ * Gives the benchmarks access to the state of a slicer that the planner reads
+ * from within the director package.
+ */
+public final class SlicerAccess {
+
+	private SlicerAccess() {
+	}
+
+	/**
+	 * Returns the units the given slicer found to be required non greedily, which
+	 * the projector needs besides the slice.
+	 */
+	public static Set<IInstallableUnit> getNonGreedyIUs(Slicer slicer) {
+		return slicer.getNonGreedyIUs();
+	}
+}
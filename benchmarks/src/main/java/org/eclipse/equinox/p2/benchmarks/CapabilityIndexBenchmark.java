@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
+import org.eclipse.equinox.internal.p2.metadata.index.CapabilityIndex;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Lookup of the providers of requirements in the capability index, the way the
+ * slicer and the projector look them up, compared with testing every unit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CapabilityIndexBenchmark {
+
+	// Number of requirements that are looked up per invocation
+	private static final int SAMPLE = 100;
+
+	@Param({"1000", "10000"})
+	public int size;
+
+	private List<IInstallableUnit> units;
+	private List<IMatchExpression<IInstallableUnit>> matches;
+	private CapabilityIndex index;
+
+	@Setup
+	public void setUp() {
+		GeneratedRepository repository = new GeneratedRepository(size, 42);
+		units = repository.getUnits();
+		List<IRequirement> requirements = repository.getBundleRequirements();
+		Collections.shuffle(requirements, new Random(42));
+		matches = new ArrayList<>(SAMPLE);
+		for (IRequirement requirement : requirements.subList(0, SAMPLE)) {
+			matches.add(requirement.getMatches());
+		}
+		index = new CapabilityIndex(units.iterator());
+	}
+
+	@Benchmark
+	public CapabilityIndex buildIndex() {
+		return new CapabilityIndex(units.iterator());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLE)
+	public int lookup() {
+		int found = 0;
+		for (IMatchExpression<IInstallableUnit> match : matches) {
+			Iterator<IInstallableUnit> candidates = index.getCandidates(null, ExpressionFactory.THIS, match);
+			while (candidates.hasNext()) {
+				if (match.isMatch(candidates.next())) {
+					++found;
+				}
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLE)
+	public int scan() {
+		int found = 0;
+		for (IMatchExpression<IInstallableUnit> match : matches) {
+			for (IInstallableUnit unit : units) {
+				if (match.isMatch(unit)) {
+					++found;
+				}
+			}
+		}
+		return found;
+	}
+}
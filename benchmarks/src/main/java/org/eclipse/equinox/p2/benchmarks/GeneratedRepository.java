@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+
+/**
+ * Generates the units of a repository that looks like a small Eclipse update
+ * site: bundles that export and import packages and require other bundles, and
+ * features that group the bundles. The same size and seed always give the same
+ * units, so that the numbers of different runs can be compared.
+ */
+public final class GeneratedRepository {
+
+	public static final String NAMESPACE_BUNDLE = "osgi.bundle"; //$NON-NLS-1$
+	public static final String NAMESPACE_PACKAGE = "java.package"; //$NON-NLS-1$
+
+	private static final String BUNDLE_PREFIX = "org.example.bundle"; //$NON-NLS-1$
+	private static final String PACKAGE_PREFIX = "org.example.pkg"; //$NON-NLS-1$
+	private static final String FEATURE_PREFIX = "org.example.feature"; //$NON-NLS-1$
+
+	// Number of versions of each bundle, number of imports and bundles per feature
+	private static final int VERSIONS = 3;
+	private static final int IMPORTS = 4;
+	private static final int FEATURE_SIZE = 20;
+
+	private final List<IInstallableUnit> bundles = new ArrayList<>();
+	private final List<IInstallableUnit> features = new ArrayList<>();
+
+	/**
+	 * @param size the number of distinct bundles, each of which is generated in
+	 * a few versions
+	 * @param seed the seed for the dependencies between the bundles
+	 */
+	public GeneratedRepository(int size, long seed) {
+		Random random = new Random(seed);
+		for (int idx = 0; idx < size; ++idx) {
+			for (int minor = 0; minor < VERSIONS; ++minor) {
+				bundles.add(createBundle(idx, minor, random));
+			}
+		}
+		for (int first = 0; first < size; first += FEATURE_SIZE) {
+			features.add(createFeature(first / FEATURE_SIZE, first, Math.min(size, first + FEATURE_SIZE)));
+		}
+	}
+
+	/**
+	 * Returns all units of the repository.
+	 */
+	public List<IInstallableUnit> getUnits() {
+		List<IInstallableUnit> units = new ArrayList<>(bundles.size() + features.size());
+		units.addAll(bundles);
+		units.addAll(features);
+		return units;
+	}
+
+	/**
+	 * Returns the features, which are the roots of an installation.
+	 */
+	public List<IInstallableUnit> getFeatures() {
+		return features;
+	}
+
+	/**
+	 * Returns the requirements of all bundles.
+	 */
+	public List<IRequirement> getBundleRequirements() {
+		List<IRequirement> requirements = new ArrayList<>();
+		for (IInstallableUnit bundle : bundles) {
+			requirements.addAll(bundle.getRequirements());
+		}
+		return requirements;
+	}
+
+	/**
+	 * Returns the name of the package that is exported by the bundle with the
+	 * given index.
+	 */
+	public static String packageName(int idx) {
+		return PACKAGE_PREFIX + idx;
+	}
+
+	/**
+	 * Returns the id of the bundle with the given index.
+	 */
+	public static String bundleId(int idx) {
+		return BUNDLE_PREFIX + idx;
+	}
+
+	/**
+	 * Creates a unit that requires exactly the given roots, like the entry point
+	 * that the planner creates for a provisioning request.
+	 */
+	public static IInstallableUnit createEntryPoint(Collection<IInstallableUnit> roots) {
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId("org.example.entryPoint"); //$NON-NLS-1$
+		description.setVersion(Version.createOSGi(1, 0, 0));
+		List<IRequirement> requirements = new ArrayList<>(roots.size());
+		for (IInstallableUnit root : roots) {
+			requirements.add(strictRequirement(root));
+		}
+		description.setRequirements(requirements.toArray(new IRequirement[requirements.size()]));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	private static IInstallableUnit createBundle(int idx, int minor, Random random) {
+		Version version = Version.createOSGi(1, minor, 0, "v2026"); //$NON-NLS-1$
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(bundleId(idx));
+		description.setVersion(version);
+		description.setProperty(InstallableUnitDescription.PROP_TYPE_GROUP, Boolean.FALSE.toString());
+		description.setProperty(IInstallableUnit.PROP_NAME, "Bundle " + idx); //$NON-NLS-1$
+		description.setCapabilities(new IProvidedCapability[] { //
+				MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, bundleId(idx), version), //
+				MetadataFactory.createProvidedCapability(NAMESPACE_BUNDLE, bundleId(idx), version), //
+				MetadataFactory.createProvidedCapability(NAMESPACE_PACKAGE, packageName(idx), version)});
+
+		// bundles only depend on bundles with a lower index, like layered code
+		List<IRequirement> requirements = new ArrayList<>();
+		if (idx > 0) {
+			VersionRange range = new VersionRange(Version.createOSGi(1, 0, 0), true, Version.createOSGi(2, 0, 0), false);
+			for (int count = 0; count < IMPORTS; ++count) {
+				int imported = random.nextInt(idx);
+				boolean optional = random.nextInt(8) == 0;
+				requirements.add(MetadataFactory.createRequirement(NAMESPACE_PACKAGE, packageName(imported), range, null, optional, false, !optional));
+			}
+			requirements.add(MetadataFactory.createRequirement(NAMESPACE_BUNDLE, bundleId(random.nextInt(idx)), range, null, false, false, true));
+		}
+		description.setRequirements(requirements.toArray(new IRequirement[requirements.size()]));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	private IInstallableUnit createFeature(int idx, int first, int last) {
+		String id = FEATURE_PREFIX + idx + ".feature.group"; //$NON-NLS-1$
+		Version version = Version.createOSGi(1, 0, 0);
+		InstallableUnitDescription description = new InstallableUnitDescription();
+		description.setId(id);
+		description.setVersion(version);
+		description.setProperty(InstallableUnitDescription.PROP_TYPE_GROUP, Boolean.TRUE.toString());
+		description.setCapabilities(new IProvidedCapability[] {MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, id, version)});
+		List<IRequirement> requirements = new ArrayList<>(last - first);
+		for (int bundle = first; bundle < last; ++bundle) {
+			// the latest version of each bundle
+			requirements.add(strictRequirement(bundles.get(bundle * VERSIONS + VERSIONS - 1)));
+		}
+		description.setRequirements(requirements.toArray(new IRequirement[requirements.size()]));
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	private static IRequirement strictRequirement(IInstallableUnit unit) {
+		VersionRange range = new VersionRange(unit.getVersion(), true, unit.getVersion(), true);
+		return MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, unit.getId(), range, null, false, false, true);
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.eclipse.equinox.internal.p2.core.helpers.SecureXMLUtil;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
+import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.openjdk.jmh.annotations.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * Reading and writing the units of a <code>content.xml</code>, with the SAX
+ * parser and with the StAX pull parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataParserBenchmark {
+
+	private static final String BUNDLE_ID = "org.eclipse.equinox.p2.benchmarks"; //$NON-NLS-1$
+	private static final String REPOSITORY_ELEMENT = "repository"; //$NON-NLS-1$
+
+	@Param({"1000", "10000"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean pullParser;
+
+	private List<IInstallableUnit> units;
+	private byte[] content;
+	private SAXParserFactory parserFactory;
+
+	@Setup
+	public void setUp() throws Exception {
+		units = new GeneratedRepository(size, 42).getUnits();
+		content = write().toByteArray();
+		parserFactory = SecureXMLUtil.newSecureSAXParserFactory();
+		int read = read().length;
+		if (read != units.size()) {
+			throw new IllegalStateException("Read " + read + " of " + units.size() + " units"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	@Benchmark
+	public IInstallableUnit[] read() throws IOException {
+		ContentParser parser = new ContentParser(parserFactory);
+		parser.setPullParsing(pullParser);
+		return parser.parse(new ByteArrayInputStream(content));
+	}
+
+	@Benchmark
+	public ByteArrayOutputStream write() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(content == null ? 1 << 20 : content.length);
+		MetadataWriter writer = new MetadataWriter(output, null);
+		writer.start(REPOSITORY_ELEMENT);
+		writer.attribute("name", "Generated"); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.writeInstallableUnits(units.iterator(), units.size());
+		writer.end(REPOSITORY_ELEMENT);
+		writer.flush();
+		return output;
+	}
+
+	/**
+	 * Reads the units of a repository document and ignores everything else.
+	 */
+	private static final class ContentParser extends MetadataParser {
+
+		ContentParser(SAXParserFactory factory) {
+			super(factory, BUNDLE_ID);
+		}
+
+		IInstallableUnit[] parse(InputStream stream) throws IOException {
+			RepositoryHandler repositoryHandler = new RepositoryHandler();
+			try {
+				parseDocument(stream, new DocHandler(REPOSITORY_ELEMENT, repositoryHandler));
+			} catch (SAXException | ParserConfigurationException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			if (!isValidXML()) {
+				throw new IOException(getStatus().toString());
+			}
+			return repositoryHandler.getUnits();
+		}
+
+		@Override
+		protected Object getRootObject() {
+			return null;
+		}
+
+		@Override
+		protected String getErrorMessage() {
+			return "Failed to read the generated repository"; //$NON-NLS-1$
+		}
+
+		private final class RepositoryHandler extends RootHandler {
+
+			private InstallableUnitsHandler unitsHandler;
+
+			@Override
+			protected void handleRootAttributes(Attributes attributes) {
+				// nothing to do
+			}
+
+			@Override
+			public void startElement(String name, Attributes attributes) {
+				if (INSTALLABLE_UNITS_ELEMENT.equals(name) && unitsHandler == null) {
+					unitsHandler = new InstallableUnitsHandler(this, attributes);
+				} else {
+					invalidElement(name, attributes);
+				}
+			}
+
+			IInstallableUnit[] getUnits() {
+				return unitsHandler == null ? new IInstallableUnit[0] : unitsHandler.getUnits();
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.internal.p2.director.QueryableArray;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.query.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Evaluation of query language expressions, from parsing to the matches. The
+ * queries are run against a queryable with indexes, as in a repository, and
+ * against the plain units, which evaluates the expression for every unit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+	@Param({"10000"})
+	public int size;
+
+	@Param({"true", "false"})
+	public boolean indexed;
+
+	private List<IInstallableUnit> units;
+	private IQueryable<IInstallableUnit> queryable;
+	private IInstallableUnit[] roots;
+
+	@Setup
+	public void setUp() {
+		GeneratedRepository repository = new GeneratedRepository(size, 42);
+		units = repository.getUnits();
+		queryable = new QueryableArray(units);
+		// the bundles of the first feature and what they depend on
+		roots = new IInstallableUnit[] {repository.getFeatures().get(0)};
+	}
+
+	@Benchmark
+	public IExpression parse() {
+		return ExpressionUtil.getParser().parse("providedCapabilities.exists(x | x.namespace == $0 && x.name == $1)"); //$NON-NLS-1$
+	}
+
+	@Benchmark
+	public int id() {
+		return perform(QueryUtil.createIUQuery(GeneratedRepository.bundleId(size / 2)));
+	}
+
+	@Benchmark
+	public int idPattern() {
+		return perform(QueryUtil.createMatchQuery("id ~= /org.example.bundle1*/")); //$NON-NLS-1$
+	}
+
+	@Benchmark
+	public int property() {
+		return perform(QueryUtil.createIUGroupQuery());
+	}
+
+	@Benchmark
+	public int capability() {
+		return perform(QueryUtil.createMatchQuery("providedCapabilities.exists(x | x.namespace == $0 && x.name == $1)", //$NON-NLS-1$
+				GeneratedRepository.NAMESPACE_PACKAGE, GeneratedRepository.packageName(size / 2)));
+	}
+
+	@Benchmark
+	public int latest() {
+		return perform(QueryUtil.createLatestIUQuery());
+	}
+
+	@Benchmark
+	public int traverse() {
+		return perform(QueryUtil.createQuery( //
+				"$0.traverse(set(), _, { cache, parent | parent.requirements.unique(cache).collect(rc | everything.select(iu | iu ~= rc)).flatten()})", //$NON-NLS-1$
+				(Object) roots));
+	}
+
+	private int perform(IQuery<IInstallableUnit> query) {
+		IQueryResult<IInstallableUnit> result = indexed ? queryable.query(query, null) : query.perform(units.iterator());
+		return result.toUnmodifiableSet().size();
+	}
+}
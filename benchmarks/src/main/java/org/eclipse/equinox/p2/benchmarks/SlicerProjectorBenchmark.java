@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.director.*;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.query.IQueryable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Resolution of an installation of all features of a generated repository, the
+ * way the planner does it: the slicer picks the units that may be needed, and
+ * the projector encodes them for the solver and solves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SlicerProjectorBenchmark {
+
+	@Param({"500", "2000"})
+	public int size;
+
+	private IQueryable<IInstallableUnit> available;
+	private IInstallableUnit entryPoint;
+	private Map<String, String> context;
+	private IQueryable<IInstallableUnit> slice;
+	private Set<IInstallableUnit> nonGreedyUnits;
+
+	@Setup
+	public void setUp() {
+		GeneratedRepository repository = new GeneratedRepository(size, 42);
+		available = new QueryableArray(repository.getUnits());
+		entryPoint = GeneratedRepository.createEntryPoint(repository.getFeatures());
+		context = Map.of("osgi.os", "linux", "osgi.ws", "gtk", "osgi.arch", "x86_64"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		Slicer slicer = new Slicer(available, context, false);
+		slice = slicer.slice(List.of(entryPoint), new NullProgressMonitor());
+		if (slice == null) {
+			throw new IllegalStateException(slicer.getStatus().toString());
+		}
+		nonGreedyUnits = SlicerAccess.getNonGreedyIUs(slicer);
+		Collection<IInstallableUnit> solution = project();
+		if (!solution.containsAll(repository.getFeatures())) {
+			throw new IllegalStateException("The features are not part of the solution"); //$NON-NLS-1$
+		}
+	}
+
+	@Benchmark
+	public IQueryable<IInstallableUnit> slice() {
+		return new Slicer(available, context, false).slice(List.of(entryPoint), new NullProgressMonitor());
+	}
+
+	@Benchmark
+	public Collection<IInstallableUnit> project() {
+		Projector projector = new Projector(slice, context, nonGreedyUnits, false);
+		projector.encode(entryPoint, new IInstallableUnit[0], new QueryableArray(List.of()), List.of(entryPoint), new NullProgressMonitor());
+		IStatus status = projector.invokeSolver(new NullProgressMonitor());
+		if (!status.isOK()) {
+			throw new IllegalStateException(status.toString());
+		}
+		return projector.extractSolution();
+	}
+
+	@Benchmark
+	public Collection<IInstallableUnit> resolve() {
+		Slicer slicer = new Slicer(available, context, false);
+		IQueryable<IInstallableUnit> sliced = slicer.slice(List.of(entryPoint), new NullProgressMonitor());
+		Projector projector = new Projector(sliced, context, SlicerAccess.getNonGreedyIUs(slicer), false);
+		projector.encode(entryPoint, new IInstallableUnit[0], new QueryableArray(List.of()), List.of(entryPoint), new NullProgressMonitor());
+		projector.invokeSolver(new NullProgressMonitor());
+		return projector.extractSolution();
+	}
+}
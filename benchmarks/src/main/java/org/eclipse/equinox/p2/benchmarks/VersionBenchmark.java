@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and comparison of versions and version ranges, which happen for every
+ * unit that is read and for every requirement that is matched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VersionBenchmark {
+
+	private static final String[] VERSIONS = {"1.0.0", "3.18.300.v20230712-1100", "2.10.0.qualifier", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"0.0.0", "4.37.0.I20260101-0600", "raw:1.2.'a'", "format(n[.n=0;[.n=0;]]):1.2"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	private static final String[] RANGES = {"[1.0.0,2.0.0)", "[3.18.0,4.0.0)", "0.0.0", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"[2.10.0.qualifier,2.10.0.qualifier]", "(1.0,1.5]", "[4.37.0,5.0.0)"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private Version[] versions;
+	private VersionRange[] ranges;
+
+	@Setup
+	public void setUp() {
+		versions = new Version[VERSIONS.length];
+		for (int idx = 0; idx < VERSIONS.length; ++idx) {
+			versions[idx] = Version.create(VERSIONS[idx]);
+		}
+		ranges = new VersionRange[RANGES.length];
+		for (int idx = 0; idx < RANGES.length; ++idx) {
+			ranges[idx] = VersionRange.create(RANGES[idx]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(7)
+	public void parseVersion(Blackhole blackhole) {
+		for (String version : VERSIONS) {
+			blackhole.consume(Version.create(version));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(6)
+	public void parseRange(Blackhole blackhole) {
+		for (String range : RANGES) {
+			blackhole.consume(VersionRange.create(range));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(49)
+	public void compareVersions(Blackhole blackhole) {
+		for (Version version : versions) {
+			for (Version other : versions) {
+				blackhole.consume(version.compareTo(other));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(42)
+	public void isIncluded(Blackhole blackhole) {
+		for (VersionRange range : ranges) {
+			for (Version version : versions) {
+				blackhole.consume(range.isIncluded(version));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(36)
+	public void intersectRanges(Blackhole blackhole) {
+		for (VersionRange range : ranges) {
+			for (VersionRange other : ranges) {
+				blackhole.consume(range.intersect(other));
+			}
+		}
+	}
+}
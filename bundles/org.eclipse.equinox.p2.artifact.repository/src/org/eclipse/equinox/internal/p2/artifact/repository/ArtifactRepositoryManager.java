@@ -24,6 +24,7 @@ import org.eclipse.equinox.internal.p2.repository.helpers.AbstractRepositoryMana
 import org.eclipse.equinox.internal.p2.repository.helpers.LocationProperties;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.repository.ICompositeRepository;
 import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.artifact.*;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactRepositoryFactory;
@@ -37,6 +38,11 @@ import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactRepositoryFactory;
 public class ArtifactRepositoryManager extends AbstractRepositoryManager<IArtifactKey>
 		implements IArtifactRepositoryManager {
 
+	// rough retained size of an artifact descriptor with its properties
+	private static final long DESCRIPTOR_SIZE = 1024;
+	// the children of composite repositories are cached on their own
+	private static final long COMPOSITE_SIZE = 16 * 1024;
+
 	public ArtifactRepositoryManager(IProvisioningAgent agent) {
 		super(agent);
 	}
@@ -66,6 +72,15 @@ public class ArtifactRepositoryManager extends AbstractRepositoryManager<IArtifa
 		return (IArtifactRepository) doCreateRepository(location, name, type, properties);
 	}
 
+	@Override
+	protected long estimateSize(IRepository<IArtifactKey> repository) {
+		if (repository instanceof ICompositeRepository<?> || !(repository instanceof IArtifactRepository)) {
+			return COMPOSITE_SIZE;
+		}
+		IArtifactRepository artifactRepository = (IArtifactRepository) repository;
+		return COMPOSITE_SIZE + DESCRIPTOR_SIZE * countElements(artifactRepository.descriptorQueryable());
+	}
+
 	public IArtifactRepository getRepository(URI location) {
 		return (IArtifactRepository) basicGetRepository(location);
 	}
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.artifact.repository;
 
+import java.util.function.Consumer;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.repository.Transport;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
@@ -30,6 +31,7 @@ public abstract class ArtifactRequest implements IArtifactRequest {
 	protected IArtifactRepository source;
 	protected IStatus result = DEFAULT_STATUS;
 	protected Transport transport = null;
+	private volatile Consumer<? super IArtifactRequest> performedListener;
 
 	public ArtifactRequest(IArtifactKey key, Transport transport) {
 		artifact = key;
@@ -79,6 +81,21 @@ public abstract class ArtifactRequest implements IArtifactRequest {
 	 */
 	protected void setResult(IStatus value) {
 		result = value;
+		Consumer<? super IArtifactRequest> listener = performedListener;
+		if (listener != null && value != null && value.isOK()) {
+			listener.accept(this);
+		}
+	}
+
+	/**
+	 * Sets a listener that is notified, on the thread performing this request, as
+	 * soon as the request has been performed successfully. Subclasses set the
+	 * result as the last step of {@link #perform(IArtifactRepository, IProgressMonitor)}.
+	 *
+	 * @param listener the listener, or <code>null</code> to remove it
+	 */
+	public void setPerformedListener(Consumer<? super IArtifactRequest> listener) {
+		performedListener = listener;
 	}
 
 	protected void setSourceRepository(IArtifactRepository value) {
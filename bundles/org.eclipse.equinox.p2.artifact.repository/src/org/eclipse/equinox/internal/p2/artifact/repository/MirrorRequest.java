@@ -107,6 +107,13 @@ public class MirrorRequest extends ArtifactRequest {
 		this.downloadStatsParamters = statsParameters;
 	}
 
+	/**
+	 * Returns the repository the artifact is mirrored to.
+	 */
+	public IArtifactRepository getTargetRepository() {
+		return target;
+	}
+
 	@Override
 	protected void setSourceRepository(IArtifactRepository value) {
 		if (value != getSourceRepository()) {
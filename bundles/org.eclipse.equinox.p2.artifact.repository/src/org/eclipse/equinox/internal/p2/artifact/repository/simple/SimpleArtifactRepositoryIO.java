@@ -319,10 +319,8 @@ public class SimpleArtifactRepositoryIO {
 			try {
 				// TODO: currently not caching the parser since we make no assumptions
 				//		 or restrictions on concurrent parsing
-				XMLReader reader = getParser().getXMLReader();
 				RepositoryHandler repositoryHandler = new RepositoryHandler(uri);
-				reader.setContentHandler(new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
-				reader.parse(new InputSource(stream));
+				parseDocument(stream, new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
 				if (isValidXML()) {
 					theRepository = repositoryHandler.getRepository();
 				}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core.helpers;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.p2.core.IPool;
+
+/**
+ * A thread safe {@link IPool} that only holds weak references to the pooled
+ * objects.
+ * <p>
+ * In contrast to {@link org.eclipse.equinox.p2.core.WeakPool} this pool may be
+ * shared by any number of threads. Lookups do not lock, and entries whose
+ * object has been garbage collected are purged on subsequent additions.
+ *
+ * @param <T> The type of the pooled objects
+ */
+public class ConcurrentWeakPool<T> implements IPool<T> {
+
+	/**
+	 * A weak reference to a pooled object which is equal to any other reference
+	 * to an equal object. A cleared reference is only equal to itself.
+	 */
+	private static final class Entry<T> extends WeakReference<T> {
+		private final int hash;
+
+		Entry(T referent, ReferenceQueue<? super T> queue) {
+			super(referent, queue);
+			hash = referent.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Entry<?> other) || other.hash != hash) {
+				return false;
+			}
+			T referent = get();
+			return referent != null && referent.equals(other.get());
+		}
+	}
+
+	private final ConcurrentHashMap<Entry<T>, Entry<T>> pool;
+	private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+	public ConcurrentWeakPool() {
+		this(64);
+	}
+
+	public ConcurrentWeakPool(int initialCapacity) {
+		pool = new ConcurrentHashMap<>(initialCapacity);
+	}
+
+	@Override
+	public T add(T newObject) {
+		if (newObject == null) {
+			return null;
+		}
+		purge();
+		Entry<T> entry = new Entry<>(newObject, queue);
+		for (;;) {
+			Entry<T> existing = pool.putIfAbsent(entry, entry);
+			if (existing == null) {
+				return newObject;
+			}
+			T shared = existing.get();
+			if (shared != null) {
+				return shared;
+			}
+			// the shared object was collected while we were looking at it
+			pool.remove(existing, existing);
+		}
+	}
+
+	/**
+	 * Returns the number of objects currently held by the pool. The result is an
+	 * estimate since objects may be collected at any time.
+	 */
+	public int size() {
+		purge();
+		return pool.size();
+	}
+
+	private void purge() {
+		Object cleared;
+		while ((cleared = queue.poll()) != null) {
+			pool.remove(cleared, cleared);
+		}
+	}
+}
@@ -0,0 +1,526 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.core.helpers;
+
+import java.util.*;
+
+/**
+ * A hash map whose copies share their structure. The entries are kept in a hash
+ * array mapped trie, so {@link #snapshot()} returns a copy in constant time, and
+ * changing either map afterwards only copies the nodes on the path to the
+ * changed entry. Nodes that are not shared are changed in place, so a map that
+ * is never copied costs about as much as a {@link HashMap}.
+ * <p>
+ * Iterators work on the entries the map had when they were created, so the map
+ * may be changed while it is iterated. Only a change while an iterator is still
+ * open makes the map copy the nodes it changes, an iterator that has run to its
+ * end costs nothing. The map does not permit <code>null</code> keys and is not
+ * thread safe.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class SharedHashMap<K, V> extends AbstractMap<K, V> {
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	// seven levels of bitmap nodes consume the hash, collisions are below them
+	private static final int MAX_DEPTH = 8;
+	private static final Object[] EMPTY = new Object[0];
+	private static final Object NOT_FOUND = new Object();
+
+	/**
+	 * A node with up to 32 entries or children, selected by five bits of the hash.
+	 * The array holds a key and a value for each bit set in the bitmap, in the order
+	 * of the bits. A <code>null</code> key marks a child node in place of the value.
+	 * The array may be longer than needed, to grow in place.
+	 */
+	private static final class BitmapNode {
+		final Object owner;
+		int bitmap;
+		Object[] array;
+
+		BitmapNode(Object owner, int bitmap, Object[] array) {
+			this.owner = owner;
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+	}
+
+	/**
+	 * The keys and values of the entries whose keys have the same hash.
+	 */
+	private static final class CollisionNode {
+		final Object owner;
+		final int hash;
+		Object[] array;
+
+		CollisionNode(Object owner, int hash, Object[] array) {
+			this.owner = owner;
+			this.hash = hash;
+			this.array = array;
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator(root);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry<?, ?> entry)) {
+				return false;
+			}
+			Object value = lookup(entry.getKey());
+			return value != NOT_FOUND && Objects.equals(value, entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			SharedHashMap.this.clear();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		// the arrays of the nodes on the path to the next entry, and the positions in them
+		private final Object[][] arrays = new Object[MAX_DEPTH][];
+		private final int[] lengths = new int[MAX_DEPTH];
+		private final int[] positions = new int[MAX_DEPTH];
+		private final int generation = iteratorGeneration;
+		private int depth = -1;
+		private boolean open;
+		private Map.Entry<K, V> next;
+
+		EntryIterator(BitmapNode root) {
+			if (root != null) {
+				open = true;
+				openIterators++;
+				push(root);
+			}
+			next = advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			Map.Entry<K, V> result = next;
+			if (result == null) {
+				throw new NoSuchElementException();
+			}
+			next = advance();
+			return result;
+		}
+
+		private void push(Object node) {
+			depth++;
+			if (node instanceof BitmapNode bitmapNode) {
+				arrays[depth] = bitmapNode.array;
+				lengths[depth] = 2 * Integer.bitCount(bitmapNode.bitmap);
+			} else {
+				CollisionNode collisionNode = (CollisionNode) node;
+				arrays[depth] = collisionNode.array;
+				lengths[depth] = collisionNode.array.length;
+			}
+			positions[depth] = 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Map.Entry<K, V> advance() {
+			while (depth >= 0) {
+				int position = positions[depth];
+				if (position >= lengths[depth]) {
+					arrays[depth--] = null;
+					continue;
+				}
+				positions[depth] = position + 2;
+				Object[] array = arrays[depth];
+				if (array[position] == null) {
+					push(array[position + 1]);
+					continue;
+				}
+				return new SimpleImmutableEntry<>((K) array[position], (V) array[position + 1]);
+			}
+			if (open) {
+				open = false;
+				if (generation == iteratorGeneration) {
+					// the map may change the nodes seen by this iterator in place again
+					openIterators--;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Identifies the nodes this map may change in place, or <code>null</code> if
+	 * it may not change any.
+	 */
+	private Object owner;
+	// the number of iterators of the current generation that have not reached their end
+	private int openIterators;
+	private int iteratorGeneration;
+	private BitmapNode root;
+	private int size;
+	private Set<Map.Entry<K, V>> entrySet;
+
+	// the results of the last put or remove
+	private Object previousValue;
+	private boolean sizeChanged;
+
+	public SharedHashMap() {
+		//
+	}
+
+	public SharedHashMap(Map<? extends K, ? extends V> map) {
+		putAll(map);
+	}
+
+	/**
+	 * Returns a copy of this map in constant time. The copy and this map share
+	 * their nodes until either of them is changed.
+	 */
+	public SharedHashMap<K, V> snapshot() {
+		owner = null;
+		SharedHashMap<K, V> copy = new SharedHashMap<>();
+		copy.root = root;
+		copy.size = size;
+		return copy;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		Object value = lookup(key);
+		return value == NOT_FOUND ? null : (V) value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return lookup(key) != NOT_FOUND;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(K key, V value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		prepareChange();
+		BitmapNode node = root != null ? root : new BitmapNode(owner, 0, EMPTY);
+		root = (BitmapNode) put(node, 0, hash(key), key, value);
+		if (sizeChanged) {
+			size++;
+		}
+		return (V) takePreviousValue();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key) {
+		if (key == null || root == null) {
+			return null;
+		}
+		prepareChange();
+		root = (BitmapNode) remove(root, 0, hash(key), key);
+		if (sizeChanged) {
+			size--;
+		}
+		return (V) takePreviousValue();
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Makes sure that this map owns the nodes it creates, and that it does not
+	 * change the nodes an open iterator works on in place.
+	 */
+	private void prepareChange() {
+		if (openIterators > 0) {
+			owner = null;
+			openIterators = 0;
+			iteratorGeneration++;
+		}
+		if (owner == null) {
+			owner = new Object();
+		}
+	}
+
+	private Object takePreviousValue() {
+		Object value = previousValue;
+		previousValue = null;
+		sizeChanged = false;
+		return value;
+	}
+
+	private Object lookup(Object key) {
+		if (key == null || root == null) {
+			return NOT_FOUND;
+		}
+		int hash = hash(key);
+		Object node = root;
+		for (int shift = 0;; shift += BITS) {
+			if (node instanceof BitmapNode bitmapNode) {
+				int bit = bit(hash, shift);
+				if ((bitmapNode.bitmap & bit) == 0) {
+					return NOT_FOUND;
+				}
+				int i = index(bitmapNode.bitmap, bit);
+				Object k = bitmapNode.array[i];
+				if (k == null) {
+					node = bitmapNode.array[i + 1];
+					continue;
+				}
+				return k == key || key.equals(k) ? bitmapNode.array[i + 1] : NOT_FOUND;
+			}
+			CollisionNode collisionNode = (CollisionNode) node;
+			if (collisionNode.hash == hash) {
+				Object[] array = collisionNode.array;
+				for (int i = 0; i < array.length; i += 2) {
+					if (array[i] == key || key.equals(array[i])) {
+						return array[i + 1];
+					}
+				}
+			}
+			return NOT_FOUND;
+		}
+	}
+
+	private Object put(Object node, int shift, int hash, Object key, Object value) {
+		if (node instanceof CollisionNode collisionNode) {
+			if (collisionNode.hash == hash) {
+				return putCollision(collisionNode, key, value);
+			}
+			// the colliding keys move one level down
+			BitmapNode parent = new BitmapNode(owner, bit(collisionNode.hash, shift), new Object[] {null, collisionNode});
+			return put(parent, shift, hash, key, value);
+		}
+		BitmapNode bitmapNode = (BitmapNode) node;
+		int bit = bit(hash, shift);
+		int i = index(bitmapNode.bitmap, bit);
+		if ((bitmapNode.bitmap & bit) == 0) {
+			sizeChanged = true;
+			return insert(bitmapNode, bit, i, key, value);
+		}
+		Object k = bitmapNode.array[i];
+		Object v = bitmapNode.array[i + 1];
+		if (k == null) {
+			Object child = put(v, shift + BITS, hash, key, value);
+			return child == v ? bitmapNode : set(bitmapNode, i, null, child);
+		}
+		if (k == key || key.equals(k)) {
+			previousValue = v;
+			return v == value ? bitmapNode : set(bitmapNode, i, k, value);
+		}
+		sizeChanged = true;
+		return set(bitmapNode, i, null, createNode(shift + BITS, k, v, hash, key, value));
+	}
+
+	private CollisionNode putCollision(CollisionNode node, Object key, Object value) {
+		Object[] array = node.array;
+		for (int i = 0; i < array.length; i += 2) {
+			if (array[i] == key || key.equals(array[i])) {
+				previousValue = array[i + 1];
+				if (previousValue == value) {
+					return node;
+				}
+				CollisionNode result = node.owner == owner ? node : new CollisionNode(owner, node.hash, array.clone());
+				result.array[i + 1] = value;
+				return result;
+			}
+		}
+		sizeChanged = true;
+		Object[] grown = Arrays.copyOf(array, array.length + 2);
+		grown[array.length] = key;
+		grown[array.length + 1] = value;
+		if (node.owner == owner) {
+			node.array = grown;
+			return node;
+		}
+		return new CollisionNode(owner, node.hash, grown);
+	}
+
+	private Object createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+		int hash1 = hash(key1);
+		if (hash1 == hash2) {
+			return new CollisionNode(owner, hash1, new Object[] {key1, value1, key2, value2});
+		}
+		int bit1 = bit(hash1, shift);
+		int bit2 = bit(hash2, shift);
+		if (bit1 == bit2) {
+			return new BitmapNode(owner, bit1, new Object[] {null, createNode(shift + BITS, key1, value1, hash2, key2, value2)});
+		}
+		Object[] array = Integer.compareUnsigned(bit1, bit2) < 0 ? new Object[] {key1, value1, key2, value2} : new Object[] {key2, value2, key1, value1};
+		return new BitmapNode(owner, bit1 | bit2, array);
+	}
+
+	private BitmapNode insert(BitmapNode node, int bit, int i, Object key, Object value) {
+		int length = 2 * Integer.bitCount(node.bitmap);
+		Object[] array;
+		if (node.owner == owner && node.array.length >= length + 2) {
+			array = node.array;
+			System.arraycopy(array, i, array, i + 2, length - i);
+		} else {
+			array = new Object[Math.min(2 * (MASK + 1), Math.max(length + 2, 2 * length))];
+			System.arraycopy(node.array, 0, array, 0, i);
+			System.arraycopy(node.array, i, array, i + 2, length - i);
+		}
+		array[i] = key;
+		array[i + 1] = value;
+		BitmapNode result = node.owner == owner ? node : new BitmapNode(owner, 0, null);
+		result.bitmap = node.bitmap | bit;
+		result.array = array;
+		return result;
+	}
+
+	private BitmapNode set(BitmapNode node, int i, Object key, Object value) {
+		BitmapNode result = editable(node);
+		result.array[i] = key;
+		result.array[i + 1] = value;
+		return result;
+	}
+
+	private BitmapNode editable(BitmapNode node) {
+		if (node.owner == owner) {
+			return node;
+		}
+		return new BitmapNode(owner, node.bitmap, Arrays.copyOf(node.array, 2 * Integer.bitCount(node.bitmap)));
+	}
+
+	private Object remove(Object node, int shift, int hash, Object key) {
+		if (node instanceof CollisionNode collisionNode) {
+			return collisionNode.hash == hash ? removeCollision(collisionNode, key) : collisionNode;
+		}
+		BitmapNode bitmapNode = (BitmapNode) node;
+		int bit = bit(hash, shift);
+		if ((bitmapNode.bitmap & bit) == 0) {
+			return bitmapNode;
+		}
+		int i = index(bitmapNode.bitmap, bit);
+		Object k = bitmapNode.array[i];
+		Object v = bitmapNode.array[i + 1];
+		if (k == null) {
+			Object child = remove(v, shift + BITS, hash, key);
+			if (child == v) {
+				return bitmapNode;
+			}
+			if (child == null) {
+				return removeAt(bitmapNode, bit, i);
+			}
+			// a child left with a single entry is replaced by the entry
+			Object[] entry = getSingleEntry(child);
+			return entry != null ? set(bitmapNode, i, entry[0], entry[1]) : set(bitmapNode, i, null, child);
+		}
+		if (k == key || key.equals(k)) {
+			previousValue = v;
+			sizeChanged = true;
+			return removeAt(bitmapNode, bit, i);
+		}
+		return bitmapNode;
+	}
+
+	private CollisionNode removeCollision(CollisionNode node, Object key) {
+		Object[] array = node.array;
+		for (int i = 0; i < array.length; i += 2) {
+			if (array[i] == key || key.equals(array[i])) {
+				previousValue = array[i + 1];
+				sizeChanged = true;
+				if (array.length == 2) {
+					return null;
+				}
+				Object[] shrunk = new Object[array.length - 2];
+				System.arraycopy(array, 0, shrunk, 0, i);
+				System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+				if (node.owner == owner) {
+					node.array = shrunk;
+					return node;
+				}
+				return new CollisionNode(owner, node.hash, shrunk);
+			}
+		}
+		return node;
+	}
+
+	private BitmapNode removeAt(BitmapNode node, int bit, int i) {
+		int length = 2 * Integer.bitCount(node.bitmap);
+		if (length == 2) {
+			return null;
+		}
+		BitmapNode result = editable(node);
+		Object[] array = result.array;
+		System.arraycopy(array, i + 2, array, i, length - i - 2);
+		array[length - 2] = null;
+		array[length - 1] = null;
+		result.bitmap = node.bitmap ^ bit;
+		return result;
+	}
+
+	/**
+	 * Returns an array starting with the key and value of the only entry of the
+	 * given node, or <code>null</code> if the node has more than one entry or a
+	 * child.
+	 */
+	private static Object[] getSingleEntry(Object node) {
+		if (node instanceof BitmapNode bitmapNode) {
+			return Integer.bitCount(bitmapNode.bitmap) == 1 && bitmapNode.array[0] != null ? bitmapNode.array : null;
+		}
+		Object[] array = ((CollisionNode) node).array;
+		return array.length == 2 ? array : null;
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	/**
+	 * Returns the position of the key of the given bit in the array of a node.
+	 */
+	private static int index(int bitmap, int bit) {
+		return 2 * Integer.bitCount(bitmap & (bit - 1));
+	}
+}
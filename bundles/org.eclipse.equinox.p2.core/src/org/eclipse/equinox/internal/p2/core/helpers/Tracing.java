@@ -38,6 +38,7 @@ public class Tracing {
 	public static boolean DEBUG_PLANNER_PROJECTOR_ENCODING = false;
 	public static boolean DEBUG_PROFILE_PREFERENCES = false;
 	public static boolean DEBUG_PUBLISHING = false;
+	public static boolean DEBUG_QUERY_PLAN = false;
 	public static boolean DEBUG_RECONCILER = false;
 	public static boolean DEBUG_REMOVE_REPO = false;
 	public static boolean DEBUG_UPDATE_CHECK = false;
@@ -65,6 +66,7 @@ public class Tracing {
 					DEBUG_PROFILE_PREFERENCES = options.getBooleanOption(Activator.ID + "/engine/profilepreferences", //$NON-NLS-1$
 							false);
 					DEBUG_PUBLISHING = options.getBooleanOption(Activator.ID + "/publisher", false); //$NON-NLS-1$
+					DEBUG_QUERY_PLAN = options.getBooleanOption(Activator.ID + "/query/plan", false); //$NON-NLS-1$
 					DEBUG_RECONCILER = options.getBooleanOption(Activator.ID + "/reconciler", false); //$NON-NLS-1$
 					DEBUG_REMOVE_REPO = options.getBooleanOption(Activator.ID + "/core/removeRepo", false); //$NON-NLS-1$
 					DEBUG_UPDATE_CHECK = options.getBooleanOption(Activator.ID + "/updatechecker", false); //$NON-NLS-1$
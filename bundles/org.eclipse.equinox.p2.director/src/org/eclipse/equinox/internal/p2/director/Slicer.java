@@ -95,8 +95,7 @@ public class Slicer {
 					continue;
 				}
 				if (!isGreedy(iu, req)) {
-					nonGreedyIUs.addAll(
-							queryable.query(QueryUtil.createMatchQuery(req.getMatches()), null).toUnmodifiableSet());
+					queryable.stream(QueryUtil.createMatchQuery(req.getMatches()), null).forEach(nonGreedyIUs::add);
 				}
 			}
 		}
@@ -187,9 +186,11 @@ public class Slicer {
 		if (req.getMax() == 0) {
 			return;
 		}
-		IQueryResult<IInstallableUnit> matches = possibilites.query(QueryUtil.createMatchQuery(req.getMatches()), null);
+		// the matches are used once, there is no need to collect them
+		Iterator<IInstallableUnit> matches = possibilites.stream(QueryUtil.createMatchQuery(req.getMatches()), null).iterator();
 		int validMatches = 0;
-		for (IInstallableUnit match : matches) {
+		while (matches.hasNext()) {
+			IInstallableUnit match = matches.next();
 			if (!isApplicable(match)) {
 				continue;
 			}
@@ -52,6 +52,10 @@ public class ActionManager implements IRegistryChangeListener {
 		return touchpointManager.getTouchpoint(type);
 	}
 
+	public boolean hasIndependentOperands(Touchpoint touchpoint, String phaseId) {
+		return touchpointManager.hasIndependentOperands(touchpoint, phaseId);
+	}
+
 	public String getTouchpointQualifiedActionId(String actionId, ITouchpointType type) {
 		if (actionId.indexOf('.') == -1) {
 			if (type == null || type == ITouchpointType.NONE) {
@@ -16,9 +16,11 @@ package org.eclipse.equinox.internal.p2.engine;
 
 import java.net.URI;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.ArtifactRequest;
 import org.eclipse.equinox.internal.p2.engine.phases.Collect;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -34,7 +36,7 @@ public class DownloadManager {
 	private ProvisioningContext provContext = null;
 	ArrayList<IArtifactRequest> requestsToProcess = new ArrayList<>();
 	private IProvisioningAgent agent = null;
-
+	private Consumer<IArtifactRequest> downloadListener = null;
 
 	/**
 	 * This comparator sorts the repositories such that local repositories are first
@@ -86,6 +88,17 @@ public class DownloadManager {
 		}
 	}
 
+	/**
+	 * Sets a listener that is notified once a request has been performed
+	 * successfully. Requests extending {@link ArtifactRequest} notify it on the
+	 * thread performing them as soon as they are done, which allows work on the
+	 * downloaded artifacts to start before all downloads have finished. Other
+	 * requests are notified once the downloads from their repository are done.
+	 */
+	public void setDownloadListener(Consumer<IArtifactRequest> listener) {
+		downloadListener = listener;
+	}
+
 	private void filterUnfetched() {
 		for (Iterator<IArtifactRequest> iterator = requestsToProcess.iterator(); iterator.hasNext();) {
 			IArtifactRequest request = iterator.next();
@@ -114,10 +127,26 @@ public class DownloadManager {
 			return new Status(IStatus.ERROR, EngineActivator.ID, Messages.download_no_repository,
 					new Exception(Collect.NO_ARTIFACT_REPOSITORIES_AVAILABLE));
 		}
-		fetch(repositories, subMonitor.newChild(500));
+		setPerformedListener(downloadListener);
+		try {
+			fetch(repositories, subMonitor.newChild(500));
+		} finally {
+			setPerformedListener(null);
+		}
 		return overallStatus(monitor, repositories);
 	}
 
+	private void setPerformedListener(Consumer<IArtifactRequest> listener) {
+		if (downloadListener == null) {
+			return;
+		}
+		for (IArtifactRequest request : requestsToProcess) {
+			if (request instanceof ArtifactRequest artifactRequest) {
+				artifactRequest.setPerformedListener(listener);
+			}
+		}
+	}
+
 	/**
 	 * @return artifact repositories sorted according to LOCAL_FIRST_COMPARATOR
 	 */
@@ -146,10 +175,26 @@ public class DownloadManager {
 				return;
 			}
 			filterUnfetched();
+			notifyPerformed(requests);
 			monitor.setWorkRemaining(requestsToProcess.size());
 		}
 	}
 
+	/**
+	 * Notifies the download listener of the given requests that have been
+	 * performed successfully and did not notify it themselves.
+	 */
+	private void notifyPerformed(IArtifactRequest[] requests) {
+		if (downloadListener == null) {
+			return;
+		}
+		for (IArtifactRequest request : requests) {
+			if (!(request instanceof ArtifactRequest) && request.getResult() != null && request.getResult().isOK()) {
+				downloadListener.accept(request);
+			}
+		}
+	}
+
 	private void publishDownloadEvent(CollectEvent event) {
 		IProvisioningEventBus bus = agent.getService(IProvisioningEventBus.class);
 		if (bus != null) {
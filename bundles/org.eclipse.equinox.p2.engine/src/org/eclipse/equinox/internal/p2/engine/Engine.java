@@ -129,6 +129,10 @@ public class Engine implements IEngine {
 				}
 				eventBus.publishEvent(new CommitOperationEvent(profile, phaseSet, operands, this));
 			}
+			EngineTimings timings = session.getTimings();
+			if (timings != null) {
+				timings.finish(result);
+			}
 			//if there is only one child status, return that status instead because it will have more context
 			IStatus[] children = result.getChildren();
 			return children.length == 1 ? children[0] : result;
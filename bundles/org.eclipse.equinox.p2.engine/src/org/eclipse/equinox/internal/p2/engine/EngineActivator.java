@@ -52,6 +52,18 @@ public class EngineActivator implements BundleActivator {
 	 */
 	public static final String PROFILE_FORMAT_UNCOMPRESSED = "uncompressed"; //$NON-NLS-1$
 
+	/**
+	 * Value for the PROP_PROFILE_FORMAT system property specifying the compact
+	 * binary format for full profile snapshots. The format is opt-in: snapshots
+	 * written in the XML format remain readable, and the next full snapshot of a
+	 * profile is written in the binary format. Engines from before the binary
+	 * format do not know <code>.profile.bin</code> files and read the latest XML
+	 * snapshot instead, so the binary format must only be enabled for profiles
+	 * that no older engine uses. Unsetting the property makes the next full
+	 * snapshot an XML snapshot again.
+	 */
+	public static final String PROFILE_FORMAT_BINARY = "binary"; //$NON-NLS-1$
+
 	/**
 	 * System property specifying how the engine should handle unsigned artifacts.
 	 * If this property is undefined, the default value is assumed to be "prompt".
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads on which the engine loads repositories and verifies signatures.
+ * All work runs on one shared pool of named daemon threads, which are started
+ * on demand and end after a minute without work, so an idle agent holds no
+ * threads and a forgotten task never keeps the VM alive. Callers bound their
+ * own parallelism with {@link #limited(int)} instead of creating pools of their
+ * own.
+ */
+public final class EngineExecutor {
+
+	private static final String THREAD_NAME = "p2 Engine Worker-"; //$NON-NLS-1$
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+		Thread thread = new Thread(runnable, THREAD_NAME + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private EngineExecutor() {
+		// static only
+	}
+
+	/**
+	 * Returns an executor running at most the given number of tasks at the same
+	 * time on the shared threads, in the order they were submitted. With a
+	 * parallelism of 1 or less, tasks run on the calling thread.
+	 */
+	public static Executor limited(int parallelism) {
+		return parallelism <= 1 ? Runnable::run : new LimitedExecutor(parallelism);
+	}
+
+	/**
+	 * Queues tasks and has at most {@link #parallelism} shared threads drain the
+	 * queue.
+	 */
+	private static final class LimitedExecutor implements Executor {
+		private final int parallelism;
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger active = new AtomicInteger();
+
+		LimitedExecutor(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+			schedule();
+		}
+
+		private void schedule() {
+			while (!tasks.isEmpty()) {
+				int running = active.get();
+				if (running >= parallelism) {
+					return;
+				}
+				if (active.compareAndSet(running, running + 1)) {
+					try {
+						POOL.execute(this::drain);
+					} catch (RejectedExecutionException e) {
+						active.decrementAndGet();
+						throw e;
+					}
+					return;
+				}
+			}
+		}
+
+		private void drain() {
+			try {
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					task.run();
+					// the interrupt of a cancelled task must not reach the next one
+					Thread.interrupted();
+				}
+			} finally {
+				active.decrementAndGet();
+				// a task may have been queued after the queue was found empty
+				schedule();
+			}
+		}
+	}
+}
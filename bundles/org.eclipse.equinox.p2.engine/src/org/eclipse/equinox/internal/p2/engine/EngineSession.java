@@ -45,7 +45,8 @@ public class EngineSession {
 	boolean currentPhaseActive;
 
 	private List<ActionsRecord> currentActionRecords;
-	private ActionsRecord currentRecord;
+	// operands of phases with independent operands are performed on several threads
+	private final ThreadLocal<ActionsRecord> currentRecord = new ThreadLocal<>();
 
 	private final IProfile profile;
 
@@ -53,15 +54,26 @@ public class EngineSession {
 
 	private final HashMap<String, Object> sessionServices = new HashMap<>();
 
-	private final Set<Touchpoint> touchpoints = new HashSet<>();
+	private final Set<Touchpoint> touchpoints = Collections.synchronizedSet(new HashSet<>());
 
 	private final IProvisioningAgent agent;
 
+	private final EngineTimings timings;
+
 	public EngineSession(IProvisioningAgent agent, IProfile profile, ProvisioningContext context) {
 		super();
 		this.agent = agent;
 		this.profile = profile;
 		this.context = context;
+		this.timings = EngineTimings.create(agent, profile);
+	}
+
+	/**
+	 * Returns the timings of this session, or <code>null</code> if the session is
+	 * not measured.
+	 */
+	EngineTimings getTimings() {
+		return timings;
 	}
 
 	public IProfile getProfile() {
@@ -174,7 +186,7 @@ public class EngineSession {
 			}
 			currentPhaseActive = false;
 			currentActionRecords = null;
-			currentRecord = null;
+			currentRecord.remove();
 		}
 		currentPhase = null;
 
@@ -291,7 +303,7 @@ public class EngineSession {
 		}
 
 		currentPhaseActive = true;
-		currentActionRecords = new ArrayList<>();
+		currentActionRecords = Collections.synchronizedList(new ArrayList<>());
 	}
 
 	void recordPhaseEnd(Phase phase) {
@@ -328,12 +340,13 @@ public class EngineSession {
 			throw new IllegalArgumentException(Messages.null_operand);
 		}
 
-		if (currentRecord != null) {
+		if (currentRecord.get() != null) {
 			throw new IllegalStateException(Messages.operand_started);
 		}
 
-		currentRecord = new ActionsRecord(operand);
-		currentActionRecords.add(currentRecord);
+		ActionsRecord record = new ActionsRecord(operand);
+		currentRecord.set(record);
+		currentActionRecords.add(record);
 
 		if (DebugHelper.DEBUG_ENGINE_SESSION) {
 			debugOperandStart(operand);
@@ -341,27 +354,40 @@ public class EngineSession {
 	}
 
 	void recordOperandEnd(Operand operand) {
-		if (currentRecord == null) {
+		ActionsRecord record = currentRecord.get();
+		if (record == null) {
 			throw new IllegalStateException(Messages.operand_not_started);
 		}
 
-		if (currentRecord.operand != operand) {
+		if (record.operand != operand) {
 			throw new IllegalArgumentException(Messages.not_current_operand);
 		}
 
-		currentRecord = null;
+		currentRecord.remove();
 
 		if (DebugHelper.DEBUG_ENGINE_SESSION) {
 			debugOperandEnd(operand);
 		}
 	}
 
+	/**
+	 * Forgets the given operand if the current thread has started but not ended it,
+	 * so that the thread can perform other operands. The actions executed for the
+	 * operand stay recorded and are undone on rollback.
+	 */
+	void recordOperandAbort(Operand operand) {
+		ActionsRecord record = currentRecord.get();
+		if (record != null && record.operand == operand) {
+			currentRecord.remove();
+		}
+	}
+
 	void recordActionExecute(ProvisioningAction action, Map<String, Object> parameters) {
 		if (action == null) {
 			throw new IllegalArgumentException(Messages.null_action);
 		}
 
-		currentRecord.actions.add(action);
+		currentRecord.get().actions.add(action);
 
 		Touchpoint touchpoint = action.getTouchpoint();
 		if (touchpoint != null) {
@@ -393,11 +419,12 @@ public class EngineSession {
 	}
 
 	private Object getCurrentActionId() {
-		if (currentRecord == null || currentRecord.actions.isEmpty()) {
+		ActionsRecord record = currentRecord.get();
+		if (record == null || record.actions.isEmpty()) {
 			return EMPTY_STRING;
 		}
 
-		Object currentAction = currentRecord.actions.get(currentRecord.actions.size() - 1);
+		Object currentAction = record.actions.get(record.actions.size() - 1);
 		if (currentAction instanceof ParameterizedProvisioningAction parameterizedAction) {
 			currentAction = parameterizedAction.getAction();
 		}
@@ -412,10 +439,11 @@ public class EngineSession {
 	}
 
 	private String getCurrentOperandId() {
-		if (currentRecord == null) {
+		ActionsRecord record = currentRecord.get();
+		if (record == null) {
 			return EMPTY_STRING;
 		}
-		return currentRecord.operand.toString();
+		return record.operand.toString();
 	}
 
 	private static void debugPhaseEnter(Phase phase) {
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.util.EventObject;
+import org.eclipse.equinox.p2.engine.IProfile;
+
+/**
+ * Reports the time spent on a part of an engine operation. Published on the
+ * event bus by {@link EngineTimings} when a phase, an operand of a phase or an
+ * action of an operand is done, and once for the whole operation.
+ */
+public class EngineTimingEvent extends EventObject {
+
+	private static final long serialVersionUID = -2309842712645310522L;
+
+	public static final int TYPE_OPERATION = 0;
+	public static final int TYPE_PHASE = 1;
+	public static final int TYPE_OPERAND = 2;
+	public static final int TYPE_ACTION = 3;
+
+	private final int type;
+	private final String phaseId;
+	private final Operand operand;
+	private final String touchpoint;
+	private final String action;
+	private final long wallTime;
+	private final long cpuTime;
+	private final long bytesDownloaded;
+	private final int filesWritten;
+
+	public EngineTimingEvent(IProfile profile, int type, String phaseId, Operand operand, String touchpoint, String action, long wallTime, long cpuTime, long bytesDownloaded, int filesWritten) {
+		super(profile);
+		this.type = type;
+		this.phaseId = phaseId;
+		this.operand = operand;
+		this.touchpoint = touchpoint;
+		this.action = action;
+		this.wallTime = wallTime;
+		this.cpuTime = cpuTime;
+		this.bytesDownloaded = bytesDownloaded;
+		this.filesWritten = filesWritten;
+	}
+
+	public IProfile getProfile() {
+		return (IProfile) getSource();
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the id of the phase, or <code>null</code> for the whole operation.
+	 */
+	public String getPhaseId() {
+		return phaseId;
+	}
+
+	/**
+	 * Returns the operand, or <code>null</code> for a phase or the operation.
+	 */
+	public Operand getOperand() {
+		return operand;
+	}
+
+	/**
+	 * Returns the class name of the touchpoint of an action, or <code>null</code>.
+	 */
+	public String getTouchpoint() {
+		return touchpoint;
+	}
+
+	/**
+	 * Returns the class name of the action, or <code>null</code> for anything but
+	 * an action.
+	 */
+	public String getAction() {
+		return action;
+	}
+
+	/**
+	 * Returns the elapsed time in nanoseconds.
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * Returns the CPU time in nanoseconds of the thread doing the work, or -1 if
+	 * the virtual machine does not measure it.
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+	public long getBytesDownloaded() {
+		return bytesDownloaded;
+	}
+
+	public int getFilesWritten() {
+		return filesWritten;
+	}
+}
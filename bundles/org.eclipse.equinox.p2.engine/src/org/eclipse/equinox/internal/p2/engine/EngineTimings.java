@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
+import org.eclipse.equinox.p2.core.IAgentLocation;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
+import org.eclipse.equinox.p2.engine.spi.Touchpoint;
+
+/**
+ * Measures where an engine operation spends its time. When the agent property
+ * {@link #PROP_TIMINGS} is <code>true</code>, every engine session records the
+ * elapsed and CPU time of each phase, operand and action together with the
+ * bytes downloaded and the files written while they ran. Each measurement is
+ * published as an {@link EngineTimingEvent}, and at the end of the operation a
+ * JSON report with the totals per phase, touchpoint, action and operand is
+ * written.
+ * <p>
+ * Code running within a measurement reports downloads and written files with
+ * {@link #recordDownload(long, int)} and {@link #recordFilesWritten(int)}; they
+ * are added to the innermost measurement of the calling thread and to all
+ * measurements enclosing it.
+ * </p>
+ */
+public final class EngineTimings {
+
+	/**
+	 * Agent property enabling the measurements.
+	 */
+	public static final String PROP_TIMINGS = "eclipse.p2.engine.timings"; //$NON-NLS-1$
+
+	/**
+	 * Agent property specifying the file the report is written to. By default the
+	 * report is written to the <code>timings</code> folder of the engine's data
+	 * area.
+	 */
+	public static final String PROP_TIMINGS_REPORT = "eclipse.p2.engine.timings.report"; //$NON-NLS-1$
+
+	private static final String TIMINGS_DIRECTORY = "timings"; //$NON-NLS-1$
+
+	private static final ThreadLocal<Measurement> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * A running measurement.
+	 */
+	public final class Measurement {
+		final int type;
+		final Measurement parent;
+		final String phaseId;
+		final Operand operand;
+		final String touchpoint;
+		final String action;
+		private final Measurement previous;
+		private final long wallStart;
+		private final long cpuStart;
+		final AtomicLong bytesDownloaded = new AtomicLong();
+		final AtomicInteger filesWritten = new AtomicInteger();
+
+		Measurement(int type, Measurement parent, String phaseId, Operand operand, String touchpoint, String action) {
+			this.type = type;
+			this.parent = parent;
+			this.phaseId = phaseId;
+			this.operand = operand;
+			this.touchpoint = touchpoint;
+			this.action = action;
+			this.previous = CURRENT.get();
+			this.wallStart = System.nanoTime();
+			this.cpuStart = cpuTime();
+			CURRENT.set(this);
+		}
+
+		void add(long bytes, int files) {
+			for (Measurement m = this; m != null; m = m.parent) {
+				m.bytesDownloaded.addAndGet(bytes);
+				m.filesWritten.addAndGet(files);
+			}
+		}
+	}
+
+	private static final class Totals {
+		int count;
+		long wallTime;
+		long cpuTime;
+		long bytesDownloaded;
+		int filesWritten;
+
+		void add(long wall, long cpu, long bytes, int files) {
+			count++;
+			wallTime += wall;
+			// a negative CPU time means it is not measured
+			cpuTime = cpu < 0 || cpuTime < 0 ? -1 : cpuTime + cpu;
+			bytesDownloaded += bytes;
+			filesWritten += files;
+		}
+	}
+
+	private record OperandTiming(String phaseId, String operand, long wallTime, long cpuTime, long bytesDownloaded, int filesWritten) {
+	}
+
+	private final IProvisioningAgent agent;
+	private final IProfile profile;
+	private final ThreadMXBean threads;
+	private final long wallStart = System.nanoTime();
+	private final Map<String, Totals> phases = new LinkedHashMap<>();
+	private final Map<List<String>, Totals> touchpoints = new LinkedHashMap<>();
+	private final Map<List<String>, Totals> actions = new LinkedHashMap<>();
+	private final List<OperandTiming> operands = new ArrayList<>();
+
+	private EngineTimings(IProvisioningAgent agent, IProfile profile) {
+		this.agent = agent;
+		this.profile = profile;
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		this.threads = bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+	}
+
+	/**
+	 * Returns the timings of an operation on the given profile, or
+	 * <code>null</code> if the agent does not measure engine operations.
+	 */
+	static EngineTimings create(IProvisioningAgent agent, IProfile profile) {
+		if (!Boolean.parseBoolean(EngineActivator.getProperty(PROP_TIMINGS, agent))) {
+			return null;
+		}
+		return new EngineTimings(agent, profile);
+	}
+
+	long cpuTime() {
+		return threads != null ? threads.getCurrentThreadCpuTime() : -1;
+	}
+
+	Measurement startPhase(Phase phase) {
+		return new Measurement(EngineTimingEvent.TYPE_PHASE, null, phase.phaseId, null, null, null);
+	}
+
+	Measurement startOperand(Measurement phase, Operand operand) {
+		return new Measurement(EngineTimingEvent.TYPE_OPERAND, phase, phase.phaseId, operand, null, null);
+	}
+
+	/**
+	 * Starts measuring an action within the measurement running on the calling
+	 * thread.
+	 */
+	Measurement startAction(ProvisioningAction action) {
+		Measurement operand = CURRENT.get();
+		Touchpoint touchpoint = action.getTouchpoint();
+		ProvisioningAction actual = action instanceof ParameterizedProvisioningAction parameterized ? parameterized.getAction() : action;
+		return new Measurement(EngineTimingEvent.TYPE_ACTION, operand, operand != null ? operand.phaseId : null, operand != null ? operand.operand : null, touchpoint != null ? touchpoint.getClass().getName() : null, actual.getClass().getName());
+	}
+
+	/**
+	 * Ends the given measurement, which also ends any measurement of the same
+	 * thread that was started within it and not ended.
+	 */
+	void end(Measurement measurement) {
+		long wall = System.nanoTime() - measurement.wallStart;
+		long cpu = measurement.cpuStart < 0 ? -1 : cpuTime() - measurement.cpuStart;
+		CURRENT.set(measurement.previous);
+		long bytes = measurement.bytesDownloaded.get();
+		int files = measurement.filesWritten.get();
+		synchronized (this) {
+			switch (measurement.type) {
+				case EngineTimingEvent.TYPE_PHASE :
+					phases.computeIfAbsent(measurement.phaseId, k -> new Totals()).add(wall, cpu, bytes, files);
+					break;
+				case EngineTimingEvent.TYPE_OPERAND :
+					operands.add(new OperandTiming(measurement.phaseId, measurement.operand.toString(), wall, cpu, bytes, files));
+					break;
+				default :
+					actions.computeIfAbsent(Arrays.asList(measurement.phaseId, measurement.touchpoint, measurement.action), k -> new Totals()).add(wall, cpu, bytes, files);
+					touchpoints.computeIfAbsent(Arrays.asList(measurement.phaseId, measurement.touchpoint), k -> new Totals()).add(wall, cpu, bytes, files);
+			}
+		}
+		publish(new EngineTimingEvent(profile, measurement.type, measurement.phaseId, measurement.operand, measurement.touchpoint, measurement.action, wall, cpu, bytes, files));
+	}
+
+	/**
+	 * Adds downloaded bytes and files to the measurements running on the calling
+	 * thread, if any.
+	 */
+	public static void recordDownload(long bytes, int files) {
+		Measurement current = CURRENT.get();
+		if (current != null) {
+			current.add(bytes, files);
+		}
+	}
+
+	/**
+	 * Adds written files to the measurements running on the calling thread, if
+	 * any.
+	 */
+	public static void recordFilesWritten(int files) {
+		recordDownload(0, files);
+	}
+
+	/**
+	 * Returns whether a measurement is running on the calling thread.
+	 */
+	public static boolean isMeasuring() {
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Ends the operation: publishes its totals and writes the report.
+	 */
+	void finish(IStatus result) {
+		long wall = System.nanoTime() - wallStart;
+		long cpu = threads != null ? 0 : -1;
+		long bytes = 0;
+		int files = 0;
+		synchronized (this) {
+			for (Totals totals : phases.values()) {
+				cpu = cpu < 0 || totals.cpuTime < 0 ? -1 : cpu + totals.cpuTime;
+				bytes += totals.bytesDownloaded;
+				files += totals.filesWritten;
+			}
+		}
+		publish(new EngineTimingEvent(profile, EngineTimingEvent.TYPE_OPERATION, null, null, null, null, wall, cpu, bytes, files));
+		File report = getReportFile();
+		if (report == null) {
+			return;
+		}
+		report.getParentFile().mkdirs();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(report), StandardCharsets.UTF_8))) {
+			writeReport(writer, result, wall, cpu, bytes, files);
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.WARNING, EngineActivator.ID, "Could not write the engine timings report " + report, e)); //$NON-NLS-1$
+		}
+	}
+
+	private File getReportFile() {
+		String location = EngineActivator.getProperty(PROP_TIMINGS_REPORT, agent);
+		if (location != null) {
+			return new File(location);
+		}
+		IAgentLocation agentLocation = agent != null ? agent.getService(IAgentLocation.class) : null;
+		if (agentLocation == null || agentLocation.getDataArea(EngineActivator.ID) == null) {
+			return null;
+		}
+		File directory = new File(URIUtil.toFile(agentLocation.getDataArea(EngineActivator.ID)), TIMINGS_DIRECTORY);
+		return new File(directory, SlashEncode.encode(profile.getProfileId()) + '-' + System.currentTimeMillis() + ".json"); //$NON-NLS-1$
+	}
+
+	private synchronized void writeReport(Writer out, IStatus result, long wall, long cpu, long bytes, int files) throws IOException {
+		out.write("{\n"); //$NON-NLS-1$
+		out.write("  \"profile\": " + quote(profile.getProfileId()) + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		out.write("  \"severity\": " + result.getSeverity() + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		out.write("  \"total\": " + totals(wall, cpu, bytes, files) + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		out.write("  \"phases\": ["); //$NON-NLS-1$
+		String separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<String, Totals> entry : phases.entrySet()) {
+			out.write(separator + "    {\"phase\": " + quote(entry.getKey()) + ", " + totals(entry.getValue()) + '}'); //$NON-NLS-1$ //$NON-NLS-2$
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		out.write("\n  ],\n  \"touchpoints\": ["); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<List<String>, Totals> entry : touchpoints.entrySet()) {
+			out.write(separator + "    {\"phase\": " + quote(entry.getKey().get(0)) + ", \"touchpoint\": " + quote(entry.getKey().get(1)) + ", " + totals(entry.getValue()) + '}'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		out.write("\n  ],\n  \"actions\": ["); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (Map.Entry<List<String>, Totals> entry : actions.entrySet()) {
+			out.write(separator + "    {\"phase\": " + quote(entry.getKey().get(0)) + ", \"touchpoint\": " + quote(entry.getKey().get(1)) + ", \"action\": " + quote(entry.getKey().get(2)) + ", " + totals(entry.getValue()) + '}'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		out.write("\n  ],\n  \"operands\": ["); //$NON-NLS-1$
+		separator = "\n"; //$NON-NLS-1$
+		for (OperandTiming operand : operands) {
+			out.write(separator + "    {\"phase\": " + quote(operand.phaseId()) + ", \"operand\": " + quote(operand.operand()) + ", " + totals(operand.wallTime(), operand.cpuTime(), operand.bytesDownloaded(), operand.filesWritten()) + '}'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			separator = ",\n"; //$NON-NLS-1$
+		}
+		out.write("\n  ]\n}\n"); //$NON-NLS-1$
+	}
+
+	private static String totals(Totals totals) {
+		return "\"count\": " + totals.count + ", " + totals(totals.wallTime, totals.cpuTime, totals.bytesDownloaded, totals.filesWritten); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static String totals(long wall, long cpu, long bytes, int files) {
+		return "\"wallNanos\": " + wall + ", \"cpuNanos\": " + cpu + ", \"bytesDownloaded\": " + bytes + ", \"filesWritten\": " + files; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null"; //$NON-NLS-1$
+		}
+		StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' :
+				case '\\' :
+					result.append('\\').append(c);
+					break;
+				case '\n' :
+					result.append("\\n"); //$NON-NLS-1$
+					break;
+				case '\r' :
+					result.append("\\r"); //$NON-NLS-1$
+					break;
+				case '\t' :
+					result.append("\\t"); //$NON-NLS-1$
+					break;
+				default :
+					if (c < 0x20) {
+						result.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+					} else {
+						result.append(c);
+					}
+			}
+		}
+		return result.append('"').toString();
+	}
+
+	private void publish(EngineTimingEvent event) {
+		IProvisioningEventBus bus = agent != null ? agent.getService(IProvisioningEventBus.class) : null;
+		if (bus != null) {
+			bus.publishEvent(event);
+		}
+	}
+}
@@ -99,6 +99,17 @@ public abstract class InstallableUnitPhase extends Phase {
 		return true;
 	}
 
+	@Override
+	protected boolean isIndependent(Operand operand, List<ProvisioningAction> actions) {
+		// the touchpoint of the operand is only known once the operand is initialized
+		InstallableUnitOperand iuOperand = (InstallableUnitOperand) operand;
+		return isIndependent(iuOperand.first()) && isIndependent(iuOperand.second()) && super.isIndependent(operand, actions);
+	}
+
+	private boolean isIndependent(IInstallableUnit unit) {
+		return unit == null || isIndependent(getActionManager().getTouchpointPoint(unit.getTouchpointType()));
+	}
+
 	protected final List<ProvisioningAction> getActions(IInstallableUnit unit, String key) {
 		List<ITouchpointInstruction> instructions = getInstructions(unit, key);
 		int instrSize = instructions.size();
@@ -106,6 +106,7 @@ public class Messages extends NLS {
 	public static String profile_not_registered;
 	public static String Profile_Null_Profile_Id;
 	public static String Profile_Parent_Not_Found;
+	public static String Profile_Content_Not_Loaded;
 	public static String ProfilePreferences_saving;
 	public static String reg_dir_not_available;
 	public static String rollingback_cancel;
@@ -15,6 +15,7 @@
 package org.eclipse.equinox.internal.p2.engine;
 
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
@@ -39,6 +40,13 @@ public abstract class Phase {
 	protected static final String LAST_RESULT_INTERNAL_NAME = "_p2_internal_last_result_variable_"; //$NON-NLS-1$ //
 	protected static final String LAST_RESULT_PUBLIC_NAME = "lastResult"; //$NON-NLS-1$
 
+	/**
+	 * Agent property controlling how many independent operands of a phase are
+	 * performed concurrently, see {@link #hasIndependentOperands()}.
+	 */
+	private static final String PROP_OPERAND_THREADS = "eclipse.p2.engine.operand.threads"; //$NON-NLS-1$
+	private static final int DEFAULT_OPERAND_THREADS = 4;
+
 	protected final String phaseId;
 	protected final int weight;
 	protected final boolean forced;
@@ -49,6 +57,10 @@ public abstract class Phase {
 	private final Map<String, Object> phaseParameters = new HashMap<>();
 	private final Map<Touchpoint, Map<String, Object>> touchpointToTouchpointPhaseParameters = new HashMap<>();
 	private final Map<Touchpoint, Map<String, Object>> touchpointToTouchpointOperandParameters = new HashMap<>();
+	// the measurement of this phase if the session is measured
+	private EngineTimings.Measurement phaseTiming;
+	// the operands of the plan while the phase is performed
+	private Operand[] operands;
 	ActionManager actionManager; // injected from phaseset
 	protected boolean isPaused = false;
 
@@ -90,30 +102,41 @@ public abstract class Phase {
 
 	void perform(MultiStatus status, EngineSession session, Operand[] operands, IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, prePerformWork + mainPerformWork + postPerformWork);
-		session.recordPhaseEnter(this);
-		broadcastPhaseEvent(session, operands, PhaseEvent.TYPE_START);
-		prePerform(status, session, subMonitor.newChild(prePerformWork));
-		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-			return;
-		}
-		session.recordPhaseStart(this);
+		EngineTimings timings = session.getTimings();
+		phaseTiming = timings != null ? timings.startPhase(this) : null;
+		this.operands = operands;
+		try {
+			session.recordPhaseEnter(this);
+			broadcastPhaseEvent(session, operands, PhaseEvent.TYPE_START);
+			prePerform(status, session, subMonitor.newChild(prePerformWork));
+			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+				return;
+			}
+			session.recordPhaseStart(this);
 
-		subMonitor.setWorkRemaining(mainPerformWork + postPerformWork);
-		mainPerform(status, session, operands, subMonitor.newChild(mainPerformWork));
-		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-			return;
-		}
+			subMonitor.setWorkRemaining(mainPerformWork + postPerformWork);
+			mainPerform(status, session, operands, subMonitor.newChild(mainPerformWork));
+			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+				return;
+			}
 
-		session.recordPhaseEnd(this);
-		subMonitor.setWorkRemaining(postPerformWork);
-		postPerform(status, session, subMonitor.newChild(postPerformWork));
-		phaseParameters.clear();
-		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-			return;
+			session.recordPhaseEnd(this);
+			subMonitor.setWorkRemaining(postPerformWork);
+			postPerform(status, session, subMonitor.newChild(postPerformWork));
+			phaseParameters.clear();
+			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+				return;
+			}
+			broadcastPhaseEvent(session, operands, PhaseEvent.TYPE_END);
+			session.recordPhaseExit(this);
+			subMonitor.done();
+		} finally {
+			this.operands = null;
+			if (phaseTiming != null) {
+				timings.end(phaseTiming);
+				phaseTiming = null;
+			}
 		}
-		broadcastPhaseEvent(session, operands, PhaseEvent.TYPE_END);
-		session.recordPhaseExit(this);
-		subMonitor.done();
 	}
 
 	void prePerform(MultiStatus status, EngineSession session, IProgressMonitor monitor) {
@@ -130,130 +153,247 @@ public abstract class Phase {
 	private void mainPerform(MultiStatus status, EngineSession session, Operand[] operands, SubMonitor subMonitor) {
 		IProfile profile = session.getProfile();
 		subMonitor.beginTask(null, operands.length);
-		for (int i = 0; i < operands.length; i++) {
-			subMonitor.setWorkRemaining(operands.length - i);
-			if (subMonitor.isCanceled()) {
-				throw new OperationCanceledException();
-			}
-			while (isPaused) {
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException e) {
-					mergeStatus(status, new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.phase_thread_interrupted_error, phaseId), e));
-					return;
-				}
+		IndependentOperands independentOperands = createIndependentOperands(session, operands, subMonitor);
+		EngineTimings.Measurement operandTiming = null;
+		try {
+			for (int i = 0; i < operands.length; i++) {
+				subMonitor.setWorkRemaining(operands.length - i + (independentOperands != null ? independentOperands.pending : 0));
 				if (subMonitor.isCanceled()) {
 					throw new OperationCanceledException();
 				}
+				while (isPaused) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						mergeStatus(status, new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.phase_thread_interrupted_error, phaseId), e));
+						return;
+					}
+					if (subMonitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+				}
+				Operand operand = operands[i];
+				if (!isApplicable(operand)) {
+					continue;
+				}
+
+				List<ProvisioningAction> actions;
+				if (independentOperands != null) {
+					actions = getActions(operand);
+					if (isIndependent(operand, actions)) {
+						independentOperands.submit(operand, actions);
+						if (!independentOperands.collect(status, false)) {
+							return;
+						}
+						continue;
+					}
+					// any other operand is performed once the preceding independent operands are done
+					if (!independentOperands.collect(status, true)) {
+						return;
+					}
+					session.recordOperandStart(operand);
+				} else {
+					session.recordOperandStart(operand);
+					actions = getActions(operand);
+				}
+				operandTiming = startTiming(session, operand);
+
+				operandParameters = new HashMap<>(phaseParameters);
+				operandParameters.put(PARM_OPERAND, operand);
+				mergeStatus(status, initializeOperand(profile, operand, operandParameters, subMonitor));
+				if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+					operandParameters = null;
+					return;
+				}
+
+				Touchpoint operandTouchpoint = (Touchpoint) operandParameters.get(PARM_TOUCHPOINT);
+				if (operandTouchpoint != null) {
+					mergeStatus(status, initializeTouchpointParameters(profile, operand, operandTouchpoint, subMonitor));
+					if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+						return;
+					}
+
+					operandParameters = touchpointToTouchpointOperandParameters.get(operandTouchpoint);
+				}
+
+				if (actions != null && !executeActions(status, session, profile, operand, actions, operandParameters, touchpointToTouchpointOperandParameters, subMonitor)) {
+					return;
+				}
+				mergeStatus(status, touchpointCompleteOperand(profile, operand, operandParameters, subMonitor));
+				mergeStatus(status, completeOperand(profile, operand, operandParameters, subMonitor));
+				if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+					return;
+				}
+				operandParameters = null;
+				session.recordOperandEnd(operand);
+				endTiming(session, operandTiming);
+				operandTiming = null;
+				subMonitor.worked(1);
 			}
-			Operand operand = operands[i];
-			if (!isApplicable(operand)) {
-				continue;
+			if (independentOperands != null) {
+				independentOperands.collect(status, true);
 			}
+		} finally {
+			// also measure the operand that failed
+			endTiming(session, operandTiming);
+			if (independentOperands != null) {
+				independentOperands.shutdown();
+			}
+		}
+	}
 
-			session.recordOperandStart(operand);
-			List<ProvisioningAction> actions = getActions(operand);
-			operandParameters = new HashMap<>(phaseParameters);
-			operandParameters.put(PARM_OPERAND, operand);
-			mergeStatus(status, initializeOperand(profile, operand, operandParameters, subMonitor));
+	/**
+	 * Performs an independent operand on a thread of the operand pool. The
+	 * parameters of the operand are only visible to this thread, and the session
+	 * records the executed actions of each thread separately, so that every
+	 * started operand is undone on rollback.
+	 */
+	private IStatus performIndependentOperand(EngineSession session, Operand operand, List<ProvisioningAction> actions, IProgressMonitor monitor) {
+		EngineTimings.Measurement operandTiming = startTiming(session, operand);
+		try {
+			return performOperand(session, operand, actions, monitor);
+		} finally {
+			// the thread is shared, a failed operand must not remain its current one
+			session.recordOperandAbort(operand);
+			endTiming(session, operandTiming);
+		}
+	}
+
+	private IStatus performOperand(EngineSession session, Operand operand, List<ProvisioningAction> actions, IProgressMonitor monitor) {
+		IProfile profile = session.getProfile();
+		MultiStatus status = new MultiStatus(EngineActivator.ID, IStatus.OK, null, null);
+		session.recordOperandStart(operand);
+		Map<String, Object> parameters = new HashMap<>(phaseParameters);
+		parameters.put(PARM_OPERAND, operand);
+		mergeStatus(status, initializeOperand(profile, operand, parameters, monitor));
+		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+			return status;
+		}
+
+		Map<Touchpoint, Map<String, Object>> touchpointOperandParameters = new HashMap<>();
+		Touchpoint operandTouchpoint = (Touchpoint) parameters.get(PARM_TOUCHPOINT);
+		if (operandTouchpoint != null) {
+			mergeStatus(status, initializeTouchpointParameters(profile, operandTouchpoint, parameters, touchpointOperandParameters, monitor));
 			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-				operandParameters = null;
-				return;
+				return status;
 			}
 
-			Touchpoint operandTouchpoint = (Touchpoint) operandParameters.get(PARM_TOUCHPOINT);
-			if (operandTouchpoint != null) {
-				mergeStatus(status, initializeTouchpointParameters(profile, operand, operandTouchpoint, subMonitor));
+			parameters = touchpointOperandParameters.get(operandTouchpoint);
+		}
+
+		if (actions != null && !executeActions(status, session, profile, operand, actions, parameters, touchpointOperandParameters, monitor)) {
+			return status;
+		}
+		mergeStatus(status, touchpointCompleteOperand(profile, touchpointOperandParameters));
+		mergeStatus(status, completeOperand(profile, operand, parameters, monitor));
+		if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+			return status;
+		}
+		session.recordOperandEnd(operand);
+		return status;
+	}
+
+	/**
+	 * Executes the given actions of an operand. Returns <code>false</code> if the
+	 * resulting status does not allow to continue with the phase.
+	 */
+	private boolean executeActions(MultiStatus status, EngineSession session, IProfile profile, Operand operand, List<ProvisioningAction> actions, Map<String, Object> operandParams, Map<Touchpoint, Map<String, Object>> touchpointOperandParameters, IProgressMonitor monitor) {
+		Object lastResult = null;
+		for (ProvisioningAction action : actions) {
+			Map<String, Object> parameters = operandParams;
+			Touchpoint touchpoint = action.getTouchpoint();
+			if (touchpoint != null) {
+				mergeStatus(status, initializeTouchpointParameters(profile, touchpoint, operandParams, touchpointOperandParameters, monitor));
 				if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-					return;
+					return false;
 				}
 
-				operandParameters = touchpointToTouchpointOperandParameters.get(operandTouchpoint);
+				parameters = touchpointOperandParameters.get(touchpoint);
 			}
+			if (lastResult != null) {
+				parameters = new HashMap<>(parameters);
+				parameters.put(LAST_RESULT_INTERNAL_NAME, lastResult);
+			}
+			parameters = Collections.unmodifiableMap(parameters);
 
-			if (actions != null) {
-				Object lastResult = null;
-				for (ProvisioningAction action : actions) {
-					Map<String, Object> parameters = operandParameters;
-					Touchpoint touchpoint = action.getTouchpoint();
-					if (touchpoint != null) {
-						mergeStatus(status, initializeTouchpointParameters(profile, operand, touchpoint, subMonitor));
-						if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-							return;
-						}
-
-						parameters = touchpointToTouchpointOperandParameters.get(touchpoint);
-					}
-					if (lastResult != null) {
-						parameters = new HashMap<>(parameters);
-						parameters.put(LAST_RESULT_INTERNAL_NAME, lastResult);
-					}
-					parameters = Collections.unmodifiableMap(parameters);
-
-					IStatus actionStatus = null;
-					try {
-						session.recordActionExecute(action, parameters);
-						actionStatus = action.execute(parameters);
-						lastResult = action.getResult();
-					} catch (RuntimeException e) {
-						if (!forced) {
-							throw e;
-						}
-						// "action.execute" calls user code and might throw an unchecked exception
-						// we catch the error here to gather information on where the problem occurred.
-						actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
-					} catch (LinkageError e) {
-						if (!forced) {
-							throw e;
-						}
-						// Catch linkage errors as these are generally recoverable but let other Errors propagate (see bug 222001)
-						actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
-					}
-					if (forced && actionStatus != null && actionStatus.matches(IStatus.ERROR)) {
-						MultiStatus result = new MultiStatus(EngineActivator.ID, IStatus.ERROR, getProblemMessage(), null);
-						result.add(new Status(IStatus.ERROR, EngineActivator.ID, session.getContextString(this, operand, action), null));
-						LogHelper.log(result);
-						actionStatus = Status.OK_STATUS;
-					}
-					mergeStatus(status, actionStatus);
-					if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-						return;
-					}
+			IStatus actionStatus = null;
+			EngineTimings timings = session.getTimings();
+			EngineTimings.Measurement actionTiming = timings != null ? timings.startAction(action) : null;
+			try {
+				session.recordActionExecute(action, parameters);
+				actionStatus = action.execute(parameters);
+				lastResult = action.getResult();
+			} catch (RuntimeException e) {
+				if (!forced) {
+					throw e;
+				}
+				// "action.execute" calls user code and might throw an unchecked exception
+				// we catch the error here to gather information on where the problem occurred.
+				actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
+			} catch (LinkageError e) {
+				if (!forced) {
+					throw e;
 				}
+				// Catch linkage errors as these are generally recoverable but let other Errors propagate (see bug 222001)
+				actionStatus = new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.forced_action_execute_error, action.getClass().getName()), e);
+			} finally {
+				endTiming(session, actionTiming);
+			}
+			if (forced && actionStatus != null && actionStatus.matches(IStatus.ERROR)) {
+				MultiStatus result = new MultiStatus(EngineActivator.ID, IStatus.ERROR, getProblemMessage(), null);
+				result.add(new Status(IStatus.ERROR, EngineActivator.ID, session.getContextString(this, operand, action), null));
+				LogHelper.log(result);
+				actionStatus = Status.OK_STATUS;
 			}
-			mergeStatus(status, touchpointCompleteOperand(profile, operand, operandParameters, subMonitor));
-			mergeStatus(status, completeOperand(profile, operand, operandParameters, subMonitor));
+			mergeStatus(status, actionStatus);
 			if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-				return;
+				return false;
 			}
-			operandParameters = null;
-			session.recordOperandEnd(operand);
-			subMonitor.worked(1);
+		}
+		return true;
+	}
+
+	private EngineTimings.Measurement startTiming(EngineSession session, Operand operand) {
+		EngineTimings timings = session.getTimings();
+		return timings != null && phaseTiming != null ? timings.startOperand(phaseTiming, operand) : null;
+	}
+
+	private static void endTiming(EngineSession session, EngineTimings.Measurement measurement) {
+		if (measurement != null) {
+			session.getTimings().end(measurement);
 		}
 	}
 
 	private IStatus initializeTouchpointParameters(IProfile profile, Operand operand, Touchpoint touchpoint, IProgressMonitor monitor) {
-		if (touchpointToTouchpointOperandParameters.containsKey(touchpoint)) {
+		return initializeTouchpointParameters(profile, touchpoint, operandParameters, touchpointToTouchpointOperandParameters, monitor);
+	}
+
+	private IStatus initializeTouchpointParameters(IProfile profile, Touchpoint touchpoint, Map<String, Object> operandParams, Map<Touchpoint, Map<String, Object>> touchpointOperandParameters, IProgressMonitor monitor) {
+		if (touchpointOperandParameters.containsKey(touchpoint)) {
 			return Status.OK_STATUS;
 		}
 
-		Map<String, Object> touchpointPhaseParameters = touchpointToTouchpointPhaseParameters.get(touchpoint);
-		if (touchpointPhaseParameters == null) {
-			touchpointPhaseParameters = new HashMap<>(phaseParameters);
-			IStatus status = touchpoint.initializePhase(monitor, profile, phaseId, touchpointPhaseParameters);
-			if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL)) {
-				return status;
+		Map<String, Object> touchpointPhaseParameters;
+		// independent operands share the phase parameters of their touchpoints
+		synchronized (touchpointToTouchpointPhaseParameters) {
+			touchpointPhaseParameters = touchpointToTouchpointPhaseParameters.get(touchpoint);
+			if (touchpointPhaseParameters == null) {
+				touchpointPhaseParameters = new HashMap<>(phaseParameters);
+				IStatus status = touchpoint.initializePhase(monitor, profile, phaseId, touchpointPhaseParameters);
+				if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+					return status;
+				}
+				touchpointToTouchpointPhaseParameters.put(touchpoint, touchpointPhaseParameters);
 			}
-			touchpointToTouchpointPhaseParameters.put(touchpoint, touchpointPhaseParameters);
 		}
 
-		Map<String, Object> touchpointOperandParameters = new HashMap<>(touchpointPhaseParameters);
-		touchpointOperandParameters.putAll(operandParameters);
-		IStatus status = touchpoint.initializeOperand(profile, touchpointOperandParameters);
+		Map<String, Object> touchpointOperandParams = new HashMap<>(touchpointPhaseParameters);
+		touchpointOperandParams.putAll(operandParams);
+		IStatus status = touchpoint.initializeOperand(profile, touchpointOperandParams);
 		if (status != null && status.matches(IStatus.ERROR | IStatus.CANCEL)) {
 			return status;
 		}
-		touchpointToTouchpointOperandParameters.put(touchpoint, touchpointOperandParameters);
+		touchpointOperandParameters.put(touchpoint, touchpointOperandParams);
 		return Status.OK_STATUS;
 	}
 
@@ -326,6 +466,177 @@ public abstract class Phase {
 		return true;
 	}
 
+	/**
+	 * Returns whether the operands of this phase are independent of each other, so
+	 * that they may be performed concurrently. Phases returning <code>true</code>
+	 * must make {@link #initializeOperand(IProfile, Operand, Map, IProgressMonitor)}
+	 * and {@link #completeOperand(IProfile, Operand, Map, IProgressMonitor)} safe
+	 * for concurrent use, as well as the objects they share between operands
+	 * through the phase parameters. Operands are only performed concurrently if the
+	 * touchpoints involved declare them independent in this phase too.
+	 */
+	protected boolean hasIndependentOperands() {
+		return false;
+	}
+
+	/**
+	 * Returns the operands of the plan in their order while this phase is
+	 * performed, and an empty list otherwise, for example while it is rolled back.
+	 * Phases with independent operands use it to order what their operands
+	 * produced.
+	 */
+	protected final List<Operand> getOperands() {
+		return operands != null ? Collections.unmodifiableList(Arrays.asList(operands)) : Collections.emptyList();
+	}
+
+	/**
+	 * Returns whether the given operand with the given actions may be performed
+	 * concurrently with the other independent operands of this phase.
+	 */
+	protected boolean isIndependent(Operand operand, List<ProvisioningAction> actions) {
+		if (actions != null) {
+			for (ProvisioningAction action : actions) {
+				if (!isIndependent(action.getTouchpoint())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the given touchpoint declares the operands of this phase
+	 * independent. Operands without a touchpoint are independent.
+	 */
+	protected final boolean isIndependent(Touchpoint touchpoint) {
+		return touchpoint == null || actionManager.hasIndependentOperands(touchpoint, phaseId);
+	}
+
+	private IndependentOperands createIndependentOperands(EngineSession session, Operand[] operands, SubMonitor subMonitor) {
+		if (!hasIndependentOperands() || operands.length < 2) {
+			return null;
+		}
+		int threads = DEFAULT_OPERAND_THREADS;
+		String value = EngineActivator.getProperty(PROP_OPERAND_THREADS, session.getAgent());
+		if (value != null) {
+			try {
+				threads = Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		threads = Math.min(threads, operands.length);
+		return threads > 1 ? new IndependentOperands(session, threads, subMonitor) : null;
+	}
+
+	/**
+	 * Performs independent operands on at most the given number of the shared
+	 * {@link EngineExecutor} threads. All operands are submitted by the thread
+	 * performing the phase, which also merges the status of the completed operands
+	 * and reports their progress. Once an operand fails, the operands that have not
+	 * been started yet are skipped.
+	 */
+	private class IndependentOperands {
+		private final EngineSession session;
+		private final CompletionService<IStatus> completion;
+		private final IProgressMonitor operandMonitor;
+		private final SubMonitor subMonitor;
+		private volatile boolean failed;
+		int pending;
+
+		IndependentOperands(EngineSession session, int threads, SubMonitor subMonitor) {
+			this.session = session;
+			this.subMonitor = subMonitor;
+			this.completion = new ExecutorCompletionService<>(EngineExecutor.limited(threads));
+			// only cancelation is shared with the monitor of the phase, which is not thread safe
+			this.operandMonitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return subMonitor.isCanceled();
+				}
+			};
+		}
+
+		void submit(Operand operand, List<ProvisioningAction> actions) {
+			pending++;
+			completion.submit(() -> {
+				if (failed) {
+					return Status.OK_STATUS;
+				}
+				if (operandMonitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				try {
+					IStatus result = performIndependentOperand(session, operand, actions, operandMonitor);
+					if (result.matches(IStatus.ERROR | IStatus.CANCEL)) {
+						failed = true;
+					}
+					return result;
+				} catch (RuntimeException | Error e) {
+					failed = true;
+					throw e;
+				}
+			});
+		}
+
+		/**
+		 * Merges the status of the completed operands into the given status, waiting
+		 * for all pending operands if requested. Returns <code>false</code> if the
+		 * merged status does not allow to continue with the phase.
+		 */
+		boolean collect(MultiStatus status, boolean wait) {
+			try {
+				while (pending > 0) {
+					Future<IStatus> future = wait ? completion.take() : completion.poll();
+					if (future == null) {
+						break;
+					}
+					pending--;
+					mergeStatus(status, getStatus(future));
+					subMonitor.worked(1);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			return !status.matches(IStatus.ERROR | IStatus.CANCEL);
+		}
+
+		private IStatus getStatus(Future<IStatus> future) throws InterruptedException {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtime) {
+					throw runtime;
+				}
+				if (e.getCause() instanceof Error error) {
+					throw error;
+				}
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Skips the operands not started yet and waits for the running ones, so that
+		 * the session knows all performed actions before the phase ends or is rolled back.
+		 */
+		void shutdown() {
+			failed = failed || pending > 0;
+			boolean interrupted = false;
+			while (pending > 0) {
+				try {
+					completion.take();
+					pending--;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	protected IStatus initializePhase(IProgressMonitor monitor, IProfile profile, Map<String, Object> parameters) {
 		return Status.OK_STATUS;
 	}
@@ -354,17 +665,21 @@ public abstract class Phase {
 	}
 
 	IStatus touchpointCompleteOperand(IProfile profile, Operand operand, Map<String, Object> parameters, IProgressMonitor monitor) {
-		if (touchpointToTouchpointOperandParameters.isEmpty()) {
+		return touchpointCompleteOperand(profile, touchpointToTouchpointOperandParameters);
+	}
+
+	private static IStatus touchpointCompleteOperand(IProfile profile, Map<Touchpoint, Map<String, Object>> touchpointOperandParameters) {
+		if (touchpointOperandParameters.isEmpty()) {
 			return Status.OK_STATUS;
 		}
 
 		MultiStatus status = new MultiStatus(EngineActivator.ID, IStatus.OK, null, null);
-		for (Map.Entry<Touchpoint, Map<String, Object>> entry : touchpointToTouchpointOperandParameters.entrySet()) {
+		for (Map.Entry<Touchpoint, Map<String, Object>> entry : touchpointOperandParameters.entrySet()) {
 			Touchpoint touchpoint = entry.getKey();
 			Map<String, Object> touchpointParameters = entry.getValue();
 			mergeStatus(status, touchpoint.completeOperand(profile, touchpointParameters));
 		}
-		touchpointToTouchpointOperandParameters.clear();
+		touchpointOperandParameters.clear();
 		return status;
 	}
 
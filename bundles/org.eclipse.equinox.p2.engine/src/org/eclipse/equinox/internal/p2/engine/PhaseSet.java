@@ -52,6 +52,7 @@ public class PhaseSet implements IPhaseSet {
 		int[] weights = getProgressWeights(operands, array);
 		int totalWork = getTotalWork(weights);
 		SubMonitor pm = SubMonitor.convert(monitor, totalWork);
+		TrustCheckPipeline pipeline = createTrustCheckPipeline(session, array);
 		try {
 			isRunning = true;
 			for (int i = 0; i < array.length; i++) {
@@ -88,12 +89,48 @@ public class PhaseSet implements IPhaseSet {
 				}
 			}
 		} finally {
+			if (pipeline != null) {
+				closeTrustCheckPipeline(array, pipeline);
+			}
 			pm.done();
 			isRunning = false;
 		}
 		return status;
 	}
 
+	/**
+	 * Creates a pipeline verifying signatures while downloading and sets it on the
+	 * collect and check trust phases, if the artifacts are checked after they have
+	 * been collected.
+	 */
+	private static TrustCheckPipeline createTrustCheckPipeline(EngineSession session, Phase[] array) {
+		Collect collect = null;
+		for (Phase phase : array) {
+			if (phase instanceof Collect c) {
+				collect = c;
+			} else if (phase instanceof CheckTrust checkTrust && collect != null) {
+				TrustCheckPipeline pipeline = TrustCheckPipeline.create(session.getAgent(), session.getProfile());
+				if (pipeline != null) {
+					collect.setTrustCheckPipeline(pipeline);
+					checkTrust.setTrustCheckPipeline(pipeline);
+				}
+				return pipeline;
+			}
+		}
+		return null;
+	}
+
+	private static void closeTrustCheckPipeline(Phase[] array, TrustCheckPipeline pipeline) {
+		for (Phase phase : array) {
+			if (phase instanceof Collect collect) {
+				collect.setTrustCheckPipeline(null);
+			} else if (phase instanceof CheckTrust checkTrust) {
+				checkTrust.setTrustCheckPipeline(null);
+			}
+		}
+		pipeline.close();
+	}
+
 	public synchronized boolean pause() {
 		if (isRunning && !isPaused && this.phases != null) {
 			isPaused = true;
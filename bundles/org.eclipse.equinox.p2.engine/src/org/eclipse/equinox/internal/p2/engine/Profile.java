@@ -18,9 +18,11 @@ package org.eclipse.equinox.internal.p2.engine;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.internal.p2.core.helpers.SharedHashMap;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.equinox.internal.p2.metadata.index.*;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
@@ -32,6 +34,7 @@ import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.osgi.util.NLS;
 
 public class Profile extends IndexProvider<IInstallableUnit> implements IProfile {
 
@@ -55,7 +58,8 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	private IIndex<IInstallableUnit> propertiesIndex;
 
-	private IIndex<IInstallableUnit> capabilityIndex;
+	// kept up to date as units are added and removed, once it has been built
+	private CapabilityIndex capabilityIndex;
 
 	private TranslationSupport translationSupport;
 
@@ -69,13 +73,27 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	 */
 	private final OrderedProperties storage = new OrderedProperties();
 
-	private final IUMap ius = new IUMap();
-	final Map<IInstallableUnit, OrderedProperties> iuProperties = new HashMap<>();
+	/*
+	 * The installable units and their properties are shared with the snapshots of
+	 * this profile. The properties of a unit are replaced rather than changed,
+	 * except for those copied since the last snapshot, which are kept in
+	 * writableProperties and changed in place.
+	 */
+	private IUMap ius = new IUMap();
+	SharedHashMap<IInstallableUnit, OrderedProperties> iuProperties = new SharedHashMap<>();
+	// guarded by this
+	private final Map<IInstallableUnit, OrderedProperties> writableProperties = new HashMap<>();
 	private boolean changed = false;
 
 	private long timestamp;
 	private ISurrogateProfileHandler surrogateProfileHandler;
 
+	/**
+	 * Loads the installable units and their properties on first use, or
+	 * <code>null</code> if they are loaded.
+	 */
+	private volatile Supplier<ProfileSnapshot> contentLoader;
+
 	public Profile(IProvisioningAgent agent, String profileId, Profile parent, Map<String, String> properties) {
 		this.agent = agent;
 		if (profileId == null || profileId.length() == 0) {
@@ -178,8 +196,71 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 		changed = true;
 	}
 
+	/**
+	 * Discards the installable units of this profile and their properties, and
+	 * makes the profile load them with the given loader when they are first used.
+	 * The loader returns <code>null</code> if the content cannot be loaded. It may be
+	 * called more than once, and is called without holding the lock of the profile.
+	 */
+	public synchronized void setContentLoader(Supplier<ProfileSnapshot> loader) {
+		// replaced rather than cleared, so that concurrent iterations are not disturbed
+		ius = new IUMap();
+		iuProperties = new SharedHashMap<>();
+		writableProperties.clear();
+		idIndex = null;
+		capabilityIndex = null;
+		contentLoader = loader;
+	}
+
+	/**
+	 * Returns whether the installable units of this profile are loaded.
+	 */
+	public boolean isLoaded() {
+		return contentLoader == null;
+	}
+
+	/**
+	 * Loads the installable units of this profile if they are not loaded yet.
+	 *
+	 * @throws IllegalStateException if the snapshot of the profile cannot be read;
+	 *         the profile stays unloaded, so the next use reads it again
+	 */
+	private void load() {
+		Supplier<ProfileSnapshot> loader = contentLoader;
+		if (loader == null) {
+			return;
+		}
+		ProfileSnapshot content = loader.get();
+		if (content == null) {
+			// an empty profile would replace the installed units when it is saved
+			throw new IllegalStateException(NLS.bind(Messages.Profile_Content_Not_Loaded, profileId));
+		}
+		synchronized (this) {
+			if (contentLoader != loader) {
+				// loaded or discarded concurrently
+				return;
+			}
+			for (IInstallableUnit iu : content.getInstallableUnits()) {
+				Map<String, String> properties = content.getInstallableUnitProperties(iu);
+				iu = iu.unresolved();
+				ius.add(iu);
+				if (!properties.isEmpty()) {
+					OrderedProperties iuStorage = new OrderedProperties(properties.size());
+					iuStorage.putAll(properties);
+					iuProperties.put(iu, iuStorage);
+				}
+			}
+			contentLoader = null;
+		}
+	}
+
 	@Override
-	public synchronized IIndex<IInstallableUnit> getIndex(String memberName) {
+	public IIndex<IInstallableUnit> getIndex(String memberName) {
+		load();
+		return getLoadedIndex(memberName);
+	}
+
+	private synchronized IIndex<IInstallableUnit> getLoadedIndex(String memberName) {
 		if (InstallableUnit.MEMBER_ID.equals(memberName)) {
 			if (idIndex == null) {
 				idIndex = new IdIndex(ius);
@@ -205,11 +286,13 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	@Override
 	public Iterator<IInstallableUnit> everything() {
+		load();
 		return ius.iterator();
 	}
 
 	@Override
 	public boolean contains(IInstallableUnit element) {
+		load();
 		return ius.contains(element);
 	}
 
@@ -242,36 +325,62 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 
 	@Override
 	public String getInstallableUnitProperty(IInstallableUnit iu, String key) {
-		OrderedProperties properties = iuProperties.get(iu);
-		if (properties == null) {
-			return null;
-		}
+		load();
+		// the properties may be changed in place
+		synchronized (this) {
+			OrderedProperties properties = iuProperties.get(iu);
+			if (properties == null) {
+				return null;
+			}
 
-		return properties.getProperty(key);
+			return properties.getProperty(key);
+		}
 	}
 
 	public String setInstallableUnitProperty(IInstallableUnit iu, String key, String value) {
 		//		String iuKey = createIUKey(iu);
-		OrderedProperties properties = iuProperties.get(iu);
-		if (properties == null) {
-			properties = new OrderedProperties();
-			iuProperties.put(iu, properties);
+		load();
+		String oldValue;
+		synchronized (this) {
+			oldValue = (String) getWritableProperties(iu).setProperty(key, value);
 		}
-
 		changed = true;
-		return (String) properties.setProperty(key, value);
+		return oldValue;
 	}
 
-	public String removeInstallableUnitProperty(IInstallableUnit iu, String key) {
-		//		String iuKey = createIUKey(iu);
+	/**
+	 * Returns the properties of the given unit for changing them. They are only
+	 * copied if they have not been copied since the last snapshot, so that
+	 * changing many properties of a unit does not copy them each time. The caller
+	 * must hold the lock of this profile.
+	 */
+	private OrderedProperties getWritableProperties(IInstallableUnit iu) {
 		OrderedProperties properties = iuProperties.get(iu);
-		if (properties == null) {
-			return null;
+		if (properties != null && writableProperties.get(iu) == properties) {
+			return properties;
 		}
+		properties = properties == null ? new OrderedProperties() : new OrderedProperties(properties);
+		iuProperties.put(iu, properties);
+		writableProperties.put(iu, properties);
+		return properties;
+	}
 
-		String oldValue = properties.remove(key);
-		if (properties.isEmpty()) {
-			iuProperties.remove(iu);
+	public String removeInstallableUnitProperty(IInstallableUnit iu, String key) {
+		//		String iuKey = createIUKey(iu);
+		load();
+		String oldValue;
+		synchronized (this) {
+			OrderedProperties properties = iuProperties.get(iu);
+			if (properties == null || !properties.containsKey(key)) {
+				return null;
+			}
+
+			properties = getWritableProperties(iu);
+			oldValue = properties.remove(key);
+			if (properties.isEmpty()) {
+				iuProperties.remove(iu);
+				writableProperties.remove(iu);
+			}
 		}
 
 		changed = true;
@@ -312,29 +421,47 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	}
 
 	public void addInstallableUnit(IInstallableUnit iu) {
+		load();
 		iu = iu.unresolved();
-		if (ius.contains(iu)) {
-			return;
+		synchronized (this) {
+			if (ius.contains(iu)) {
+				return;
+			}
+			ius.add(iu);
+			if (capabilityIndex != null) {
+				capabilityIndex.addInstallableUnit(iu);
+			}
 		}
-
-		ius.add(iu);
 		changed = true;
 	}
 
 	public void removeInstallableUnit(IInstallableUnit iu) {
+		load();
 		iu = iu.unresolved();
-		ius.remove(iu);
+		synchronized (this) {
+			IInstallableUnit existing = ius.get(iu.getId(), iu.getVersion());
+			if (existing != null) {
+				ius.remove(existing);
+				if (capabilityIndex != null) {
+					capabilityIndex.removeInstallableUnit(existing);
+				}
+			}
+		}
 		changed = true;
 	}
 
 	@Override
 	public Map<String, String> getInstallableUnitProperties(IInstallableUnit iu) {
-		OrderedProperties properties = iuProperties.get(iu);
-		if (properties == null) {
-			properties = new OrderedProperties();
-		}
+		load();
+		// the properties may be changed in place, so they are copied under the lock
+		synchronized (this) {
+			OrderedProperties properties = iuProperties.get(iu);
+			if (properties == null) {
+				properties = new OrderedProperties();
+			}
 
-		return OrderedProperties.unmodifiableProperties(properties);
+			return OrderedProperties.unmodifiableProperties(properties);
+		}
 	}
 
 	public void clearLocalProperties() {
@@ -351,8 +478,8 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 	}
 
 	public void clearInstallableUnits() {
-		ius.clear();
-		iuProperties.clear();
+		// there is no need to load what is discarded anyway
+		setContentLoader(null);
 		changed = true;
 	}
 
@@ -374,30 +501,49 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			}
 		}
 
-		for (Iterator<IInstallableUnit> iter = ius.iterator(); iter.hasNext();) {
-			IInstallableUnit iu = iter.next();
-			snapshot.addInstallableUnit(iu);
-			Map<String, String> properties = getInstallableUnitProperties(iu);
-			if (properties != null) {
-				snapshot.addInstallableUnitProperties(iu, properties);
-			}
+		Supplier<ProfileSnapshot> loader = contentLoader;
+		if (loader != null) {
+			// the snapshot loads the same content when it is used
+			snapshot.setContentLoader(loader);
+			snapshot.setChanged(false);
+			return snapshot;
+		}
+
+		synchronized (this) {
+			snapshot.ius = ius.clone();
+			snapshot.iuProperties = iuProperties.snapshot();
+			// the snapshot shares the properties
+			writableProperties.clear();
 		}
 		snapshot.setChanged(false);
 		return snapshot;
 	}
 
 	public void addInstallableUnitProperties(IInstallableUnit iu, Map<String, String> properties) {
-		for (Entry<String, String> entry : properties.entrySet()) {
-			setInstallableUnitProperty(iu, entry.getKey(), entry.getValue());
+		if (properties.isEmpty()) {
+			return;
+		}
+		load();
+		synchronized (this) {
+			OrderedProperties iuStorage = getWritableProperties(iu);
+			for (Entry<String, String> entry : properties.entrySet()) {
+				iuStorage.setProperty(entry.getKey(), entry.getValue());
+			}
 		}
+		changed = true;
 	}
 
 	public void clearInstallableUnitProperties(IInstallableUnit iu) {
-		iuProperties.remove(iu);
+		load();
+		synchronized (this) {
+			iuProperties.remove(iu);
+			writableProperties.remove(iu);
+		}
 		changed = true;
 	}
 
 	public void clearOrphanedInstallableUnitProperties() {
+		load();
 		Set<IInstallableUnit> keys = iuProperties.keySet();
 		//		Set orphans = new HashSet();
 		Collection<IInstallableUnit> toRemove = new ArrayList<>();
@@ -407,8 +553,11 @@ public class Profile extends IndexProvider<IInstallableUnit> implements IProfile
 			}
 		}
 
-		for (IInstallableUnit iu : toRemove) {
-			iuProperties.remove(iu);
+		synchronized (this) {
+			for (IInstallableUnit iu : toRemove) {
+				iuProperties.remove(iu);
+				writableProperties.remove(iu);
+			}
 		}
 		//		List iuKeys = new ArrayList();
 		//		for (Iterator it = ius.iterator(); it.hasNext();)
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+/**
+ * Constants defining the structure of the binary form of a profile snapshot.
+ * <p>
+ * A binary snapshot starts with the {@link #MAGIC} number and the format
+ * {@link #CURRENT_VERSION}, followed by a table of all strings used by the
+ * snapshot, the header of the profile, a table of the distinct requirements of
+ * its installable units, and finally the installable units. Strings and
+ * requirements are referenced by their index in the tables. Every installable
+ * unit starts with its id and version followed by the length of its metadata.
+ * </p><p>
+ * Counts, lengths and indices are written as variable length integers. A string
+ * reference of 0 denotes <code>null</code>, any other reference is the index in
+ * the string table plus one.
+ * </p>
+ */
+public interface ProfileBinaryConstants {
+
+	public static final int MAGIC = 0x70327066; // "p2pf"
+	public static final int CURRENT_VERSION = 1;
+
+	// Kinds of installable units
+
+	public static final byte UNIT = 0;
+	public static final byte UNIT_FRAGMENT = 1;
+	public static final byte UNIT_PATCH = 2;
+
+	// Kinds of requirements
+
+	public static final byte REQUIREMENT_RANGE = 0;
+	public static final byte REQUIREMENT_PROPERTIES = 1;
+	public static final byte REQUIREMENT_EXPRESSION = 2;
+
+	// Types of capability property values
+
+	public static final byte VALUE_STRING = 0;
+	public static final byte VALUE_INTEGER = 1;
+	public static final byte VALUE_LONG = 2;
+	public static final byte VALUE_FLOAT = 3;
+	public static final byte VALUE_DOUBLE = 4;
+	public static final byte VALUE_BYTE = 5;
+	public static final byte VALUE_SHORT = 6;
+	public static final byte VALUE_CHARACTER = 7;
+	public static final byte VALUE_BOOLEAN = 8;
+	public static final byte VALUE_VERSION = 9;
+	public static final byte VALUE_LIST = 10;
+}
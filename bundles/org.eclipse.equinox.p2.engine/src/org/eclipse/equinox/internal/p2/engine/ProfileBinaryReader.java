@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.*;
+import org.eclipse.equinox.p2.metadata.expression.*;
+
+/**
+ * Reads profile snapshots written by the {@link ProfileBinaryWriter}.
+ * <p>
+ * Strings, versions, requirements and capabilities are shared through the given
+ * metadata pool. Installable units are always decoded from the snapshot and are
+ * not pooled: a unit of another snapshot or repository with the same id and
+ * version may differ in its metadata.
+ * </p>
+ */
+public class ProfileBinaryReader implements ProfileBinaryConstants {
+
+	private final DataInputStream input;
+	private final MetadataPool pool;
+
+	private String[] strings;
+	private IRequirement[] requirements;
+
+	public ProfileBinaryReader(InputStream input, MetadataPool pool) {
+		this.input = new DataInputStream(input);
+		this.pool = pool != null ? pool : MetadataPool.getDefault();
+	}
+
+	/**
+	 * Reads the id, the parent, the timestamp and the properties of the profile,
+	 * without its installable units.
+	 */
+	public ProfileSnapshot readHeader() throws IOException {
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Not a binary profile snapshot"); //$NON-NLS-1$
+		}
+		int version = readInt(input);
+		if (version != CURRENT_VERSION) {
+			throw new IOException("Unsupported binary profile snapshot version: " + version); //$NON-NLS-1$
+		}
+		strings = new String[readInt(input)];
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = new byte[readInt(input)];
+			input.readFully(bytes);
+			strings[i] = pool.share(new String(bytes, StandardCharsets.UTF_8));
+		}
+		String profileId = readString(input);
+		if (profileId == null) {
+			throw new IOException("Missing profile id"); //$NON-NLS-1$
+		}
+		ProfileSnapshot snapshot = new ProfileSnapshot(profileId);
+		snapshot.setParentId(readString(input));
+		snapshot.setTimestamp(input.readLong());
+		snapshot.setProperties(readProperties(input));
+		return snapshot;
+	}
+
+	/**
+	 * Reads the complete profile.
+	 */
+	public ProfileSnapshot readProfile() throws IOException {
+		ProfileSnapshot snapshot = readHeader();
+		try {
+			requirements = new IRequirement[readInt(input)];
+			for (int i = 0; i < requirements.length; i++) {
+				requirements[i] = pool.share(readRequirementEntry(input));
+			}
+			int size = readInt(input);
+			for (int i = 0; i < size; i++) {
+				String id = readString(input);
+				Version version = pool.parseVersion(readString(input));
+				byte[] metadata = new byte[readInt(input)];
+				input.readFully(metadata);
+				IInstallableUnit iu = readInstallableUnit(new DataInputStream(new ByteArrayInputStream(metadata)), id, version);
+				snapshot.addInstallableUnit(iu.unresolved(), readProperties(input));
+			}
+		} catch (IllegalArgumentException | ExpressionParseException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			// invalid versions, expressions, references or sizes
+			throw new IOException("Invalid binary profile snapshot of " + snapshot.getProfileId(), e); //$NON-NLS-1$
+		}
+		return snapshot;
+	}
+
+	private IInstallableUnit readInstallableUnit(DataInputStream in, String id, Version version) throws IOException {
+		InstallableUnitDescription description;
+		byte kind = in.readByte();
+		switch (kind) {
+			case UNIT_PATCH :
+				InstallableUnitPatchDescription patch = new InstallableUnitPatchDescription();
+				IRequirement[][] scope = new IRequirement[readInt(in)][];
+				for (int i = 0; i < scope.length; i++) {
+					scope[i] = readRequirements(in);
+				}
+				patch.setApplicabilityScope(scope);
+				IRequirementChange[] changes = new IRequirementChange[readInt(in)];
+				for (int i = 0; i < changes.length; i++) {
+					changes[i] = MetadataFactory.createRequirementChange(readRequirement(in), readRequirement(in));
+				}
+				patch.setRequirementChanges(changes);
+				patch.setLifeCycle(readRequirement(in));
+				description = patch;
+				break;
+			case UNIT_FRAGMENT :
+				InstallableUnitFragmentDescription fragment = new InstallableUnitFragmentDescription();
+				fragment.setHost(readRequirements(in));
+				description = fragment;
+				break;
+			case UNIT :
+				description = new InstallableUnitDescription();
+				break;
+			default :
+				throw new IOException("Unknown kind of installable unit: " + kind); //$NON-NLS-1$
+		}
+		description.setId(id);
+		description.setVersion(version);
+		description.setSingleton(in.readBoolean());
+		description.setUpdateDescriptor(readUpdateDescriptor(in));
+		for (Map.Entry<String, String> entry : readProperties(in).entrySet()) {
+			description.setProperty(entry.getKey(), entry.getValue());
+		}
+		description.setMetaRequirements(readRequirements(in));
+		description.setCapabilities(readProvidedCapabilities(in));
+		description.setRequirements(readRequirements(in));
+		description.setFilter(readFilter(in));
+
+		IArtifactKey[] artifacts = new IArtifactKey[readInt(in)];
+		for (int i = 0; i < artifacts.length; i++) {
+			artifacts[i] = new ArtifactKey(readString(in), readString(in), pool.parseVersion(readString(in)));
+		}
+		description.setArtifacts(artifacts);
+
+		String touchpointId = readString(in);
+		if (touchpointId != null) {
+			description.setTouchpointType(MetadataFactory.createTouchpointType(touchpointId, pool.parseVersion(readString(in))));
+		}
+		int touchpointDataSize = readInt(in);
+		for (int i = 0; i < touchpointDataSize; i++) {
+			int instructionsSize = readInt(in);
+			Map<String, ITouchpointInstruction> instructions = new LinkedHashMap<>(instructionsSize);
+			for (int j = 0; j < instructionsSize; j++) {
+				String key = readString(in);
+				instructions.put(key, MetadataFactory.createTouchpointInstruction(readString(in), readString(in)));
+			}
+			description.addTouchpointData(MetadataFactory.createTouchpointData(instructions));
+		}
+
+		ILicense[] licenses = new ILicense[readInt(in)];
+		for (int i = 0; i < licenses.length; i++) {
+			licenses[i] = MetadataFactory.createLicense(readURI(in), readString(in));
+		}
+		description.setLicenses(licenses);
+		if (in.readBoolean()) {
+			description.setCopyright(MetadataFactory.createCopyright(readURI(in), readString(in)));
+		}
+		return MetadataFactory.createInstallableUnit(description);
+	}
+
+	private IUpdateDescriptor readUpdateDescriptor(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		int size = readInt(in);
+		List<IMatchExpression<IInstallableUnit>> updated = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			updated.add(readMatchExpression(in));
+		}
+		int severity = readInt(in);
+		String description = readString(in);
+		return MetadataFactory.createUpdateDescriptor(updated, severity, description, readURI(in));
+	}
+
+	private IProvidedCapability[] readProvidedCapabilities(DataInputStream in) throws IOException {
+		IProvidedCapability[] capabilities = new IProvidedCapability[readInt(in)];
+		for (int i = 0; i < capabilities.length; i++) {
+			String namespace = readString(in);
+			int size = readInt(in);
+			Map<String, Object> properties = new HashMap<>(size);
+			for (int j = 0; j < size; j++) {
+				String key = readString(in);
+				properties.put(key, readValue(in));
+			}
+			capabilities[i] = pool.share(MetadataFactory.createProvidedCapability(namespace, properties));
+		}
+		return capabilities;
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case VALUE_STRING :
+				return readString(in);
+			case VALUE_INTEGER :
+				return in.readInt();
+			case VALUE_LONG :
+				return in.readLong();
+			case VALUE_FLOAT :
+				return in.readFloat();
+			case VALUE_DOUBLE :
+				return in.readDouble();
+			case VALUE_BYTE :
+				return in.readByte();
+			case VALUE_SHORT :
+				return in.readShort();
+			case VALUE_CHARACTER :
+				return in.readChar();
+			case VALUE_BOOLEAN :
+				return in.readBoolean();
+			case VALUE_VERSION :
+				return pool.parseVersion(readString(in));
+			case VALUE_LIST :
+				int size = readInt(in);
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in));
+				}
+				return list;
+			default :
+				throw new IOException("Unknown type of capability property: " + type); //$NON-NLS-1$
+		}
+	}
+
+	private IRequirement[] readRequirements(DataInputStream in) throws IOException {
+		IRequirement[] result = new IRequirement[readInt(in)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = readRequirement(in);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a reference to a requirement of the requirement table.
+	 */
+	private IRequirement readRequirement(DataInputStream in) throws IOException {
+		int index = readInt(in);
+		return index == 0 ? null : requirements[index - 1];
+	}
+
+	private IRequirement readRequirementEntry(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		String namespace = null;
+		String name = null;
+		VersionRange range = null;
+		IFilterExpression propertiesMatch = null;
+		IMatchExpression<IInstallableUnit> match = null;
+		switch (kind) {
+			case REQUIREMENT_RANGE :
+				namespace = readString(in);
+				name = readString(in);
+				range = pool.parseVersionRange(readString(in));
+				break;
+			case REQUIREMENT_PROPERTIES :
+				namespace = readString(in);
+				propertiesMatch = ExpressionUtil.parseLDAP(readString(in));
+				break;
+			case REQUIREMENT_EXPRESSION :
+				match = readMatchExpression(in);
+				break;
+			default :
+				throw new IOException("Unknown kind of requirement: " + kind); //$NON-NLS-1$
+		}
+		int min = readInt(in);
+		int max = readInt(in);
+		boolean greedy = in.readBoolean();
+		IMatchExpression<IInstallableUnit> filter = readFilter(in);
+		String description = readString(in);
+		if (range != null) {
+			return MetadataFactory.createRequirement(namespace, name, range, filter, min, max, greedy, description);
+		}
+		if (propertiesMatch != null) {
+			return MetadataFactory.createRequirement(namespace, propertiesMatch, filter, min, max, greedy, description);
+		}
+		return MetadataFactory.createRequirement(match, filter, min, max, greedy, description);
+	}
+
+	private IMatchExpression<IInstallableUnit> readMatchExpression(DataInputStream in) throws IOException {
+		IExpressionFactory factory = ExpressionUtil.getFactory();
+		IExpression expression = ExpressionUtil.parse(readString(in));
+		String parameters = readString(in);
+		Object[] params;
+		if (parameters == null) {
+			params = new Object[0];
+		} else {
+			IExpression[] arrayExpr = ExpressionUtil.getOperands(ExpressionUtil.parse(parameters));
+			params = new Object[arrayExpr.length];
+			for (int idx = 0; idx < arrayExpr.length; ++idx) {
+				params[idx] = arrayExpr[idx].evaluate(null);
+			}
+		}
+		return factory.matchExpression(expression, params);
+	}
+
+	private IMatchExpression<IInstallableUnit> readFilter(DataInputStream in) throws IOException {
+		String filter = readString(in);
+		return filter == null ? null : InstallableUnit.parseFilter(filter);
+	}
+
+	private URI readURI(DataInputStream in) throws IOException {
+		String location = readString(in);
+		if (location == null) {
+			return null;
+		}
+		try {
+			return new URI(location);
+		} catch (URISyntaxException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	private Map<String, String> readProperties(DataInputStream in) throws IOException {
+		int size = readInt(in);
+		if (size == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> properties = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			properties.put(key, readString(in));
+		}
+		return properties;
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		int index = readInt(in);
+		return index == 0 ? null : strings[index - 1];
+	}
+
+	/**
+	 * Reads an integer written by {@link ProfileBinaryWriter#writeInt(DataOutput, int)}.
+	 */
+	static int readInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer"); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
+import org.eclipse.equinox.internal.p2.metadata.RequiredPropertiesMatch;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.metadata.expression.*;
+
+/**
+ * Writes profile snapshots in the binary form described by
+ * {@link ProfileBinaryConstants}. The snapshot is encoded in memory first, since
+ * the string and requirement tables are only complete once every installable
+ * unit has been encoded.
+ */
+public class ProfileBinaryWriter implements ProfileBinaryConstants {
+
+	private final OutputStream output;
+
+	private final Map<String, Integer> stringIndex = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final Map<IRequirement, Integer> requirementIndex = new HashMap<>();
+	private int requirementCount;
+	private final ByteArrayOutputStream requirementBytes = new ByteArrayOutputStream();
+	private final DataOutputStream requirements = new DataOutputStream(requirementBytes);
+
+	public ProfileBinaryWriter(OutputStream output) {
+		this.output = output;
+	}
+
+	public void writeProfile(ProfileSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+		writeString(header, snapshot.getProfileId());
+		writeString(header, snapshot.getParentId());
+		header.writeLong(snapshot.getTimestamp());
+		writeProperties(header, snapshot.getProperties());
+
+		ByteArrayOutputStream unitsBytes = new ByteArrayOutputStream();
+		DataOutputStream units = new DataOutputStream(unitsBytes);
+		ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+		DataOutputStream metadata = new DataOutputStream(metadataBytes);
+		List<IInstallableUnit> ius = ProfileWriter.sort(snapshot.getInstallableUnits());
+		writeInt(units, ius.size());
+		for (IInstallableUnit iu : ius) {
+			writeString(units, iu.getId());
+			writeString(units, iu.getVersion().toString());
+			metadataBytes.reset();
+			writeInstallableUnit(metadata, iu);
+			metadata.flush();
+			writeInt(units, metadataBytes.size());
+			metadataBytes.writeTo(units);
+			writeProperties(units, snapshot.getInstallableUnitProperties(iu));
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+		out.writeInt(MAGIC);
+		writeInt(out, CURRENT_VERSION);
+		writeInt(out, strings.size());
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeInt(out, bytes.length);
+			out.write(bytes);
+		}
+		header.flush();
+		headerBytes.writeTo(out);
+		writeInt(out, requirementCount);
+		requirements.flush();
+		requirementBytes.writeTo(out);
+		units.flush();
+		unitsBytes.writeTo(out);
+		out.flush();
+	}
+
+	private void writeInstallableUnit(DataOutputStream out, IInstallableUnit resolvedIU) throws IOException {
+		IInstallableUnit iu = resolvedIU.unresolved();
+		if (iu instanceof IInstallableUnitPatch patch) {
+			out.writeByte(UNIT_PATCH);
+			IRequirement[][] scope = patch.getApplicabilityScope();
+			writeInt(out, scope.length);
+			for (IRequirement[] requirementsArray : scope) {
+				writeRequirements(out, Arrays.asList(requirementsArray));
+			}
+			List<IRequirementChange> changes = patch.getRequirementsChange();
+			writeInt(out, changes.size());
+			for (IRequirementChange change : changes) {
+				writeRequirement(out, change.applyOn());
+				writeRequirement(out, change.newValue());
+			}
+			writeRequirement(out, patch.getLifeCycle());
+		} else if (iu instanceof IInstallableUnitFragment fragment) {
+			out.writeByte(UNIT_FRAGMENT);
+			writeRequirements(out, fragment.getHost());
+		} else {
+			out.writeByte(UNIT);
+		}
+		out.writeBoolean(iu.isSingleton());
+		writeUpdateDescriptor(out, resolvedIU.getUpdateDescriptor());
+		writeProperties(out, iu.getProperties());
+		writeRequirements(out, iu.getMetaRequirements());
+		writeProvidedCapabilities(out, iu.getProvidedCapabilities());
+		writeRequirements(out, iu.getRequirements());
+		writeFilter(out, iu.getFilter());
+
+		Collection<IArtifactKey> artifacts = iu.getArtifacts();
+		writeInt(out, artifacts.size());
+		for (IArtifactKey artifact : artifacts) {
+			writeString(out, artifact.getClassifier());
+			writeString(out, artifact.getId());
+			writeString(out, artifact.getVersion().toString());
+		}
+
+		ITouchpointType touchpointType = iu.getTouchpointType();
+		if (touchpointType == ITouchpointType.NONE) {
+			writeString(out, null);
+		} else {
+			writeString(out, touchpointType.getId());
+			writeString(out, touchpointType.getVersion().toString());
+		}
+		Collection<ITouchpointData> touchpointData = iu.getTouchpointData();
+		writeInt(out, touchpointData.size());
+		for (ITouchpointData data : touchpointData) {
+			Map<String, ITouchpointInstruction> instructions = data.getInstructions();
+			writeInt(out, instructions.size());
+			for (Map.Entry<String, ITouchpointInstruction> entry : instructions.entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue().getBody());
+				writeString(out, entry.getValue().getImportAttribute());
+			}
+		}
+
+		Collection<ILicense> licenses = iu.getLicenses();
+		writeInt(out, licenses.size());
+		for (ILicense license : licenses) {
+			writeString(out, toString(license.getLocation()));
+			writeString(out, license.getBody());
+		}
+		ICopyright copyright = iu.getCopyright();
+		out.writeBoolean(copyright != null);
+		if (copyright != null) {
+			writeString(out, toString(copyright.getLocation()));
+			writeString(out, copyright.getBody());
+		}
+	}
+
+	private void writeUpdateDescriptor(DataOutputStream out, IUpdateDescriptor descriptor) throws IOException {
+		out.writeBoolean(descriptor != null);
+		if (descriptor == null) {
+			return;
+		}
+		Collection<IMatchExpression<IInstallableUnit>> updated = descriptor.getIUsBeingUpdated();
+		writeInt(out, updated.size());
+		for (IMatchExpression<IInstallableUnit> match : updated) {
+			writeMatchExpression(out, match);
+		}
+		writeInt(out, descriptor.getSeverity());
+		writeString(out, descriptor.getDescription());
+		writeString(out, toString(descriptor.getLocation()));
+	}
+
+	private void writeProvidedCapabilities(DataOutputStream out, Collection<IProvidedCapability> capabilities) throws IOException {
+		writeInt(out, capabilities.size());
+		for (IProvidedCapability capability : capabilities) {
+			writeString(out, capability.getNamespace());
+			Map<String, Object> properties = capability.getProperties();
+			writeInt(out, properties.size());
+			for (Map.Entry<String, Object> entry : properties.entrySet()) {
+				writeString(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+		}
+	}
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof Collection<?> collection) {
+			out.writeByte(VALUE_LIST);
+			writeInt(out, collection.size());
+			for (Object element : collection) {
+				writeValue(out, element);
+			}
+		} else if (value instanceof Integer integer) {
+			out.writeByte(VALUE_INTEGER);
+			out.writeInt(integer);
+		} else if (value instanceof Long longValue) {
+			out.writeByte(VALUE_LONG);
+			out.writeLong(longValue);
+		} else if (value instanceof Float floatValue) {
+			out.writeByte(VALUE_FLOAT);
+			out.writeFloat(floatValue);
+		} else if (value instanceof Double doubleValue) {
+			out.writeByte(VALUE_DOUBLE);
+			out.writeDouble(doubleValue);
+		} else if (value instanceof Byte byteValue) {
+			out.writeByte(VALUE_BYTE);
+			out.writeByte(byteValue);
+		} else if (value instanceof Short shortValue) {
+			out.writeByte(VALUE_SHORT);
+			out.writeShort(shortValue);
+		} else if (value instanceof Character character) {
+			out.writeByte(VALUE_CHARACTER);
+			out.writeChar(character);
+		} else if (value instanceof Boolean booleanValue) {
+			out.writeByte(VALUE_BOOLEAN);
+			out.writeBoolean(booleanValue);
+		} else if (value instanceof Version version) {
+			out.writeByte(VALUE_VERSION);
+			writeString(out, version.toString());
+		} else {
+			// like in the XML form, any other value is read back as a string
+			out.writeByte(VALUE_STRING);
+			writeString(out, value != null ? value.toString() : null);
+		}
+	}
+
+	private void writeRequirements(DataOutputStream out, Collection<IRequirement> requirementCollection) throws IOException {
+		writeInt(out, requirementCollection.size());
+		for (IRequirement requirement : requirementCollection) {
+			writeRequirement(out, requirement);
+		}
+	}
+
+	/**
+	 * Writes a reference to the given requirement, which may be <code>null</code>,
+	 * adding the requirement to the requirement table if needed. Requirements with a
+	 * description are never shared since the description does not take part in
+	 * equality.
+	 */
+	private void writeRequirement(DataOutputStream out, IRequirement requirement) throws IOException {
+		if (requirement == null) {
+			writeInt(out, 0);
+			return;
+		}
+		Integer index = requirement.getDescription() == null ? requirementIndex.get(requirement) : null;
+		if (index == null) {
+			index = requirementCount++;
+			if (requirement.getDescription() == null) {
+				requirementIndex.put(requirement, index);
+			}
+			encodeRequirement(requirement);
+		}
+		writeInt(out, index + 1);
+	}
+
+	private void encodeRequirement(IRequirement requirement) throws IOException {
+		DataOutputStream out = requirements;
+		IMatchExpression<IInstallableUnit> match = requirement.getMatches();
+		if (RequiredCapability.isVersionRangeRequirement(match)) {
+			out.writeByte(REQUIREMENT_RANGE);
+			writeString(out, RequiredCapability.extractNamespace(match));
+			writeString(out, RequiredCapability.extractName(match));
+			writeString(out, RequiredCapability.extractRange(match).toString());
+		} else if (RequiredPropertiesMatch.isPropertiesMatchRequirement(match)) {
+			out.writeByte(REQUIREMENT_PROPERTIES);
+			writeString(out, RequiredPropertiesMatch.extractNamespace(match));
+			writeString(out, RequiredPropertiesMatch.extractPropertiesMatch(match).toString());
+		} else {
+			out.writeByte(REQUIREMENT_EXPRESSION);
+			writeMatchExpression(out, match);
+		}
+		writeInt(out, requirement.getMin());
+		writeInt(out, requirement.getMax());
+		out.writeBoolean(requirement.isGreedy());
+		writeFilter(out, requirement.getFilter());
+		writeString(out, requirement.getDescription());
+	}
+
+	private void writeMatchExpression(DataOutputStream out, IMatchExpression<IInstallableUnit> match) throws IOException {
+		writeString(out, ExpressionUtil.getOperand(match).toString());
+		Object[] params = match.getParameters();
+		if (params.length == 0) {
+			writeString(out, null);
+			return;
+		}
+		IExpressionFactory factory = ExpressionUtil.getFactory();
+		IExpression[] constantArray = new IExpression[params.length];
+		for (int idx = 0; idx < params.length; ++idx) {
+			constantArray[idx] = factory.constant(params[idx]);
+		}
+		writeString(out, factory.array(constantArray).toString());
+	}
+
+	private void writeFilter(DataOutputStream out, IMatchExpression<IInstallableUnit> filter) throws IOException {
+		writeString(out, filter == null ? null : filter.getParameters()[0].toString());
+	}
+
+	private void writeProperties(DataOutputStream out, Map<String, String> properties) throws IOException {
+		writeInt(out, properties.size());
+		for (Map.Entry<String, String> entry : properties.entrySet()) {
+			writeString(out, entry.getKey());
+			writeString(out, entry.getValue());
+		}
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			writeInt(out, 0);
+			return;
+		}
+		Integer index = stringIndex.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.add(value);
+			stringIndex.put(value, index);
+		}
+		writeInt(out, index + 1);
+	}
+
+	private static String toString(URI location) {
+		return location != null ? location.toString() : null;
+	}
+
+	/**
+	 * Writes the given non-negative integer in 7 bit groups, least significant
+	 * first, with the high bit set on all but the last group.
+	 */
+	static void writeInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
@@ -14,8 +14,7 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.engine;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -135,6 +134,164 @@ public abstract class ProfileParser extends MetadataParser implements ProfileXML
 		}
 	}
 
+	/**
+	 * Handler for a delta snapshot, as written by {@link ProfileWriter#writeProfileDelta}.
+	 */
+	protected class ProfileDeltaHandler extends RootHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, TIMESTAMP_ATTRIBUTE, BASE_TIMESTAMP_ATTRIBUTE};
+
+		private String profileId;
+		private long timestamp;
+		private long baseTimestamp;
+		private PropertiesHandler propertiesHandler;
+		private InstallableUnitsHandler unitsHandler;
+		private RemovedUnitsHandler removedUnitsHandler;
+		private IUsPropertiesHandler iusPropertiesHandler;
+
+		@Override
+		protected void handleRootAttributes(Attributes attributes) {
+			String[] values = parseRequiredAttributes(attributes, required);
+			profileId = values[0];
+			timestamp = parseTimestamp(values[1]);
+			baseTimestamp = parseTimestamp(values[2]);
+		}
+
+		private long parseTimestamp(String value) {
+			if (value != null) {
+				try {
+					return Long.parseLong(value);
+				} catch (NumberFormatException e) {
+					// reported as a broken delta by the caller
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (PROPERTIES_ELEMENT.equals(name)) {
+				if (propertiesHandler == null) {
+					propertiesHandler = new PropertiesHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (INSTALLABLE_UNITS_ELEMENT.equals(name)) {
+				if (unitsHandler == null) {
+					unitsHandler = new InstallableUnitsHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (REMOVED_UNITS_ELEMENT.equals(name)) {
+				if (removedUnitsHandler == null) {
+					removedUnitsHandler = new RemovedUnitsHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else if (IUS_PROPERTIES_ELEMENT.equals(name)) {
+				if (iusPropertiesHandler == null) {
+					iusPropertiesHandler = new IUsPropertiesHandler(this, attributes);
+				} else {
+					duplicateElement(this, name, attributes);
+				}
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+
+		public String getProfileId() {
+			return profileId;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public long getBaseTimestamp() {
+			return baseTimestamp;
+		}
+
+		/**
+		 * Returns the complete properties of the profile.
+		 */
+		public Map<String, String> getProperties() {
+			if (propertiesHandler == null) {
+				return Collections.emptyMap();
+			}
+			return propertiesHandler.getProperties();
+		}
+
+		public IInstallableUnit[] getAddedUnits() {
+			if (unitsHandler == null) {
+				return new IInstallableUnit[0];
+			}
+			return unitsHandler.getUnits();
+		}
+
+		/**
+		 * Returns the id and version of the removed installable units, in the form
+		 * used by {@link ProfileSnapshot#identity(IInstallableUnit)}.
+		 */
+		public List<String> getRemovedUnits() {
+			if (removedUnitsHandler == null) {
+				return Collections.emptyList();
+			}
+			return removedUnitsHandler.getUnits();
+		}
+
+		/**
+		 * Returns the complete properties of every installable unit whose properties
+		 * changed, keyed by id and version.
+		 */
+		public Map<String, Map<String, String>> getChangedIUProperties() {
+			if (iusPropertiesHandler == null) {
+				return Collections.emptyMap();
+			}
+			return iusPropertiesHandler.getIUsPropertiesMap();
+		}
+	}
+
+	protected class RemovedUnitHandler extends AbstractHandler {
+
+		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
+
+		public RemovedUnitHandler(AbstractHandler parentHandler, Attributes attributes, List<String> units) {
+			super(parentHandler, INSTALLABLE_UNIT_ELEMENT);
+			String values[] = parseRequiredAttributes(attributes, required);
+			Version version = checkVersion(INSTALLABLE_UNIT_ELEMENT, VERSION_ATTRIBUTE, values[1]);
+			units.add(values[0] + "_" + version.toString()); //$NON-NLS-1$
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			noSubElements(name, attributes);
+		}
+	}
+
+	protected class RemovedUnitsHandler extends AbstractHandler {
+
+		private final List<String> units;
+
+		public RemovedUnitsHandler(AbstractHandler parentHandler, Attributes attributes) {
+			super(parentHandler, REMOVED_UNITS_ELEMENT);
+			String sizeStr = parseOptionalAttribute(attributes, COLLECTION_SIZE_ATTRIBUTE);
+			units = new ArrayList<>(sizeStr != null ? Integer.parseInt(sizeStr) : 4);
+		}
+
+		public List<String> getUnits() {
+			return units;
+		}
+
+		@Override
+		public void startElement(String name, Attributes attributes) {
+			if (name.equals(INSTALLABLE_UNIT_ELEMENT)) {
+				new RemovedUnitHandler(this, attributes, units);
+			} else {
+				invalidElement(name, attributes);
+			}
+		}
+	}
+
 	protected class IUPropertiesHandler extends AbstractHandler {
 
 		private final String[] required = new String[] {ID_ATTRIBUTE, VERSION_ATTRIBUTE};
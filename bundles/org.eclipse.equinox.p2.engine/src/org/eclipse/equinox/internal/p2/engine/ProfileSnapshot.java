@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine;
+
+import java.util.*;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.query.QueryUtil;
+
+/**
+ * The persisted content of a profile at one point in time: its properties, its
+ * installable units and their properties. Snapshots are read from and written to
+ * the snapshot files of the {@link SimpleProfileRegistry}, and delta snapshots
+ * are applied to them to reconstruct later states of a profile.
+ * <p>
+ * Installable units are identified by their id and version, in the form used by
+ * the {@link ProfileParser}.
+ * </p>
+ */
+public final class ProfileSnapshot {
+
+	private final String profileId;
+	private String parentId;
+	private long timestamp;
+	private final Map<String, String> properties = new LinkedHashMap<>();
+	private final Map<String, IInstallableUnit> units = new LinkedHashMap<>();
+	private final Map<String, Map<String, String>> unitProperties = new HashMap<>();
+
+	public ProfileSnapshot(String profileId) {
+		this.profileId = profileId;
+	}
+
+	/**
+	 * Returns a snapshot of the current content of the given profile.
+	 */
+	public static ProfileSnapshot of(IProfile profile) {
+		ProfileSnapshot snapshot = new ProfileSnapshot(profile.getProfileId());
+		snapshot.timestamp = profile.getTimestamp();
+		snapshot.properties.putAll(profile.getProperties());
+		for (IInstallableUnit iu : profile.query(QueryUtil.createIUAnyQuery(), null)) {
+			snapshot.addInstallableUnit(iu, profile.getInstallableUnitProperties(iu));
+		}
+		return snapshot;
+	}
+
+	public static String identity(IInstallableUnit iu) {
+		return iu.getId() + "_" + iu.getVersion().toString(); //$NON-NLS-1$
+	}
+
+	public String getProfileId() {
+		return profileId;
+	}
+
+	public String getParentId() {
+		return parentId;
+	}
+
+	public void setParentId(String parentId) {
+		this.parentId = parentId;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public Map<String, String> getProperties() {
+		return Collections.unmodifiableMap(properties);
+	}
+
+	/**
+	 * Replaces the properties of the profile.
+	 */
+	public void setProperties(Map<String, String> newProperties) {
+		properties.clear();
+		if (newProperties != null) {
+			properties.putAll(newProperties);
+		}
+	}
+
+	public Collection<IInstallableUnit> getInstallableUnits() {
+		return Collections.unmodifiableCollection(units.values());
+	}
+
+	public boolean contains(IInstallableUnit iu) {
+		return units.containsKey(identity(iu));
+	}
+
+	public int size() {
+		return units.size();
+	}
+
+	/**
+	 * Returns the properties of the given installable unit, which are empty if the
+	 * unit has no properties or is not part of the profile.
+	 */
+	public Map<String, String> getInstallableUnitProperties(IInstallableUnit iu) {
+		Map<String, String> result = unitProperties.get(identity(iu));
+		return result != null ? Collections.unmodifiableMap(result) : Collections.emptyMap();
+	}
+
+	/**
+	 * Adds the given installable unit with the given properties, replacing the unit
+	 * and the properties of an equal unit.
+	 */
+	public void addInstallableUnit(IInstallableUnit iu, Map<String, String> iuProperties) {
+		String identity = identity(iu);
+		units.put(identity, iu);
+		setInstallableUnitProperties(identity, iuProperties);
+	}
+
+	public void removeInstallableUnit(String identity) {
+		units.remove(identity);
+		unitProperties.remove(identity);
+	}
+
+	/**
+	 * Replaces the properties of the installable unit with the given identity.
+	 */
+	public void setInstallableUnitProperties(String identity, Map<String, String> iuProperties) {
+		if (iuProperties == null || iuProperties.isEmpty()) {
+			unitProperties.remove(identity);
+		} else {
+			unitProperties.put(identity, new LinkedHashMap<>(iuProperties));
+		}
+	}
+
+	/**
+	 * Returns the number of installable units that were added to or removed from
+	 * the given snapshot to obtain this one.
+	 */
+	public int countChangedUnits(ProfileSnapshot base) {
+		int changes = 0;
+		for (String identity : units.keySet()) {
+			if (!base.units.containsKey(identity)) {
+				changes++;
+			}
+		}
+		for (String identity : base.units.keySet()) {
+			if (!units.containsKey(identity)) {
+				changes++;
+			}
+		}
+		return changes;
+	}
+
+	@Override
+	public String toString() {
+		return "ProfileSnapshot(" + profileId + ", timestamp: " + timestamp + ')'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
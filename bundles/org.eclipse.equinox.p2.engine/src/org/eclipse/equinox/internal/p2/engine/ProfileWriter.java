@@ -15,6 +15,7 @@ package org.eclipse.equinox.internal.p2.engine;
 
 import java.io.OutputStream;
 import java.util.*;
+import java.util.function.Function;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
@@ -31,7 +32,65 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 		attribute(ID_ATTRIBUTE, profile.getProfileId());
 		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(profile.getTimestamp()));
 		writeProperties(profile.getProperties());
-		ArrayList<IInstallableUnit> ius = new ArrayList<>(profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		List<IInstallableUnit> ius = sort(profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		writeInstallableUnits(ius.iterator(), ius.size());
+		writeInstallableUnitsProperties(ius.iterator(), ius.size(), profile::getInstallableUnitProperties, false);
+		end(PROFILE_ELEMENT);
+		flush();
+	}
+
+	public void writeProfile(ProfileSnapshot snapshot) {
+		start(PROFILE_ELEMENT);
+		attribute(ID_ATTRIBUTE, snapshot.getProfileId());
+		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(snapshot.getTimestamp()));
+		writeProperties(snapshot.getProperties());
+		List<IInstallableUnit> ius = sort(snapshot.getInstallableUnits());
+		writeInstallableUnits(ius.iterator(), ius.size());
+		writeInstallableUnitsProperties(ius.iterator(), ius.size(), snapshot::getInstallableUnitProperties, false);
+		end(PROFILE_ELEMENT);
+		flush();
+	}
+
+	/**
+	 * Writes the changes that turn the given base snapshot into the given snapshot:
+	 * the properties of the profile, the added and the removed installable units,
+	 * and the complete properties of every installable unit whose properties changed.
+	 */
+	public void writeProfileDelta(ProfileSnapshot base, ProfileSnapshot snapshot) {
+		start(PROFILE_DELTA_ELEMENT);
+		attribute(ID_ATTRIBUTE, snapshot.getProfileId());
+		attribute(TIMESTAMP_ATTRIBUTE, Long.toString(snapshot.getTimestamp()));
+		attribute(BASE_TIMESTAMP_ATTRIBUTE, Long.toString(base.getTimestamp()));
+		writeProperties(snapshot.getProperties());
+
+		List<IInstallableUnit> added = new ArrayList<>();
+		List<IInstallableUnit> changed = new ArrayList<>();
+		for (IInstallableUnit iu : snapshot.getInstallableUnits()) {
+			if (!base.contains(iu)) {
+				added.add(iu);
+			}
+			if (!snapshot.getInstallableUnitProperties(iu).equals(base.getInstallableUnitProperties(iu))) {
+				changed.add(iu);
+			}
+		}
+		List<IInstallableUnit> removed = new ArrayList<>();
+		for (IInstallableUnit iu : base.getInstallableUnits()) {
+			if (!snapshot.contains(iu)) {
+				removed.add(iu);
+			}
+		}
+
+		added = sort(added);
+		writeInstallableUnits(added.iterator(), added.size());
+		writeRemovedUnits(sort(removed));
+		changed = sort(changed);
+		writeInstallableUnitsProperties(changed.iterator(), changed.size(), snapshot::getInstallableUnitProperties, true);
+		end(PROFILE_DELTA_ELEMENT);
+		flush();
+	}
+
+	static List<IInstallableUnit> sort(Collection<IInstallableUnit> units) {
+		ArrayList<IInstallableUnit> ius = new ArrayList<>(units);
 		ius.sort((iu1, iu2) -> {
 			int IdCompare = iu1.getId().compareTo(iu2.getId());
 			if (IdCompare != 0) {
@@ -40,13 +99,30 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 
 			return iu1.getVersion().compareTo(iu2.getVersion());
 		});
-		writeInstallableUnits(ius.iterator(), ius.size());
-		writeInstallableUnitsProperties(ius.iterator(), ius.size(), profile);
-		end(PROFILE_ELEMENT);
-		flush();
+		return ius;
 	}
 
-	private void writeInstallableUnitsProperties(Iterator<IInstallableUnit> it, int size, IProfile profile) {
+	private void writeRemovedUnits(List<IInstallableUnit> removed) {
+		if (removed.isEmpty()) {
+			return;
+		}
+		start(REMOVED_UNITS_ELEMENT);
+		attribute(COLLECTION_SIZE_ATTRIBUTE, removed.size());
+		for (IInstallableUnit iu : removed) {
+			start(INSTALLABLE_UNIT_ELEMENT);
+			attribute(ID_ATTRIBUTE, iu.getId());
+			attribute(VERSION_ATTRIBUTE, iu.getVersion().toString());
+			end(INSTALLABLE_UNIT_ELEMENT);
+		}
+		end(REMOVED_UNITS_ELEMENT);
+	}
+
+	/**
+	 * Writes the properties of the given installable units. Units without properties
+	 * are skipped, unless <code>writeEmpty</code> is set, in which case they are
+	 * written with an empty properties element.
+	 */
+	private void writeInstallableUnitsProperties(Iterator<IInstallableUnit> it, int size, Function<IInstallableUnit, Map<String, String>> profileProperties, boolean writeEmpty) {
 		if (size == 0) {
 			return;
 		}
@@ -54,15 +130,21 @@ public class ProfileWriter extends MetadataWriter implements ProfileXMLConstants
 		attribute(COLLECTION_SIZE_ATTRIBUTE, size);
 		while (it.hasNext()) {
 			IInstallableUnit iu = it.next();
-			Map<String, String> properties = profile.getInstallableUnitProperties(iu);
-			if (properties.isEmpty()) {
+			Map<String, String> properties = profileProperties.apply(iu);
+			if (properties.isEmpty() && !writeEmpty) {
 				continue;
 			}
 
 			start(IU_PROPERTIES_ELEMENT);
 			attribute(ID_ATTRIBUTE, iu.getId());
 			attribute(VERSION_ATTRIBUTE, iu.getVersion().toString());
-			writeProperties(properties);
+			if (properties.isEmpty()) {
+				start(PROPERTIES_ELEMENT);
+				attribute(COLLECTION_SIZE_ATTRIBUTE, 0);
+				end(PROPERTIES_ELEMENT);
+			} else {
+				writeProperties(properties);
+			}
 			end(IU_PROPERTIES_ELEMENT);
 		}
 		end(IUS_PROPERTIES_ELEMENT);
@@ -18,16 +18,17 @@
 package org.eclipse.equinox.internal.p2.engine;
 
 import java.io.*;
-import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
 import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
 import org.eclipse.equinox.p2.core.*;
@@ -50,9 +51,32 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 	private static final String PROFILE_EXT = ".profile"; //$NON-NLS-1$
 	private static final String PROFILE_GZ_EXT = ".profile.gz"; //$NON-NLS-1$
+	private static final String PROFILE_DELTA_EXT = ".profile.delta.gz"; //$NON-NLS-1$
+	private static final String PROFILE_BIN_EXT = ".profile.bin"; //$NON-NLS-1$
+	// in the order in which the snapshot files of a timestamp are looked up
+	private static final String[] PROFILE_EXTENSIONS = {PROFILE_BIN_EXT, PROFILE_GZ_EXT, PROFILE_EXT, PROFILE_DELTA_EXT};
 	public static final String DEFAULT_STORAGE_DIR = "profileRegistry"; //$NON-NLS-1$
 	private static final String DATA_EXT = ".data"; //$NON-NLS-1$
 
+	/**
+	 * Agent property with the maximum number of consecutive delta snapshots of a
+	 * profile. Once reached, the next snapshot is written in full again, and the
+	 * older full snapshots are compacted into deltas. Defaults to 16; a value of
+	 * zero or less disables delta snapshots.
+	 */
+	public static final String PROP_CHECKPOINT_INTERVAL = "eclipse.p2.profile.checkpointInterval"; //$NON-NLS-1$
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+	// maximum number of full snapshots re-encoded as deltas by one compaction
+	private static final int MAX_COMPACTED_SNAPSHOTS = 64;
+
+	/**
+	 * Agent property with the number of profiles whose installable units are kept
+	 * loaded by the registry. The installable units of other profiles are loaded
+	 * again when they are used.
+	 */
+	public static final String PROP_PROFILE_CACHE_SIZE = "eclipse.p2.profile.cacheSize"; //$NON-NLS-1$
+	private static final int DEFAULT_PROFILE_CACHE_SIZE = 4;
+
 	//Internal constant used to keep track of the newly created timestamp
 	private static final String SERVICE_SHARED_INSTALL_NEW_TIMESTAMP = IProfileRegistry.class.getName() + '_' + "NEW_SELF_TIMESTAMP"; //$NON-NLS-1$
 
@@ -61,9 +85,16 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	protected final IProvisioningAgent agent;
 
 	/**
-	 * Reference to Map of String(Profile id)->Profile.
+	 * Map of String(Profile id)->Profile. The installable units of the profiles are
+	 * loaded on demand.
 	 */
-	private SoftReference<Map<String, Profile>> profiles;
+	private Map<String, Profile> profiles;
+
+	/**
+	 * Map of String(Profile id)->content of the latest snapshot of the profile, for
+	 * the profiles whose installable units are loaded, in access order.
+	 */
+	private final LinkedHashMap<String, ProfileSnapshot> contents = new LinkedHashMap<>(8, 0.75f, true);
 	private final Map<String, ProfileLock> profileLocks = new HashMap<>();
 
 	private String self;
@@ -226,15 +257,13 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			return null;
 		}
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists()) {
-				return null;
-			}
+		File profileFile = getProfileFile(profileDirectory, timestamp);
+		if (profileFile == null) {
+			return null;
 		}
 
 		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
 		try {
 			parser.parse(profileFile);
 		} catch (IOException e) {
@@ -258,20 +287,72 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			return new long[0];
 		}
 
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_EXT) || pathname.getName().endsWith(PROFILE_GZ_EXT)) && pathname.isFile() && !pathname.getName().startsWith("._")); //$NON-NLS-1$
+		NavigableMap<Long, File> profileFiles = listProfileFiles(profileDirectory, true);
+		long[] timestamps = new long[profileFiles.size()];
+		int i = 0;
+		for (Long timestamp : profileFiles.keySet()) {
+			timestamps[i++] = timestamp;
+		}
+		return timestamps;
+	}
+
+	private static boolean isProfileFile(File file) {
+		String name = file.getName();
+		return (name.endsWith(PROFILE_EXT) || name.endsWith(PROFILE_GZ_EXT) || name.endsWith(PROFILE_DELTA_EXT) || name.endsWith(PROFILE_BIN_EXT)) && !name.startsWith("._") && file.isFile(); //$NON-NLS-1$
+	}
+
+	private static boolean isDeltaFile(File file) {
+		return file.getName().endsWith(PROFILE_DELTA_EXT);
+	}
+
+	private static boolean isBinaryFile(File file) {
+		return file.getName().endsWith(PROFILE_BIN_EXT);
+	}
 
-		long[] timestamps = new long[profileFiles.length];
-		for (int i = 0; i < profileFiles.length; i++) {
-			String filename = profileFiles[i].getName();
-			int extensionIndex = filename.lastIndexOf(PROFILE_EXT);
+	/**
+	 * Returns the snapshot files in the given profile directory, sorted by timestamp.
+	 * If both a full and a delta snapshot exist for a timestamp, because the full
+	 * snapshot was being compacted, the full snapshot is returned.
+	 *
+	 * @param strict whether files with an invalid name fail or are ignored
+	 */
+	private static NavigableMap<Long, File> listProfileFiles(File profileDirectory, boolean strict) {
+		NavigableMap<Long, File> result = new TreeMap<>();
+		File[] profileFiles = profileDirectory.listFiles((FileFilter) SimpleProfileRegistry::isProfileFile);
+		// protect against NPE
+		if (profileFiles == null) {
+			return result;
+		}
+		for (File profileFile : profileFiles) {
+			String filename = profileFile.getName();
+			long timestamp;
 			try {
-				timestamps[i] = Long.parseLong(filename.substring(0, extensionIndex));
+				timestamp = Long.parseLong(filename.substring(0, filename.indexOf(PROFILE_EXT)));
 			} catch (NumberFormatException e) {
-				throw new IllegalStateException("Incompatible profile file name. Expected format is {timestamp}" + PROFILE_GZ_EXT + " (or {timestamp}" + PROFILE_EXT + ") but was " + filename + "."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				if (strict) {
+					throw new IllegalStateException("Incompatible profile file name. Expected format is {timestamp}" + PROFILE_GZ_EXT + " (or {timestamp}" + PROFILE_EXT + ") but was " + filename + "."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				}
+				continue;
+			}
+			File existing = result.get(timestamp);
+			if (existing == null || isDeltaFile(existing)) {
+				result.put(timestamp, profileFile);
 			}
 		}
-		Arrays.sort(timestamps);
-		return timestamps;
+		return result;
+	}
+
+	/**
+	 * Returns the snapshot file with the given timestamp, or <code>null</code>.
+	 */
+	private static File getProfileFile(File profileDirectory, long timestamp) {
+		for (String extension : PROFILE_EXTENSIONS) {
+			File profileFile = new File(profileDirectory, Long.toString(timestamp) + extension);
+			if (profileFile.exists()) {
+				return profileFile;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -402,16 +483,13 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	 */
 	protected Map<String, Profile> getProfileMap() {
 		if (profiles != null) {
-			Map<String, Profile> result = profiles.get();
-			if (result != null) {
-				return result;
-			}
+			return profiles;
 		}
 		Map<String, Profile> result = restore();
 		if (result == null) {
 			result = new LinkedHashMap<>(8);
 		}
-		profiles = new SoftReference<>(result);
+		profiles = result;
 		if (updateSelfProfile) {
 			//update self profile on first load
 			updateSelfProfile(result);
@@ -419,6 +497,100 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		return result;
 	}
 
+	/**
+	 * Returns a loader of the installable units of the given profile at the given
+	 * timestamp.
+	 */
+	private Supplier<ProfileSnapshot> getContentLoader(String id, long timestamp) {
+		return () -> loadContent(id, timestamp);
+	}
+
+	/**
+	 * Returns the content of the snapshot of the given profile with the given
+	 * timestamp, or <code>null</code> if it cannot be read. The content of the
+	 * latest snapshots is cached.
+	 */
+	synchronized ProfileSnapshot loadContent(String id, long timestamp) {
+		ProfileSnapshot content = contents.get(id);
+		if (content != null && content.getTimestamp() == timestamp) {
+			return content;
+		}
+		File profileDirectory = getProfileFolder(id);
+		File profileFile = getProfileFile(profileDirectory, timestamp);
+		if (profileFile == null) {
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, new File(profileDirectory, Long.toString(timestamp)))));
+			return null;
+		}
+		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
+		try {
+			content = parser.read(profileFile);
+		} catch (IOException e) {
+			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
+			return null;
+		}
+		if (DebugHelper.DEBUG_PROFILE_REGISTRY) {
+			DebugHelper.debug(PROFILE_REGISTRY, "Loaded profile content from: " + profileFile.getAbsolutePath()); //$NON-NLS-1$
+		}
+		Profile profile = profiles != null ? profiles.get(id) : null;
+		if (profile != null && profile.getTimestamp() == timestamp) {
+			cacheContent(content);
+		}
+		return content;
+	}
+
+	/**
+	 * Caches the content of the latest snapshot of a profile. If the cache is full,
+	 * the least recently used profiles are evicted.
+	 */
+	private void cacheContent(ProfileSnapshot content) {
+		contents.put(content.getProfileId(), content);
+		int cacheSize = getProfileCacheSize();
+		for (Iterator<Entry<String, ProfileSnapshot>> iter = contents.entrySet().iterator(); contents.size() > cacheSize && iter.hasNext();) {
+			Entry<String, ProfileSnapshot> entry = iter.next();
+			if (entry.getValue() != content) {
+				iter.remove();
+				unloadProfile(entry.getKey());
+			}
+		}
+	}
+
+	private int getProfileCacheSize() {
+		String size = EngineActivator.getProperty(PROP_PROFILE_CACHE_SIZE, agent);
+		if (size != null) {
+			try {
+				return Math.max(1, Integer.parseInt(size.trim()));
+			} catch (NumberFormatException e) {
+				// use the default size
+			}
+		}
+		return DEFAULT_PROFILE_CACHE_SIZE;
+	}
+
+	/**
+	 * Discards the installable units of the given profile, unless the profile has
+	 * changes which are not saved yet.
+	 */
+	private void unloadProfile(String id) {
+		Profile profile = profiles != null ? profiles.get(id) : null;
+		if (profile != null && profile.isLoaded() && !profile.isChanged()) {
+			profile.setContentLoader(getContentLoader(id, profile.getTimestamp()));
+		}
+	}
+
+	/**
+	 * Evicts the installable units of the given profile from the registry. They are
+	 * loaded again when the profile is used next. Profiles that were returned by
+	 * the registry before are not affected.
+	 */
+	public synchronized void evictProfile(String id) {
+		if (SELF.equals(id)) {
+			id = self;
+		}
+		contents.remove(id);
+		unloadProfile(id);
+	}
+
 	public synchronized void updateProfile(Profile profile) {
 		String id = profile.getProfileId();
 		Profile current = getProfileMap().get(id);
@@ -429,6 +601,8 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		ProfileLock lock = profileLocks.get(id);
 		lock.checkLocked();
 
+		// the current profile is the base of a delta snapshot, unless it differs from its persisted state
+		ProfileSnapshot base = current.isChanged() ? null : ProfileSnapshot.of(current);
 		current.clearLocalProperties();
 		current.clearInstallableUnits();
 
@@ -441,7 +615,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				current.addInstallableUnitProperties(iu, iuProperties);
 			}
 		}
-		saveProfile(current);
+		saveProfile(current, base);
 		profile.clearOrphanedInstallableUnitProperties();
 		profile.setTimestamp(current.getTimestamp());
 		broadcastChangeEvent(id, IProfileEvent.CHANGED);
@@ -517,6 +691,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 		profileMap.remove(profileId);
 		profileLocks.remove(profileId);
+		contents.remove(profileId);
 		// deleting the profile removes the folder and subsequently all
 		// the profile state properties as well since they are stored in a file in the folder.
 		deleteProfile(profileId);
@@ -542,14 +717,18 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			return;
 		}
 
-		File profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_GZ_EXT);
-		if (!profileFile.exists()) {
-			profileFile = new File(profileDirectory, Long.toString(timestamp) + PROFILE_EXT);
-			if (!profileFile.exists()) {
-				return;
-			}
+		File profileFile = getProfileFile(profileDirectory, timestamp);
+		if (profileFile == null) {
+			return;
+		}
+		// the following snapshot cannot be reconstructed without this one if it is a delta
+		Entry<Long, File> next = listProfileFiles(profileDirectory, false).higherEntry(timestamp);
+		if (next != null && isDeltaFile(next.getValue())) {
+			writeCheckpoint(id, next.getValue());
+		}
+		for (String extension : PROFILE_EXTENSIONS) {
+			FileUtils.deleteAll(new File(profileDirectory, Long.toString(timestamp) + extension));
 		}
-		FileUtils.deleteAll(profileFile);
 		// Ignore the return value here. If there was a problem removing the profile state
 		// properties we don't want to fail the whole operation since the profile state itself
 		// was removed successfully
@@ -572,6 +751,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 
 		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
 		File[] profileDirectories = store.listFiles((FileFilter) pathname -> pathname.getName().endsWith(PROFILE_EXT) && pathname.isDirectory());
 		// protect against NPE
 		if (profileDirectories == null) {
@@ -593,7 +773,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 					File profileFile = findLatestProfileFile(profileDirectorie);
 					if (profileFile != null) {
 						try {
-							parser.parse(profileFile);
+							parser.parseHeader(profileFile);
 						} catch (IOException e) {
 							LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
 						}
@@ -612,29 +792,21 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 	}
 
 	private File findLatestProfileFile(File profileDirectory) {
-		File latest = null;
-		long latestTimestamp = 0;
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_EXT)) && !pathname.isDirectory());
-		// protect against NPE
-		if (profileFiles == null) {
-			return null;
-		}
-		for (File profileFile : profileFiles) {
-			String fileName = profileFile.getName();
-			try {
-				long timestamp = Long.parseLong(fileName.substring(0, fileName.indexOf(PROFILE_EXT)));
-				if (timestamp > latestTimestamp) {
-					latestTimestamp = timestamp;
-					latest = profileFile;
-				}
-			} catch (NumberFormatException e) {
-				// ignore
-			}
-		}
-		return latest;
+		Entry<Long, File> latest = listProfileFiles(profileDirectory, false).lastEntry();
+		return latest != null ? latest.getValue() : null;
 	}
 
 	private void saveProfile(Profile profile) {
+		saveProfile(profile, null);
+	}
+
+	/**
+	 * Saves a new snapshot of the given profile. If the persisted content of the
+	 * latest snapshot is given, the new snapshot may be written as a delta against
+	 * it. Whenever a full snapshot is written instead, the older snapshots of the
+	 * profile are compacted.
+	 */
+	private void saveProfile(Profile profile, ProfileSnapshot base) {
 		File profileDirectory = getProfileFolder(profile.getProfileId());
 		profileDirectory.mkdir();
 
@@ -644,24 +816,186 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 			currentTimestamp = currentTimeInMillis(previousTimestamp);
 		}
 		boolean shouldGzipFile = shouldGzipFile(profile);
-		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
+		// profiles readable by engines from 3.5.0 or earlier are only written in full
+		int checkpointInterval = shouldGzipFile ? getCheckpointInterval() : 0;
+		boolean binary = shouldGzipFile && isBinaryFormat();
+
+		profile.setTimestamp(currentTimestamp);
+		ProfileSnapshot snapshot = ProfileSnapshot.of(profile);
+		boolean delta = base != null && shouldWriteDelta(profileDirectory, checkpointInterval, binary, base, snapshot);
+		File profileFile = new File(profileDirectory, Long.toString(currentTimestamp) + (delta ? PROFILE_DELTA_EXT : binary ? PROFILE_BIN_EXT : shouldGzipFile ? PROFILE_GZ_EXT : PROFILE_EXT));
 
 		// Log a stack trace to see who is writing the profile.
 		if (DebugHelper.DEBUG_PROFILE_REGISTRY) {
 			DebugHelper.debug(PROFILE_REGISTRY, "Saving profile to: " + profileFile.getAbsolutePath()); //$NON-NLS-1$
 		}
 
-		profile.setTimestamp(currentTimestamp);
 		profile.setChanged(false);
 		try (OutputStream os = shouldGzipFile
 				? new GZIPOutputStream(new FileOutputStream(profileFile))
 				: new FileOutputStream(profileFile)) {
-			Writer writer = new Writer(os);
-			writer.writeProfile(profile);
+			if (delta) {
+				new Writer(os).writeProfileDelta(base, snapshot);
+			} else if (binary) {
+				new ProfileBinaryWriter(os).writeProfile(snapshot);
+			} else {
+				new Writer(os).writeProfile(snapshot);
+			}
 		} catch (IOException e) {
 			profile.setTimestamp(previousTimestamp);
 			profileFile.delete();
 			LogHelper.log(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, profile.getProfileId()), e));
+			return;
+		}
+		cacheContent(snapshot);
+		if (!delta && checkpointInterval > 0) {
+			compactProfileFiles(profileDirectory, checkpointInterval);
+		}
+	}
+
+	private int getCheckpointInterval() {
+		String interval = EngineActivator.getProperty(PROP_CHECKPOINT_INTERVAL, agent);
+		if (interval != null) {
+			try {
+				return Integer.parseInt(interval.trim());
+			} catch (NumberFormatException e) {
+				// use the default interval
+			}
+		}
+		return DEFAULT_CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Returns whether the given snapshot should be written as a delta against the
+	 * given base, which must be the latest snapshot of the profile. While the
+	 * latest full snapshot is not in the configured format, snapshots are written
+	 * in full, which migrates the profile to that format.
+	 */
+	private boolean shouldWriteDelta(File profileDirectory, int checkpointInterval, boolean binary, ProfileSnapshot base, ProfileSnapshot snapshot) {
+		if (checkpointInterval <= 0) {
+			return false;
+		}
+		NavigableMap<Long, File> profileFiles = listProfileFiles(profileDirectory, false);
+		if (profileFiles.isEmpty() || profileFiles.lastKey() != base.getTimestamp()) {
+			return false;
+		}
+		// bound the number of deltas to apply when reading a snapshot
+		int deltas = 0;
+		for (File profileFile : profileFiles.descendingMap().values()) {
+			if (!isDeltaFile(profileFile)) {
+				if (isBinaryFile(profileFile) != binary) {
+					return false;
+				}
+				break;
+			}
+			if (++deltas >= checkpointInterval) {
+				return false;
+			}
+		}
+		// a delta replacing most of the profile is not worth it
+		return snapshot.countChangedUnits(base) * 2 <= snapshot.size();
+	}
+
+	/**
+	 * Re-encodes full snapshots as delta snapshots as long as the resulting chains of
+	 * deltas do not exceed the checkpoint interval. This compacts the history written
+	 * before delta snapshots were used, or while they were disabled. The latest
+	 * snapshot is never re-encoded. To bound the time spent in a single save, a long
+	 * history is compacted in portions over several saves.
+	 */
+	private void compactProfileFiles(File profileDirectory, int checkpointInterval) {
+		NavigableMap<Long, File> profileFiles = listProfileFiles(profileDirectory, false);
+		if (profileFiles.isEmpty()) {
+			return;
+		}
+		List<Entry<Long, File>> entries = new ArrayList<>(profileFiles.entrySet());
+		Set<Long> redundant = new HashSet<>();
+		long lastRedundant = -1;
+		// number of snapshots since the last full snapshot, or -1 before the first one
+		int sinceCheckpoint = -1;
+		for (int i = 0; i < entries.size() - 1 && redundant.size() < MAX_COMPACTED_SNAPSHOTS; i++) {
+			if (isDeltaFile(entries.get(i).getValue())) {
+				if (sinceCheckpoint >= 0) {
+					sinceCheckpoint++;
+				}
+				continue;
+			}
+			// re-encoding joins the deltas before and after this snapshot into one chain
+			int following = 0;
+			while (i + following + 1 < entries.size() && isDeltaFile(entries.get(i + following + 1).getValue())) {
+				following++;
+			}
+			if (sinceCheckpoint >= 0 && sinceCheckpoint + 1 + following <= checkpointInterval) {
+				redundant.add(entries.get(i).getKey());
+				lastRedundant = entries.get(i).getKey();
+				sinceCheckpoint++;
+			} else {
+				sinceCheckpoint = 0;
+			}
+		}
+		if (redundant.isEmpty()) {
+			return;
+		}
+
+		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
+		long first = profileFiles.lowerKey(Collections.min(redundant));
+		ProfileSnapshot previous = null;
+		for (Entry<Long, File> entry : profileFiles.subMap(first, true, lastRedundant, true).entrySet()) {
+			File profileFile = entry.getValue();
+			try {
+				if (previous == null) {
+					previous = parser.read(profileFile);
+				} else if (isDeltaFile(profileFile)) {
+					parser.applyDelta(previous, profileFile);
+				} else {
+					ProfileSnapshot current = parser.read(profileFile);
+					if (redundant.contains(entry.getKey())) {
+						File deltaFile = new File(profileDirectory, entry.getKey() + PROFILE_DELTA_EXT);
+						writeSnapshot(deltaFile, previous, current);
+						profileFile.delete();
+					}
+					previous = current;
+				}
+			} catch (IOException e) {
+				LogHelper.log(new Status(IStatus.WARNING, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, previous != null ? previous.getProfileId() : profileDirectory.getName()), e));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the given delta snapshot of a profile by a full snapshot with the
+	 * same content.
+	 */
+	private void writeCheckpoint(String id, File deltaFile) throws ProvisionException {
+		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
+		try {
+			ProfileSnapshot snapshot = parser.read(deltaFile);
+			writeSnapshot(new File(deltaFile.getParentFile(), snapshot.getTimestamp() + (isBinaryFormat() ? PROFILE_BIN_EXT : PROFILE_GZ_EXT)), null, snapshot);
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_persisting_profile, id), e));
+		}
+		deltaFile.delete();
+	}
+
+	/**
+	 * Writes the given snapshot to the given gzipped file, as a delta if a base is
+	 * given, or else in the binary form if the file is a binary snapshot file.
+	 */
+	private void writeSnapshot(File profileFile, ProfileSnapshot base, ProfileSnapshot snapshot) throws IOException {
+		try (OutputStream os = new GZIPOutputStream(new FileOutputStream(profileFile))) {
+			if (base != null) {
+				new Writer(os).writeProfileDelta(base, snapshot);
+			} else if (isBinaryFile(profileFile)) {
+				new ProfileBinaryWriter(os).writeProfile(snapshot);
+			} else {
+				new Writer(os).writeProfile(snapshot);
+			}
+		} catch (IOException e) {
+			profileFile.delete();
+			throw e;
 		}
 	}
 
@@ -693,6 +1027,34 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		return profile.available(QueryUtil.createIUQuery("org.eclipse.equinox.p2.engine", VersionRange.create("[0.0.0, 1.0.101)")), null).isEmpty(); //$NON-NLS-1$//$NON-NLS-2$
 	}
 
+	/**
+	 * Returns whether full snapshots are written in the binary form.
+	 */
+	private boolean isBinaryFormat() {
+		return EngineActivator.PROFILE_FORMAT_BINARY.equals(EngineActivator.getProperty(EngineActivator.PROP_PROFILE_FORMAT, agent));
+	}
+
+	/**
+	 * Writes the given snapshot of the given profile to the given stream in the
+	 * XML form, whatever the form of the snapshot in the registry.
+	 */
+	public synchronized void exportProfile(String id, long timestamp, OutputStream output) throws ProvisionException {
+		if (SELF.equals(id)) {
+			id = self;
+		}
+		File profileFile = getProfileFile(getProfileFolder(id), timestamp);
+		if (profileFile == null) {
+			throw new ProvisionException(NLS.bind(Messages.profile_does_not_exist, id));
+		}
+		Parser parser = new Parser(EngineActivator.ID);
+		parser.setMetadataPool(MetadataPool.getPool(agent));
+		try {
+			new Writer(output).writeProfile(parser.read(profileFile));
+		} catch (IOException e) {
+			throw new ProvisionException(new Status(IStatus.ERROR, EngineActivator.ID, NLS.bind(Messages.error_parsing_profile, profileFile), e));
+		}
+	}
+
 	private void deleteProfile(String profileId) {
 		File profileDirectory = getProfileFolder(profileId);
 		FileUtils.deleteAll(profileDirectory);
@@ -755,15 +1117,24 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 	}
 
+	/*
+	 * Thrown to stop parsing once the header of a profile has been read.
+	 */
+	static final class HeaderComplete extends SAXException {
+		private static final long serialVersionUID = 1L;
+	}
+
 	/*
 	 * 	Parser for the contents of a SimpleProfileRegistry,
 	 * 	as written by the Writer class.
 	 */
 	class Parser extends ProfileParser {
-		private final Map<String, ProfileHandler> profileHandlers = new HashMap<>();
+		private final Map<String, ProfileSnapshot> snapshots = new HashMap<>();
+		// ids of the profiles whose installable units are loaded on demand
+		private final Set<String> headers = new HashSet<>();
 
-		public Map<String, ProfileHandler> getProfileHandlers() {
-			return Collections.unmodifiableMap(profileHandlers);
+		public Map<String, ProfileSnapshot> getSnapshots() {
+			return Collections.unmodifiableMap(snapshots);
 		}
 
 		public Parser(String bundleId) {
@@ -771,29 +1142,173 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		}
 
 		public void addProfilePlaceHolder(String profileId) {
-			profileHandlers.put(profileId, new ProfileHandler(profileId));
+			snapshots.put(profileId, new ProfileSnapshot(profileId));
 		}
 
 		public void parse(File file) throws IOException {
-			InputStream is;
-			if (file.getName().endsWith(PROFILE_GZ_EXT)) {
-				is = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
-			} else { // backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
-				is = new BufferedInputStream(new FileInputStream(file));
+			ProfileSnapshot snapshot = read(file);
+			snapshots.put(snapshot.getProfileId(), snapshot);
+		}
+
+		/**
+		 * Parses the id, the parent, the timestamp and the properties of the profile
+		 * stored in the given snapshot file. The installable units of the profile are
+		 * loaded when they are first used.
+		 */
+		public void parseHeader(File file) throws IOException {
+			ProfileSnapshot header;
+			if (isBinaryFile(file)) {
+				try (InputStream stream = open(file)) {
+					header = new ProfileBinaryReader(stream, getMetadataPool()).readHeader();
+				}
+			} else if (isDeltaFile(file)) {
+				ProfileDeltaHandler deltaHandler = new ProfileDeltaHandler() {
+					@Override
+					public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+						checkHeaderComplete(makeSimpleName(localName, qName));
+						super.startElement(uri, localName, qName, attributes);
+					}
+				};
+				parseHeader(open(file), PROFILE_DELTA_ELEMENT, deltaHandler);
+				header = new ProfileSnapshot(deltaHandler.getProfileId());
+				header.setTimestamp(deltaHandler.getTimestamp());
+				header.setProperties(deltaHandler.getProperties());
+			} else {
+				ProfileHandler profileHandler = new ProfileHandler() {
+					@Override
+					public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+						checkHeaderComplete(makeSimpleName(localName, qName));
+						super.startElement(uri, localName, qName, attributes);
+					}
+				};
+				parseHeader(open(file), PROFILE_ELEMENT, profileHandler);
+				header = new ProfileSnapshot(profileHandler.getProfileId());
+				header.setParentId(profileHandler.getParentId());
+				header.setTimestamp(profileHandler.getTimestamp());
+				header.setProperties(profileHandler.getProperties());
+			}
+			snapshots.put(header.getProfileId(), header);
+			headers.add(header.getProfileId());
+		}
+
+		private void checkHeaderComplete(String name) throws SAXException {
+			if (INSTALLABLE_UNITS_ELEMENT.equals(name) || REMOVED_UNITS_ELEMENT.equals(name) || IUS_PROPERTIES_ELEMENT.equals(name)) {
+				throw new HeaderComplete();
 			}
-			parse(is);
+		}
+
+		private synchronized void parseHeader(InputStream stream, String rootName, RootHandler rootHandler) throws IOException {
+			try {
+				parse(stream, rootName, rootHandler);
+			} catch (IOException e) {
+				if (!(e.getCause() instanceof HeaderComplete) && !(e.getCause() instanceof SAXException saxException && saxException.getException() instanceof HeaderComplete)) {
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * Reads the given snapshot file. A delta snapshot is reconstructed by applying
+		 * it and the deltas preceding it to the latest full snapshot before it.
+		 */
+		public ProfileSnapshot read(File file) throws IOException {
+			if (!isDeltaFile(file)) {
+				return readSnapshot(file);
+			}
+			String fileName = file.getName();
+			long timestamp = Long.parseLong(fileName.substring(0, fileName.indexOf(PROFILE_EXT)));
+			Deque<File> deltas = new ArrayDeque<>();
+			File checkpoint = null;
+			for (File profileFile : listProfileFiles(file.getParentFile(), false).headMap(timestamp, true).descendingMap().values()) {
+				if (!isDeltaFile(profileFile)) {
+					checkpoint = profileFile;
+					break;
+				}
+				deltas.push(profileFile);
+			}
+			if (checkpoint == null) {
+				throw new IOException("No full profile snapshot found before " + file); //$NON-NLS-1$
+			}
+			ProfileSnapshot snapshot = readSnapshot(checkpoint);
+			for (File delta : deltas) {
+				applyDelta(snapshot, delta);
+			}
+			return snapshot;
+		}
+
+		/**
+		 * Applies the given delta snapshot file to the given snapshot, which must be
+		 * the state the delta was computed against.
+		 */
+		public synchronized void applyDelta(ProfileSnapshot snapshot, File file) throws IOException {
+			ProfileDeltaHandler deltaHandler = new ProfileDeltaHandler();
+			parse(open(file), PROFILE_DELTA_ELEMENT, deltaHandler);
+			if (!isValidXML()) {
+				throw new IOException(getStatus().getMessage(), getStatus().getException());
+			}
+			if (deltaHandler.getBaseTimestamp() != snapshot.getTimestamp() || !snapshot.getProfileId().equals(deltaHandler.getProfileId())) {
+				throw new IOException("Profile delta " + file + " does not apply to " + snapshot); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			snapshot.setTimestamp(deltaHandler.getTimestamp());
+			snapshot.setProperties(deltaHandler.getProperties());
+			for (String removed : deltaHandler.getRemovedUnits()) {
+				snapshot.removeInstallableUnit(removed);
+			}
+			for (IInstallableUnit iu : deltaHandler.getAddedUnits()) {
+				snapshot.addInstallableUnit(iu, null);
+			}
+			for (Entry<String, Map<String, String>> entry : deltaHandler.getChangedIUProperties().entrySet()) {
+				snapshot.setInstallableUnitProperties(entry.getKey(), entry.getValue());
+			}
+		}
+
+		/**
+		 * Reads the given full snapshot file, in the XML or the binary form.
+		 */
+		private ProfileSnapshot readSnapshot(File file) throws IOException {
+			if (!isBinaryFile(file)) {
+				return parseSnapshot(open(file));
+			}
+			try (InputStream stream = open(file)) {
+				return new ProfileBinaryReader(stream, getMetadataPool()).readProfile();
+			}
+		}
+
+		private InputStream open(File file) throws IOException {
+			if (file.getName().endsWith(PROFILE_GZ_EXT) || isDeltaFile(file) || isBinaryFile(file)) {
+				return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
+			}
+			// backward compatibility. SimpleProfileRegistry doesn't write non-gzipped profiles any more.
+			return new BufferedInputStream(new FileInputStream(file));
 		}
 
 		public synchronized void parse(InputStream stream) throws IOException {
+			ProfileSnapshot snapshot = parseSnapshot(stream);
+			snapshots.put(snapshot.getProfileId(), snapshot);
+		}
+
+		private synchronized ProfileSnapshot parseSnapshot(InputStream stream) throws IOException {
+			ProfileHandler profileHandler = new ProfileHandler();
+			parse(stream, PROFILE_ELEMENT, profileHandler);
+			ProfileSnapshot snapshot = new ProfileSnapshot(profileHandler.getProfileId());
+			snapshot.setParentId(profileHandler.getParentId());
+			snapshot.setTimestamp(profileHandler.getTimestamp());
+			snapshot.setProperties(profileHandler.getProperties());
+			IInstallableUnit[] ius = profileHandler.getInstallableUnits();
+			if (ius != null) {
+				for (IInstallableUnit iu : ius) {
+					snapshot.addInstallableUnit(iu, profileHandler.getIUProperties(iu));
+				}
+			}
+			return snapshot;
+		}
+
+		private void parse(InputStream stream, String rootName, RootHandler rootHandler) throws IOException {
 			this.status = null;
 			try {
 				// TODO: currently not caching the parser since we make no assumptions
 				//		 or restrictions on concurrent parsing
-				XMLReader reader = getParser().getXMLReader();
-				ProfileHandler profileHandler = new ProfileHandler();
-				reader.setContentHandler(new ProfileDocHandler(PROFILE_ELEMENT, profileHandler));
-				reader.parse(new InputSource(stream));
-				profileHandlers.put(profileHandler.getProfileId(), profileHandler);
+				parseDocument(stream, new ProfileDocHandler(rootName, rootHandler));
 			} catch (SAXException e) {
 				IOException ioException = new IOException(e.getMessage());
 				ioException.initCause(e);
@@ -814,7 +1329,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 
 		public Map<String, Profile> getProfileMap() {
 			Map<String, Profile> profileMap = new HashMap<>();
-			for (String profileId : profileHandlers.keySet()) {
+			for (String profileId : snapshots.keySet()) {
 				addProfile(profileId, profileMap);
 			}
 			return profileMap;
@@ -825,32 +1340,29 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 				return;
 			}
 
-			ProfileHandler profileHandler = profileHandlers.get(profileId);
+			ProfileSnapshot snapshot = snapshots.get(profileId);
 			Profile parentProfile = null;
 
-			String parentId = profileHandler.getParentId();
+			String parentId = snapshot.getParentId();
 			if (parentId != null) {
 				addProfile(parentId, profileMap);
 				parentProfile = profileMap.get(parentId);
 			}
 
-			Profile profile = new Profile(agent, profileId, parentProfile, profileHandler.getProperties());
+			Profile profile = new Profile(agent, profileId, parentProfile, snapshot.getProperties());
 			if (surrogateProfileHandler != null && surrogateProfileHandler.isSurrogate(profile)) {
 				profile.setSurrogateProfileHandler(surrogateProfileHandler);
 			}
 
-			profile.setTimestamp(profileHandler.getTimestamp());
+			profile.setTimestamp(snapshot.getTimestamp());
 
-			IInstallableUnit[] ius = profileHandler.getInstallableUnits();
-			if (ius != null) {
-				for (IInstallableUnit iu : ius) {
-					profile.addInstallableUnit(iu);
-					Map<String, String> iuProperties = profileHandler.getIUProperties(iu);
-					if (iuProperties != null) {
-						for (Entry<String, String> entry : iuProperties.entrySet()) {
-							profile.setInstallableUnitProperty(iu, entry.getKey(), entry.getValue());
-						}
-					}
+			if (headers.contains(profileId)) {
+				profile.setContentLoader(getContentLoader(profileId, snapshot.getTimestamp()));
+			}
+			for (IInstallableUnit iu : snapshot.getInstallableUnits()) {
+				profile.addInstallableUnit(iu);
+				for (Entry<String, String> entry : snapshot.getInstallableUnitProperties(iu).entrySet()) {
+					profile.setInstallableUnitProperty(iu, entry.getKey(), entry.getValue());
 				}
 			}
 			profile.setChanged(false);
@@ -992,8 +1504,7 @@ public class SimpleProfileRegistry implements IProfileRegistry, IAgentService {
 		if (!profileDirectory.isDirectory()) {
 			return false;
 		}
-		File[] profileFiles = profileDirectory.listFiles((FileFilter) pathname -> (pathname.getName().endsWith(PROFILE_GZ_EXT) || pathname.getName().endsWith(PROFILE_EXT)) && pathname.isFile());
-		return profileFiles.length > 0;
+		return !listProfileFiles(profileDirectory, false).isEmpty();
 	}
 
 	public synchronized void resetProfiles() {
@@ -29,6 +29,7 @@ public class TouchpointManager implements IRegistryChangeListener {
 	private static final String ATTRIBUTE_CLASS = "class"; //$NON-NLS-1$
 	private static final String ATTRIBUTE_TYPE = "type"; //$NON-NLS-1$
 	private static final String ATTRIBUTE_VERSION = "version"; //$NON-NLS-1$
+	private static final String ATTRIBUTE_INDEPENDENT_OPERANDS = "independentOperands"; //$NON-NLS-1$
 
 	private static class TouchpointEntry {
 
@@ -40,7 +41,7 @@ public class TouchpointManager implements IRegistryChangeListener {
 			this.element = element;
 		}
 
-		public Touchpoint getTouchpoint() {
+		public synchronized Touchpoint getTouchpoint() {
 			if (!createdExtension) {
 				String id = getType();
 				try {
@@ -63,6 +64,10 @@ public class TouchpointManager implements IRegistryChangeListener {
 			return this.touchpoint;
 		}
 
+		public synchronized boolean isCreated() {
+			return createdExtension;
+		}
+
 		public Version getVersion() {
 			try {
 				return Version.create(element.getAttribute(ATTRIBUTE_VERSION));
@@ -79,6 +84,23 @@ public class TouchpointManager implements IRegistryChangeListener {
 			}
 		}
 
+		public boolean hasIndependentOperands(String phaseId) {
+			try {
+				String phaseIds = element.getAttribute(ATTRIBUTE_INDEPENDENT_OPERANDS);
+				if (phaseIds == null) {
+					return false;
+				}
+				for (String id : phaseIds.split(",")) { //$NON-NLS-1$
+					if (id.trim().equals(phaseId)) {
+						return true;
+					}
+				}
+				return false;
+			} catch (InvalidRegistryObjectException e) {
+				return false;
+			}
+		}
+
 		@Override
 		public String toString() {
 			StringBuilder result = new StringBuilder(element.toString());
@@ -133,6 +155,21 @@ public class TouchpointManager implements IRegistryChangeListener {
 		return entry.getTouchpoint();
 	}
 
+	/*
+	 * Return whether the given touchpoint declares that the operands of the phase with
+	 * the given id are independent of each other, in which case its actions may be
+	 * executed for several operands of that phase at the same time.
+	 */
+	public boolean hasIndependentOperands(Touchpoint touchpoint, String phaseId) {
+		for (TouchpointEntry entry : getTouchpointEntries().values()) {
+			// only compare with created touchpoints to avoid creating all of them
+			if (entry.isCreated() && entry.getTouchpoint() == touchpoint) {
+				return entry.hasIndependentOperands(phaseId);
+			}
+		}
+		return false;
+	}
+
 	/*
 	 * Construct a map of the extensions that implement the touchpoints extension point.
 	 */
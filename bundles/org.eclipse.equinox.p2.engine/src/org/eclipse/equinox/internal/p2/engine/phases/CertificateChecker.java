@@ -20,6 +20,7 @@ import java.security.GeneralSecurityException;
 import java.security.cert.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -30,6 +31,7 @@ import org.eclipse.equinox.internal.p2.artifact.processors.pgp.PGPPublicKeyStore
 import org.eclipse.equinox.internal.p2.artifact.processors.pgp.PGPSignatureVerifier;
 import org.eclipse.equinox.internal.p2.artifact.repository.simple.SimpleArtifactRepository;
 import org.eclipse.equinox.internal.p2.engine.*;
+import org.eclipse.equinox.internal.p2.engine.phases.SignatureCache.Signer;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.core.UIServices.TrustInfo;
 import org.eclipse.equinox.p2.engine.IProfile;
@@ -63,6 +65,14 @@ public class CertificateChecker {
 
 	public static final String TRUSTED_CERTIFICATES_PROPERTY = "trustedCertificates"; //$NON-NLS-1$
 
+	/**
+	 * Agent property specifying the number of threads verifying the signatures of
+	 * artifacts. A value of 1 verifies them one after the other.
+	 */
+	public static final String PROP_VERIFICATION_THREADS = "eclipse.p2.engine.certificate.threads"; //$NON-NLS-1$
+
+	private static final int DEFAULT_VERIFICATION_THREADS = 4;
+
 	/***
 	 * Store the optional profile for PGP key handling
 	 */
@@ -74,6 +84,7 @@ public class CertificateChecker {
 	private Map<IArtifactDescriptor, File> artifacts = new HashMap<>();
 	private final IProvisioningAgent agent;
 	private final PGPPublicKeyService keyService;
+	private TrustCheckPipeline pipeline;
 
 	// Lazily loading
 	private final Supplier<PGPPublicKeyStore> trustedKeys = new Supplier<>() {
@@ -159,7 +170,20 @@ public class CertificateChecker {
 		Set<SimpleArtifactRepository> repositories = new HashSet<>();
 		boolean isTrustedKeySetInitialized = false;
 		Map<IArtifactKey, File> artifactFiles = new LinkedHashMap<>();
-		for (Entry<IArtifactDescriptor, File> artifact : artifacts.entrySet()) {
+		List<Entry<IArtifactDescriptor, File>> artifactEntries = new ArrayList<>(artifacts.entrySet());
+		SignatureCache cache = pipeline != null ? pipeline.getSignatureCache() : SignatureCache.load(agent);
+		List<List<Signer>> artifactSigners;
+		try {
+			artifactSigners = getSigners(artifactEntries, cache, verifierFactory);
+		} catch (GeneralSecurityException e) {
+			return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentError, e);
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentIOError, e);
+		} finally {
+			cache.save();
+		}
+		for (int i = 0; i < artifactEntries.size(); i++) {
+			Entry<IArtifactDescriptor, File> artifact = artifactEntries.get(i);
 			IArtifactDescriptor artifactDescriptor = artifact.getKey();
 			IArtifactRepository repository = artifactDescriptor.getRepository();
 			if (repository instanceof SimpleArtifactRepository simpleArtifactRepository) {
@@ -169,90 +193,75 @@ public class CertificateChecker {
 			File artifactFile = artifact.getValue();
 			artifactFiles.put(artifactKey, artifactFile);
 			boolean artifactTrustedByCertificate = false;
-			try {
-				SignedContent content = verifierFactory.getSignedContent(artifactFile);
-				boolean signed = content.isSigned();
-				if (signed) {
-					SignerInfo[] signerInfo = content.getSignerInfos();
-
-					// Only record the untrusted elements if there are no trusted elements.
-					// Also check previously trusted certificates from the preferences.
-					if (Arrays.stream(signerInfo).noneMatch(SignerInfo::isTrusted)
-							&& Arrays.stream(signerInfo).map(SignerInfo::getCertificateChain).flatMap(Arrays::stream)
-									.noneMatch(cert -> additionalTrustedCertificates.get().contains(cert))) {
-						for (SignerInfo element : signerInfo) {
-							if (!element.isTrusted()) {
-								List<Certificate> certificateChain = Arrays.asList(element.getCertificateChain());
-								untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
-										.add(artifactKey);
-							}
+			List<Signer> signers = artifactSigners.get(i);
+			boolean signed = !signers.isEmpty();
+			if (signed) {
+				// Only record the untrusted elements if there are no trusted elements.
+				// Also check previously trusted certificates from the preferences.
+				if (signers.stream().noneMatch(Signer::trusted)
+						&& signers.stream().map(Signer::chain).flatMap(Arrays::stream)
+								.noneMatch(cert -> additionalTrustedCertificates.get().contains(cert))) {
+					for (Signer signer : signers) {
+						if (!signer.trusted()) {
+							List<Certificate> certificateChain = Arrays.asList(signer.chain());
+							untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
+									.add(artifactKey);
 						}
-					} else {
-						artifactTrustedByCertificate = true;
 					}
+				} else {
+					artifactTrustedByCertificate = true;
+				}
 
-					// Treat the artifact as untrusted if the signature is outside of the
-					// certificate's validity range.
-					if (VERIFY_CERTIFICATE_SIGNATURE_VALIDITY) {
-						List<SignerInfo> invalidSignatures = Arrays.stream(signerInfo).filter(info -> {
-							try {
-								content.checkValidity(info);
-								return false;
-							} catch (CertificateExpiredException | CertificateNotYetValidException e) {
-								return true;
-							}
-						}).collect(Collectors.toList());
-
-						// Only complain if all signatures are invalid and do so even if the certificate
-						// itself is trusted.
-						if (signerInfo.length == invalidSignatures.size()) {
-							artifactTrustedByCertificate = false;
-							for (SignerInfo info : invalidSignatures) {
-								List<Certificate> certificateChain = Arrays.asList(info.getCertificateChain());
-								untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
-										.add(artifactKey);
-							}
+				// Treat the artifact as untrusted if the signature is outside of the
+				// certificate's validity range.
+				if (VERIFY_CERTIFICATE_SIGNATURE_VALIDITY) {
+					List<Signer> invalidSignatures = signers.stream().filter(signer -> !signer.valid())
+							.collect(Collectors.toList());
+
+					// Only complain if all signatures are invalid and do so even if the certificate
+					// itself is trusted.
+					if (signers.size() == invalidSignatures.size()) {
+						artifactTrustedByCertificate = false;
+						for (Signer signer : invalidSignatures) {
+							List<Certificate> certificateChain = Arrays.asList(signer.chain());
+							untrustedCertificates.computeIfAbsent(certificateChain, key -> new LinkedHashSet<>())
+									.add(artifactKey);
 						}
 					}
-
 				}
 
-				// Also check for PGP signatures if the artifact is not trusted by a certificate
-				// because there might be trusted PGP keys too.
-				if (!signed || !artifactTrustedByCertificate) {
-					// The keys are in this destination artifact's properties if and only if the
-					// PGPSignatureVerifier verified the signatures against these keys.
-					List<PGPPublicKey> verifiedKeys = PGPPublicKeyStore
-							.readPublicKeys(
-									artifactDescriptor.getProperty(PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME))
-							.stream().map(keyService::addKey).collect(Collectors.toList());
-					if (!verifiedKeys.isEmpty()) {
-						if (!isTrustedKeySetInitialized) {
-							isTrustedKeySetInitialized = true;
-							trustedKeySet.addAll(trustedKeys.get().all().stream()
-									.filter(it -> keyService.getVerifiedRevocationDate(it) == null).toList());
-						}
-						// Only record the untrusted keys if none of the keys are trusted.
-						if (verifiedKeys.stream().noneMatch(trustedKeySet::contains)) {
-							verifiedKeys.forEach(key -> untrustedPGPKeys
-									.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(artifactKey));
-						} else {
-							// There are PGP keys and at least one of them is trusted so even if there are
-							// untrusted certificates we will not prompt for those because we only prompt if
-							// none of the certificates *and* none of the PGP keys are trusted.
-							// So clean them out of the map.
-							untrustedCertificates.values().forEach(it -> it.remove(artifactKey));
-							untrustedCertificates.values().removeIf(Collection::isEmpty);
-						}
-					} else if (!signed) {
-						unsignedArtifacts.add(artifactKey);
+			}
+
+			// Also check for PGP signatures if the artifact is not trusted by a certificate
+			// because there might be trusted PGP keys too.
+			if (!signed || !artifactTrustedByCertificate) {
+				// The keys are in this destination artifact's properties if and only if the
+				// PGPSignatureVerifier verified the signatures against these keys.
+				List<PGPPublicKey> verifiedKeys = PGPPublicKeyStore
+						.readPublicKeys(
+								artifactDescriptor.getProperty(PGPSignatureVerifier.PGP_SIGNER_KEYS_PROPERTY_NAME))
+						.stream().map(keyService::addKey).collect(Collectors.toList());
+				if (!verifiedKeys.isEmpty()) {
+					if (!isTrustedKeySetInitialized) {
+						isTrustedKeySetInitialized = true;
+						trustedKeySet.addAll(trustedKeys.get().all().stream()
+								.filter(it -> keyService.getVerifiedRevocationDate(it) == null).toList());
 					}
+					// Only record the untrusted keys if none of the keys are trusted.
+					if (verifiedKeys.stream().noneMatch(trustedKeySet::contains)) {
+						verifiedKeys.forEach(key -> untrustedPGPKeys
+								.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(artifactKey));
+					} else {
+						// There are PGP keys and at least one of them is trusted so even if there are
+						// untrusted certificates we will not prompt for those because we only prompt if
+						// none of the certificates *and* none of the PGP keys are trusted.
+						// So clean them out of the map.
+						untrustedCertificates.values().forEach(it -> it.remove(artifactKey));
+						untrustedCertificates.values().removeIf(Collection::isEmpty);
+					}
+				} else if (!signed) {
+					unsignedArtifacts.add(artifactKey);
 				}
-			} catch (GeneralSecurityException e) {
-				return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentError, e);
-			} catch (IOException e) {
-				return new Status(IStatus.ERROR, EngineActivator.ID, Messages.CertificateChecker_SignedContentIOError,
-						e);
 			}
 		}
 
@@ -407,6 +416,56 @@ public class CertificateChecker {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Returns the signers of the files of the given artifacts, in the order of the
+	 * artifacts. The files are verified concurrently unless only one thread is
+	 * configured.
+	 */
+	private List<List<Signer>> getSigners(List<Entry<IArtifactDescriptor, File>> artifactEntries,
+			SignatureCache cache, SignedContentFactory verifierFactory) throws IOException, GeneralSecurityException {
+		List<List<Signer>> result = new ArrayList<>(artifactEntries.size());
+		int threads = Math.min(artifactEntries.size(), getVerificationThreads());
+		if (threads <= 1) {
+			for (Entry<IArtifactDescriptor, File> artifact : artifactEntries) {
+				result.add(getSigners(artifact.getValue(), cache, verifierFactory));
+			}
+			return result;
+		}
+		Executor executor = EngineExecutor.limited(threads);
+		List<FutureTask<List<Signer>>> futures = new ArrayList<>(artifactEntries.size());
+		try {
+			for (Entry<IArtifactDescriptor, File> artifact : artifactEntries) {
+				FutureTask<List<Signer>> future = new FutureTask<>(() -> getSigners(artifact.getValue(), cache, verifierFactory));
+				futures.add(future);
+				executor.execute(future);
+			}
+			for (Future<List<Signer>> future : futures) {
+				result.add(SignatureCache.await(future));
+			}
+		} finally {
+			// the remaining files are not needed once one of them failed
+			futures.forEach(future -> future.cancel(true));
+		}
+		return result;
+	}
+
+	private List<Signer> getSigners(File artifactFile, SignatureCache cache, SignedContentFactory verifierFactory)
+			throws IOException, GeneralSecurityException {
+		return pipeline != null ? pipeline.getSigners(artifactFile) : cache.getSigners(artifactFile, verifierFactory);
+	}
+
+	private int getVerificationThreads() {
+		String value = EngineActivator.getProperty(PROP_VERIFICATION_THREADS, agent);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return DEFAULT_VERIFICATION_THREADS;
+	}
+
 	/**
 	 * This modifies the argument collection to remove the certificates that were
 	 * successfully saved. Often no certificates are saved because this tries to
@@ -504,6 +563,14 @@ public class CertificateChecker {
 		this.profile = profile;
 	}
 
+	/**
+	 * Sets the pipeline providing the signers of artifacts that were already
+	 * verified while they were downloaded.
+	 */
+	public void setTrustCheckPipeline(TrustCheckPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
 	public void add(Map<IArtifactDescriptor, File> toAdd) {
 		artifacts.putAll(toAdd);
 	}
@@ -40,10 +40,20 @@ public class CheckTrust extends InstallableUnitPhase {
 	 */
 	public static final String PARM_ARTIFACTS = "artifacts"; //$NON-NLS-1$
 
+	private TrustCheckPipeline pipeline;
+
 	public CheckTrust(int weight) {
 		super(PhaseSetFactory.PHASE_CHECK_TRUST, weight);
 	}
 
+	/**
+	 * Sets the pipeline that verified signatures while the artifacts were
+	 * collected, or <code>null</code> to read all signatures in this phase.
+	 */
+	public void setTrustCheckPipeline(TrustCheckPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
 	@Override
 	protected boolean isApplicable(InstallableUnitOperand op) {
 		return (op.second() != null);
@@ -60,6 +70,7 @@ public class CheckTrust extends InstallableUnitPhase {
 		CertificateChecker certificateChecker = new CertificateChecker(agent);
 		certificateChecker.add(artifactRequests);
 		certificateChecker.setProfile(profile);
+		certificateChecker.setTrustCheckPipeline(pipeline);
 		return certificateChecker.start();
 	}
 
@@ -14,9 +14,12 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.engine.phases;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorRequest;
 import org.eclipse.equinox.internal.p2.engine.*;
 import org.eclipse.equinox.internal.p2.repository.DownloadPauseResumeEvent;
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.IProvisioningEventBus;
@@ -26,6 +29,7 @@ import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.ITouchpointType;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
+import org.eclipse.equinox.p2.repository.artifact.IFileArtifactRepository;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -35,7 +39,9 @@ public class Collect extends InstallableUnitPhase {
 
 	public static final String NO_ARTIFACT_REPOSITORIES_AVAILABLE = "noArtifactRepositoriesAvailable"; //$NON-NLS-1$
 	private static final String PARM_IUS = "ius"; //$NON-NLS-1$
+	private static final String PARM_OPERAND_ARTIFACT_REQUESTS = "operandArtifactRequests"; //$NON-NLS-1$
 	private IProvisioningAgent agent = null;
+	private TrustCheckPipeline pipeline;
 
 	public Collect(int weight) {
 		super(PhaseSetFactory.PHASE_COLLECT, weight);
@@ -45,6 +51,14 @@ public class Collect extends InstallableUnitPhase {
 		postPerformWork = 1000;
 	}
 
+	/**
+	 * Sets the pipeline that verifies the signatures of artifacts as soon as they
+	 * have been downloaded, or <code>null</code> to only download them.
+	 */
+	public void setTrustCheckPipeline(TrustCheckPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
 	@Override
 	protected boolean isApplicable(InstallableUnitOperand op) {
 		return (op.second() != null && !op.second().equals(op.first()));
@@ -71,6 +85,11 @@ public class Collect extends InstallableUnitPhase {
 		return Collections.singletonList(action);
 	}
 
+	@Override
+	protected boolean hasIndependentOperands() {
+		return true;
+	}
+
 	@Override
 	protected String getProblemMessage() {
 		return Messages.Phase_Collect_Error;
@@ -82,8 +101,7 @@ public class Collect extends InstallableUnitPhase {
 		if (monitor.isCanceled()) {
 			return Status.OK_STATUS;
 		}
-		@SuppressWarnings("unchecked")
-		List<IArtifactRequest[]> artifactRequests = (List<IArtifactRequest[]>) parameters.get(PARM_ARTIFACT_REQUESTS);
+		List<IArtifactRequest[]> artifactRequests = getArtifactRequests(parameters);
 		// it happens when rollbacking
 		if (artifactRequests.size() == 0) {
 			return Status.OK_STATUS;
@@ -117,6 +135,7 @@ public class Collect extends InstallableUnitPhase {
 
 		List<IArtifactRequest> totalArtifactRequests = new ArrayList<>(artifactRequests.size());
 		DownloadManager dm = new DownloadManager(context, ius, agent);
+		dm.setDownloadListener(pipeline);
 		for (IArtifactRequest[] requests : artifactRequests) {
 			for (IArtifactRequest request : requests) {
 				dm.add(request);
@@ -127,7 +146,12 @@ public class Collect extends InstallableUnitPhase {
 		if (bus != null) {
 			bus.publishEvent(new CollectEvent(CollectEvent.TYPE_OVERALL_START, null, context, totalArtifactRequests.toArray(new IArtifactRequest[totalArtifactRequests.size()])));
 		}
+		// artifacts already available in their target are not downloaded
+		Set<IArtifactRequest> available = EngineTimings.isMeasuring() ? getAvailableRequests(totalArtifactRequests) : null;
 		IStatus downloadStatus = dm.start(monitor);
+		if (available != null) {
+			recordDownloads(totalArtifactRequests, available);
+		}
 		try {
 			return downloadStatus;
 		} finally {
@@ -140,10 +164,58 @@ public class Collect extends InstallableUnitPhase {
 		}
 	}
 
+	/**
+	 * Returns the requests of all operands in the order of the plan, no matter in
+	 * which order the operands were collected.
+	 */
+	private List<IArtifactRequest[]> getArtifactRequests(Map<String, Object> parameters) {
+		@SuppressWarnings("unchecked")
+		List<IArtifactRequest[]> artifactRequests = new ArrayList<>((List<IArtifactRequest[]>) parameters.get(PARM_ARTIFACT_REQUESTS));
+		@SuppressWarnings("unchecked")
+		Map<Operand, List<IArtifactRequest[]>> operandRequests = (Map<Operand, List<IArtifactRequest[]>>) parameters.get(PARM_OPERAND_ARTIFACT_REQUESTS);
+		for (Operand operand : getOperands()) {
+			List<IArtifactRequest[]> requests = operandRequests.get(operand);
+			if (requests != null) {
+				artifactRequests.addAll(requests);
+			}
+		}
+		return artifactRequests;
+	}
+
+	private static Set<IArtifactRequest> getAvailableRequests(List<IArtifactRequest> requests) {
+		Set<IArtifactRequest> available = new HashSet<>();
+		for (IArtifactRequest request : requests) {
+			if (request instanceof MirrorRequest mirror && mirror.getTargetRepository().contains(request.getArtifactKey())) {
+				available.add(request);
+			}
+		}
+		return available;
+	}
+
+	private static void recordDownloads(List<IArtifactRequest> requests, Set<IArtifactRequest> available) {
+		long bytes = 0;
+		int files = 0;
+		for (IArtifactRequest request : requests) {
+			if (available.contains(request) || request.getResult() == null || !request.getResult().isOK()) {
+				continue;
+			}
+			if (request instanceof MirrorRequest mirror && mirror.getTargetRepository() instanceof IFileArtifactRepository repository) {
+				File file = repository.getArtifactFile(request.getArtifactKey());
+				if (file != null && file.isFile()) {
+					bytes += file.length();
+					files++;
+				}
+			}
+		}
+		EngineTimings.recordDownload(bytes, files);
+	}
+
 	@Override
 	protected IStatus initializePhase(IProgressMonitor monitor, IProfile profile, Map<String, Object> parameters) {
-		parameters.put(PARM_ARTIFACT_REQUESTS, new ArrayList<>());
-		parameters.put(PARM_IUS, new HashSet<>());
+		// operands may be collected concurrently, each into its own list of requests
+		parameters.put(PARM_ARTIFACT_REQUESTS, Collections.synchronizedList(new ArrayList<>()));
+		parameters.put(PARM_OPERAND_ARTIFACT_REQUESTS, new ConcurrentHashMap<>());
+		parameters.put(PARM_IUS, Collections.synchronizedSet(new HashSet<>()));
 		return null;
 	}
 
@@ -173,6 +245,11 @@ public class Collect extends InstallableUnitPhase {
 		@SuppressWarnings("unchecked")
 		Set<IInstallableUnit> ius = (Set<IInstallableUnit>) parameters.get(PARM_IUS);
 		ius.add(iu);
+		List<IArtifactRequest[]> requests = new ArrayList<>();
+		parameters.put(PARM_ARTIFACT_REQUESTS, requests);
+		@SuppressWarnings("unchecked")
+		Map<Operand, List<IArtifactRequest[]>> operandRequests = (Map<Operand, List<IArtifactRequest[]>>) parameters.get(PARM_OPERAND_ARTIFACT_REQUESTS);
+		operandRequests.put(operand, requests);
 		return status;
 	}
 
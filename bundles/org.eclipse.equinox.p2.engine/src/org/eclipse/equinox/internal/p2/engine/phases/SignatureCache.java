@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine.phases;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.engine.EngineActivator;
+import org.eclipse.equinox.p2.core.IAgentLocation;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.spi.IAgentService;
+import org.eclipse.osgi.service.security.TrustEngine;
+import org.eclipse.osgi.signedcontent.*;
+import org.osgi.framework.BundleContext;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * Remembers the signers of artifact files, keyed by the SHA-256 checksum of the
+ * file content, so that identical files are not verified again. The cache is
+ * stored in the engine's data area of the agent and survives sessions. Each
+ * agent keeps its cache in memory, so the file is only read once per session.
+ * <p>
+ * Only the result of verifying the signatures is remembered: the certificate
+ * chain and the signing time of each signer. Whether a chain is trusted and
+ * whether it was valid at the signing time is evaluated again whenever a cached
+ * entry is used, so changes to the trusted certificates are always honored.
+ * The trust engines are tracked while the cache is registered with an agent.
+ * </p><p>
+ * The cache can be used from multiple threads.
+ * </p>
+ */
+public final class SignatureCache implements IAgentService {
+
+	/**
+	 * The name of the agent service under which the cache of an agent is kept.
+	 */
+	public static final String SERVICE_NAME = SignatureCache.class.getName();
+
+	private static final String CACHE_FILE = "signatures.properties"; //$NON-NLS-1$
+	private static final String CERTIFICATE_PREFIX = "certificate."; //$NON-NLS-1$
+	private static final int MAX_ENTRIES = 10000;
+
+	/**
+	 * A signer of an artifact file.
+	 *
+	 * @param chain the certificate chain of the signer
+	 * @param signingTime the time stamped signing time, or <code>null</code>
+	 * @param trusted whether the chain is trusted
+	 * @param valid whether the certificates were valid at the signing time, or now if
+	 *              there is no signing time
+	 */
+	public record Signer(Certificate[] chain, Date signingTime, boolean trusted, boolean valid) {
+	}
+
+	private record StoredSigner(String[] fingerprints, Date signingTime) {
+	}
+
+	private final File cacheFile;
+	private final Map<String, List<StoredSigner>> entries = new ConcurrentHashMap<>();
+	private final Map<String, Certificate> certificates = new ConcurrentHashMap<>();
+	private final Set<String> used = ConcurrentHashMap.newKeySet();
+	private volatile boolean dirty;
+	private ServiceTracker<TrustEngine, TrustEngine> trustEngines;
+
+	private SignatureCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Returns the cache of the given agent, reading it when the agent asks for it
+	 * the first time. The cache is only kept in memory if the agent has no
+	 * location.
+	 */
+	public static SignatureCache load(IProvisioningAgent agent) {
+		if (agent == null) {
+			return new SignatureCache(null);
+		}
+		synchronized (SignatureCache.class) {
+			Object service = agent.getService(SERVICE_NAME);
+			if (service instanceof SignatureCache) {
+				return (SignatureCache) service;
+			}
+			SignatureCache cache = read(agent);
+			agent.registerService(SERVICE_NAME, cache);
+			return cache;
+		}
+	}
+
+	private static SignatureCache read(IProvisioningAgent agent) {
+		IAgentLocation location = agent.getService(IAgentLocation.class);
+		File file = null;
+		if (location != null && location.getDataArea(EngineActivator.ID) != null) {
+			file = new File(URIUtil.toFile(location.getDataArea(EngineActivator.ID)), CACHE_FILE);
+		}
+		SignatureCache cache = new SignatureCache(file);
+		if (file != null && file.isFile()) {
+			try {
+				cache.read();
+			} catch (IOException | RuntimeException e) {
+				// start over with an empty cache
+				cache.entries.clear();
+				cache.certificates.clear();
+				LogHelper.log(new Status(IStatus.WARNING, EngineActivator.ID, "Could not read the signature cache " + file, e)); //$NON-NLS-1$
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the signers of the given file, which are empty if the file is not
+	 * signed. Files that are not in the cache are verified with the given factory.
+	 */
+	public List<Signer> getSigners(File file, SignedContentFactory factory) throws IOException, GeneralSecurityException {
+		String checksum = checksum(file);
+		used.add(checksum);
+		List<StoredSigner> stored = entries.get(checksum);
+		if (stored != null) {
+			List<Signer> signers = toSigners(stored);
+			if (signers != null) {
+				return signers;
+			}
+		}
+		return getSigners(checksum, factory.getSignedContent(file));
+	}
+
+	private List<Signer> getSigners(String checksum, SignedContent content) throws GeneralSecurityException {
+		if (!content.isSigned()) {
+			put(checksum, List.of());
+			return List.of();
+		}
+		SignerInfo[] signerInfos = content.getSignerInfos();
+		List<Signer> signers = new ArrayList<>(signerInfos.length);
+		List<StoredSigner> stored = new ArrayList<>(signerInfos.length);
+		for (SignerInfo info : signerInfos) {
+			boolean valid;
+			try {
+				content.checkValidity(info);
+				valid = true;
+			} catch (CertificateExpiredException | CertificateNotYetValidException e) {
+				valid = false;
+			}
+			Certificate[] chain = info.getCertificateChain();
+			Date signingTime = content.getSigningTime(info);
+			signers.add(new Signer(chain, signingTime, info.isTrusted(), valid));
+			String[] fingerprints = new String[chain.length];
+			for (int i = 0; i < chain.length; i++) {
+				fingerprints[i] = fingerprint(chain[i]);
+				certificates.putIfAbsent(fingerprints[i], chain[i]);
+			}
+			stored.add(new StoredSigner(fingerprints, signingTime));
+		}
+		put(checksum, stored);
+		return signers;
+	}
+
+	private void put(String checksum, List<StoredSigner> stored) {
+		entries.put(checksum, stored);
+		dirty = true;
+	}
+
+	/**
+	 * Returns the signers of a cache entry, or <code>null</code> if certificates of
+	 * the entry are missing.
+	 */
+	private List<Signer> toSigners(List<StoredSigner> stored) {
+		List<Signer> signers = new ArrayList<>(stored.size());
+		for (StoredSigner storedSigner : stored) {
+			Certificate[] chain = new Certificate[storedSigner.fingerprints().length];
+			for (int i = 0; i < chain.length; i++) {
+				chain[i] = certificates.get(storedSigner.fingerprints()[i]);
+				if (chain[i] == null) {
+					return null;
+				}
+			}
+			signers.add(new Signer(chain, storedSigner.signingTime(), isTrusted(chain), isValid(chain, storedSigner.signingTime())));
+		}
+		return signers;
+	}
+
+	@Override
+	public synchronized void start() {
+		BundleContext context = EngineActivator.getContext();
+		if (trustEngines == null && context != null) {
+			trustEngines = new ServiceTracker<>(context, TrustEngine.class, null);
+			trustEngines.open();
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (trustEngines != null) {
+			trustEngines.close();
+			trustEngines = null;
+		}
+	}
+
+	private boolean isTrusted(Certificate[] chain) {
+		ServiceTracker<TrustEngine, TrustEngine> tracker;
+		synchronized (this) {
+			tracker = trustEngines;
+		}
+		if (tracker != null) {
+			return isTrusted(chain, tracker);
+		}
+		// the cache is not registered with an agent
+		BundleContext context = EngineActivator.getContext();
+		if (context == null) {
+			return false;
+		}
+		tracker = new ServiceTracker<>(context, TrustEngine.class, null);
+		tracker.open();
+		try {
+			return isTrusted(chain, tracker);
+		} finally {
+			tracker.close();
+		}
+	}
+
+	private static boolean isTrusted(Certificate[] chain, ServiceTracker<TrustEngine, TrustEngine> tracker) {
+		Object[] engines = tracker.getServices();
+		if (engines != null) {
+			for (Object engine : engines) {
+				try {
+					if (((TrustEngine) engine).findTrustAnchor(chain) != null) {
+						return true;
+					}
+				} catch (IOException e) {
+					// not trusted by this engine
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isValid(Certificate[] chain, Date signingTime) {
+		for (Certificate certificate : chain) {
+			if (certificate instanceof X509Certificate x509) {
+				try {
+					if (signingTime == null) {
+						x509.checkValidity();
+					} else {
+						x509.checkValidity(signingTime);
+					}
+				} catch (CertificateExpiredException | CertificateNotYetValidException e) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the cache if it has changed. Entries that were not used in this
+	 * session are dropped once the cache grows too large. The file is replaced
+	 * atomically, so readers never see a partially written cache.
+	 */
+	public synchronized void save() {
+		if (!dirty || cacheFile == null) {
+			return;
+		}
+		// entries added while writing are written the next time
+		dirty = false;
+		if (entries.size() > MAX_ENTRIES) {
+			entries.keySet().retainAll(used);
+		}
+		Properties properties = new Properties();
+		Set<String> referenced = new HashSet<>();
+		for (Map.Entry<String, List<StoredSigner>> entry : entries.entrySet()) {
+			StringJoiner signers = new StringJoiner(";"); //$NON-NLS-1$
+			for (StoredSigner signer : entry.getValue()) {
+				String time = signer.signingTime() == null ? "" : Long.toString(signer.signingTime().getTime()); //$NON-NLS-1$
+				signers.add(time + ':' + String.join(",", signer.fingerprints())); //$NON-NLS-1$
+				referenced.addAll(Arrays.asList(signer.fingerprints()));
+			}
+			properties.setProperty(entry.getKey(), signers.toString());
+		}
+		try {
+			for (String fingerprint : referenced) {
+				Certificate certificate = certificates.get(fingerprint);
+				if (certificate != null) {
+					properties.setProperty(CERTIFICATE_PREFIX + fingerprint, Base64.getEncoder().encodeToString(certificate.getEncoded()));
+				}
+			}
+			cacheFile.getParentFile().mkdirs();
+			File temp = File.createTempFile(CACHE_FILE, ".tmp", cacheFile.getParentFile()); //$NON-NLS-1$
+			try {
+				try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+					properties.store(out, null);
+				}
+				Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				temp.delete();
+			}
+		} catch (IOException | CertificateEncodingException e) {
+			dirty = true;
+			LogHelper.log(new Status(IStatus.WARNING, EngineActivator.ID, "Could not write the signature cache " + cacheFile, e)); //$NON-NLS-1$
+		}
+	}
+
+	private void read() throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(cacheFile))) {
+			properties.load(in);
+		}
+		CertificateFactory factory;
+		try {
+			factory = CertificateFactory.getInstance("X.509"); //$NON-NLS-1$
+		} catch (CertificateException e) {
+			throw new IOException(e);
+		}
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key);
+			if (key.startsWith(CERTIFICATE_PREFIX)) {
+				try {
+					certificates.put(key.substring(CERTIFICATE_PREFIX.length()), factory.generateCertificate(new ByteArrayInputStream(Base64.getDecoder().decode(value))));
+				} catch (CertificateException e) {
+					// entries using the certificate are verified again
+				}
+				continue;
+			}
+			List<StoredSigner> signers = new ArrayList<>();
+			if (!value.isEmpty()) {
+				for (String signer : value.split(";")) { //$NON-NLS-1$
+					int colon = signer.indexOf(':');
+					String time = signer.substring(0, colon);
+					signers.add(new StoredSigner(signer.substring(colon + 1).split(","), time.isEmpty() ? null : new Date(Long.parseLong(time)))); //$NON-NLS-1$
+				}
+			}
+			entries.put(key, signers);
+		}
+	}
+
+	private static String checksum(File file) throws IOException, NoSuchAlgorithmException {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[16384];
+			for (int read; (read = in.read(buffer)) != -1;) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static String fingerprint(Certificate certificate) throws CertificateEncodingException {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded())); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the signers computed by the given future, rethrowing the failure of
+	 * the computation.
+	 */
+	static List<Signer> await(Future<List<Signer>> future) throws IOException, GeneralSecurityException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException ioException) {
+				throw ioException;
+			}
+			if (cause instanceof GeneralSecurityException securityException) {
+				throw securityException;
+			}
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
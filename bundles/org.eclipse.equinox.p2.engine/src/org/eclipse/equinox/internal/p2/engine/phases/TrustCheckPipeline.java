@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.engine.phases;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import org.eclipse.equinox.internal.p2.artifact.repository.MirrorRequest;
+import org.eclipse.equinox.internal.p2.engine.EngineActivator;
+import org.eclipse.equinox.internal.p2.engine.EngineExecutor;
+import org.eclipse.equinox.internal.p2.engine.phases.SignatureCache.Signer;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.UIServices;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.repository.artifact.*;
+import org.eclipse.osgi.signedcontent.SignedContentFactory;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Overlaps the signature verification of the {@link CheckTrust} phase with the
+ * downloads of the {@link Collect} phase. Every artifact that has been mirrored
+ * into a local file repository is handed to a few of the engine's shared
+ * threads, which verify its signatures while the remaining artifacts are still downloading.
+ * The {@link CertificateChecker} then picks up the signers instead of verifying
+ * the files again. Verified signers are remembered in the agent's
+ * {@link SignatureCache}. The trust decision itself, and the prompt for it, are
+ * unchanged and still happen once all artifacts are available.
+ */
+public final class TrustCheckPipeline implements Consumer<IArtifactRequest> {
+
+	/**
+	 * Agent property enabling the pipeline, which is enabled unless the value is
+	 * <code>false</code>.
+	 */
+	public static final String PROP_PIPELINE = "eclipse.p2.engine.pipeline"; //$NON-NLS-1$
+
+	/**
+	 * Agent property specifying the number of threads verifying signatures while
+	 * downloading.
+	 */
+	public static final String PROP_PIPELINE_THREADS = "eclipse.p2.engine.pipeline.threads"; //$NON-NLS-1$
+
+	private static final int DEFAULT_PIPELINE_THREADS = 2;
+
+	private final BundleContext context;
+	private final ServiceReference<SignedContentFactory> factoryReference;
+	private final SignedContentFactory factory;
+	private final SignatureCache cache;
+	private final Executor executor;
+	private final Map<File, FutureTask<List<Signer>>> signers = new ConcurrentHashMap<>();
+	// guarded by this, the number of tasks submitted and not finished yet
+	private int running;
+	private boolean closed;
+
+	private TrustCheckPipeline(BundleContext context, ServiceReference<SignedContentFactory> factoryReference, SignedContentFactory factory, SignatureCache cache, int threads) {
+		this.context = context;
+		this.factoryReference = factoryReference;
+		this.factory = factory;
+		this.cache = cache;
+		this.executor = EngineExecutor.limited(threads);
+	}
+
+	/**
+	 * Returns a pipeline for the given profile, or <code>null</code> if the
+	 * pipeline is disabled or the certificate checker would not look at the
+	 * signatures of the artifacts anyway.
+	 */
+	public static TrustCheckPipeline create(IProvisioningAgent agent, IProfile profile) {
+		if ("false".equalsIgnoreCase(EngineActivator.getProperty(PROP_PIPELINE, agent))) { //$NON-NLS-1$
+			return null;
+		}
+		if (EngineActivator.UNSIGNED_ALLOW.equals(EngineActivator.getProperty(EngineActivator.PROP_UNSIGNED_POLICY, agent)) || agent.getService(UIServices.class) == null) {
+			return null;
+		}
+		CertificateChecker checker = new CertificateChecker(agent);
+		checker.setProfile(profile);
+		if (checker.isTrustAlways()) {
+			return null;
+		}
+		BundleContext context = EngineActivator.getContext();
+		if (context == null) {
+			return null;
+		}
+		ServiceReference<SignedContentFactory> reference = context.getServiceReference(SignedContentFactory.class);
+		if (reference == null) {
+			return null;
+		}
+		SignedContentFactory factory = context.getService(reference);
+		if (factory == null) {
+			return null;
+		}
+		return new TrustCheckPipeline(context, reference, factory, SignatureCache.load(agent), getThreads(agent));
+	}
+
+	private static int getThreads(IProvisioningAgent agent) {
+		String value = EngineActivator.getProperty(PROP_PIPELINE_THREADS, agent);
+		if (value != null) {
+			try {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				// fall through to the default
+			}
+		}
+		return DEFAULT_PIPELINE_THREADS;
+	}
+
+	/**
+	 * Starts verifying the signatures of the artifact mirrored by the given
+	 * request. Called on the thread that performed the request.
+	 */
+	@Override
+	public void accept(IArtifactRequest request) {
+		if (!(request instanceof MirrorRequest mirror) || !(mirror.getTargetRepository() instanceof IFileArtifactRepository repository)) {
+			return;
+		}
+		File file = repository.getArtifactFile(request.getArtifactKey());
+		if (file == null) {
+			return;
+		}
+		File key = file.getAbsoluteFile();
+		FutureTask<List<Signer>> task = new FutureTask<>(() -> cache.getSigners(key, factory));
+		synchronized (this) {
+			if (closed || signers.putIfAbsent(key, task) != null) {
+				return;
+			}
+			running++;
+		}
+		executor.execute(() -> {
+			try {
+				task.run();
+			} finally {
+				finished();
+			}
+		});
+	}
+
+	private synchronized void finished() {
+		if (--running == 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the cache holding the signers verified by this pipeline.
+	 */
+	public SignatureCache getSignatureCache() {
+		return cache;
+	}
+
+	/**
+	 * Returns the signers of the given file, waiting for them if the file is still
+	 * being verified, or verifying it now if the file was not part of the
+	 * downloads.
+	 */
+	public List<Signer> getSigners(File file) throws IOException, GeneralSecurityException {
+		FutureTask<List<Signer>> future = signers.remove(file.getAbsoluteFile());
+		if (future != null && !future.isCancelled()) {
+			return SignatureCache.await(future);
+		}
+		return cache.getSigners(file, factory);
+	}
+
+	/**
+	 * Stops verifying signatures and releases the services used by the pipeline
+	 * once the verifications that already started have ended.
+	 */
+	public void close() {
+		synchronized (this) {
+			// closed while downloading, the checker verifies the remaining files itself
+			closed = true;
+		}
+		signers.values().forEach(future -> future.cancel(true));
+		signers.clear();
+		// cancelled tasks may still be using the factory
+		boolean interrupted = false;
+		synchronized (this) {
+			while (running > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		context.ungetService(factoryReference);
+	}
+}
@@ -18,10 +18,13 @@ package org.eclipse.equinox.p2.engine;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.engine.DebugHelper;
 import org.eclipse.equinox.internal.p2.engine.DownloadManager;
+import org.eclipse.equinox.internal.p2.engine.EngineExecutor;
 import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.p2.repository.helpers.AbstractRepositoryManager;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
@@ -52,6 +55,15 @@ public class ProvisioningContext {
 	private final Set<URI> failedArtifactRepositories = new HashSet<>();
 	private final Set<URI> failedMetadataRepositories = new HashSet<>();
 
+	/**
+	 * Agent property controlling how many metadata repositories are loaded
+	 * concurrently by {@link #getMetadata(IProgressMonitor)}.
+	 */
+	private static final String PROP_MAX_LOAD_THREADS = "eclipse.p2.metadata.load.threads"; //$NON-NLS-1$
+	private static final int DEFAULT_MAX_LOAD_THREADS = 4;
+	// the ticks of progress of loading one metadata repository
+	private static final int LOAD_TICKS = 100;
+
 	class ArtifactRepositoryQueryable implements IQueryable<IArtifactRepository> {
 		List<IArtifactRepository> repositories;
 
@@ -199,6 +211,7 @@ public class ProvisioningContext {
 			if (repository == null) {
 				repository = repoManager.loadRepository(location, monitor);
 				loadedArtifactRepositories.put(location, repository);
+				pin(repoManager, location);
 			}
 			repos.add(repository);
 		} catch (ProvisionException e) {
@@ -212,47 +225,169 @@ public class ProvisioningContext {
 		URI[] repositories = metadataRepositories == null ? repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL) : metadataRepositories;
 
 		Map<String, IMetadataRepository> repos = new HashMap<>();
-		SubMonitor sub = SubMonitor.convert(monitor, repositories.length);
+		SubMonitor sub = SubMonitor.convert(monitor, repositories.length * LOAD_TICKS);
 
 		// Clear out the list of remembered artifact repositories
 		referencedArtifactRepositories = new HashMap<>();
-		for (URI repositorie : repositories) {
-			loadMetadataRepository(repoManager, repositorie, repos, shouldFollowReferences(), sub.split(1));
+		boolean followReferences = shouldFollowReferences();
+		// references may add repositories, so don't limit the threads to the given ones then
+		int threads = followReferences ? getMaximumLoadThreads() : Math.min(repositories.length, getMaximumLoadThreads());
+		// with a single thread the repositories are loaded on the calling thread
+		MetadataRepositoryLoader loader = new MetadataRepositoryLoader(repoManager, repos, followReferences, EngineExecutor.limited(threads), sub);
+		try {
+			loader.loadAll(repositories);
+		} finally {
+			loader.cancel();
 		}
 		return new HashSet<>(repos.values());
 	}
 
-	private void loadMetadataRepository(IMetadataRepositoryManager manager, URI location,
-			Map<String, IMetadataRepository> repos, boolean followMetadataRepoReferences, IProgressMonitor monitor) {
-		// if we've already processed this repo, don't do it again.  This keeps us from getting
-		// caught up in circular references.
-		if (repos.containsKey(location.toString()) || failedMetadataRepositories.contains(location)) {
-			return;
+	private int getMaximumLoadThreads() {
+		try {
+			return Math.max(1, Integer.parseInt(agent.getProperty(PROP_MAX_LOAD_THREADS, Integer.toString(DEFAULT_MAX_LOAD_THREADS))));
+		} catch (NumberFormatException e) {
+			return DEFAULT_MAX_LOAD_THREADS;
 		}
+	}
 
-		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
-		// First load the repository itself.
-		IMetadataRepository repository = loadedMetadataRepositories.get(location);
-		if (repository == null) {
+	/**
+	 * Loads metadata repositories and the metadata repositories they refer to
+	 * concurrently. Only the repository manager is called from the worker threads;
+	 * the state of the provisioning context is exclusively updated by the calling
+	 * thread as loads complete, so references are scheduled as soon as the
+	 * repository referring to them is available. Each load counts as
+	 * {@link #LOAD_TICKS} ticks of the calling thread's progress monitor, to which
+	 * the progress of the loads is reported while waiting for them.
+	 */
+	private class MetadataRepositoryLoader {
+		private final IMetadataRepositoryManager manager;
+		private final Map<String, IMetadataRepository> repos;
+		private final boolean followMetadataRepoReferences;
+		private final CompletionService<Load> loads;
+		private final List<Future<Load>> submitted = new ArrayList<>();
+		// the locations of all repositories loaded or being loaded, as keys of repos
+		private final Set<String> scheduled = new HashSet<>();
+		// the progress of the loads that have not completed
+		private final List<LoadMonitor> active = new ArrayList<>();
+		private final SubMonitor monitor;
+		private int pending;
+
+		MetadataRepositoryLoader(IMetadataRepositoryManager manager, Map<String, IMetadataRepository> repos, boolean followMetadataRepoReferences, Executor executor, SubMonitor monitor) {
+			this.monitor = monitor;
+			this.manager = manager;
+			this.repos = repos;
+			this.followMetadataRepoReferences = followMetadataRepoReferences;
+			this.loads = new ExecutorCompletionService<>(executor);
+		}
+
+		void loadAll(URI[] locations) {
+			for (URI location : locations) {
+				schedule(location);
+			}
 			try {
-				repository = manager.loadRepository(location, subMonitor.split(1));
-				loadedMetadataRepositories.put(location, repository);
-			} catch (ProvisionException e) {
-				failedMetadataRepositories.add(location);
+				while (pending > 0) {
+					Future<Load> future = loads.poll(100, TimeUnit.MILLISECONDS);
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					for (LoadMonitor progress : active) {
+						monitor.worked(progress.drain());
+					}
+					if (future == null) {
+						continue;
+					}
+					pending--;
+					Load load = getLoad(future);
+					active.remove(load.progress);
+					if (load.repository == null) {
+						failedMetadataRepositories.add(load.location);
+						advance(load.progress.finish());
+						continue;
+					}
+					loadedMetadataRepositories.put(load.location, load.repository);
+					pin(manager, load.location);
+					loaded(load.location, load.repository, load.progress.finish());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+
+		private Load getLoad(Future<Load> future) {
+			try {
+				return future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtime) {
+					throw runtime;
+				}
+				if (e.getCause() instanceof Error error) {
+					throw error;
+				}
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private void schedule(URI location) {
+			// if we've already processed this repo, don't do it again.  This keeps us from getting
+			// caught up in circular references.
+			if (!scheduled.add(location.toString()) || failedMetadataRepositories.contains(location)) {
 				return;
 			}
+			IMetadataRepository repository = loadedMetadataRepositories.get(location);
+			if (repository != null) {
+				loaded(location, repository, LOAD_TICKS);
+				return;
+			}
+			pending++;
+			LoadMonitor progress = new LoadMonitor(monitor);
+			active.add(progress);
+			submitted.add(loads.submit(() -> {
+				try {
+					return new Load(location, manager.loadRepository(location, progress), progress);
+				} catch (ProvisionException e) {
+					return new Load(location, null, progress);
+				}
+			}));
+		}
+
+		/**
+		 * Cancels the loads that have not completed, which happens when the calling
+		 * thread gives up early. Loads that are running are interrupted.
+		 */
+		void cancel() {
+			for (Future<Load> future : submitted) {
+				future.cancel(true);
+			}
+		}
+
+		/**
+		 * Reports the given remaining ticks of a completed load, after making room
+		 * for the loads that have not completed.
+		 */
+		private void advance(int ticks) {
+			int remaining = ticks;
+			for (LoadMonitor progress : active) {
+				remaining += progress.remaining();
+			}
+			monitor.setWorkRemaining(remaining);
+			monitor.worked(ticks);
 		}
-		repos.put(location.toString(), repository);
-		Collection<IRepositoryReference> references = repository.getReferences();
-		// We always load artifact repositories referenced by this repository.  We might load
-		// metadata repositories
-		if (!references.isEmpty()) {
+
+		private void loaded(URI location, IMetadataRepository repository, int ticks) {
+			repos.put(location.toString(), repository);
+			advance(ticks);
+			Collection<IRepositoryReference> references = repository.getReferences();
+			// We always load artifact repositories referenced by this repository.  We might load
+			// metadata repositories
+			if (references.isEmpty()) {
+				return;
+			}
 			IArtifactRepositoryManager artifactManager = agent.getService(IArtifactRepositoryManager.class);
-			SubMonitor repoMon = SubMonitor.convert(subMonitor.split(1), references.size());
 			for (IRepositoryReference ref : references) {
 				try {
 					if (ref.getType() == IRepository.TYPE_METADATA && followMetadataRepoReferences && isEnabled(manager, ref)) {
-						loadMetadataRepository(manager, ref.getLocation(), repos, followMetadataRepoReferences, repoMon.split(1));
+						schedule(ref.getLocation());
 					} else if (ref.getType() == IRepository.TYPE_ARTIFACT && isEnabled(artifactManager, ref)) {
 						// We want to remember all enabled artifact repository locations.
 						referencedArtifactRepositories.put(ref.getLocation().toString(), ref.getLocation());
@@ -263,7 +398,93 @@ public class ProvisioningContext {
 				}
 			}
 		}
+	}
+
+	/**
+	 * The outcome of loading a metadata repository, the repository is
+	 * <code>null</code> if it could not be loaded.
+	 */
+	private record Load(URI location, IMetadataRepository repository, LoadMonitor progress) {
+	}
+
+	/**
+	 * The progress monitor handed to a concurrent repository load. Since progress
+	 * monitors may only be used by one thread, the work done by the load is only
+	 * accumulated here and reported by the calling thread, as a share of
+	 * {@link #LOAD_TICKS}. The monitor propagates the cancelation of the calling
+	 * thread's monitor.
+	 */
+	private static final class LoadMonitor extends NullProgressMonitor {
+		private final IProgressMonitor monitor;
+		private int totalWork;
+		private double worked;
+		private int reported;
+
+		LoadMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public synchronized void beginTask(String name, int total) {
+			// nested tasks are reported as part of the outermost one
+			if (totalWork == 0 && total > 0) {
+				totalWork = total;
+			}
+		}
+
+		@Override
+		public void worked(int work) {
+			internalWorked(work);
+		}
+
+		@Override
+		public synchronized void internalWorked(double work) {
+			if (work > 0) {
+				worked += work;
+			}
+		}
 
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || monitor.isCanceled();
+		}
+
+		/**
+		 * Returns the ticks done since the last call, to be reported by the calling
+		 * thread.
+		 */
+		synchronized int drain() {
+			if (totalWork <= 0) {
+				return 0;
+			}
+			int done = (int) Math.min(LOAD_TICKS, worked * LOAD_TICKS / totalWork);
+			int ticks = Math.max(0, done - reported);
+			reported += ticks;
+			return ticks;
+		}
+
+		/**
+		 * Returns the ticks not reported yet, once the load has completed.
+		 */
+		synchronized int finish() {
+			int ticks = LOAD_TICKS - reported;
+			reported = LOAD_TICKS;
+			return ticks;
+		}
+
+		synchronized int remaining() {
+			return LOAD_TICKS - reported;
+		}
+	}
+
+	/**
+	 * Keeps the manager from evicting the loaded repository at the given location
+	 * from its cache while this context is in use.
+	 */
+	private void pin(IRepositoryManager<?> manager, URI location) {
+		if (manager instanceof AbstractRepositoryManager<?> abstractManager) {
+			abstractManager.pinRepository(location, this);
+		}
 	}
 
 	// If the manager knows about the repo, consider its enablement state in the manager.
@@ -396,6 +617,7 @@ public class ProvisioningContext {
 				@SuppressWarnings("unchecked")
 				R repository = (R) manager.loadRepository(location, subMonitor.split(1));
 				repos.put(location, repository);
+				pin(manager, location);
 				loadComposites(manager, repository, repos, failedRepositories, subMonitor.split(1));
 			} catch (ProvisionException e) {
 				failedMetadataRepositories.add(location);
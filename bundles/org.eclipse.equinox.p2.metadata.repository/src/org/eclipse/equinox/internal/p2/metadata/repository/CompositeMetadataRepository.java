@@ -21,6 +21,7 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryIO;
 import org.eclipse.equinox.internal.p2.persistence.CompositeRepositoryState;
 import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryHelper;
@@ -56,7 +57,8 @@ public class CompositeMetadataRepository extends AbstractMetadataRepository impl
 	// keep a list of the repositories that we have successfully loaded
 	private final List<IMetadataRepository> loadedRepos = new ArrayList<>();
 	private final IMetadataRepositoryManager manager;
-	private final IPool<IInstallableUnit> iuPool = new WeakPool<>();
+	// share IUs with all the other repositories of the agent
+	private final IPool<IInstallableUnit> iuPool = MetadataPool.getPool(getProvisioningAgent()).getInstallableUnitPool();
 
 	/**
 	 * Create a Composite repository in memory.
@@ -54,6 +54,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 	protected final Set<IRepositoryReference> repositories = new LinkedHashSet<>();
 	private IIndex<IInstallableUnit> idIndex;
 	private IIndex<IInstallableUnit> capabilityIndex;
+	private IIndex<IInstallableUnit> propertyIndex;
 	private TranslationSupport translationSupport;
 	private boolean snapshotNeeded = false;
 	private boolean disableSave = false;
@@ -111,6 +112,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 		}
 		units.addAll(installableUnits);
 		capabilityIndex = null; // Generated, not backed by units
+		propertyIndex = null;
 		save();
 	}
 
@@ -154,6 +156,13 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			return capabilityIndex;
 		}
+
+		if (InstallableUnit.MEMBER_PROPERTIES.equals(memberName)) {
+			if (propertyIndex == null) {
+				propertyIndex = new PropertyIndex(units.iterator());
+			}
+			return propertyIndex;
+		}
 		return null;
 	}
 
@@ -248,6 +257,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			units.clear();
 		}
 		capabilityIndex = null; // Generated, not backed by units.
+		propertyIndex = null;
 		save();
 	}
 
@@ -263,6 +273,7 @@ public class LocalMetadataRepository extends AbstractMetadataRepository implemen
 			}
 			units.removeAll(installableUnits);
 			capabilityIndex = null; // Generated, not backed by units.
+			propertyIndex = null;
 		}
 		if (changed) {
 			save();
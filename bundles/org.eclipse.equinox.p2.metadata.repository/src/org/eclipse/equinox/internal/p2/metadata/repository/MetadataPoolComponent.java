@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.repository;
+
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.core.spi.AgentServiceName;
+import org.eclipse.equinox.p2.core.spi.IAgentServiceFactory;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Service factory for creating the {@link MetadataPool} of an agent.
+ */
+@Component(service = IAgentServiceFactory.class, name = "org.eclipse.equinox.p2.metadata.repository.pool")
+@AgentServiceName(MetadataPool.class)
+public class MetadataPoolComponent implements IAgentServiceFactory {
+
+	@Override
+	public Object createService(IProvisioningAgent agent) {
+		return new MetadataPool();
+	}
+}
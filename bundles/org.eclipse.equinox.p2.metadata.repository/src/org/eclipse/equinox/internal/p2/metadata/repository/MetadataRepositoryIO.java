@@ -24,6 +24,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataParser;
 import org.eclipse.equinox.internal.p2.metadata.repository.io.MetadataWriter;
 import org.eclipse.equinox.internal.p2.persistence.XMLWriter;
@@ -62,6 +63,7 @@ public class MetadataRepositoryIO {
 
 				Parser repositoryParser = new Parser(Constants.ID);
 				repositoryParser.setErrorContext(location.toExternalForm());
+				repositoryParser.setMetadataPool(MetadataPool.getPool(agent));
 				repositoryParser.parse(input, monitor);
 				IStatus result = repositoryParser.getStatus();
 				switch (result.getSeverity()) {
@@ -194,10 +196,8 @@ public class MetadataRepositoryIO {
 			try {
 				// TODO: currently not caching the parser since we make no assumptions
 				//		 or restrictions on concurrent parsing
-				XMLReader reader = getParser().getXMLReader();
 				RepositoryHandler repositoryHandler = new RepositoryHandler();
-				reader.setContentHandler(new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
-				reader.parse(new InputSource(stream));
+				parseDocument(stream, new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
 				if (isValidXML()) {
 					theRepository = repositoryHandler.getRepository();
 				}
@@ -22,6 +22,7 @@ import org.eclipse.equinox.internal.p2.repository.helpers.LocationProperties;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.repository.ICompositeRepository;
 import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
@@ -32,6 +33,11 @@ import org.eclipse.equinox.p2.repository.metadata.spi.MetadataRepositoryFactory;
  */
 public class MetadataRepositoryManager extends AbstractRepositoryManager<IInstallableUnit> implements IMetadataRepositoryManager {
 
+	// rough retained size of an installable unit with its capabilities and properties
+	private static final long UNIT_SIZE = 4 * 1024;
+	// the children of composite repositories are cached on their own
+	private static final long COMPOSITE_SIZE = 16 * 1024;
+
 	public MetadataRepositoryManager(IProvisioningAgent agent) {
 		super(agent);
 	}
@@ -65,6 +71,14 @@ public class MetadataRepositoryManager extends AbstractRepositoryManager<IInstal
 		return factory.load(location, flags, monitor);
 	}
 
+	@Override
+	protected long estimateSize(IRepository<IInstallableUnit> repository) {
+		if (repository instanceof ICompositeRepository<?>) {
+			return COMPOSITE_SIZE;
+		}
+		return COMPOSITE_SIZE + UNIT_SIZE * countElements(repository);
+	}
+
 	@Override
 	protected String getBundleId() {
 		return Constants.ID;
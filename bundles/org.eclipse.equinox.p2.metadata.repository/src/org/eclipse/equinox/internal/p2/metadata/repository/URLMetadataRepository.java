@@ -47,6 +47,7 @@ public class URLMetadataRepository extends AbstractMetadataRepository implements
 	protected IUMap units = new IUMap();
 	private IIndex<IInstallableUnit> idIndex;
 	private IIndex<IInstallableUnit> capabilityIndex;
+	private IIndex<IInstallableUnit> propertyIndex;
 	private TranslationSupport translationSupport;
 
 	public static URI getActualLocation(URI base) {
@@ -128,6 +129,13 @@ public class URLMetadataRepository extends AbstractMetadataRepository implements
 			}
 			return capabilityIndex;
 		}
+
+		if (InstallableUnit.MEMBER_PROPERTIES.equals(memberName)) {
+			if (propertyIndex == null) {
+				propertyIndex = new PropertyIndex(units.iterator());
+			}
+			return propertyIndex;
+		}
 		return null;
 	}
 
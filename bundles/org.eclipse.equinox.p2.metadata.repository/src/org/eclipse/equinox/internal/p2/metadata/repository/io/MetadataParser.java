@@ -559,7 +559,7 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 			properties.put(namespace, name);
 			properties.put(IProvidedCapability.PROPERTY_VERSION, version);
 			IProvidedCapability cap = MetadataFactory.createProvidedCapability(namespace, properties);
-			capabilities.add(cap);
+			capabilities.add(getMetadataPool().share(cap));
 		}
 	}
 
@@ -819,7 +819,7 @@ public abstract class MetadataParser extends XMLParser implements XMLConstants {
 			} else {
 				requirement = MetadataFactory.createRequirement(namespace, name, range, filter, min, max, greedy, description);
 			}
-			capabilities.add(requirement);
+			capabilities.add(getMetadataPool().share(requirement));
 		}
 
 		private String removeWhiteSpace(String s) {
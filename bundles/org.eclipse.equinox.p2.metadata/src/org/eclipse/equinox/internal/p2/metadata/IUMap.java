@@ -14,17 +14,14 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.metadata;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.NoSuchElementException;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.core.helpers.SharedHashMap;
 import org.eclipse.equinox.p2.core.IPool;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.expression.SimplePattern;
 import org.eclipse.equinox.p2.query.CollectionResult;
 import org.eclipse.equinox.p2.query.Collector;
 import org.eclipse.equinox.p2.query.IQuery;
@@ -32,7 +29,9 @@ import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.QueryUtil;
 
 /**
- * A map that stores {@link IInstallableUnit} instances in a way that is efficient to query
+ * A map that stores {@link IInstallableUnit} instances in a way that is efficient to query.
+ * Clones share their structure with the original map, so cloning is cheap and
+ * the arrays held by the map are replaced rather than changed.
  */
 public class IUMap implements Cloneable {
 	/**
@@ -104,14 +103,35 @@ public class IUMap implements Cloneable {
 	/**
 	 * Map<String,Object> mapping IU id to either arrays of iu's or a single iu with that id.
 	 */
-	final Map<String, Object> units = new HashMap<>();
+	final SharedHashMap<String, Object> units;
+
+	/**
+	 * Ids in ascending order, sorted from the map at the given version of its ids.
+	 */
+	private record SortedIds(int version, String[] ids) {
+	}
+
+	/**
+	 * Counts the changes of the ids. A lookup by pattern that runs while an id is
+	 * added or removed may sort the ids it sees under an outdated version, which
+	 * makes later lookups sort them again.
+	 */
+	private volatile int idsVersion;
+
+	/**
+	 * The ids in ascending order, and the reversed ids in ascending order. They
+	 * are sorted when units are looked up by a pattern, and only used as long as
+	 * no id was added or removed since.
+	 */
+	private volatile SortedIds sortedIds;
+	private volatile SortedIds sortedReversedIds;
 
 	public IUMap() {
-		//
+		units = new SharedHashMap<>();
 	}
 
 	private IUMap(IUMap cloneSource) {
-		units.putAll(cloneSource.units);
+		units = cloneSource.units.snapshot();
 	}
 
 	public void add(IInstallableUnit unit) {
@@ -119,6 +139,7 @@ public class IUMap implements Cloneable {
 		Object matching = units.get(key);
 		if (matching == null) {
 			units.put(key, unit);
+			idsChanged();
 			return;
 		}
 
@@ -161,6 +182,7 @@ public class IUMap implements Cloneable {
 
 	public void clear() {
 		units.clear();
+		idsChanged();
 	}
 
 	@Override
@@ -189,6 +211,89 @@ public class IUMap implements Cloneable {
 		return bucket.getClass().isArray() ? CollectionUtils.unmodifiableList((IInstallableUnit[]) bucket) : Collections.singletonList((IInstallableUnit) bucket);
 	}
 
+	/**
+	 * Returns the units with an id that matches the given <code>pattern</code>.
+	 * Only the ids that start with the constant prefix of the pattern are tested,
+	 * or the ids that end with its constant suffix when the pattern starts with a
+	 * wildcard.
+	 * @param pattern The pattern of the ids. Must not be <code>null</code>.
+	 * @return The units with a matching id.
+	 */
+	public Collection<IInstallableUnit> getUnits(SimplePattern pattern) {
+		String text = pattern.toString();
+		StringBuilder constant = new StringBuilder();
+		String prefix = null;
+		for (int idx = 0; idx < text.length(); ++idx) {
+			char c = text.charAt(idx);
+			if (c == '*' || c == '?') {
+				if (prefix == null) {
+					prefix = constant.toString();
+				}
+				constant.setLength(0);
+				continue;
+			}
+			if (c == '\\' && idx + 1 < text.length()) {
+				c = text.charAt(++idx);
+			}
+			constant.append(c);
+		}
+		if (prefix == null) {
+			// no wildcards
+			return getUnits(constant.toString());
+		}
+
+		String[] ids;
+		String start;
+		boolean reversed = prefix.isEmpty() && constant.length() > 0;
+		// read before the ids are sorted, a concurrent change makes the result outdated
+		int version = idsVersion;
+		if (reversed) {
+			SortedIds sorted = sortedReversedIds;
+			if (sorted == null || sorted.version() != version) {
+				sorted = new SortedIds(version, sortIds(true));
+				sortedReversedIds = sorted;
+			}
+			ids = sorted.ids();
+			start = constant.reverse().toString();
+		} else {
+			SortedIds sorted = sortedIds;
+			if (sorted == null || sorted.version() != version) {
+				sorted = new SortedIds(version, sortIds(false));
+				sortedIds = sorted;
+			}
+			ids = sorted.ids();
+			start = prefix;
+		}
+
+		List<IInstallableUnit> result = new ArrayList<>();
+		int idx = Arrays.binarySearch(ids, start);
+		for (idx = idx < 0 ? -(idx + 1) : idx; idx < ids.length && ids[idx].startsWith(start); ++idx) {
+			String id = reversed ? new StringBuilder(ids[idx]).reverse().toString() : ids[idx];
+			if (pattern.isMatch(id)) {
+				result.addAll(getUnits(id));
+			}
+		}
+		return result;
+	}
+
+	private String[] sortIds(boolean reversed) {
+		String[] ids = units.keySet().toArray(new String[units.size()]);
+		if (reversed) {
+			for (int idx = 0; idx < ids.length; ++idx) {
+				ids[idx] = new StringBuilder(ids[idx]).reverse().toString();
+			}
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	private void idsChanged() {
+		// the map has a single writer
+		idsVersion++;
+		sortedIds = null;
+		sortedReversedIds = null;
+	}
+
 	public IQueryResult<IInstallableUnit> get(String id) {
 		return internalGet(id, null);
 	}
@@ -221,6 +326,7 @@ public class IUMap implements Cloneable {
 		if (matching instanceof IInstallableUnit) {
 			if (matching.equals(unit)) {
 				units.remove(key);
+				idsChanged();
 			}
 			return;
 		}
@@ -268,17 +374,17 @@ public class IUMap implements Cloneable {
 			return;
 		}
 
-		Iterator<Entry<String, Object>> entries = units.entrySet().iterator();
-		while (entries.hasNext()) {
-			Entry<String, Object> entry = entries.next();
+		// iterating the map while replacing its values is fine, the arrays may be shared with clones
+		for (Entry<String, Object> entry : units.entrySet()) {
 			Object value = entry.getValue();
 			if (value.getClass().isArray()) {
-				IInstallableUnit[] array = (IInstallableUnit[]) value;
+				IInstallableUnit[] array = ((IInstallableUnit[]) value).clone();
 				for (int i = 0; i < array.length; i++) {
 					array[i] = iuPool.add(array[i]);
 				}
+				units.put(entry.getKey(), array);
 			} else {
-				entry.setValue(iuPool.add((IInstallableUnit) value));
+				units.put(entry.getKey(), iuPool.add((IInstallableUnit) value));
 			}
 		}
 	}
@@ -21,6 +21,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
@@ -84,7 +85,8 @@ public class InstallableUnit implements IInstallableUnit, IMemberProvider {
 	private String id;
 
 	private OrderedProperties properties;
-	private OrderedProperties localizedProperties;
+	// the translations of properties cached by TranslationSupport, which may look them up from several threads
+	private volatile Map<String, String> localizedProperties;
 	IProvidedCapability[] providedCapabilities = NO_PROVIDES;
 	private IRequirement[] requires = NO_REQUIRES;
 	private IRequirement[] metaRequires = NO_REQUIRES;
@@ -173,7 +175,8 @@ public class InstallableUnit implements IInstallableUnit, IMemberProvider {
 	 * Helper method to cache localized properties
 	 */
 	public String getLocalizedProperty(String key) {
-		return localizedProperties != null ? localizedProperties.getProperty(key) : null;
+		Map<String, String> cache = localizedProperties;
+		return cache != null ? cache.get(key) : null;
 	}
 
 	@Override
@@ -271,10 +274,17 @@ public class InstallableUnit implements IInstallableUnit, IMemberProvider {
 	 * Helper method to cache localized properties
 	 */
 	public String setLocalizedProperty(String key, String value) {
-		if (localizedProperties == null) {
-			localizedProperties = new OrderedProperties();
+		Map<String, String> cache = localizedProperties;
+		if (cache == null) {
+			synchronized (this) {
+				cache = localizedProperties;
+				if (cache == null) {
+					cache = new ConcurrentHashMap<>(4);
+					localizedProperties = cache;
+				}
+			}
 		}
-		return localizedProperties.put(key, value);
+		return value == null ? cache.remove(key) : cache.put(key, value);
 	}
 
 	public String setProperty(String key, String value) {
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata;
+
+import java.util.function.Function;
+import org.eclipse.equinox.internal.p2.core.helpers.ConcurrentWeakPool;
+import org.eclipse.equinox.p2.core.IPool;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.metadata.*;
+
+/**
+ * A thread safe pool used to share equal metadata objects such as strings,
+ * versions, version ranges, capabilities, requirements and installable units.
+ * All pooled objects are only weakly referenced.
+ * <p>
+ * There is one process wide {@link #getDefault() default} pool which is used by
+ * static factories such as {@link Version#create(String)} and
+ * {@link VersionRange#create(String)}. In addition every provisioning agent
+ * offers its own pool as the agent service {@link #SERVICE_NAME}, which is used
+ * by the parsers and repositories of that agent. Agent pools share strings,
+ * versions and version ranges through the default pool and keep their own
+ * capabilities, requirements and installable units.
+ */
+public class MetadataPool {
+
+	/**
+	 * Service name of the agent scoped metadata pool.
+	 */
+	public static final String SERVICE_NAME = MetadataPool.class.getName();
+
+	private static final MetadataPool DEFAULT = new MetadataPool(null);
+
+	// Size of the direct mapped caches of recently parsed versions and ranges
+	private static final int RECENT_SIZE = 1024;
+
+	/**
+	 * The result of parsing a version or range string, see {@link #parse}.
+	 */
+	private static final class Parsed<T> {
+		final String text;
+		final T value;
+
+		Parsed(String text, T value) {
+			this.text = text;
+			this.value = value;
+		}
+	}
+
+	private final MetadataPool parent;
+
+	private final ConcurrentWeakPool<String> strings;
+	private final ConcurrentWeakPool<Version> versions;
+	private final ConcurrentWeakPool<VersionRange> ranges;
+	private final Parsed<?>[] recentVersions;
+	private final Parsed<?>[] recentRanges;
+
+	private final ConcurrentWeakPool<IProvidedCapability> capabilities = new ConcurrentWeakPool<>();
+	private final ConcurrentWeakPool<IRequirement> requirements = new ConcurrentWeakPool<>();
+	private final ConcurrentWeakPool<IInstallableUnit> units = new ConcurrentWeakPool<>();
+
+	/**
+	 * Creates a new pool which shares strings, versions and version ranges
+	 * through the default pool.
+	 */
+	public MetadataPool() {
+		this(DEFAULT);
+	}
+
+	private MetadataPool(MetadataPool parent) {
+		this.parent = parent;
+		if (parent == null) {
+			strings = new ConcurrentWeakPool<>(1024);
+			versions = new ConcurrentWeakPool<>(1024);
+			ranges = new ConcurrentWeakPool<>(1024);
+			recentVersions = new Parsed<?>[RECENT_SIZE];
+			recentRanges = new Parsed<?>[RECENT_SIZE];
+		} else {
+			strings = null;
+			versions = null;
+			ranges = null;
+			recentVersions = null;
+			recentRanges = null;
+		}
+	}
+
+	/**
+	 * Returns the process wide pool.
+	 */
+	public static MetadataPool getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the pool of the given agent, or the {@link #getDefault() default}
+	 * pool if the agent is <code>null</code> or does not offer a pool.
+	 */
+	public static MetadataPool getPool(IProvisioningAgent agent) {
+		if (agent != null) {
+			Object pool = agent.getService(SERVICE_NAME);
+			if (pool instanceof MetadataPool) {
+				return (MetadataPool) pool;
+			}
+		}
+		return DEFAULT;
+	}
+
+	public String share(String value) {
+		return parent != null ? parent.share(value) : strings.add(value);
+	}
+
+	public Version share(Version value) {
+		return parent != null ? parent.share(value) : versions.add(value);
+	}
+
+	public VersionRange share(VersionRange value) {
+		return parent != null ? parent.share(value) : ranges.add(value);
+	}
+
+	public IProvidedCapability share(IProvidedCapability value) {
+		return capabilities.add(value);
+	}
+
+	/**
+	 * Returns a shared requirement equal to the given one. Requirements with a
+	 * description are not shared since the description does not take part in
+	 * equality.
+	 */
+	public IRequirement share(IRequirement value) {
+		if (value == null || value.getDescription() != null) {
+			return value;
+		}
+		return requirements.add(value);
+	}
+
+	/**
+	 * Returns this pool as an {@link IPool} of installable units, suitable for
+	 * {@link org.eclipse.equinox.internal.p2.metadata.IUMap#compress(IPool)}.
+	 */
+	public IPool<IInstallableUnit> getInstallableUnitPool() {
+		return units;
+	}
+
+	/**
+	 * Parses and shares the version with the given string representation.
+	 */
+	public Version parseVersion(String text) {
+		if (parent != null) {
+			return parent.parseVersion(text);
+		}
+		return parse(recentVersions, text, t -> versions.add(VersionParser.parse(t, 0, t.length())));
+	}
+
+	/**
+	 * Parses and shares the version range with the given string representation.
+	 */
+	public VersionRange parseVersionRange(String text) {
+		if (parent != null) {
+			return parent.parseVersionRange(text);
+		}
+		return parse(recentRanges, text, t -> ranges.add(new VersionRange(t)));
+	}
+
+	/**
+	 * Looks up the given text in a direct mapped cache of recent parse results
+	 * before parsing it. The cache entries are immutable, so concurrent readers
+	 * either see a complete entry or a stale one, which is simply replaced.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T parse(Parsed<?>[] recent, String text, Function<String, T> parser) {
+		int hash = text.hashCode();
+		int index = (hash ^ (hash >>> 16)) & (recent.length - 1);
+		Parsed<?> parsed = recent[index];
+		if (parsed != null && parsed.text.equals(text)) {
+			return (T) parsed.value;
+		}
+		T value = parser.apply(text);
+		recent[index] = new Parsed<>(text, value);
+		return value;
+	}
+}
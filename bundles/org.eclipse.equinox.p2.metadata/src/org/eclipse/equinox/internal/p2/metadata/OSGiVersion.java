@@ -99,9 +99,9 @@ public class OSGiVersion extends BasicVersion {
 		if (!isValidOSGiQualifier(qualifier)) {
 			throw new IllegalArgumentException(NLS.bind(Messages._0_is_not_a_valid_qualifier_in_osgi_1, "qualifier", this)); //$NON-NLS-1$
 		}
-		//intern the qualifier string to avoid duplication
+		//share the qualifier string to avoid duplication
 		if (qualifier instanceof String) {
-			qualifier = ((String) qualifier).intern();
+			qualifier = MetadataPool.getDefault().share((String) qualifier);
 		}
 		this.qualifier = qualifier;
 	}
@@ -18,11 +18,14 @@ package org.eclipse.equinox.internal.p2.metadata;
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
@@ -30,12 +33,14 @@ import org.eclipse.equinox.p2.metadata.ICopyright;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IInstallableUnitFragment;
 import org.eclipse.equinox.p2.metadata.ILicense;
+import org.eclipse.equinox.p2.metadata.IProvidedCapability;
+import org.eclipse.equinox.p2.metadata.IRequirement;
 import org.eclipse.equinox.p2.metadata.IUpdateDescriptor;
 import org.eclipse.equinox.p2.metadata.KeyWithLocale;
 import org.eclipse.equinox.p2.metadata.MetadataFactory;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
-import org.eclipse.equinox.p2.metadata.expression.IExpressionFactory;
+import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 import org.eclipse.equinox.p2.query.Collector;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
@@ -47,7 +52,8 @@ import org.eclipse.osgi.service.localization.LocaleProvider;
  * TranslationSupport provides string translations for properties of an
  * IInstallableUnit.  Clients can specify an {@link IQueryable} that should be used
  * to obtain the translation fragment IU's, as well as the locale that
- * should be used for translations.
+ * should be used for translations. The translations can be looked up by
+ * several threads at once.
  *
  * @since 2.0
  */
@@ -60,17 +66,83 @@ public class TranslationSupport {
 	private static TranslationSupport instance;
 
 	static final String NAMESPACE_IU_LOCALIZATION = "org.eclipse.equinox.p2.localization"; //$NON-NLS-1$
-	private IQueryable<IInstallableUnit> fragmentSource;
+	private volatile IQueryable<IInstallableUnit> fragmentSource;
 
 	private static IExpression capabilityMatch = ExpressionUtil.parse("providedCapabilities.exists(x | x.namespace == $0 && $1.exists(n | x.name == n))"); //$NON-NLS-1$
-	private static IExpression haveHostMatch = ExpressionUtil.parse("host.exists(h | $0 ~= h)"); //$NON-NLS-1$
 
 	// Cache the IU fragments that provide localizations for a given locale.
-	// Map<String,SoftReference<IQueryResult>>: locale => soft reference to a queryResult
-	private final Map<String, SoftReference<IQueryResult<IInstallableUnit>>> localeCollectorCache = new HashMap<>(2);
+	// Map<String,SoftReference<LocaleFragments>>: locale => soft reference to the fragments
+	private final Map<String, SoftReference<LocaleFragments>> localeFragmentsCache = new ConcurrentHashMap<>(2);
 
-	private LocaleProvider localeProvider;
-	private boolean loggedMissingSource = false;
+	private volatile LocaleProvider localeProvider;
+	private volatile boolean loggedMissingSource = false;
+
+	/**
+	 * The fragments that provide localizations for a locale. They are sorted in
+	 * one pass by the names that their hosts require, so that the fragments of a
+	 * unit are found without testing every fragment. The fragments of each unit
+	 * are kept once they are found.
+	 */
+	private static final class LocaleFragments {
+		static final LocaleFragments NONE = new LocaleFragments(null, Collector.emptyCollector());
+
+		final IQueryable<IInstallableUnit> source;
+		private final Map<String, List<IInstallableUnitFragment>> byHostName = new HashMap<>();
+		private final List<IInstallableUnitFragment> otherHosts = new ArrayList<>();
+		private final Map<IInstallableUnit, List<IInstallableUnitFragment>> byHost = new ConcurrentHashMap<>();
+
+		LocaleFragments(IQueryable<IInstallableUnit> source, IQueryResult<IInstallableUnit> fragments) {
+			this.source = source;
+			for (IInstallableUnit unit : fragments) {
+				if (!(unit instanceof IInstallableUnitFragment fragment)) {
+					continue;
+				}
+				boolean otherHost = false;
+				for (IRequirement host : fragment.getHost()) {
+					IMatchExpression<IInstallableUnit> matches = host.getMatches();
+					if (RequiredCapability.isVersionRangeRequirement(matches)) {
+						byHostName.computeIfAbsent(RequiredCapability.extractName(matches), name -> new ArrayList<>(1)).add(fragment);
+					} else {
+						otherHost = true;
+					}
+				}
+				if (otherHost) {
+					otherHosts.add(fragment);
+				}
+			}
+		}
+
+		/**
+		 * Returns the fragments that have a host requirement that the given unit
+		 * satisfies.
+		 */
+		List<IInstallableUnitFragment> getFragments(IInstallableUnit unit) {
+			return byHost.computeIfAbsent(unit, this::findFragments);
+		}
+
+		private List<IInstallableUnitFragment> findFragments(IInstallableUnit unit) {
+			// a unit can only satisfy a requirement on a name that it provides
+			Set<IInstallableUnitFragment> candidates = new LinkedHashSet<>();
+			for (IProvidedCapability capability : unit.getProvidedCapabilities()) {
+				List<IInstallableUnitFragment> fragments = byHostName.get(capability.getName());
+				if (fragments != null) {
+					candidates.addAll(fragments);
+				}
+			}
+			candidates.addAll(otherHosts);
+
+			List<IInstallableUnitFragment> result = new ArrayList<>(1);
+			for (IInstallableUnitFragment fragment : candidates) {
+				for (IRequirement host : fragment.getHost()) {
+					if (unit.satisfies(host)) {
+						result.add(fragment);
+						break;
+					}
+				}
+			}
+			return result.isEmpty() ? Collections.emptyList() : result;
+		}
+	}
 
 	public synchronized static TranslationSupport getInstance() {
 		if (instance == null) {
@@ -118,7 +190,8 @@ public class TranslationSupport {
 
 	/**
 	 * Cache the translated property value to optimize future retrieval of the same value.
-	 * Currently we just cache on the installable unit object in memory. In future
+	 * Currently we just cache on the installable unit object in memory, which is
+	 * safe to do from several threads. In future
 	 * we should push support for localized property retrieval into IInstallableUnit
 	 * so we aren't required to reach around the API here.
 	 */
@@ -260,27 +333,29 @@ public class TranslationSupport {
 	/**
 	 * Collects the installable unit fragments that contain locale data for the given locales.
 	 */
-	private synchronized IQueryResult<IInstallableUnit> getLocalizationFragments(List<String> localeVariants, String locale) {
-		if (fragmentSource == null) {
+	private LocaleFragments getLocalizationFragments(List<String> localeVariants, String locale) {
+		IQueryable<IInstallableUnit> source = fragmentSource;
+		if (source == null) {
 			if (!loggedMissingSource) {
 				loggedMissingSource = true;
 				LogHelper.log(new Status(IStatus.INFO, PI_METADATA, "No translation source unavailable. Default language will be used.")); //$NON-NLS-1$
 			}
-			return Collector.emptyCollector();
+			return LocaleFragments.NONE;
 		}
 
-		SoftReference<IQueryResult<IInstallableUnit>> queryResultReference = localeCollectorCache.get(locale);
-		if (queryResultReference != null) {
-			IQueryResult<IInstallableUnit> cached = queryResultReference.get();
-			if (cached != null) {
+		SoftReference<LocaleFragments> fragmentsReference = localeFragmentsCache.get(locale);
+		if (fragmentsReference != null) {
+			LocaleFragments cached = fragmentsReference.get();
+			// fragments of a previous translation source are stale
+			if (cached != null && cached.source == source) {
 				return cached;
 			}
 		}
 
 		IQuery<IInstallableUnit> iuQuery = QueryUtil.createMatchQuery(IInstallableUnitFragment.class, capabilityMatch, NAMESPACE_IU_LOCALIZATION, localeVariants);
-		IQueryResult<IInstallableUnit> collected = fragmentSource.query(iuQuery, null);
-		localeCollectorCache.put(locale, new SoftReference<>(collected));
-		return collected;
+		LocaleFragments fragments = new LocaleFragments(source, source.query(iuQuery, null));
+		localeFragmentsCache.put(locale, new SoftReference<>(fragments));
+		return fragments;
 	}
 
 	private String getLocalizedIUProperty(IInstallableUnit iu, String actualKey, String locale) {
@@ -300,23 +375,14 @@ public class TranslationSupport {
 		}
 
 		final List<String> locales = buildLocaleVariants(locale);
-		final IInstallableUnit theUnit = iu;
-
-		IQueryResult<IInstallableUnit> localizationFragments = getLocalizationFragments(locales, locale);
-
-		IExpressionFactory factory = ExpressionUtil.getFactory();
-		IQuery<IInstallableUnit> iuQuery = QueryUtil.createMatchQuery(IInstallableUnitFragment.class, factory.matchExpression(haveHostMatch, theUnit));
-		IQueryResult<IInstallableUnit> collected = iuQuery.perform(localizationFragments.iterator());
-		if (!collected.isEmpty()) {
-			String translation = null;
-			for (Iterator<IInstallableUnit> iter = collected.iterator(); iter.hasNext() && translation == null;) {
-				IInstallableUnit localizationIU = iter.next();
-				for (String unitlocale : locales) {
-					String localeKey = makeLocalizedKey(actualKey, unitlocale);
-					translation = localizationIU.getProperty(localeKey);
-					if (translation != null) {
-						return cacheResult(iu, localizedKey, translation);
-					}
+
+		LocaleFragments localizationFragments = getLocalizationFragments(locales, locale);
+		for (IInstallableUnitFragment localizationIU : localizationFragments.getFragments(iu)) {
+			for (String unitlocale : locales) {
+				String localeKey = makeLocalizedKey(actualKey, unitlocale);
+				String translation = localizationIU.getProperty(localeKey);
+				if (translation != null) {
+					return cacheResult(iu, localizedKey, translation);
 				}
 			}
 		}
@@ -343,7 +409,7 @@ public class TranslationSupport {
 	public synchronized void setLocaleProvider(LocaleProvider provider) {
 		if (provider != this.localeProvider) {
 			this.localeProvider = provider;
-			localeCollectorCache.clear();
+			localeFragmentsCache.clear();
 		}
 	}
 
@@ -358,7 +424,7 @@ public class TranslationSupport {
 		IQueryable<IInstallableUnit> previous = fragmentSource;
 		if (previous != queryable) {
 			this.fragmentSource = queryable;
-			localeCollectorCache.clear();
+			localeFragmentsCache.clear();
 		}
 		return previous;
 	}
@@ -53,7 +53,10 @@ class At extends Binary {
 			lval = lhs.evaluate(context);
 		}
 
-		Object rval = rhs.evaluate(context);
+		return evaluate(lval, rhs.evaluate(context));
+	}
+
+	Object evaluate(Object lval, Object rval) {
 		if (lval == null) {
 			throw new IllegalArgumentException("Unable to use [] on null"); //$NON-NLS-1$
 		}
@@ -14,9 +14,10 @@
 package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Iterator;
+import java.util.List;
+import org.eclipse.equinox.internal.p2.metadata.index.QueryPlanner;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpressionVisitor;
-import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 
 /**
@@ -97,22 +98,20 @@ public abstract class CollectionFilter extends Unary {
 		throw new UnsupportedOperationException();
 	}
 
-	private transient IIndexProvider<?> lastIndexProvider;
-	private transient IIndex<?> lastIndex;
+	private record IndexMembers(Class<?> elementClass, List<String> members) {
+	}
 
-	private IIndex<?> getIndex(Class<?> elementClass, IIndexProvider<?> indexProvider) {
-		if (lastIndexProvider == indexProvider) {
-			return lastIndex;
-		}
+	// one field, so that threads sharing a parsed expression see a consistent pair
+	private transient volatile IndexMembers indexMembers;
 
-		for (String member : getIndexCandidateMembers(elementClass, lambda.getItemVariable(), lambda.getOperand())) {
-			IIndex<?> index = indexProvider.getIndex(member);
-			if (index != null) {
-				lastIndex = index;
-			}
+	private List<String> getIndexMembers(Class<?> elementClass) {
+		IndexMembers last = indexMembers;
+		if (last != null && last.elementClass() == elementClass) {
+			return last.members();
 		}
-		lastIndexProvider = indexProvider;
-		return lastIndex;
+		List<String> members = getIndexCandidateMembers(elementClass, lambda.getItemVariable(), lambda.getOperand());
+		indexMembers = new IndexMembers(elementClass, members);
+		return members;
 	}
 
 	protected Iterator<?> getInnerIterator(IEvaluationContext context) {
@@ -123,9 +122,9 @@ public abstract class CollectionFilter extends Unary {
 			IIndexProvider<?> indexProvider = context.getIndexProvider();
 			if (indexProvider != null) {
 				Class<?> elementClass = ((Everything<?>) collection).getElementClass();
-				IIndex<?> index = getIndex(elementClass, indexProvider);
-				if (index != null) {
-					Iterator<?> indexed = index.getCandidates(context, lambda.getItemVariable(), lambda.getOperand());
+				List<String> members = getIndexMembers(elementClass);
+				if (!members.isEmpty()) {
+					Iterator<?> indexed = QueryPlanner.getCandidates(indexProvider, members, context, lambda.getItemVariable(), lambda.getOperand());
 					if (indexed != null) {
 						return indexed;
 					}
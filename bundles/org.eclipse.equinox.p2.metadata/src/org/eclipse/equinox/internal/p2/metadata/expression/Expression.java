@@ -377,8 +377,10 @@ public abstract class Expression implements IExpression, Comparable<Expression>,
 					}
 				}
 
-				// No point in scanning for more index candidates in a matches expression
-				return false;
+				// Go on with the operands, a member that is matched against a pattern,
+				// such as the id, is a candidate too. Returning false would also stop
+				// the scan of the operands that follow this expression.
+				return true;
 			}
 
 			if (expression instanceof Member member) {
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.Member.DynamicMember;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+
+/**
+ * Compiles boolean expressions into trees of small closures, which the JIT can
+ * inline, so that matching a candidate does not walk the expression nodes and
+ * look up variables in an evaluation context. The variables are kept in the
+ * slots of an array that is allocated for each match, the parameters are
+ * resolved when the expression is compiled.
+ * <p>
+ * Only the operators found in requirements, filters and simple queries are
+ * compiled: the boolean operators, the comparisons, matches, member and index
+ * access and the <code>exists</code> and <code>all</code> collection filters.
+ * An expression that uses anything else is not compiled and is left to the
+ * interpreter.
+ * </p>
+ */
+public final class ExpressionCompiler {
+
+	/**
+	 * The number of times an expression is interpreted before it is compiled, so
+	 * that expressions that are used only a few times are not compiled.
+	 */
+	static final int COMPILE_THRESHOLD = 8;
+
+	/**
+	 * Marks an expression that cannot be compiled.
+	 */
+	static final Object NOT_COMPILABLE = new Object();
+
+	/**
+	 * A boolean expression compiled for a single candidate.
+	 */
+	public static final class CompiledMatch {
+		private final Test test;
+		private final int frameSize;
+
+		CompiledMatch(Test test, int frameSize) {
+			this.test = test;
+			this.frameSize = frameSize;
+		}
+
+		/**
+		 * Returns whether the expression yields <code>true</code> when its
+		 * <code>this</code> variable is the given candidate.
+		 */
+		public boolean isMatch(Object candidate) {
+			Object[] frame = new Object[frameSize];
+			frame[0] = candidate;
+			return test.test(frame);
+		}
+	}
+
+	@FunctionalInterface
+	interface Value {
+		Object evaluate(Object[] frame);
+	}
+
+	@FunctionalInterface
+	interface Test {
+		boolean test(Object[] frame);
+	}
+
+	/**
+	 * Compiles the given boolean expression, using the given values for its
+	 * parameters.
+	 *
+	 * @return the compiled expression or <code>null</code> if the expression
+	 * cannot be compiled
+	 */
+	public static CompiledMatch compile(Expression expression, Object[] parameters) {
+		ExpressionCompiler compiler = new ExpressionCompiler(parameters);
+		Map<Variable, Integer> slots = new HashMap<>();
+		slots.put(ExpressionFactory.THIS, Integer.valueOf(0));
+		Test test = compiler.test(expression, slots);
+		return test == null ? null : new CompiledMatch(test, compiler.frameSize);
+	}
+
+	private final Object[] parameters;
+	private int frameSize = 1;
+
+	private ExpressionCompiler(Object[] parameters) {
+		this.parameters = parameters;
+	}
+
+	private Test test(Expression expression, Map<Variable, Integer> slots) {
+		Class<?> type = expression.getClass();
+		if (type == And.class || type == Or.class) {
+			Expression[] operands = ((NAry) expression).operands;
+			Test[] tests = new Test[operands.length];
+			for (int idx = 0; idx < operands.length; ++idx) {
+				tests[idx] = test(operands[idx], slots);
+				if (tests[idx] == null) {
+					return null;
+				}
+			}
+			return type == And.class ? and(tests) : or(tests);
+		}
+		if (type == Not.class) {
+			Test operand = test(((Not) expression).operand, slots);
+			return operand == null ? null : frame -> !operand.test(frame);
+		}
+		if (type == Equals.class || type == Compare.class || type == Matches.class) {
+			return binary((Binary) expression, slots);
+		}
+		if (type == Exists.class || type == All.class) {
+			return collectionFilter((CollectionFilter) expression, slots);
+		}
+		if (expression == Literal.TRUE_CONSTANT) {
+			return frame -> true;
+		}
+		if (expression == Literal.FALSE_CONSTANT) {
+			return frame -> false;
+		}
+		Value value = value(expression, slots);
+		return value == null ? null : frame -> value.evaluate(frame) == Boolean.TRUE;
+	}
+
+	private Value value(Expression expression, Map<Variable, Integer> slots) {
+		Class<?> type = expression.getClass();
+		if (type == Literal.class || type == Parameter.class) {
+			if (!isConstant(expression)) {
+				return null;
+			}
+			Object constant = constant(expression);
+			return frame -> constant;
+		}
+		if (type == Variable.class) {
+			Integer slot = slots.get(expression);
+			if (slot == null) {
+				return null;
+			}
+			int idx = slot.intValue();
+			return frame -> frame[idx];
+		}
+		if (type == At.class) {
+			return at((At) expression, slots);
+		}
+		if (type == DynamicMember.class) {
+			DynamicMember member = (DynamicMember) expression;
+			Value operand = value(member.operand, slots);
+			return operand == null ? null : frame -> member.invoke(operand.evaluate(frame));
+		}
+		if (type == And.class || type == Or.class || type == Not.class || type == Equals.class || type == Compare.class || type == Matches.class || type == Exists.class || type == All.class) {
+			Test test = test(expression, slots);
+			return test == null ? null : frame -> Boolean.valueOf(test.test(frame));
+		}
+		return null;
+	}
+
+	private Value at(At at, Map<Variable, Integer> slots) {
+		Value rhs = value(at.rhs, slots);
+		if (rhs == null) {
+			return null;
+		}
+		if (at.lhs instanceof DynamicMember member) {
+			String name = member.getName();
+			if (InstallableUnit.MEMBER_TRANSLATED_PROPERTIES == name || InstallableUnit.MEMBER_PROFILE_PROPERTIES == name) {
+				// managed properties need the index provider of a query
+				return null;
+			}
+			Value instance = value(member.operand, slots);
+			if (instance == null) {
+				return null;
+			}
+			boolean properties = InstallableUnit.MEMBER_PROPERTIES == name;
+			return frame -> {
+				Object self = instance.evaluate(frame);
+				if (properties && self instanceof IInstallableUnit iu) {
+					return iu.getProperty((String) rhs.evaluate(frame));
+				}
+				return at.evaluate(member.invoke(self), rhs.evaluate(frame));
+			};
+		}
+		Value lhs = value(at.lhs, slots);
+		return lhs == null ? null : frame -> at.evaluate(lhs.evaluate(frame), rhs.evaluate(frame));
+	}
+
+	private Test binary(Binary expression, Map<Variable, Integer> slots) {
+		Value lhs = value(expression.lhs, slots);
+		if (lhs == null) {
+			return null;
+		}
+		if (expression instanceof Matches matches && isConstant(expression.rhs)) {
+			Object rhsVal = constant(expression.rhs);
+			if (rhsVal instanceof VersionRange range) {
+				// the version range of a requirement
+				return frame -> {
+					Object lhsVal = lhs.evaluate(frame);
+					return lhsVal instanceof Version version ? range.isIncluded(version) : matches.match(lhsVal, range);
+				};
+			}
+			return frame -> matches.match(lhs.evaluate(frame), rhsVal);
+		}
+		if (expression instanceof Equals equals && isConstant(expression.rhs) && constant(expression.rhs) instanceof String rhsVal) {
+			// the name and namespace of a requirement
+			boolean negate = equals.negate;
+			return frame -> {
+				Object lhsVal = lhs.evaluate(frame);
+				return lhsVal instanceof String ? rhsVal.equals(lhsVal) != negate : equals.evaluate(lhsVal, rhsVal);
+			};
+		}
+		Value rhs = value(expression.rhs, slots);
+		if (rhs == null) {
+			return null;
+		}
+		if (expression instanceof Equals equals) {
+			return frame -> equals.evaluate(lhs.evaluate(frame), rhs.evaluate(frame));
+		}
+		if (expression instanceof Compare compare) {
+			return frame -> compare.evaluate(lhs.evaluate(frame), rhs.evaluate(frame));
+		}
+		Matches matches = (Matches) expression;
+		return frame -> matches.match(lhs.evaluate(frame), rhs.evaluate(frame));
+	}
+
+	private Test collectionFilter(CollectionFilter filter, Map<Variable, Integer> slots) {
+		if (filter.lambda.getClass() != LambdaExpression.class) {
+			return null;
+		}
+		Variable variable = filter.lambda.getItemVariable();
+		Value collection = value(filter.operand, slots);
+		if (collection == null || slots.containsKey(variable)) {
+			// the interpreter does not let a variable hide another one either
+			return null;
+		}
+		// the item variable gets the next free slot, which is reused by sibling filters
+		int slot = slots.size();
+		Map<Variable, Integer> lambdaSlots = new HashMap<>(slots);
+		lambdaSlots.put(variable, Integer.valueOf(slot));
+		frameSize = Math.max(frameSize, slot + 1);
+		Test body = test(filter.lambda.operand, lambdaSlots);
+		if (body == null) {
+			return null;
+		}
+		boolean all = filter instanceof All;
+		return frame -> {
+			Object values = collection.evaluate(frame);
+			if (values instanceof Object[] array) {
+				for (Object value : array) {
+					frame[slot] = value;
+					if (body.test(frame) != all) {
+						return !all;
+					}
+				}
+				return all;
+			}
+			Iterator<?> itor = values instanceof Collection<?> coll ? coll.iterator() : values instanceof IRepeatableIterator<?> repeatable ? repeatable.getCopy() : RepeatableIterator.create(values);
+			while (itor.hasNext()) {
+				frame[slot] = itor.next();
+				if (body.test(frame) != all) {
+					return !all;
+				}
+			}
+			return all;
+		};
+	}
+
+	private boolean isConstant(Expression expression) {
+		if (expression.getClass() == Literal.class) {
+			return true;
+		}
+		return expression.getClass() == Parameter.class && ((Parameter) expression).position < parameters.length;
+	}
+
+	private Object constant(Expression expression) {
+		return expression instanceof Literal literal ? literal.value : parameters[((Parameter) expression).position];
+	}
+
+	private static Test and(Test[] tests) {
+		if (tests.length == 2) {
+			Test first = tests[0];
+			Test second = tests[1];
+			return frame -> first.test(frame) && second.test(frame);
+		}
+		return frame -> {
+			for (Test test : tests) {
+				if (!test.test(frame)) {
+					return false;
+				}
+			}
+			return true;
+		};
+	}
+
+	private static Test or(Test[] tests) {
+		if (tests.length == 2) {
+			Test first = tests[0];
+			Test second = tests[1];
+			return frame -> first.test(frame) || second.test(frame);
+		}
+		return frame -> {
+			for (Test test : tests) {
+				if (test.test(frame)) {
+					return true;
+				}
+			}
+			return false;
+		};
+	}
+}
@@ -16,12 +16,18 @@ package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Dictionary;
 import java.util.Map;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledMatch;
 import org.eclipse.equinox.p2.metadata.expression.*;
 import org.osgi.framework.Filter;
 import org.osgi.framework.ServiceReference;
 
 public class LDAPFilter extends Unary implements IFilterExpression {
 
+	// the number of interpreted matches, until the filter is compiled
+	private int evaluations;
+	// the compiled filter, or NOT_COMPILABLE
+	private volatile Object compiled;
+
 	LDAPFilter(Expression expression) {
 		super(expression);
 	}
@@ -63,12 +69,29 @@ public class LDAPFilter extends Unary implements IFilterExpression {
 	}
 
 	public boolean isMatch(Object candidate) {
+		CompiledMatch match = getCompiled();
+		if (match != null) {
+			return match.isMatch(candidate);
+		}
 		Variable self = ExpressionFactory.THIS;
 		IEvaluationContext ctx = EvaluationContext.create(self);
 		self.setValue(ctx, candidate);
 		return Boolean.TRUE == operand.evaluate(ctx);
 	}
 
+	private CompiledMatch getCompiled() {
+		Object match = compiled;
+		if (match == null) {
+			// not synchronized, the count only needs to be roughly right
+			if (++evaluations < ExpressionCompiler.COMPILE_THRESHOLD) {
+				return null;
+			}
+			match = ExpressionCompiler.compile(operand, new Object[0]);
+			compiled = match = match == null ? ExpressionCompiler.NOT_COMPILABLE : match;
+		}
+		return match == ExpressionCompiler.NOT_COMPILABLE ? null : (CompiledMatch) match;
+	}
+
 	@Override
 	public boolean match(ServiceReference<?> reference) {
 		return isMatch(reference == null ? MemberProvider.emptyProvider() : MemberProvider.create(reference, true));
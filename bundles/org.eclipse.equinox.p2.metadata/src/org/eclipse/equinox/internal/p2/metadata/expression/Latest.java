@@ -33,8 +33,9 @@ final class Latest extends UnaryCollectionFilter {
 		HashMap<String, IVersionedId> greatestIUVersion;
 		if (operand instanceof Select select) {
 			// Inline element evaluation here so that we don't build a map that is
-			// larger then it has to be
-			Iterator<?> iterator = select.operand.evaluateAsIterator(context);
+			// larger then it has to be. The candidates come from the indexes that
+			// the select can use.
+			Iterator<?> iterator = select.getInnerIterator(context);
 			if (!iterator.hasNext()) {
 				return Collections.EMPTY_SET.iterator();
 			}
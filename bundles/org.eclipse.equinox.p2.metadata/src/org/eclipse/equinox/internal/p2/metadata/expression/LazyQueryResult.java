@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledMatch;
+import org.eclipse.equinox.internal.p2.metadata.index.QueryPlanner;
+import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+import org.eclipse.equinox.p2.query.*;
+
+/**
+ * A result that filters the candidates of a query each time it is iterated,
+ * instead of collecting the matches up front. Nothing is collected unless the
+ * result is turned into a set or an array, and {@link #isEmpty()} stops at the
+ * first match.
+ * <p>
+ * The candidates are taken again for each iteration, so the result reflects
+ * changes that are made to its source in between. Candidates that are returned
+ * more than once, such as units of several queryables of a compound, are only
+ * matched once per iteration, like the set of matches a query collects.
+ * </p>
+ */
+public class LazyQueryResult<T> implements IQueryResult<T> {
+
+	private final Supplier<Iterator<T>> candidates;
+	private final Supplier<Predicate<T>> matchers;
+
+	/**
+	 * @param candidates supplies the candidates for one iteration
+	 * @param matchers supplies the test of the candidates for one iteration
+	 */
+	public LazyQueryResult(Supplier<Iterator<T>> candidates, Supplier<Predicate<T>> matchers) {
+		this.candidates = candidates;
+		this.matchers = matchers;
+	}
+
+	/**
+	 * Returns a result that matches the candidates of the given index provider
+	 * against the given query, using the indexes of the provider when they apply
+	 * to the query.
+	 */
+	public static <T> LazyQueryResult<T> create(IIndexProvider<T> indexProvider, ExpressionMatchQuery<T> query) {
+		MatchExpression<T> expression = (MatchExpression<T>) query.getExpression();
+		List<String> indexedMembers = Expression.getIndexCandidateMembers(query.getMatchingClass(), ExpressionFactory.THIS, expression.operand);
+		Class<? extends T> matchingClass = query.getMatchingClass();
+		return new LazyQueryResult<>(() -> {
+			Iterator<T> iterator = QueryPlanner.getCandidates(indexProvider, indexedMembers, expression.createContext(), ExpressionFactory.THIS, expression);
+			return iterator == null ? RepeatableIterator.create(indexProvider) : iterator;
+		}, () -> {
+			// each iteration gets a context of its own, since the context binds the current candidate
+			IEvaluationContext ctx = expression.createContext();
+			ctx.setIndexProvider(indexProvider);
+			return candidate -> {
+				if (!matchingClass.isInstance(candidate)) {
+					return false;
+				}
+				CompiledMatch compiled = expression.getCompiled();
+				return compiled != null ? compiled.isMatch(candidate) : expression.isMatch(ctx, candidate);
+			};
+		});
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		Predicate<T> matcher = matchers.get();
+		Set<T> seen = new HashSet<>();
+		return new MatchIteratorFilter<>(candidates.get()) {
+			@Override
+			protected boolean isMatch(T val) {
+				return matcher.test(val) && seen.add(val);
+			}
+		};
+	}
+
+	@Override
+	public T[] toArray(Class<T> clazz) {
+		return QueryResult.toArray(toSet(), clazz);
+	}
+
+	@Override
+	public Set<T> toSet() {
+		Set<T> result = new HashSet<>();
+		iterator().forEachRemaining(result::add);
+		return result;
+	}
+
+	@Override
+	public Set<T> toUnmodifiableSet() {
+		return Collections.unmodifiableSet(toSet());
+	}
+
+	@Override
+	public IQueryResult<T> query(IQuery<T> query, IProgressMonitor monitor) {
+		return query.perform(iterator());
+	}
+}
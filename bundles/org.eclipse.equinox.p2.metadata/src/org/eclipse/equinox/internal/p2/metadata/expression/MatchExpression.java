@@ -15,6 +15,7 @@ package org.eclipse.equinox.internal.p2.metadata.expression;
 
 import java.util.Arrays;
 import org.eclipse.equinox.internal.p2.core.helpers.CollectionUtils;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledMatch;
 import org.eclipse.equinox.p2.metadata.expression.*;
 
 /**
@@ -26,6 +27,11 @@ public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 	private static final Object[] noParams = new Object[0];
 	private final Object[] parameters;
 
+	// the number of interpreted matches, until the expression is compiled
+	private int evaluations;
+	// the compiled expression, or NOT_COMPILABLE
+	private volatile Object compiled;
+
 	MatchExpression(Expression expression, Object[] parameters) {
 		super(expression);
 		this.parameters = parameters == null ? noParams : parameters;
@@ -92,7 +98,26 @@ public class MatchExpression<T> extends Unary implements IMatchExpression<T> {
 
 	@Override
 	public boolean isMatch(T value) {
-		return isMatch(createContext(), value);
+		CompiledMatch match = getCompiled();
+		return match != null ? match.isMatch(value) : isMatch(createContext(), value);
+	}
+
+	/**
+	 * Returns this expression compiled for matching a single candidate with its
+	 * own parameters, or <code>null</code> if the expression has not been used
+	 * often enough yet or cannot be compiled, in which case it is interpreted.
+	 */
+	public CompiledMatch getCompiled() {
+		Object match = compiled;
+		if (match == null) {
+			// not synchronized, the count only needs to be roughly right
+			if (++evaluations < ExpressionCompiler.COMPILE_THRESHOLD) {
+				return null;
+			}
+			match = ExpressionCompiler.compile(operand, parameters);
+			compiled = match = match == null ? ExpressionCompiler.NOT_COMPILABLE : match;
+		}
+		return match == ExpressionCompiler.NOT_COMPILABLE ? null : (CompiledMatch) match;
 	}
 
 	@Override
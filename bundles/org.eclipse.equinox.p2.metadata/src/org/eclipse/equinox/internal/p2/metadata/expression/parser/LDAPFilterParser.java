@@ -14,9 +14,6 @@
 package org.eclipse.equinox.internal.p2.metadata.expression.parser;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import org.eclipse.equinox.internal.p2.metadata.Messages;
 import org.eclipse.equinox.internal.p2.metadata.expression.IExpressionConstants;
 import org.eclipse.equinox.internal.p2.metadata.expression.LDAPApproximation;
@@ -32,13 +29,6 @@ import org.eclipse.osgi.util.NLS;
  * objects rooted at the parent.
  */
 public class LDAPFilterParser {
-	private static final Map<String, IFilterExpression> filterCache = Collections.synchronizedMap(new LinkedHashMap<String, IFilterExpression>() {
-		@Override
-		public boolean removeEldestEntry(Map.Entry<String, IFilterExpression> expr) {
-			return size() > 64;
-		}
-	});
-
 	private final IExpressionFactory factory;
 
 	private final IExpression self;
@@ -56,11 +46,6 @@ public class LDAPFilterParser {
 	}
 
 	public IFilterExpression parse(String filterStr) {
-		IFilterExpression filter = filterCache.get(filterStr);
-		if (filter != null) {
-			return filter;
-		}
-
 		synchronized (this) {
 			filterString = filterStr;
 			position = 0;
@@ -69,9 +54,7 @@ public class LDAPFilterParser {
 				if (position != filterString.length()) {
 					throw syntaxException(Messages.filter_trailing_characters);
 				}
-				filter = factory.filterExpression(expr);
-				filterCache.put(filterStr, filter);
-				return filter;
+				return factory.filterExpression(expr);
 			} catch (StringIndexOutOfBoundsException e) {
 				throw syntaxException(Messages.filter_premature_end);
 			}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.expression.parser;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
+
+/**
+ * A bounded cache of the expressions parsed from strings, keyed by the string.
+ * Expressions are immutable, so the same instance is handed out to all callers.
+ * Lookups do not lock, and strings that are not cached yet are parsed without
+ * holding a lock of the cache. When the cache is full, some entries are dropped
+ * to make room; there is no strict least recently used order.
+ *
+ * @param <T> the type of the parsed expressions
+ */
+public final class ParseCache<T extends IExpression> {
+	private final Map<String, T> cache = new ConcurrentHashMap<>();
+	private final int maxSize;
+	private final Function<String, T> parser;
+
+	/**
+	 * @param maxSize the number of expressions to keep
+	 * @param parser parses a string, throwing an exception if it is invalid
+	 */
+	public ParseCache(int maxSize, Function<String, T> parser) {
+		this.maxSize = maxSize;
+		this.parser = parser;
+	}
+
+	/**
+	 * Returns the expression parsed from the given string. Strings that cannot be
+	 * parsed are not cached, they fail again the next time.
+	 */
+	public T parse(String text) {
+		T expression = cache.get(text);
+		if (expression != null) {
+			return expression;
+		}
+		expression = parser.apply(text);
+		if (cache.size() >= maxSize) {
+			evict();
+		}
+		T previous = cache.putIfAbsent(text, expression);
+		return previous == null ? expression : previous;
+	}
+
+	private void evict() {
+		// a quarter of the entries, in no particular order
+		int count = maxSize / 4 + 1;
+		for (Iterator<T> itor = cache.values().iterator(); itor.hasNext() && count-- > 0;) {
+			itor.next();
+			itor.remove();
+		}
+	}
+}
@@ -16,11 +16,13 @@ package org.eclipse.equinox.internal.p2.metadata.index;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.equinox.internal.p2.metadata.IRequiredCapability;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.internal.p2.metadata.ProvidedCapability;
@@ -36,6 +38,8 @@ import org.eclipse.equinox.internal.p2.metadata.expression.Unary;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.IProvidedCapability;
 import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
@@ -47,31 +51,128 @@ import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
 @SuppressWarnings("unchecked")
 public class CapabilityIndex extends Index<IInstallableUnit> {
 
+	/**
+	 * The number of units that provide a name before the providers of the name
+	 * are sorted by version for the requirements on it.
+	 */
+	private static final int SORTED_PROVIDERS_THRESHOLD = 8;
+
+	/**
+	 * A capability of a unit, by which the providers of a name are sorted.
+	 */
+	private record Provider(Version version, String namespace, IInstallableUnit unit) {
+	}
+
+	/**
+	 * The providers of a name sorted by version, together with the set of units
+	 * they were sorted from.
+	 */
+	private record SortedProviders(Collection<IInstallableUnit> units, Provider[] providers) {
+	}
+
+	/*
+	 * The sets of units in the maps are never changed once the constructor has
+	 * returned. Adding or removing a unit replaces them with changed copies, so
+	 * the candidates handed out stay valid while the index changes.
+	 */
 	private final Map<String, Set<IInstallableUnit>> namespaceMap;
 	private final Map<String, Object> nameMap;
 
+	/**
+	 * The capabilities of each name that a requirement was looked up for, in
+	 * ascending order of their versions. A name is dropped when a unit that
+	 * provides it is added or removed.
+	 */
+	private final Map<String, SortedProviders> sortedProviders = new ConcurrentHashMap<>();
+
 	public CapabilityIndex(Iterator<IInstallableUnit> itor) {
-		nameMap = new HashMap<>(300);
-		namespaceMap = new HashMap<>(10);
+		nameMap = new ConcurrentHashMap<>(300);
+		namespaceMap = new ConcurrentHashMap<>(10);
+		// nobody sees the sets yet, so they are filled in place
 		while (itor.hasNext()) {
-			IInstallableUnit iu = itor.next();
-			Collection<IProvidedCapability> pcs = iu.getProvidedCapabilities();
-			for (IProvidedCapability pc : pcs) {
-				namespaceMap.computeIfAbsent(pc.getNamespace(), namespace -> new HashSet<>()).add(iu);
-				nameMap.compute(pc.getName(), (name, prev) -> {
-					if (prev == null || prev == iu) {
-						return iu;
-					} else if (prev instanceof IInstallableUnit) {
-						Collection<IInstallableUnit> ius = new HashSet<>();
-						ius.add((IInstallableUnit) prev);
-						ius.add(iu);
+			add(itor.next(), false);
+		}
+	}
+
+	/**
+	 * Adds the capabilities of the given unit to this index.
+	 */
+	public void addInstallableUnit(IInstallableUnit iu) {
+		add(iu, true);
+	}
+
+	private void add(IInstallableUnit iu, boolean copy) {
+		Collection<IProvidedCapability> pcs = iu.getProvidedCapabilities();
+		for (IProvidedCapability pc : pcs) {
+			namespaceMap.compute(pc.getNamespace(), (namespace, prev) -> {
+				if (prev == null) {
+					prev = new HashSet<>();
+				} else if (prev.contains(iu)) {
+					return prev;
+				} else if (copy) {
+					prev = new HashSet<>(prev);
+				}
+				prev.add(iu);
+				return prev;
+			});
+			nameMap.compute(pc.getName(), (name, prev) -> {
+				if (prev == null || prev == iu) {
+					return iu;
+				} else if (prev instanceof IInstallableUnit) {
+					Collection<IInstallableUnit> ius = new HashSet<>();
+					ius.add((IInstallableUnit) prev);
+					ius.add(iu);
+					return ius;
+				} else {
+					Collection<IInstallableUnit> ius = (Collection<IInstallableUnit>) prev;
+					if (ius.contains(iu)) {
 						return ius;
-					} else {
-						((Collection<IInstallableUnit>) prev).add(iu);
-						return prev;
 					}
-				});
-			}
+					if (copy) {
+						ius = new HashSet<>(ius);
+					}
+					ius.add(iu);
+					return ius;
+				}
+			});
+			sortedProviders.remove(pc.getName());
+		}
+	}
+
+	/**
+	 * Removes the capabilities of the given unit from this index.
+	 */
+	public void removeInstallableUnit(IInstallableUnit iu) {
+		Collection<IProvidedCapability> pcs = iu.getProvidedCapabilities();
+		for (IProvidedCapability pc : pcs) {
+			namespaceMap.computeIfPresent(pc.getNamespace(), (namespace, ius) -> {
+				if (!ius.contains(iu)) {
+					return ius;
+				}
+				Set<IInstallableUnit> remaining = new HashSet<>(ius);
+				remaining.remove(iu);
+				return remaining.isEmpty() ? null : remaining;
+			});
+			nameMap.computeIfPresent(pc.getName(), (name, prev) -> {
+				if (prev instanceof IInstallableUnit) {
+					return prev.equals(iu) ? null : prev;
+				}
+				Collection<IInstallableUnit> ius = (Collection<IInstallableUnit>) prev;
+				if (!ius.contains(iu)) {
+					return ius;
+				}
+				if (ius.size() == 2) {
+					for (IInstallableUnit other : ius) {
+						if (!other.equals(iu)) {
+							return other;
+						}
+					}
+				}
+				Collection<IInstallableUnit> remaining = new HashSet<>(ius);
+				remaining.remove(iu);
+				return remaining.isEmpty() ? null : remaining;
+			});
+			sortedProviders.remove(pc.getName());
 		}
 	}
 
@@ -154,6 +255,11 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		// booleanExpression must be a collection filter on providedCapabilities
 		// or an IInstallableUnit used in a match expression.
 		//
+		if (variable == ExpressionFactory.THIS && booleanExpr instanceof IMatchExpression<?> && RequiredCapability.isVersionRangeRequirement((IMatchExpression<IInstallableUnit>) booleanExpr)) {
+			// The match expression of a requirement
+			return getProviders((IMatchExpression<IInstallableUnit>) booleanExpr).iterator();
+		}
+
 		IExpression expr = booleanExpr;
 		int type = booleanExpr.getExpressionType();
 		if (type == 0) {
@@ -235,7 +341,10 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 				// index usage query
 				//
 				IMatchExpression<IInstallableUnit> rm = ((IRequirement) rhsObj).getMatches();
-				queriedKeys = RequiredCapability.isVersionRangeRequirement(rm) ? concatenateUnique(queriedKeys, rm.getParameters()[0]) : getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
+				if (RequiredCapability.isVersionRangeRequirement(rm)) {
+					return getProviders(rm).iterator();
+				}
+				queriedKeys = getRequirementIDs(rm.createContext(), ((Unary) rm).operand, queriedKeys);
 				break;
 
 			default :
@@ -270,6 +379,75 @@ public class CapabilityIndex extends Index<IInstallableUnit> {
 		return matchingIUs.iterator();
 	}
 
+	/**
+	 * Returns the units that provide a capability in the name, namespace and
+	 * version range of the given requirement. Many providers of a name are looked
+	 * up by a binary search on their versions.
+	 */
+	private Collection<IInstallableUnit> getProviders(IMatchExpression<IInstallableUnit> requirement) {
+		String name = RequiredCapability.extractName(requirement);
+		Object v = nameMap.get(name);
+		if (v == null) {
+			return Collections.emptySet();
+		}
+		if (v instanceof IInstallableUnit) {
+			return Collections.singleton((IInstallableUnit) v);
+		}
+		Collection<IInstallableUnit> ius = (Collection<IInstallableUnit>) v;
+		if (ius.size() < SORTED_PROVIDERS_THRESHOLD) {
+			return ius;
+		}
+
+		SortedProviders sorted = sortedProviders.get(name);
+		if (sorted == null || sorted.units() != ius) {
+			// not sorted yet, or sorted from units that have been replaced since
+			sorted = new SortedProviders(ius, sortProviders(name, ius));
+			sortedProviders.put(name, sorted);
+		}
+		Provider[] providers = sorted.providers();
+		String namespace = RequiredCapability.extractNamespace(requirement);
+		VersionRange range = RequiredCapability.extractRange(requirement);
+		Version minimum = range.getMinimum();
+		Version maximum = range.getMaximum();
+
+		// the first provider that is not below the minimum
+		int low = 0;
+		int high = providers.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (providers[mid].version().compareTo(minimum) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		Set<IInstallableUnit> matchingIUs = new HashSet<>();
+		for (int idx = low; idx < providers.length; ++idx) {
+			Provider provider = providers[idx];
+			if (provider.version().compareTo(maximum) > 0) {
+				break;
+			}
+			if (provider.namespace().equals(namespace) && range.isIncluded(provider.version())) {
+				matchingIUs.add(provider.unit());
+			}
+		}
+		return matchingIUs;
+	}
+
+	private static Provider[] sortProviders(String name, Collection<IInstallableUnit> ius) {
+		List<Provider> providers = new ArrayList<>(ius.size());
+		for (IInstallableUnit iu : ius) {
+			for (IProvidedCapability pc : iu.getProvidedCapabilities()) {
+				if (pc.getName().equals(name)) {
+					providers.add(new Provider(pc.getVersion(), pc.getNamespace(), iu));
+				}
+			}
+		}
+		providers.sort(Comparator.comparing(Provider::version));
+		return providers.toArray(new Provider[providers.size()]);
+	}
+
 	private static void collectMatchingIUs(Map<String, ?> indexToUse, String name, Collection<IInstallableUnit> collector) {
 		Object v = indexToUse.get(name);
 		if (v == null) {
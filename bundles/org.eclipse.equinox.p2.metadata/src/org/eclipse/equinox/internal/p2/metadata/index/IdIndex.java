@@ -17,8 +17,7 @@ import java.util.*;
 import org.eclipse.equinox.internal.p2.metadata.IUMap;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
-import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
-import org.eclipse.equinox.p2.metadata.expression.IExpression;
+import org.eclipse.equinox.p2.metadata.expression.*;
 
 public class IdIndex extends Index<IInstallableUnit> {
 	private final IUMap iuMap;
@@ -38,7 +37,8 @@ public class IdIndex extends Index<IInstallableUnit> {
 	public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
 		Object queriedKeys = getQueriedIDs(ctx, variable, InstallableUnit.MEMBER_ID, booleanExpr, null);
 		if (queriedKeys == null) {
-			return null;
+			SimplePattern pattern = getQueriedPattern(ctx, variable, booleanExpr);
+			return pattern == null ? null : iuMap.getUnits(pattern).iterator();
 		}
 
 		if (queriedKeys instanceof Collection<?>) {
@@ -50,4 +50,21 @@ public class IdIndex extends Index<IInstallableUnit> {
 		}
 		return iuMap.getUnits((String) queriedKeys).iterator();
 	}
+
+	/**
+	 * Returns the pattern of an <code>id ~= pattern</code> expression, or
+	 * <code>null</code> if the expression is not one.
+	 */
+	private static SimplePattern getQueriedPattern(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+		IExpression targetExpr = booleanExpr;
+		if (booleanExpr instanceof IMatchExpression<?>) {
+			targetExpr = ExpressionUtil.getOperand(targetExpr);
+			ctx = ((IMatchExpression<?>) booleanExpr).createContext();
+		}
+		if (targetExpr.getExpressionType() != IExpression.TYPE_MATCHES || !isIndexedMember(ExpressionUtil.getLHS(targetExpr), variable, InstallableUnit.MEMBER_ID)) {
+			return null;
+		}
+		Object pattern = safeEvaluate(ctx, ExpressionUtil.getRHS(targetExpr));
+		return pattern instanceof SimplePattern ? (SimplePattern) pattern : null;
+	}
 }
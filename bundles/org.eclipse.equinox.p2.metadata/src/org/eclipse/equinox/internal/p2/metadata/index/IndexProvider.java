@@ -14,7 +14,10 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.metadata.index;
 
+import java.util.stream.Stream;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.equinox.internal.p2.metadata.expression.LazyQueryResult;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 import org.eclipse.equinox.p2.metadata.index.IQueryWithIndex;
 import org.eclipse.equinox.p2.query.*;
@@ -36,4 +39,21 @@ public abstract class IndexProvider<T> implements IIndexProvider<T>, IQueryable<
 	public IQueryResult<T> query(IQuery<T> query, IProgressMonitor monitor) {
 		return query(this, query, monitor);
 	}
+
+	/**
+	 * Evaluates a match query as the stream is consumed, on the indexes of this
+	 * provider, and ends the stream once the given monitor is cancelled. Any
+	 * other query is performed up front.
+	 */
+	@Override
+	public Stream<T> stream(IQuery<T> query, IProgressMonitor monitor) {
+		if (query.getClass() != ExpressionMatchQuery.class) {
+			return query(query, monitor).stream();
+		}
+		if (ExpressionUtil.getOperand(query.getExpression()) == ExpressionUtil.TRUE_EXPRESSION) {
+			return query(query, monitor).stream();
+		}
+		Stream<T> matches = LazyQueryResult.create(this, (ExpressionMatchQuery<T>) query).stream();
+		return monitor == null ? matches : matches.takeWhile(match -> !monitor.isCanceled());
+	}
 }
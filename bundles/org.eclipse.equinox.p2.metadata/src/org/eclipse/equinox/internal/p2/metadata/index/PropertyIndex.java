@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.expression.Binary;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.expression.*;
+
+/**
+ * An index of the properties of installable units, mapping the value of a
+ * property to the units that have it. It is used for expressions such as
+ * <code>properties[$0] == $1</code> and <code>properties[$0] != null</code>.
+ * <p>
+ * A property is indexed the first time it is queried, so that only the few
+ * properties that queries use, such as the type of a unit, take up memory.
+ * </p>
+ */
+public class PropertyIndex extends Index<IInstallableUnit> {
+
+	/**
+	 * The units that have a property, in the order of the units of the index,
+	 * and those units by the value of the property.
+	 */
+	private record KeyIndex(List<IInstallableUnit> units, Map<String, List<IInstallableUnit>> byValue) {
+	}
+
+	private final IInstallableUnit[] units;
+	private final Map<String, KeyIndex> keyIndexes = new ConcurrentHashMap<>();
+
+	public PropertyIndex(Iterator<IInstallableUnit> itor) {
+		List<IInstallableUnit> collected = new ArrayList<>();
+		itor.forEachRemaining(collected::add);
+		units = collected.toArray(new IInstallableUnit[collected.size()]);
+	}
+
+	@Override
+	public Iterator<IInstallableUnit> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+		IExpression targetExpr = booleanExpr;
+		if (booleanExpr instanceof IMatchExpression<?>) {
+			targetExpr = ExpressionUtil.getOperand(targetExpr);
+			ctx = ((IMatchExpression<?>) booleanExpr).createContext();
+		}
+
+		int type = targetExpr.getExpressionType();
+		if (type != IExpression.TYPE_EQUALS && type != IExpression.TYPE_NOT_EQUALS) {
+			return null;
+		}
+		Binary binary = (Binary) targetExpr;
+		IExpression property = binary.lhs;
+		IExpression valueExpr = binary.rhs;
+		if (!isIndexedProperty(property, variable)) {
+			property = binary.rhs;
+			valueExpr = binary.lhs;
+			if (!isIndexedProperty(property, variable)) {
+				return null;
+			}
+		}
+
+		Object key = safeEvaluate(ctx, ExpressionUtil.getRHS(property));
+		if (!(key instanceof String)) {
+			return null;
+		}
+		Object value = safeEvaluate(ctx, valueExpr);
+		if (value == null) {
+			// only a unit that has the property is not equal to null
+			return valueExpr.getExpressionType() == IExpression.TYPE_LITERAL && type == IExpression.TYPE_NOT_EQUALS ? getKeyIndex((String) key).units().iterator() : null;
+		}
+		if (type == IExpression.TYPE_NOT_EQUALS) {
+			return null;
+		}
+
+		KeyIndex keyIndex = getKeyIndex((String) key);
+		if (value instanceof String) {
+			return keyIndex.byValue().getOrDefault(value, Collections.emptyList()).iterator();
+		}
+		// a value that is coerced from the string, such as true
+		return keyIndex.units().iterator();
+	}
+
+	private KeyIndex getKeyIndex(String key) {
+		return keyIndexes.computeIfAbsent(key, k -> {
+			List<IInstallableUnit> withKey = new ArrayList<>();
+			Map<String, List<IInstallableUnit>> byValue = new HashMap<>();
+			for (IInstallableUnit unit : units) {
+				String value = unit.getProperty(k);
+				if (value != null) {
+					withKey.add(unit);
+					byValue.computeIfAbsent(value, v -> new ArrayList<>(1)).add(unit);
+				}
+			}
+			return new KeyIndex(withKey, byValue);
+		});
+	}
+
+	private static boolean isIndexedProperty(IExpression expr, IExpression variable) {
+		return expr.getExpressionType() == IExpression.TYPE_AT && isIndexedMember(ExpressionUtil.getLHS(expr), variable, InstallableUnit.MEMBER_PROPERTIES);
+	}
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.metadata.index;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.p2.metadata.expression.*;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
+
+/**
+ * Chooses the candidates that a boolean expression is evaluated for, using the
+ * indexes of an index provider. Every index that knows one of the members used
+ * by the expression is asked, and the smallest set of candidates wins. With
+ * more than one index, the operands of <code>and</code> and <code>or</code> are
+ * planned on their own, so that an <code>and</code> can use the most selective
+ * of its operands and an <code>or</code> can use the union of its operands when
+ * each of them can use an index. With a single index there is nothing to choose
+ * from, and its candidates are iterated without collecting them.
+ * <p>
+ * The candidates are a superset of the matching elements, the expression must
+ * still be evaluated for each of them.
+ * </p>
+ */
+public final class QueryPlanner<T> {
+
+	private record Plan<T>(Collection<T> candidates, String description) {
+	}
+
+	private final List<IIndex<T>> indexes;
+	private final List<String> members;
+	private final IExpression variable;
+
+	private QueryPlanner(List<IIndex<T>> indexes, List<String> members, IExpression variable) {
+		this.indexes = indexes;
+		this.members = members;
+		this.variable = variable;
+	}
+
+	/**
+	 * Returns the candidates for the given boolean expression.
+	 *
+	 * @param indexProvider the provider of the indexes
+	 * @param indexMembers the members that the expression uses on the variable
+	 * @param ctx the context that the expression is evaluated in
+	 * @param variable the variable that is bound to each candidate
+	 * @param booleanExpr the expression that the candidates must match
+	 * @return the candidates or <code>null</code> if no index can be used
+	 */
+	public static <T> Iterator<T> getCandidates(IIndexProvider<T> indexProvider, List<String> indexMembers, IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
+		List<IIndex<T>> indexes = new ArrayList<>(indexMembers.size());
+		List<String> members = new ArrayList<>(indexMembers.size());
+		for (String member : indexMembers) {
+			IIndex<T> index = indexProvider.getIndex(member);
+			if (index != null && !indexes.contains(index)) {
+				indexes.add(index);
+				members.add(member);
+			}
+		}
+
+		if (indexes.size() == 1) {
+			// nothing to choose from
+			Iterator<T> candidates = indexes.get(0).getCandidates(ctx, variable, booleanExpr);
+			if (Tracing.DEBUG_QUERY_PLAN) {
+				trace(booleanExpr, candidates == null ? null : members.get(0));
+			}
+			return candidates;
+		}
+
+		Plan<T> plan = indexes.isEmpty() ? null : new QueryPlanner<>(indexes, members, variable).plan(ctx, booleanExpr, Integer.MAX_VALUE);
+		if (Tracing.DEBUG_QUERY_PLAN) {
+			trace(booleanExpr, plan == null ? null : plan.description() + " with " + plan.candidates().size() + " candidates"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return plan == null ? null : plan.candidates().iterator();
+	}
+
+	private static void trace(IExpression booleanExpr, String plan) {
+		Tracing.debug("Query plan for " + booleanExpr + ": " + (plan == null ? "all elements" : plan)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Plans the given expression, giving up on plans that have at least as many
+	 * candidates as the given bound.
+	 */
+	private Plan<T> plan(IEvaluationContext ctx, IExpression expr, int bound) {
+		if (expr instanceof IMatchExpression<?> match) {
+			ctx = match.createContext();
+			expr = ExpressionUtil.getOperand(expr);
+		}
+
+		Plan<T> best = null;
+		for (int idx = 0; idx < indexes.size(); ++idx) {
+			Iterator<T> candidates = indexes.get(idx).getCandidates(ctx, variable, expr);
+			if (candidates != null) {
+				Collection<T> collected = collect(candidates, bound);
+				if (collected != null) {
+					best = new Plan<>(collected, members.get(idx));
+					bound = collected.size();
+					if (bound == 0) {
+						return best;
+					}
+				}
+			}
+		}
+
+		switch (expr.getExpressionType()) {
+			case IExpression.TYPE_AND :
+				// any operand limits the candidates of the whole
+				for (IExpression operand : ExpressionUtil.getOperands(expr)) {
+					Plan<T> operandPlan = plan(ctx, operand, bound);
+					if (operandPlan != null) {
+						best = new Plan<>(operandPlan.candidates(), "and(" + operandPlan.description() + ')'); //$NON-NLS-1$
+						bound = operandPlan.candidates().size();
+						if (bound == 0) {
+							return best;
+						}
+					}
+				}
+				break;
+			case IExpression.TYPE_OR :
+				// each operand must be limited by an index
+				Set<T> union = new LinkedHashSet<>();
+				StringBuilder description = new StringBuilder("or("); //$NON-NLS-1$
+				for (IExpression operand : ExpressionUtil.getOperands(expr)) {
+					Plan<T> operandPlan = plan(ctx, operand, bound);
+					if (operandPlan == null) {
+						return best;
+					}
+					union.addAll(operandPlan.candidates());
+					if (union.size() >= bound) {
+						return best;
+					}
+					if (description.length() > 3) {
+						description.append(", "); //$NON-NLS-1$
+					}
+					description.append(operandPlan.description());
+				}
+				best = new Plan<>(union, description.append(')').toString());
+				break;
+			default :
+				break;
+		}
+		return best;
+	}
+
+	/**
+	 * Collects the candidates, or returns <code>null</code> if there are at least
+	 * as many as the given bound.
+	 */
+	private static <T> Collection<T> collect(Iterator<T> candidates, int bound) {
+		if (!candidates.hasNext()) {
+			return Collections.emptyList();
+		}
+		List<T> result = new ArrayList<>();
+		do {
+			if (result.size() + 1 >= bound) {
+				return null;
+			}
+			result.add(candidates.next());
+		} while (candidates.hasNext());
+		return result;
+	}
+}
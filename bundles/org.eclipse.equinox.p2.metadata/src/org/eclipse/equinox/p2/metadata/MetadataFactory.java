@@ -31,6 +31,7 @@ import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnitFragment;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnitPatch;
 import org.eclipse.equinox.internal.p2.metadata.License;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
 import org.eclipse.equinox.internal.p2.metadata.ProvidedCapability;
 import org.eclipse.equinox.internal.p2.metadata.RequiredCapability;
 import org.eclipse.equinox.internal.p2.metadata.RequiredPropertiesMatch;
@@ -482,7 +483,8 @@ public final class MetadataFactory {
 	 * @param version   The capability version
 	 */
 	public static IProvidedCapability createProvidedCapability(String namespace, String name, Version version) {
-		return new ProvidedCapability(namespace, name, version);
+		MetadataPool pool = MetadataPool.getDefault();
+		return new ProvidedCapability(pool.share(namespace), pool.share(name), pool.share(version));
 	}
 
 	/**
@@ -520,7 +522,7 @@ public final class MetadataFactory {
 	 */
 	public static IRequirement createRequirement(String namespace, String name, VersionRange range, String filter,
 			boolean optional, boolean multiple, boolean greedy) {
-		return new RequiredCapability(namespace, name, range, InstallableUnit.parseFilter(filter), optional ? 0 : 1,
+		return createRequiredCapability(namespace, name, range, InstallableUnit.parseFilter(filter), optional ? 0 : 1,
 				multiple ? Integer.MAX_VALUE : 1, greedy, null);
 	}
 
@@ -543,7 +545,7 @@ public final class MetadataFactory {
 	 */
 	public static IRequirement createRequirement(String namespace, String name, VersionRange range,
 			IMatchExpression<IInstallableUnit> filter, boolean optional, boolean multiple) {
-		return new RequiredCapability(namespace, name, range, filter, optional ? 0 : 1,
+		return createRequiredCapability(namespace, name, range, filter, optional ? 0 : 1,
 				multiple ? Integer.MAX_VALUE : 1, true, null);
 	}
 
@@ -568,7 +570,7 @@ public final class MetadataFactory {
 	 */
 	public static IRequirement createRequirement(String namespace, String name, VersionRange range,
 			IMatchExpression<IInstallableUnit> filter, int minCard, int maxCard, boolean greedy) {
-		return new RequiredCapability(namespace, name, range, filter, minCard, maxCard, greedy, null);
+		return createRequiredCapability(namespace, name, range, filter, minCard, maxCard, greedy, null);
 	}
 
 	/**
@@ -596,7 +598,7 @@ public final class MetadataFactory {
 	 */
 	public static IRequirement createRequirement(String namespace, String name, VersionRange range,
 			IMatchExpression<IInstallableUnit> filter, int minCard, int maxCard, boolean greedy, String description) {
-		return new RequiredCapability(namespace, name, range, filter, minCard, maxCard, greedy, description);
+		return createRequiredCapability(namespace, name, range, filter, minCard, maxCard, greedy, description);
 	}
 
 	/**
@@ -927,6 +929,15 @@ public final class MetadataFactory {
 		return createUpdateDescriptor(descriptors, severity, description, location);
 	}
 
+	// Shares the namespace, name and range through the default metadata pool since
+	// the same capabilities are required by many installable units
+	private static IRequirement createRequiredCapability(String namespace, String name, VersionRange range,
+			IMatchExpression<IInstallableUnit> filter, int minCard, int maxCard, boolean greedy, String description) {
+		MetadataPool pool = MetadataPool.getDefault();
+		return new RequiredCapability(pool.share(namespace), pool.share(name), pool.share(range), filter, minCard,
+				maxCard, greedy, description);
+	}
+
 	private static IRequirement createRequirementInternal(IMatchExpression<IInstallableUnit> requirement,
 			IMatchExpression<IInstallableUnit> envFilter, int minCard, int maxCard, boolean greedy,
 			String description) {
@@ -940,7 +951,7 @@ public final class MetadataFactory {
 			String namespace = RequiredCapability.extractNamespace(requirement);
 			String name = RequiredCapability.extractName(requirement);
 			VersionRange range = RequiredCapability.extractRange(requirement);
-			return new RequiredCapability(namespace, name, range, envFilter, minCard, maxCard, greedy, description);
+			return createRequiredCapability(namespace, name, range, envFilter, minCard, maxCard, greedy, description);
 		}
 
 		if (RequiredPropertiesMatch.isPropertiesMatchRequirement(requirement)) {
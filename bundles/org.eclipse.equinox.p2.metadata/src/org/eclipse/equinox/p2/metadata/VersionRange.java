@@ -15,9 +15,7 @@
 package org.eclipse.equinox.p2.metadata;
 
 import java.io.Serializable;
-import java.lang.ref.SoftReference;
 import java.util.Objects;
-import java.util.WeakHashMap;
 import org.eclipse.equinox.internal.p2.metadata.*;
 import org.eclipse.osgi.util.NLS;
 
@@ -40,7 +38,6 @@ public class VersionRange implements Serializable {
 	 * An empty OSGi Version range.
 	 */
 	public static final VersionRange emptyRange = new VersionRange(Version.emptyVersion, true, Version.MAX_VERSION, true);
-	private static WeakHashMap<String, SoftReference<VersionRange>> POOL = new WeakHashMap<>();
 
 	private final Version minVersion;
 	private final boolean includeMin;
@@ -284,11 +281,10 @@ public class VersionRange implements Serializable {
 	/**
 	 * Parses a version range from the specified string.
 	 * <p>
-	 * Note that this method performs a non thread-safe object pooling. Instances are
-	 * stored in a weak cache, i.e. for multiple calls with the same input it is likely
-	 * but not guaranteed that the same instance is retrieved. Same holds for concurrent
-	 * access on this method. Clients must not assume to get the same instance for
-	 * subsequent calls.
+	 * Note that this method performs a thread-safe object pooling. Instances are
+	 * stored in a weak pool, i.e. for multiple calls with the same input it is likely
+	 * but not guaranteed that the same instance is retrieved. Clients must not assume
+	 * to get the same instance for subsequent calls.
 	 *
 	 * @param versionRange String representation of the version range. Leading
 	 *        and trailing whitespace will be ignored.
@@ -300,18 +296,10 @@ public class VersionRange implements Serializable {
 	 * @since 2.4
 	 */
 	public static VersionRange create(String versionRange) {
-		VersionRange v = null;
 		if (versionRange != null && versionRange.length() > 0) {
-			SoftReference<VersionRange> vRef = POOL.get(versionRange);
-			v = vRef != null ? vRef.get() : null;
-			if (v == null) {
-				v = new VersionRange(versionRange);
-				synchronized (POOL) {
-					POOL.put(versionRange, new SoftReference<>(v));
-				}
-			}
+			return MetadataPool.getDefault().parseVersionRange(versionRange);
 		}
-		return v;
+		return null;
 	}
 
 	private static IVersionFormat parseFormat(String versionRange, int[] position) {
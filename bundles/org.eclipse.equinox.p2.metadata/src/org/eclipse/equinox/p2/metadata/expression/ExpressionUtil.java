@@ -15,6 +15,7 @@ package org.eclipse.equinox.p2.metadata.expression;
 
 import org.eclipse.equinox.internal.p2.metadata.expression.*;
 import org.eclipse.equinox.internal.p2.metadata.expression.parser.LDAPFilterParser;
+import org.eclipse.equinox.internal.p2.metadata.expression.parser.ParseCache;
 import org.eclipse.equinox.internal.p2.metadata.expression.parser.QLParser;
 
 /**
@@ -26,6 +27,10 @@ import org.eclipse.equinox.internal.p2.metadata.expression.parser.QLParser;
 public final class ExpressionUtil {
 	private static final IExpressionParser expressionParser = new QLParser(ExpressionFactory.INSTANCE);
 	private static final LDAPFilterParser ldapFilterParser = new LDAPFilterParser(ExpressionFactory.INSTANCE);
+	// publishers and the UI parse the same few strings over and over
+	private static final ParseCache<IExpression> expressionCache = new ParseCache<>(1024, expressionParser::parse);
+	private static final ParseCache<IExpression> queryCache = new ParseCache<>(256, expressionParser::parseQuery);
+	private static final ParseCache<IFilterExpression> ldapFilterCache = new ParseCache<>(1024, ldapFilterParser::parse);
 	public static final IExpression TRUE_EXPRESSION = ExpressionFactory.INSTANCE.constant(Boolean.TRUE);
 	public static final IExpression FALSE_EXPRESSION = ExpressionFactory.INSTANCE.constant(Boolean.FALSE);
 
@@ -58,7 +63,7 @@ public final class ExpressionUtil {
 	 */
 	public static IFilterExpression parseLDAP(String filter) throws IllegalArgumentException {
 		filter = trimmedOrNull(filter);
-		return filter == null ? null : ldapFilterParser.parse(filter);
+		return filter == null ? null : ldapFilterCache.parse(filter);
 	}
 
 	/**
@@ -70,7 +75,7 @@ public final class ExpressionUtil {
 	 */
 	public static IExpression parse(String expression) {
 		expression = trimmedOrNull(expression);
-		return expression == null ? null : getParser().parse(expression);
+		return expression == null ? null : expressionCache.parse(expression);
 	}
 
 	/**
@@ -82,7 +87,7 @@ public final class ExpressionUtil {
 	 */
 	public static IExpression parseQuery(String expression) {
 		expression = trimmedOrNull(expression);
-		return expression == null ? null : getParser().parseQuery(expression);
+		return expression == null ? null : queryCache.parse(expression);
 	}
 
 	/**
@@ -18,15 +18,27 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.internal.p2.metadata.expression.CompoundIterator;
+import org.eclipse.equinox.internal.p2.metadata.expression.Expression;
 import org.eclipse.equinox.internal.p2.metadata.index.CompoundIndex;
 import org.eclipse.equinox.internal.p2.metadata.index.IndexProvider;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.equinox.p2.metadata.KeyWithLocale;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.metadata.index.IIndex;
@@ -41,15 +53,16 @@ import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 public final class CompoundQueryable<T> extends IndexProvider<T> {
 
 	static class PassThroughIndex<T> implements IIndex<T> {
-		private final Iterator<T> iterator;
+		private final Supplier<Iterator<T>> everything;
 
-		public PassThroughIndex(Iterator<T> iterator) {
-			this.iterator = iterator;
+		// the query planner may ask an index more than once
+		public PassThroughIndex(Supplier<Iterator<T>> everything) {
+			this.everything = everything;
 		}
 
 		@Override
 		public Iterator<T> getCandidates(IEvaluationContext ctx, IExpression variable, IExpression booleanExpr) {
-			return iterator;
+			return everything.get();
 		}
 	}
 
@@ -98,10 +111,10 @@ public final class CompoundQueryable<T> extends IndexProvider<T> {
 				if (index != null) {
 					indexes.add(index);
 				} else {
-					indexes.add(new PassThroughIndex<>(ip.everything()));
+					indexes.add(new PassThroughIndex<>(ip::everything));
 				}
 			} else {
-				indexes.add(new PassThroughIndex<>(getIteratorFromQueryable(queryable)));
+				indexes.add(new PassThroughIndex<>(() -> getIteratorFromQueryable(queryable)));
 			}
 		}
 		return indexes.size() == 1 ? indexes.get(0) : new CompoundIndex<>(indexes);
@@ -122,6 +135,78 @@ public final class CompoundQueryable<T> extends IndexProvider<T> {
 		return new CompoundIterator<>(iterators.iterator());
 	}
 
+	/**
+	 * Performs a match query on each of the queryables in parallel, through
+	 * their own {@link IQueryable#query(IQuery, IProgressMonitor)} so that they
+	 * guard their contents as usual. The calling thread waits for the queryables
+	 * one by one and stops once the given monitor is cancelled. Other queries,
+	 * those with an order such as <code>limit</code> and <code>latest</code>, and
+	 * those looking up translations, which may come from any of the queryables,
+	 * are performed on one thread.
+	 */
+	@Override
+	public IQueryResult<T> query(IQuery<T> query, IProgressMonitor monitor) {
+		// a subclass may keep state in isMatch
+		boolean parallel = query.getClass() == ExpressionMatchQuery.class && queryables.size() > 1
+				&& ForkJoinPool.getCommonPoolParallelism() > 1
+				&& ExpressionUtil.getOperand(query.getExpression()) != ExpressionUtil.TRUE_EXPRESSION
+				&& !((Expression) query.getExpression()).needsTranslationSupport();
+		if (!parallel) {
+			return super.query(query, monitor);
+		}
+		IProgressMonitor progress = monitor == null ? new NullProgressMonitor() : monitor;
+		progress.beginTask(null, queryables.size());
+		ExpressionMatchQuery<T> matchQuery = (ExpressionMatchQuery<T>) query;
+		IProgressMonitor cancelation = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return progress.isCanceled();
+			}
+		};
+		List<ForkJoinTask<IQueryResult<T>>> tasks = new ArrayList<>(queryables.size());
+		for (IQueryable<T> queryable : queryables) {
+			// the context of a query binds the current candidate, so each queryable gets a copy
+			tasks.add(ForkJoinPool.commonPool().submit(() -> queryable.query(new ExpressionMatchQuery<>(matchQuery), cancelation)));
+		}
+		Set<T> result = new HashSet<>();
+		try {
+			for (ForkJoinTask<IQueryResult<T>> task : tasks) {
+				result.addAll(join(task, progress).toUnmodifiableSet());
+				progress.worked(1);
+			}
+		} finally {
+			for (ForkJoinTask<IQueryResult<T>> task : tasks) {
+				task.cancel(false);
+			}
+		}
+		progress.done();
+		return result.isEmpty() ? Collector.emptyCollector() : new CollectionResult<>(result);
+	}
+
+	private static <T> IQueryResult<T> join(ForkJoinTask<IQueryResult<T>> task, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return task.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtime) {
+					throw runtime;
+				}
+				if (e.getCause() instanceof Error error) {
+					throw error;
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
 	@Override
 	public boolean contains(T element) {
 		for (IQueryable<T> queryable : queryables) {
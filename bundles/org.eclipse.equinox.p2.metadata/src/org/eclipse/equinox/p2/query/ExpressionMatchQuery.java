@@ -17,15 +17,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import org.eclipse.equinox.internal.p2.metadata.expression.Expression;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledMatch;
 import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.internal.p2.metadata.expression.MatchExpression;
 import org.eclipse.equinox.internal.p2.metadata.expression.QueryResult;
 import org.eclipse.equinox.internal.p2.metadata.expression.RepeatableIterator;
+import org.eclipse.equinox.internal.p2.metadata.index.QueryPlanner;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.expression.IEvaluationContext;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.metadata.expression.IMatchExpression;
-import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 import org.eclipse.equinox.p2.metadata.index.IQueryWithIndex;
 
@@ -50,6 +51,17 @@ public class ExpressionMatchQuery<T> implements IMatchQuery<T>, IQueryWithIndex<
 		this(matchingClass, ExpressionUtil.parse(expression), parameters);
 	}
 
+	/**
+	 * Creates a copy of the given query with an evaluation context of its own, so
+	 * that the copy can be performed while the given query is.
+	 */
+	ExpressionMatchQuery(ExpressionMatchQuery<T> query) {
+		this.matchingClass = query.matchingClass;
+		this.expression = query.expression;
+		this.context = expression.createContext();
+		this.indexedMembers = query.indexedMembers;
+	}
+
 	public IEvaluationContext getContext() {
 		return context;
 	}
@@ -63,24 +75,20 @@ public class ExpressionMatchQuery<T> implements IMatchQuery<T>, IQueryWithIndex<
 		if (((MatchExpression<T>) expression).operand == ExpressionUtil.TRUE_EXPRESSION) {
 			return new QueryResult<>(RepeatableIterator.create(indexProvider));
 		}
-		Iterator<T> iterator = null;
-		int top = indexedMembers.size();
-		for (int idx = 0; idx < top; ++idx) {
-			IIndex<T> index = indexProvider.getIndex(indexedMembers.get(idx));
-			if (index != null) {
-				iterator = index.getCandidates(context, ExpressionFactory.THIS, expression);
-				if (iterator != null) {
-					break;
-				}
-			}
-		}
-		if (iterator == null) {
-			iterator = RepeatableIterator.create(indexProvider);
-		}
+		Iterator<T> iterator = getCandidates(indexProvider, context);
 		context.setIndexProvider(indexProvider);
 		return perform(iterator);
 	}
 
+	/**
+	 * Returns the candidates of the given index provider, using its indexes when
+	 * they apply to this query.
+	 */
+	private Iterator<T> getCandidates(IIndexProvider<T> indexProvider, IEvaluationContext ctx) {
+		Iterator<T> iterator = QueryPlanner.getCandidates(indexProvider, indexedMembers, ctx, ExpressionFactory.THIS, expression);
+		return iterator == null ? RepeatableIterator.create(indexProvider) : iterator;
+	}
+
 	@Override
 	public IQueryResult<T> perform(Iterator<T> iterator) {
 		if (((MatchExpression<T>) expression).operand == ExpressionUtil.TRUE_EXPRESSION) {
@@ -105,6 +113,10 @@ public class ExpressionMatchQuery<T> implements IMatchQuery<T>, IQueryWithIndex<
 		if (!matchingClass.isInstance(candidate)) {
 			return false;
 		}
+		CompiledMatch compiled = ((MatchExpression<T>) expression).getCompiled();
+		if (compiled != null) {
+			return compiled.isMatch(candidate);
+		}
 		ExpressionFactory.THIS.setValue(context, candidate);
 		return Boolean.TRUE == expression.evaluate(context);
 	}
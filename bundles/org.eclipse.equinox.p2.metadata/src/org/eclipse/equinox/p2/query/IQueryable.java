@@ -17,6 +17,7 @@ package org.eclipse.equinox.p2.query;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
 import org.eclipse.equinox.p2.metadata.expression.IExpression;
@@ -72,4 +73,24 @@ public interface IQueryable<T> {
 			}
 		}, null).isEmpty();
 	}
+
+	/**
+	 * Performs a query and returns a sequential stream of its results.
+	 * Implementations may evaluate the query as the stream is consumed, so that a
+	 * stream that is consumed once, or only in part, does not collect the
+	 * results; by default the results of {@link #query(IQuery, IProgressMonitor)}
+	 * are streamed.
+	 * <p>
+	 * The stream must be consumed before the queryable is changed.
+	 * </p>
+	 *
+	 * @param query   The query to perform
+	 * @param monitor a progress monitor, or <code>null</code> if progress reporting
+	 *                is not desired
+	 * @return a stream of the results of the query
+	 * @since 2.10
+	 */
+	default Stream<T> stream(IQuery<T> query, IProgressMonitor monitor) {
+		return query(query, monitor).stream();
+	}
 }
@@ -446,11 +446,11 @@ public class RequestFlexer {
 			return true;
 		}
 		//At this point we know we had a product installed and we want to make sure there is one in the resulting solution
-		if (!intermediaryPlan.getFutureState().query(QueryUtil.createIUProductQuery(), new NullProgressMonitor()).isEmpty()) {
+		if (intermediaryPlan.getFutureState().stream(QueryUtil.createIUProductQuery(), new NullProgressMonitor()).findAny().isPresent()) {
 			return true;
 		}
 		//Support for legacy identification of product using the lineUp.
-		if (!intermediaryPlan.getFutureState().query(QueryUtil.createIUPropertyQuery("lineUp", "true"), new NullProgressMonitor()).isEmpty()) { //$NON-NLS-1$//$NON-NLS-2$
+		if (intermediaryPlan.getFutureState().stream(QueryUtil.createIUPropertyQuery("lineUp", "true"), new NullProgressMonitor()).findAny().isPresent()) { //$NON-NLS-1$//$NON-NLS-2$
 			return true;
 		}
 		return false;
@@ -201,10 +201,8 @@ public class CompositeParser extends XMLParser implements XMLConstants {
 		try {
 			// TODO: currently not caching the parser since we make no assumptions
 			//		 or restrictions on concurrent parsing
-			XMLReader reader = getParser().getXMLReader();
 			RepositoryHandler repositoryHandler = new RepositoryHandler();
-			reader.setContentHandler(new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
-			reader.parse(new InputSource(stream));
+			parseDocument(stream, new RepositoryDocHandler(REPOSITORY_ELEMENT, repositoryHandler));
 			if (isValidXML()) {
 				theState = repositoryHandler.getRepository();
 			}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.persistence;
+
+import java.io.InputStream;
+import javax.xml.stream.*;
+import org.xml.sax.*;
+
+/**
+ * Drives the content handlers of an {@link XMLParser} from a StAX
+ * {@link XMLStreamReader} instead of a SAX {@link XMLReader}.
+ * <p>
+ * The driver pulls events from the stream and dispatches them to whichever
+ * handler is currently registered with the parser. A single {@link Attributes}
+ * view and a single {@link Locator} view over the stream reader are reused for
+ * every element, so no per-element objects are created by the driver itself.
+ */
+final class PullParserDriver {
+
+	private final XMLParser parser;
+
+	// stream factories are not guaranteed to be thread safe, so each driver owns one
+	private final XMLInputFactory factory = createFactory();
+
+	PullParserDriver(XMLParser parser) {
+		this.parser = parser;
+	}
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		setOptionalProperty(factory, "jdk.xml.totalEntitySizeLimit", //$NON-NLS-1$
+				Integer.getInteger("jdk.xml.totalEntitySizeLimit", XMLParser.MAX_ENTITIES)); //$NON-NLS-1$
+		setOptionalProperty(factory, "jdk.xml.maxGeneralEntitySizeLimit", //$NON-NLS-1$
+				Integer.getInteger("jdk.xml.maxGeneralEntitySizeLimit", XMLParser.MAX_ENTITIES)); //$NON-NLS-1$
+		return factory;
+	}
+
+	private static void setOptionalProperty(XMLInputFactory factory, String name, Object value) {
+		try {
+			factory.setProperty(name, value);
+		} catch (IllegalArgumentException e) {
+			// Maybe not supported.
+		}
+	}
+
+	void parse(InputStream stream) throws SAXException {
+		XMLStreamReader reader;
+		try {
+			reader = factory.createXMLStreamReader(stream);
+		} catch (XMLStreamException e) {
+			throw new SAXException(e.getMessage(), e);
+		}
+		StreamLocator locator = new StreamLocator(reader);
+		StreamAttributes attributes = new StreamAttributes(reader);
+		try {
+			parser.getContentHandler().setDocumentLocator(locator);
+			parser.getContentHandler().startDocument();
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT :
+						parser.getContentHandler().startElement(uri(reader.getNamespaceURI()), reader.getLocalName(), qualifiedName(reader.getPrefix(), reader.getLocalName()), attributes);
+						break;
+					case XMLStreamConstants.END_ELEMENT :
+						parser.getContentHandler().endElement(uri(reader.getNamespaceURI()), reader.getLocalName(), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+						break;
+					case XMLStreamConstants.CHARACTERS :
+					case XMLStreamConstants.CDATA :
+					case XMLStreamConstants.SPACE :
+						parser.getContentHandler().characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION :
+						parser.getContentHandler().processingInstruction(reader.getPITarget(), reader.getPIData());
+						break;
+					default :
+						// comments, DTDs and entity references carry nothing of interest
+						break;
+				}
+			}
+			parser.getContentHandler().endDocument();
+		} catch (XMLStreamException e) {
+			throw new SAXParseException(e.getMessage(), locator, e);
+		} finally {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				// ignore, the underlying stream is closed by the caller
+			}
+		}
+	}
+
+	static String uri(String namespace) {
+		return namespace == null ? "" : namespace; //$NON-NLS-1$
+	}
+
+	static String qualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+	}
+
+	/**
+	 * A live {@link Attributes} view of the attributes of the current start
+	 * element of a stream reader.
+	 */
+	private static final class StreamAttributes implements Attributes {
+		private final XMLStreamReader reader;
+
+		StreamAttributes(XMLStreamReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public int getLength() {
+			return reader.getAttributeCount();
+		}
+
+		@Override
+		public String getURI(int index) {
+			return index < 0 || index >= getLength() ? null : uri(reader.getAttributeNamespace(index));
+		}
+
+		@Override
+		public String getLocalName(int index) {
+			return index < 0 || index >= getLength() ? null : reader.getAttributeLocalName(index);
+		}
+
+		@Override
+		public String getQName(int index) {
+			return index < 0 || index >= getLength() ? null : qualifiedName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index));
+		}
+
+		@Override
+		public String getType(int index) {
+			return index < 0 || index >= getLength() ? null : reader.getAttributeType(index);
+		}
+
+		@Override
+		public String getValue(int index) {
+			return index < 0 || index >= getLength() ? null : reader.getAttributeValue(index);
+		}
+
+		@Override
+		public int getIndex(String uri, String localName) {
+			for (int i = 0; i < getLength(); i++) {
+				if (localName.equals(reader.getAttributeLocalName(i)) && uri.equals(uri(reader.getAttributeNamespace(i)))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public int getIndex(String qName) {
+			for (int i = 0; i < getLength(); i++) {
+				if (qName.equals(getQName(i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(String uri, String localName) {
+			return getType(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getType(String qName) {
+			return getType(getIndex(qName));
+		}
+
+		@Override
+		public String getValue(String uri, String localName) {
+			return getValue(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getValue(String qName) {
+			return getValue(getIndex(qName));
+		}
+	}
+
+	/**
+	 * A live {@link Locator} view of the current position of a stream reader.
+	 */
+	private static final class StreamLocator implements Locator {
+		private final XMLStreamReader reader;
+
+		StreamLocator(XMLStreamReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public String getPublicId() {
+			return reader.getLocation() == null ? null : reader.getLocation().getPublicId();
+		}
+
+		@Override
+		public String getSystemId() {
+			return reader.getLocation() == null ? null : reader.getLocation().getSystemId();
+		}
+
+		@Override
+		public int getLineNumber() {
+			return reader.getLocation() == null ? -1 : reader.getLocation().getLineNumber();
+		}
+
+		@Override
+		public int getColumnNumber() {
+			return reader.getLocation() == null ? -1 : reader.getLocation().getColumnNumber();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.persistence;
+
+import java.util.Arrays;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
+
+/**
+ * A bounded, direct mapped table used by the parsers to share equal strings
+ * read from a document without going through {@link String#intern()}.
+ * <p>
+ * Each string is hashed into a single slot; a colliding string simply replaces
+ * the previous occupant. The table therefore never grows, never needs to be
+ * cleaned up, and a lookup costs one hash and at most one
+ * {@link String#equals(Object)}. The pool is not thread safe and is meant to be
+ * owned by a single parser instance for the duration of a parse.
+ * <p>
+ * Strings that are not found in the table are shared through a backing
+ * {@link MetadataPool}, so that the table acts as an unsynchronized front of
+ * the shared pool.
+ */
+public class StringPool {
+
+	private static final int DEFAULT_SIZE = 4096;
+
+	private final String[] table;
+	private final int mask;
+	private final MetadataPool backing;
+
+	public StringPool(MetadataPool backing) {
+		this(DEFAULT_SIZE, backing);
+	}
+
+	/**
+	 * @param size the number of slots, rounded up to the next power of two
+	 * @param backing the pool sharing strings not found in the table, or <code>null</code>
+	 */
+	public StringPool(int size, MetadataPool backing) {
+		int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+		table = new String[capacity];
+		mask = capacity - 1;
+		this.backing = backing;
+	}
+
+	/**
+	 * Returns a previously pooled string equal to the given one, or pools and
+	 * returns the given string.
+	 */
+	public String share(String value) {
+		if (value == null) {
+			return null;
+		}
+		int hash = value.hashCode();
+		int index = (hash ^ (hash >>> 16)) & mask;
+		String pooled = table[index];
+		if (pooled != null && pooled.equals(value)) {
+			return pooled;
+		}
+		String shared = backing != null ? backing.share(value) : value;
+		table[index] = shared;
+		return shared;
+	}
+
+	/**
+	 * Drops all pooled strings so that they can be garbage collected.
+	 */
+	public void clear() {
+		Arrays.fill(table, null);
+	}
+}
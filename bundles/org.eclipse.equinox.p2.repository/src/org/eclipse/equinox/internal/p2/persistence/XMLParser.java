@@ -14,6 +14,8 @@
  *******************************************************************************/
 package org.eclipse.equinox.internal.p2.persistence;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.*;
 import java.util.*;
 import javax.xml.parsers.*;
@@ -21,6 +23,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.internal.p2.core.Activator;
 import org.eclipse.equinox.internal.p2.core.helpers.OrderedProperties;
 import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
 import org.eclipse.equinox.p2.metadata.Version;
 import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.osgi.util.NLS;
@@ -35,7 +38,13 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 	// update site can easily have 500,000 or more entities.
 	//
 	// https://docs.oracle.com/en/java/javase/17/docs/api/java.xml/module-summary.html#IN_ISFPtable
-	private static final int MAX_ENTITIES = 0;
+	static final int MAX_ENTITIES = 0;
+
+	/**
+	 * System property selecting the StAX pull parser instead of the SAX parser for
+	 * newly created parsers.
+	 */
+	public static final String PROP_PULL_PARSER = "p2.xml.pullParser"; //$NON-NLS-1$
 
 	// Get the root object that is being parsed.
 	protected abstract Object getRootObject();
@@ -56,8 +65,17 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 	// Store a cache of previously seen URIs to avoid GC presure
 	final Map<String, URI> uris = new HashMap<>();
 
+	// Shares equal metadata objects with other parsers and repositories
+	private MetadataPool metadataPool = MetadataPool.getDefault();
+	// Shares equal attribute values and texts within and across the documents read by this parser
+	private StringPool strings = new StringPool(metadataPool);
+
 	protected SAXParserFactory parserFactory;
 
+	private boolean pullParsing = Boolean.getBoolean(PROP_PULL_PARSER);
+	private PullParserDriver pullParser;
+	private ContentHandler contentHandler; // the handler receiving the events of the current element
+
 	public XMLParser(String pluginId) {
 		this(org.eclipse.equinox.internal.p2.repository.Activator.getParserFactory(), pluginId);
 	}
@@ -78,6 +96,69 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 		return (status == null || !status.matches(IStatus.ERROR | IStatus.CANCEL));
 	}
 
+	/**
+	 * Selects whether documents are read with the StAX pull parser instead of the
+	 * SAX parser. The default is taken from the {@link #PROP_PULL_PARSER} system
+	 * property.
+	 */
+	public void setPullParsing(boolean pullParsing) {
+		this.pullParsing = pullParsing;
+	}
+
+	/**
+	 * Reads the given stream, starting with the given document handler. The
+	 * stream is read with either the SAX parser or the StAX pull parser, see
+	 * {@link #setPullParsing(boolean)}.
+	 */
+	protected void parseDocument(InputStream stream, DocHandler docHandler) throws IOException, SAXException, ParserConfigurationException {
+		if (pullParsing) {
+			xmlReader = null;
+			setContentHandler(docHandler);
+			if (pullParser == null) {
+				pullParser = new PullParserDriver(this);
+			}
+			pullParser.parse(stream);
+		} else {
+			XMLReader reader = getParser().getXMLReader();
+			setContentHandler(docHandler);
+			reader.parse(new InputSource(stream));
+		}
+	}
+
+	/**
+	 * Makes the given handler receive the subsequent parse events.
+	 */
+	protected void setContentHandler(ContentHandler handler) {
+		contentHandler = handler;
+		if (xmlReader != null) {
+			xmlReader.setContentHandler(handler);
+		}
+	}
+
+	ContentHandler getContentHandler() {
+		return contentHandler;
+	}
+
+	/**
+	 * Sets the pool used to share the strings and metadata objects read by this
+	 * parser, typically the pool of the agent the parser works for.
+	 */
+	public void setMetadataPool(MetadataPool metadataPool) {
+		this.metadataPool = metadataPool != null ? metadataPool : MetadataPool.getDefault();
+		this.strings = new StringPool(this.metadataPool);
+	}
+
+	protected MetadataPool getMetadataPool() {
+		return metadataPool;
+	}
+
+	/**
+	 * Returns a string equal to the given one, shared with previously read
+	 * attribute values and texts where possible.
+	 */
+	protected String share(String value) {
+		return strings.share(value);
+	}
 
 	protected SAXParser getParser() throws ParserConfigurationException, SAXException {
 		SAXParserFactory factory = parserFactory;
@@ -152,12 +233,12 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 
 		public AbstractHandler(ContentHandler parentHandler) {
 			this.parentHandler = parentHandler;
-			xmlReader.setContentHandler(this);
+			setContentHandler(this);
 		}
 
 		public AbstractHandler(ContentHandler parentHandler, String elementHandled) {
 			this.parentHandler = parentHandler;
-			xmlReader.setContentHandler(this);
+			setContentHandler(this);
 			this.elementHandled = elementHandled;
 		}
 
@@ -192,7 +273,7 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 			finishCharacters();
 			finished();
 			// Restore the parent content handler
-			xmlReader.setContentHandler(parentHandler);
+			setContentHandler(parentHandler);
 		}
 
 		/**
@@ -341,7 +422,7 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 			String[] result = new String[required.length + optional.length];
 			for (int i = 0; i < attributes.getLength(); i += 1) {
 				String name = attributes.getLocalName(i);
-				String value = attributes.getValue(i).trim().intern();
+				String value = share(attributes.getValue(i).trim());
 				int j;
 				if ((j = indexOf(required, name)) >= 0) {
 					result[j] = value;
@@ -378,7 +459,7 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 		public void startElement(String name, Attributes attributes) {
 			if (name.equals(elementHandled)) {
 				rootHandler.initialize(this, name, attributes);
-				xmlReader.setContentHandler(rootHandler);
+				setContentHandler(rootHandler);
 			} else {
 				this.noSubElements(name, attributes);
 			}
@@ -411,6 +492,7 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 	protected class PropertiesHandler extends AbstractHandler {
 
 		private final OrderedProperties properties;
+		private PropertyHandler propertyHandler; // reused for every property of the collection
 
 		public PropertiesHandler(ContentHandler parentHandler, Attributes attributes) {
 			super(parentHandler, PROPERTIES_ELEMENT);
@@ -425,7 +507,10 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 		@Override
 		public void startElement(String name, Attributes attributes) {
 			if (name.equals(PROPERTY_ELEMENT)) {
-				new PropertyHandler(this, attributes, properties);
+				if (propertyHandler == null) {
+					propertyHandler = new PropertyHandler(this, properties);
+				}
+				propertyHandler.handle(attributes);
 			} else {
 				invalidElement(name, attributes);
 			}
@@ -438,8 +523,26 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 	 */
 	protected class PropertyHandler extends AbstractHandler {
 
+		private final OrderedProperties properties;
+
 		public PropertyHandler(ContentHandler parentHandler, Attributes attributes, OrderedProperties properties) {
-			super(parentHandler, PROPERTY_ELEMENT);
+			this(parentHandler, properties);
+			handle(attributes);
+		}
+
+		// Constructor for a handler that is reused for consecutive properties, see #handle
+		PropertyHandler(ContentHandler parentHandler, OrderedProperties properties) {
+			super();
+			this.parentHandler = parentHandler;
+			this.elementHandled = PROPERTY_ELEMENT;
+			this.properties = properties;
+		}
+
+		/**
+		 * Handles the next property element of the collection.
+		 */
+		void handle(Attributes attributes) {
+			setContentHandler(this);
 			String[] property = parseProperty(attributes);
 			if (isValidProperty(property)) {
 				properties.setProperty(property[0], property[1]);
@@ -494,7 +597,7 @@ public abstract class XMLParser extends DefaultHandler implements XMLConstants {
 
 		@Override
 		protected void processCharacters(String data) {
-			this.text = data == null ? null : data.intern();
+			this.text = share(data);
 		}
 
 	}
@@ -21,6 +21,7 @@ import java.io.*;
 import java.lang.ref.SoftReference;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
@@ -31,6 +32,8 @@ import org.eclipse.equinox.internal.provisional.p2.core.eventbus.ProvisioningLis
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.core.spi.IAgentService;
+import org.eclipse.equinox.p2.metadata.expression.ExpressionUtil;
+import org.eclipse.equinox.p2.metadata.expression.IExpression;
 import org.eclipse.equinox.p2.query.*;
 import org.eclipse.equinox.p2.repository.*;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
@@ -43,15 +46,19 @@ import org.osgi.service.prefs.Preferences;
  * Common code shared between artifact and metadata repository managers.
  */
 public abstract class AbstractRepositoryManager<T> implements IRepositoryManager<T>, IAgentService, ProvisioningListener {
+	/**
+	 * The information kept about a known repository. The fields may be read
+	 * without locking; updates that need to be consistent with each other and
+	 * with the preferences are made while holding the monitor of the info.
+	 */
 	protected static class RepositoryInfo<R> {
-		public String description;
-		public boolean isEnabled = true;
-		public boolean isSystem = false;
-		public URI location;
-		public String name;
-		public String nickname;
-		public SoftReference<IRepository<R>> repository;
-		public String suffix;
+		public volatile String description;
+		public volatile boolean isEnabled = true;
+		public volatile boolean isSystem = false;
+		public volatile URI location;
+		public volatile String name;
+		public volatile String nickname;
+		public volatile String suffix;
 
 		public RepositoryInfo() {
 			super();
@@ -74,27 +81,84 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	public static final String KEY_VERSION = "version"; //$NON-NLS-1$
 
 	public static final String NODE_REPOSITORIES = "repositories"; //$NON-NLS-1$
+	/**
+	 * The estimated size of a loaded repository if the manager knows nothing
+	 * better, see {@link #estimateSize(IRepository)}.
+	 */
+	protected static final long DEFAULT_REPOSITORY_SIZE = 1024 * 1024;
 	private static final String INDEX_FILE = "p2.index"; //$NON-NLS-1$
 
 	/**
-	 * Map of String->RepositoryInfo, where String is the repository key
-	 * obtained via getKey(URI).
+	 * An in-flight load of a repository location, owned by the loading thread.
+	 * Other threads wanting to load the same location wait for the load to
+	 * complete, after which they find the loaded repository in the cache.
+	 */
+	private static final class LoadLock extends CompletableFuture<Void> {
+		final Thread owner = Thread.currentThread();
+	}
+
+	/**
+	 * Thrown by {@link #enterLoad} when the owner of the location is waiting for a
+	 * location owned by the current thread. It unwinds all loads of the current
+	 * thread so that their locks are released, and the outermost load waits for
+	 * the conflicting load and starts over.
+	 */
+	private static final class LoadConflict extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		final transient LoadLock awaited;
+
+		LoadConflict(LoadLock awaited) {
+			super(null, null, false, false);
+			this.awaited = awaited;
+		}
+	}
+
+	/**
+	 * An operation holding load locks.
 	 */
-	protected Map<String, RepositoryInfo<T>> repositories = null;
+	private interface LockedLoad<R> {
+		R run() throws ProvisionException;
+	}
+
+	/**
+	 * Concurrent map of String->RepositoryInfo, where String is the repository key
+	 * obtained via getKey(URI). The map is created lazily by {@link #getRepositories()},
+	 * after which it is read and updated without locking.
+	 */
+	protected volatile Map<String, RepositoryInfo<T>> repositories = null;
 
-	//lock object to be held when referring to the repositories field
+	//lock object to be held when restoring the repositories field
 	protected final Object repositoryLock = new Object();
 
 	/**
-	 * Cache List of repositories that are not reachable. Maintain cache
+	 * The map being filled while the repositories are restored, only accessed by
+	 * the restoring thread while holding {@link #repositoryLock}.
+	 */
+	private Map<String, RepositoryInfo<T>> restoringRepositories;
+
+	/**
+	 * Cache Set of repositories that are not reachable. Maintain cache
 	 * for short duration because repository may become available at any time.
 	 */
-	protected SoftReference<List<URI>> unavailableRepositories;
+	protected volatile SoftReference<Set<URI>> unavailableRepositories;
 
 	/**
-	 * Set used to manage exclusive load locks on repository locations.
+	 * The in-flight loads of repository locations.
 	 */
-	private final Map<URI, Thread> loadLocks = new HashMap<>();
+	private final Map<URI, LoadLock> loadLocks = new ConcurrentHashMap<>();
+	/**
+	 * The load each thread blocked in {@link #enterLoad} is waiting for, used to
+	 * detect threads waiting for each other.
+	 */
+	private final Map<Thread, LoadLock> loadWaits = new ConcurrentHashMap<>();
+	/**
+	 * The number of nested loads of each thread, to find the outermost load.
+	 */
+	private final ThreadLocal<int[]> loadDepth = ThreadLocal.withInitial(() -> new int[1]);
+	/**
+	 * The loaded repositories, keyed like {@link #repositories}.
+	 */
+	private final RepositoryCache<T> cache;
 	private final IAgentLocation agentLocation;
 	protected final IProvisioningEventBus eventBus;
 	protected final IProvisioningAgent agent;
@@ -102,6 +166,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	protected AbstractRepositoryManager(IProvisioningAgent agent) {
 		super();
 		this.agent = agent;
+		cache = RepositoryCache.shared(agent, RepositoryCache.getMaximumSize(agent.getProperty(RepositoryCache.PROP_CACHE_SIZE)), this::getChildKeys);
 		agentLocation = agent.getService(IAgentLocation.class);
 		eventBus = agent.getService(IProvisioningEventBus.class);
 		eventBus.addListener(this);
@@ -115,18 +180,23 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	 */
 	protected void addRepository(IRepository<T> repository, boolean signalAdd, String suffix) {
 		boolean added = false;
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			String key = getKey(repository.getLocation());
-			RepositoryInfo<T> info = repositories.get(key);
+		Map<String, RepositoryInfo<T>> repos = getRepositories();
+		String key = getKey(repository.getLocation());
+		RepositoryInfo<T> info = repos.get(key);
+		if (info == null) {
+			RepositoryInfo<T> newInfo = new RepositoryInfo<>();
+			// readers must never see an info without location
+			newInfo.location = repository.getLocation();
+			info = repos.putIfAbsent(key, newInfo);
 			if (info == null) {
-				info = new RepositoryInfo<>();
+				info = newInfo;
 				added = true;
-				repositories.put(key, info);
 			}
-			info.repository = new SoftReference<>(repository);
+		}
+		if (!cache.contains(key, repository)) {
+			cache.put(key, repository, estimateSize(repository));
+		}
+		synchronized (info) {
 			info.name = repository.getName();
 			info.description = repository.getDescription();
 			info.location = repository.getLocation();
@@ -168,42 +238,32 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	}
 
 	private boolean addRepository(RepositoryInfo<T> info, boolean signalAdd) {
-
-		boolean added = true;
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			if (contains(info.location)) {
-				return false;
-			}
-			added = repositories.put(getKey(info.location), info) == null;
-			// save the given repository in the preferences.
+		if (getRepositories().putIfAbsent(getKey(info.location), info) != null) {
+			return false;
+		}
+		// save the given repository in the preferences.
+		synchronized (info) {
 			remember(info, true);
 		}
-		if (added && signalAdd) {
+		if (signalAdd) {
 			broadcastChangeEvent(info.location, getRepositoryType(), RepositoryEvent.ADDED, info.isEnabled);
 		}
-		return added;
+		return true;
 	}
 
 	protected IRepository<T> basicGetRepository(URI location) {
 		checkValidLocation(location);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info == null || info.repository == null) {
-				return null;
-			}
-			IRepository<T> repo = info.repository.get();
-			//update our repository info because the repository may have changed
-			if (repo != null) {
-				addRepository(repo, false, info.suffix);
-			}
-			return repo;
+		String key = getKey(location);
+		RepositoryInfo<T> info = getRepositories().get(key);
+		if (info == null) {
+			return null;
 		}
+		IRepository<T> repo = cache.get(key);
+		//update our repository info because the repository may have changed
+		if (repo != null) {
+			addRepository(repo, false, info.suffix);
+		}
+		return repo;
 	}
 
 	public IRepository<T> basicRefreshRepository(URI location, IProgressMonitor monitor) throws ProvisionException {
@@ -253,43 +313,26 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	 * found, and <code>false</code> otherwise.
 	 */
 	private boolean checkNotFound(URI location) {
-		synchronized (repositoryLock) {
-			if (unavailableRepositories == null) {
-				return false;
-			}
-			List<URI> badRepos = unavailableRepositories.get();
-			if (badRepos == null) {
-				return false;
-			}
-			return badRepos.contains(location);
-		}
+		SoftReference<Set<URI>> reference = unavailableRepositories;
+		Set<URI> badRepos = reference == null ? null : reference.get();
+		return badRepos != null && badRepos.contains(location);
 	}
 
 	/**
 	 * Clear the fact that we tried to load a repository at this location and did not find anything.
 	 */
 	private void clearNotFound(URI location) {
-		synchronized (repositoryLock) {
-			List<URI> badRepos;
-			if (unavailableRepositories != null) {
-				badRepos = unavailableRepositories.get();
-				if (badRepos != null) {
-					badRepos.remove(location);
-					return;
-				}
-			}
+		SoftReference<Set<URI>> reference = unavailableRepositories;
+		Set<URI> badRepos = reference == null ? null : reference.get();
+		if (badRepos != null) {
+			badRepos.remove(location);
 		}
 	}
 
 	@Override
 	public boolean contains(URI location) {
 		checkValidLocation(location);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			return repositories.containsKey(getKey(location));
-		}
+		return getRepositories().containsKey(getKey(location));
 	}
 
 	/*
@@ -301,9 +344,17 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		checkValidLocation(location);
 		Assert.isNotNull(name);
 		Assert.isNotNull(type);
+		IRepository<T> result = runLocked(() -> basicCreateRepository(location, name, type, properties), null);
+		//fire event after releasing load lock
+		broadcastChangeEvent(location, getRepositoryType(), RepositoryEvent.ADDED, true);
+		return result;
+	}
+
+	private IRepository<T> basicCreateRepository(URI location, String name, String type, Map<String, String> properties) throws ProvisionException {
 		IRepository<T> result = null;
+		LoadLock lock = null;
 		try {
-			enterLoad(location, new NullProgressMonitor());
+			lock = enterLoad(location, new NullProgressMonitor());
 			boolean loaded = false;
 			try {
 				//repository should not already exist
@@ -330,10 +381,10 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			clearNotFound(location);
 			addRepository(result, false, null);
 		} finally {
-			exitLoad(location);
+			if (lock != null) {
+				exitLoad(location, lock);
+			}
 		}
-		//fire event after releasing load lock
-		broadcastChangeEvent(location, getRepositoryType(), RepositoryEvent.ADDED, true);
 		return result;
 	}
 
@@ -359,44 +410,124 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 
 	/**
 	 * Obtains an exclusive right to load a repository at the given location. Blocks
-	 * if another thread is currently loading at that location. Invocation of this
-	 * method must be followed by a subsequent call to {@link #exitLoad(URI)}.
-	 *
-	 * To avoid deadlock between the loadLock and repositoryLock, this method
-	 * must not be called when repositoryLock is held.
-	 *
+	 * if another thread is currently loading at that location. If this method returns
+	 * a lock it must be followed by a subsequent call to {@link #exitLoad(URI, LoadLock)}.
+	 * <p>
+	 * Concurrent loads of the same location are thereby deduplicated: the waiting
+	 * thread finds the repository loaded by the owner once the owner's load
+	 * completes. The method returns <code>null</code> without taking the lock if
+	 * the current thread already owns it. If the owner is itself (transitively)
+	 * waiting for a location owned by the current thread, as happens when composite
+	 * repositories that refer to each other are loaded by different threads, a
+	 * {@link LoadConflict} is thrown instead of waiting. The current thread then
+	 * backs off, see {@link #runLocked(LockedLoad, IProgressMonitor)}, so a
+	 * location is never loaded by two threads at once.
+	 * </p>
 	 * @param location The location to lock
+	 * @return the acquired lock, or <code>null</code>
 	 */
-	private void enterLoad(URI location, IProgressMonitor monitor) {
+	private LoadLock enterLoad(URI location, IProgressMonitor monitor) {
+		// restore the known repositories before taking any load lock, since
+		// restoring may load repositories, see restoreSpecialRepositories()
+		getRepositories();
 		Thread current = Thread.currentThread();
-		synchronized (loadLocks) {
-			while (true) {
-				Thread owner = loadLocks.get(location);
-				if (owner == null || current.equals(owner)) {
-					break;
-				}
-				if (monitor.isCanceled()) {
-					throw new OperationCanceledException();
-				}
-				try {
-					loadLocks.wait(1000);
-				} catch (InterruptedException e) {
-					//keep trying
-				}
+		LoadLock lock = new LoadLock();
+		while (true) {
+			LoadLock owner = loadLocks.putIfAbsent(location, lock);
+			if (owner == null) {
+				return lock;
+			}
+			if (owner.owner == current) {
+				return null;
+			}
+			if (isWaitingFor(owner.owner, current)) {
+				throw new LoadConflict(owner);
+			}
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			loadWaits.put(current, owner);
+			try {
+				owner.get(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException | ExecutionException | TimeoutException e) {
+				//keep trying
+			} finally {
+				loadWaits.remove(current);
 			}
-			loadLocks.put(location, current);
 		}
 	}
 
+	/**
+	 * Returns whether the given thread is waiting, directly or through a chain of
+	 * other waiting threads, for a location owned by the given owner.
+	 */
+	private boolean isWaitingFor(Thread waiter, Thread owner) {
+		Set<Thread> visited = new HashSet<>();
+		Thread thread = waiter;
+		while (visited.add(thread)) {
+			LoadLock awaited = loadWaits.get(thread);
+			if (awaited == null) {
+				return false;
+			}
+			thread = awaited.owner;
+			if (thread == owner) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Relinquishes the exclusive right to load a repository at the given location. Unblocks
 	 * other threads waiting to load at that location.
 	 * @param location The location to unlock
+	 * @param lock The lock obtained from {@link #enterLoad(URI, IProgressMonitor)}
+	 */
+	private void exitLoad(URI location, LoadLock lock) {
+		loadLocks.remove(location, lock);
+		lock.complete(null);
+	}
+
+	/**
+	 * Runs an operation taking load locks. When a nested load of the current
+	 * thread conflicts with the load of another thread, the outermost operation
+	 * of the current thread, which holds no locks anymore once the conflict has
+	 * unwound it, waits for the other load to complete and runs again. It then
+	 * usually finds the conflicting location loaded.
 	 */
-	private void exitLoad(URI location) {
-		synchronized (loadLocks) {
-			loadLocks.remove(location);
-			loadLocks.notifyAll();
+	private <R> R runLocked(LockedLoad<R> load, IProgressMonitor monitor) throws ProvisionException {
+		int[] depth = loadDepth.get();
+		depth[0]++;
+		try {
+			while (true) {
+				try {
+					return load.run();
+				} catch (LoadConflict e) {
+					if (depth[0] > 1) {
+						throw e;
+					}
+					awaitLoad(e.awaited, monitor);
+				}
+			}
+		} finally {
+			depth[0]--;
+		}
+	}
+
+	private static void awaitLoad(LoadLock lock, IProgressMonitor monitor) {
+		while (true) {
+			if (monitor != null && monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				lock.get(100, TimeUnit.MILLISECONDS);
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException | TimeoutException e) {
+				//keep waiting
+			}
 		}
 	}
 
@@ -519,18 +650,13 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 
 	@Override
 	public URI[] getKnownRepositories(int flags) {
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
+		ArrayList<URI> result = new ArrayList<>();
+		for (RepositoryInfo<T> info : getRepositories().values()) {
+			if (matchesFlags(info, flags)) {
+				result.add(info.location);
 			}
-			ArrayList<URI> result = new ArrayList<>();
-			for (RepositoryInfo<T> info : repositories.values()) {
-				if (matchesFlags(info, flags)) {
-					result.add(info.location);
-				}
-			}
-			return result.toArray(new URI[result.size()]);
 		}
+		return result.toArray(new URI[result.size()]);
 	}
 
 	/**
@@ -609,44 +735,36 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	@Override
 	public String getRepositoryProperty(URI location, String key) {
 		checkValidLocation(location);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info == null) {
-				return null;// Repository not found
-			}
-			if (null != key) {
-				switch (key) {
-					case IRepository.PROP_DESCRIPTION:
-						return info.description;
-					case IRepository.PROP_NAME:
-						return info.name;
-					case IRepository.PROP_SYSTEM:
-						return Boolean.toString(info.isSystem);
-					case IRepository.PROP_NICKNAME:
-						return info.nickname;
-					default:
-						break;
-				}
+		RepositoryInfo<T> info = getRepositories().get(getKey(location));
+		if (info == null) {
+			return null;// Repository not found
+		}
+		if (null != key) {
+			switch (key) {
+				case IRepository.PROP_DESCRIPTION:
+					return info.description;
+				case IRepository.PROP_NAME:
+					return info.name;
+				case IRepository.PROP_SYSTEM:
+					return Boolean.toString(info.isSystem);
+				case IRepository.PROP_NICKNAME:
+					return info.nickname;
+				default:
+					break;
 			}
-			// Key not known, return null
-			return null;
 		}
+		// Key not known, return null
+		return null;
 	}
 
 	@Override
 	public void setRepositoryProperty(URI location, String key, String value) {
 		checkValidLocation(location);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info == null) {
-				return;// Repository not found
-			}
+		RepositoryInfo<T> info = getRepositories().get(getKey(location));
+		if (info == null) {
+			return;// Repository not found
+		}
+		synchronized (info) {
 			if (null != key) {
 				switch (key) {
 		    	case IRepository.PROP_DESCRIPTION:
@@ -693,27 +811,31 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 
 	@Override
 	public boolean isEnabled(URI location) {
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info != null) {
-				return info.isEnabled;
-			}
-			// Repository not found, return false
-			return false;
+		RepositoryInfo<T> info = getRepositories().get(getKey(location));
+		if (info != null) {
+			return info.isEnabled;
 		}
+		// Repository not found, return false
+		return false;
 	}
 
 	protected IRepository<T> loadRepository(URI location, IProgressMonitor monitor, String type, int flags) throws ProvisionException {
 		checkValidLocation(location);
+		IRepository<T> result = basicGetRepository(location);
+		if (result != null) {
+			// fast path, the repository is loaded already
+			return result;
+		}
+		return runLocked(() -> basicLoadRepository(location, monitor, type, flags), monitor);
+	}
+
+	private IRepository<T> basicLoadRepository(URI location, IProgressMonitor monitor, String type, int flags) throws ProvisionException {
 		SubMonitor sub = SubMonitor.convert(monitor, 100);
 		boolean added = false;
+		LoadLock lock = null;
 		IRepository<T> result = null;
-
 		try {
-			enterLoad(location, sub.newChild(5));
+			lock = enterLoad(location, sub.newChild(5));
 			result = basicGetRepository(location);
 			if (result != null) {
 				return result;
@@ -765,8 +887,16 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 				}
 				fail(location, ProvisionException.REPOSITORY_NOT_FOUND);
 			}
+		} catch (LoadConflict e) {
+			//the load starts over once the conflicting load is done
+			if (added) {
+				removeRepository(location, false);
+			}
+			throw e;
 		} finally {
-			exitLoad(location);
+			if (lock != null) {
+				exitLoad(location, lock);
+			}
 		}
 		//broadcast the add event after releasing lock
 		if (added) {
@@ -854,8 +984,8 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 				if (e.getStatus().getCode() != ProvisionException.REPOSITORY_NOT_FOUND) {
 					throw e;
 				}
-			} catch (OperationCanceledException e) {
-				//always propagate cancelation
+			} catch (OperationCanceledException | LoadConflict e) {
+				//always propagate cancelation and conflicting loads
 				throw e;
 			} catch (Exception e) {
 				//catch and log unexpected errors and move onto the next factory
@@ -1005,17 +1135,14 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	 * Cache the fact that we tried to load a repository at this location and did not find anything.
 	 */
 	private void rememberNotFound(URI location) {
-		List<URI> badRepos;
-		if (unavailableRepositories != null) {
-			badRepos = unavailableRepositories.get();
-			if (badRepos != null) {
-				badRepos.add(location);
-				return;
-			}
+		SoftReference<Set<URI>> reference = unavailableRepositories;
+		Set<URI> badRepos = reference == null ? null : reference.get();
+		if (badRepos == null) {
+			// a concurrently remembered location may get lost here, which only costs another lookup
+			badRepos = ConcurrentHashMap.newKeySet();
+			unavailableRepositories = new SoftReference<>(badRepos);
 		}
-		badRepos = new ArrayList<>();
 		badRepos.add(location);
-		unavailableRepositories = new SoftReference<>(badRepos);
 	}
 
 	@Override
@@ -1026,14 +1153,10 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	private boolean removeRepository(URI toRemove, boolean signalRemove) {
 		Assert.isNotNull(toRemove);
 		final String repoKey = getKey(toRemove);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			if (repositories.remove(repoKey) == null) {
-				return false;
-			}
+		if (getRepositories().remove(repoKey) == null) {
+			return false;
 		}
+		cache.remove(repoKey);
 		// remove the repository from the preference store
 		try {
 			if (Tracing.DEBUG_REMOVE_REPO) {
@@ -1091,7 +1214,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 			info.isSystem = child.getBoolean(KEY_SYSTEM, false);
 			info.isEnabled = child.getBoolean(KEY_ENABLED, true);
 			info.suffix = child.get(KEY_SUFFIX, null);
-			repositories.put(getKey(info.location), info);
+			restoringRepositories.put(getKey(info.location), info);
 		}
 		// now that we have loaded everything, remember them
 		if (save) {
@@ -1114,15 +1237,39 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	}
 
 	/**
-	 * Restores the repository list.
+	 * Returns the map of known repositories, restoring it on first access.
 	 */
-	private void restoreRepositories() {
+	private Map<String, RepositoryInfo<T>> getRepositories() {
+		Map<String, RepositoryInfo<T>> result = repositories;
+		if (result != null) {
+			return result;
+		}
 		synchronized (repositoryLock) {
-			repositories = new HashMap<>();
+			if (repositories == null) {
+				if (restoringRepositories != null) {
+					// called back by the restoring thread, e.g. when restoring special repositories
+					return restoringRepositories;
+				}
+				restoreRepositories();
+			}
+			return repositories;
+		}
+	}
+
+	/**
+	 * Restores the repository list. The list is only published once it is
+	 * completely restored. Must be called while holding {@link #repositoryLock}.
+	 */
+	private void restoreRepositories() {
+		restoringRepositories = new ConcurrentHashMap<>();
+		try {
 			restoreSpecialRepositories();
 			restoreFromSystemProperty();
 			basicRestoreFromPreferences(getSharedPreferences(), false);
 			basicRestoreFromPreferences(getPreferences(), true);
+			repositories = restoringRepositories;
+		} finally {
+			restoringRepositories = null;
 		}
 	}
 
@@ -1150,12 +1297,12 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	@Override
 	public void setEnabled(URI location, boolean enablement) {
 		checkValidLocation(location);
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info == null || info.isEnabled == enablement) {
+		RepositoryInfo<T> info = getRepositories().get(getKey(location));
+		if (info == null) {
+			return;
+		}
+		synchronized (info) {
+			if (info.isEnabled == enablement) {
 				return;
 			}
 			info.isEnabled = enablement;
@@ -1174,9 +1321,10 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		eventBus.removeListener(this);
 		//ensure all repository state in memory is written to disk
 		boolean changed = false;
-		synchronized (repositoryLock) {
-			if (repositories != null) {
-				for (RepositoryInfo<T> info : repositories.values()) {
+		Map<String, RepositoryInfo<T>> repos = repositories;
+		if (repos != null) {
+			for (RepositoryInfo<T> info : repos.values()) {
+				synchronized (info) {
 					changed |= remember(info, false);
 				}
 			}
@@ -1189,6 +1337,7 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		}
 		repositories = null;
 		unavailableRepositories = null;
+		cache.clear();
 	}
 
 	/**
@@ -1201,40 +1350,35 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 		String[] result = new String[suffixes.length];
 		System.arraycopy(suffixes, 0, result, 0, suffixes.length);
 
-		synchronized (repositoryLock) {
-			if (repositories == null) {
-				restoreRepositories();
-			}
-			RepositoryInfo<T> info = repositories.get(getKey(location));
-			if (info != null && info.suffix != null) {
-				//move lastSuffix to the front of the list but preserve order of remaining entries
-				String lastSuffix = info.suffix;
-				for (int i = 0; i < result.length; i++) {
-					if (lastSuffix.equals(result[i])) {
-						System.arraycopy(result, 0, result, 1, i);
-						result[0] = lastSuffix;
-						break;
-					}
+		RepositoryInfo<T> info = getRepositories().get(getKey(location));
+		String lastSuffix = info == null ? null : info.suffix;
+		if (lastSuffix != null) {
+			//move lastSuffix to the front of the list but preserve order of remaining entries
+			for (int i = 0; i < result.length; i++) {
+				if (lastSuffix.equals(result[i])) {
+					System.arraycopy(result, 0, result, 1, i);
+					result[0] = lastSuffix;
+					break;
 				}
 			}
-			// Now make sure that anything in the "preferredOrder" is at the top
-			if (preferredOrder != null) {
-				int priority = 0;
-				for (String currentSuffix : preferredOrder) {
-					if (LocationProperties.END.equals(currentSuffix.trim())) {
-						// All suffixes from here on should be ignored
-						String[] tmp = new String[priority];
-						System.arraycopy(result, 0, tmp, 0, priority);
-						return tmp;
-					}
-					for (int j = priority; j < result.length; j++) {
-						if (result[j].equalsIgnoreCase(currentSuffix.trim())) {
-							String tmp = result[j];
-							System.arraycopy(result, priority, result, priority + 1, j - priority);
-							result[priority] = tmp;
-							priority++;
-							break;
-						}
+		}
+		// Now make sure that anything in the "preferredOrder" is at the top
+		if (preferredOrder != null) {
+			int priority = 0;
+			for (String currentSuffix : preferredOrder) {
+				if (LocationProperties.END.equals(currentSuffix.trim())) {
+					// All suffixes from here on should be ignored
+					String[] tmp = new String[priority];
+					System.arraycopy(result, 0, tmp, 0, priority);
+					return tmp;
+				}
+				for (int j = priority; j < result.length; j++) {
+					if (result[j].equalsIgnoreCase(currentSuffix.trim())) {
+						String tmp = result[j];
+						System.arraycopy(result, priority, result, priority + 1, j - priority);
+						result[priority] = tmp;
+						priority++;
+						break;
 					}
 				}
 			}
@@ -1299,13 +1443,71 @@ public abstract class AbstractRepositoryManager<T> implements IRepositoryManager
 	}
 
 	public void flushCache() {
-		synchronized (repositoryLock) {
-			if (repositories != null) {
-				Collection<RepositoryInfo<T>> repos = repositories.values();
-				for (RepositoryInfo<T> repositoryInfo : repos) {
-					repositoryInfo.repository = null;
+		cache.clear();
+	}
+
+	/**
+	 * Returns the estimated retained size of the given loaded repository in bytes,
+	 * used to bound the size of the repository cache. Subclasses should override
+	 * this with an estimate based on the contents of their repositories. The
+	 * children of a composite repository are accounted on their own.
+	 */
+	protected long estimateSize(IRepository<T> repository) {
+		return DEFAULT_REPOSITORY_SIZE;
+	}
+
+	/**
+	 * Returns the number of elements the given queryable contains, without
+	 * collecting them.
+	 */
+	protected static <E> int countElements(IQueryable<E> queryable) {
+		int[] count = new int[1];
+		queryable.query(new IQuery<>() {
+			@Override
+			public IQueryResult<E> perform(Iterator<E> iterator) {
+				for (; iterator.hasNext(); iterator.next()) {
+					count[0]++;
 				}
+				return Collector.emptyCollector();
 			}
+
+			@Override
+			public IExpression getExpression() {
+				return ExpressionUtil.TRUE_EXPRESSION;
+			}
+		}, null);
+		return count[0];
+	}
+
+	// the cache keeps the children of cached composites, which hold on to them
+	private Collection<String> getChildKeys(IRepository<T> repository) {
+		if (!(repository instanceof ICompositeRepository<?>)) {
+			return Collections.emptyList();
+		}
+		List<String> keys = new ArrayList<>();
+		for (URI child : ((ICompositeRepository<?>) repository).getChildren()) {
+			keys.add(getKey(child));
 		}
+		return keys;
+	}
+
+	/**
+	 * Prevents the repository at the given location from being evicted from the
+	 * cache of loaded repositories for as long as the given owner is reachable.
+	 * Pinning a repository again for the same owner has no effect.
+	 *
+	 * @return <code>true</code> if the repository was pinned, and
+	 *         <code>false</code> if it is not loaded
+	 */
+	public boolean pinRepository(URI location, Object owner) {
+		return cache.pin(getKey(checkValidLocation(location)), owner);
+	}
+
+	/**
+	 * Returns the current state and the usage statistics of the cache of loaded
+	 * repositories.
+	 */
+	public RepositoryCache.Statistics getCacheStatistics() {
+		return cache.getStatistics();
 	}
 }
@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.repository.helpers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.eclipse.equinox.internal.p2.core.helpers.Tracing;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.repository.IRepository;
+
+/**
+ * A size bounded cache of loaded repositories, used by the repository managers.
+ * <p>
+ * Every cached repository is accounted with an estimated retained size. The
+ * caches of the repository managers of an agent, created with
+ * {@link #shared(IProvisioningAgent, long, Function)}, share one budget: when the
+ * total size of their repositories exceeds it, the least recently used
+ * repositories of any of them are evicted until the caches fit again.
+ * Repositories that are pinned,
+ * typically because a provisioning context works with them, are never evicted,
+ * and neither are the children of a cached composite repository, which the
+ * composite holds on to anyway; the caches may therefore temporarily exceed
+ * their maximum size.
+ * </p><p>
+ * Lookups do not lock. Additions, removals, pins and eviction synchronize on the
+ * budget. The children of composite repositories are determined without holding
+ * the lock, since composites may have to load them.
+ * </p>
+ * @param <T> the type of the repository contents
+ */
+public class RepositoryCache<T> {
+
+	/**
+	 * Agent property with the maximum size shared by the caches of the repository
+	 * managers, in megabytes. By default a quarter of the maximum heap is used.
+	 */
+	public static final String PROP_CACHE_SIZE = "eclipse.p2.repository.cache.size"; //$NON-NLS-1$
+
+	// the name of the agent service holding the budget shared by the caches of the agent
+	private static final String BUDGET_SERVICE = RepositoryCache.class.getName() + ".budget"; //$NON-NLS-1$
+
+	/**
+	 * The maximum size shared by a set of caches. All changes to the caches
+	 * synchronize on their budget.
+	 */
+	private static final class Budget {
+		final long maximumSize;
+		final AtomicLong clock = new AtomicLong();
+		// the caches are dropped with their repository managers
+		final Set<RepositoryCache<?>> caches = Collections.newSetFromMap(new WeakHashMap<>());
+
+		Budget(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		long totalSize() {
+			long totalSize = 0;
+			for (RepositoryCache<?> cache : caches) {
+				totalSize += cache.size;
+			}
+			return totalSize;
+		}
+	}
+
+	private static final class Entry<T> {
+		final IRepository<T> repository;
+		final long size;
+		volatile long lastAccess;
+		// guarded by the budget
+		int pins;
+		// the owners pinning the repository for as long as they are reachable, guarded by the budget
+		Set<Object> owners = Collections.newSetFromMap(new WeakHashMap<>());
+
+		Entry(IRepository<T> repository, long size) {
+			this.repository = repository;
+			this.size = size;
+		}
+
+		boolean isPinned() {
+			return pins > 0 || !owners.isEmpty();
+		}
+	}
+
+	/**
+	 * A snapshot of the state and the usage statistics of a cache.
+	 *
+	 * @param hits the number of lookups that found a repository
+	 * @param misses the number of lookups that did not find a repository
+	 * @param evictions the number of repositories evicted to reduce the size of the cache
+	 * @param count the number of cached repositories
+	 * @param size the estimated size of the cached repositories, in bytes
+	 * @param maximumSize the maximum size of the budget the cache shares, in bytes
+	 */
+	public record Statistics(long hits, long misses, long evictions, int count, long size, long maximumSize) {
+	}
+
+	/**
+	 * A pin preventing the eviction of a cached repository until it is closed.
+	 */
+	public final class Pin implements AutoCloseable {
+		private final String key;
+		private boolean closed;
+
+		Pin(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void close() {
+			synchronized (budget) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				Entry<T> entry = entries.get(key);
+				if (entry != null && entry.pins > 0) {
+					entry.pins--;
+				}
+			}
+			evict(budget, null);
+		}
+	}
+
+	private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+	private final Budget budget;
+	private final Function<IRepository<T>, Collection<String>> children;
+	// guarded by the budget
+	private long size;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a cache with a budget of its own, whose repositories have no
+	 * children.
+	 *
+	 * @param maximumSize the maximum estimated size of the cached repositories, in bytes
+	 */
+	public RepositoryCache(long maximumSize) {
+		this(maximumSize, repository -> Collections.emptyList());
+	}
+
+	/**
+	 * Creates a cache with a budget of its own.
+	 *
+	 * @param maximumSize the maximum estimated size of the cached repositories, in bytes
+	 * @param children returns the keys of the children of a cached repository
+	 */
+	public RepositoryCache(long maximumSize, Function<IRepository<T>, Collection<String>> children) {
+		this(new Budget(maximumSize), children);
+	}
+
+	private RepositoryCache(Budget budget, Function<IRepository<T>, Collection<String>> children) {
+		this.budget = budget;
+		this.children = children;
+		synchronized (budget) {
+			budget.caches.add(this);
+		}
+	}
+
+	/**
+	 * Creates a cache sharing its budget with all other caches created by this
+	 * method for the given agent. The budget is kept by the agent.
+	 *
+	 * @param agent the agent whose caches share the budget
+	 * @param maximumSize the maximum estimated size of the repositories of all caches sharing the budget, in bytes,
+	 * used if the agent has no budget yet
+	 * @param children returns the keys of the children of a cached repository
+	 */
+	public static <T> RepositoryCache<T> shared(IProvisioningAgent agent, long maximumSize, Function<IRepository<T>, Collection<String>> children) {
+		Budget budget;
+		synchronized (RepositoryCache.class) {
+			Object service = agent.getService(BUDGET_SERVICE);
+			if (service instanceof Budget) {
+				budget = (Budget) service;
+			} else {
+				budget = new Budget(maximumSize);
+				agent.registerService(BUDGET_SERVICE, budget);
+			}
+		}
+		return new RepositoryCache<>(budget, children);
+	}
+
+	/**
+	 * Returns the maximum cache size configured by {@link #PROP_CACHE_SIZE}, or
+	 * the default size if the property is not set or invalid.
+	 */
+	public static long getMaximumSize(String property) {
+		if (property != null) {
+			try {
+				return Math.max(0, Long.parseLong(property.trim())) * 1024 * 1024;
+			} catch (NumberFormatException e) {
+				// use the default size
+			}
+		}
+		return Runtime.getRuntime().maxMemory() / 4;
+	}
+
+	/**
+	 * Returns the cached repository with the given key, or <code>null</code>.
+	 */
+	public IRepository<T> get(String key) {
+		Entry<T> entry = entries.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		entry.lastAccess = budget.clock.incrementAndGet();
+		hits.increment();
+		return entry.repository;
+	}
+
+	/**
+	 * Returns whether exactly the given repository is cached with the given key.
+	 */
+	public boolean contains(String key, IRepository<T> repository) {
+		Entry<T> entry = entries.get(key);
+		return entry != null && entry.repository == repository;
+	}
+
+	/**
+	 * Caches the given repository, replacing any repository cached with the same
+	 * key, and evicts the least recently used repositories if the caches sharing
+	 * the budget became too big. Pins of a replaced repository apply to the new
+	 * one.
+	 *
+	 * @param size the estimated retained size of the repository, in bytes
+	 */
+	public void put(String key, IRepository<T> repository, long size) {
+		synchronized (budget) {
+			Entry<T> entry = new Entry<>(repository, size);
+			entry.lastAccess = budget.clock.incrementAndGet();
+			Entry<T> replaced = entries.put(key, entry);
+			if (replaced != null) {
+				entry.pins = replaced.pins;
+				entry.owners = replaced.owners;
+				this.size -= replaced.size;
+			}
+			this.size += size;
+		}
+		evict(budget, entry);
+	}
+
+	/**
+	 * Removes the repository with the given key from the cache.
+	 */
+	public void remove(String key) {
+		synchronized (budget) {
+			Entry<T> removed = entries.remove(key);
+			if (removed != null) {
+				size -= removed.size;
+			}
+		}
+	}
+
+	/**
+	 * Removes all repositories from the cache, including pinned ones.
+	 */
+	public void clear() {
+		synchronized (budget) {
+			entries.clear();
+			size = 0;
+		}
+	}
+
+	/**
+	 * Pins the repository cached with the given key.
+	 *
+	 * @return the pin to close once the repository is no longer used, or
+	 * <code>null</code> if no repository is cached with the given key
+	 */
+	public Pin pin(String key) {
+		synchronized (budget) {
+			Entry<T> entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			entry.pins++;
+			return new Pin(key);
+		}
+	}
+
+	/**
+	 * Pins the repository cached with the given key for as long as the given owner
+	 * is reachable. Pinning a repository again for the same owner has no effect.
+	 *
+	 * @return <code>true</code> if the repository is pinned, and <code>false</code>
+	 * if no repository is cached with the given key
+	 */
+	public boolean pin(String key, Object owner) {
+		synchronized (budget) {
+			Entry<T> entry = entries.get(key);
+			if (entry == null) {
+				return false;
+			}
+			entry.owners.add(owner);
+			return true;
+		}
+	}
+
+	public Statistics getStatistics() {
+		synchronized (budget) {
+			return new Statistics(hits.sum(), misses.sum(), evictions.sum(), entries.size(), size, budget.maximumSize);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used repositories of the caches sharing the given
+	 * budget, except the given one, until the caches fit the maximum size. Pinned
+	 * repositories and the children of cached composite repositories are kept;
+	 * evicting a composite makes its children candidates of the next round. The
+	 * children are determined without holding the lock of the budget, so the
+	 * candidates are checked again before they are evicted.
+	 */
+	private static void evict(Budget budget, Entry<?> keep) {
+		while (true) {
+			List<Candidate> cached = new ArrayList<>();
+			synchronized (budget) {
+				if (budget.totalSize() <= budget.maximumSize) {
+					return;
+				}
+				for (RepositoryCache<?> cache : budget.caches) {
+					cache.addEntries(cached);
+				}
+			}
+			Map<RepositoryCache<?>, Set<String>> referenced = new HashMap<>();
+			for (Candidate candidate : cached) {
+				referenced.computeIfAbsent(candidate.cache(), cache -> new HashSet<>()).addAll(candidate.cache().getChildren(candidate.entry()));
+			}
+			synchronized (budget) {
+				long totalSize = budget.totalSize();
+				List<Candidate> candidates = new ArrayList<>();
+				for (Candidate candidate : cached) {
+					Entry<?> entry = candidate.entry();
+					if (entry != keep && !entry.isPinned() && !referenced.get(candidate.cache()).contains(candidate.key())) {
+						candidates.add(candidate);
+					}
+				}
+				candidates.sort(Comparator.comparingLong(candidate -> candidate.entry().lastAccess));
+				boolean evicted = false;
+				for (Candidate candidate : candidates) {
+					if (totalSize <= budget.maximumSize) {
+						return;
+					}
+					if (candidate.cache().evict(candidate.key(), candidate.entry())) {
+						totalSize -= candidate.entry().size;
+						evicted = true;
+					}
+				}
+				if (!evicted) {
+					return;
+				}
+			}
+		}
+	}
+
+	private record Candidate(RepositoryCache<?> cache, String key, Entry<?> entry) {
+	}
+
+	private void addEntries(List<Candidate> cached) {
+		for (Map.Entry<String, Entry<T>> entry : entries.entrySet()) {
+			cached.add(new Candidate(this, entry.getKey(), entry.getValue()));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<String> getChildren(Entry<?> entry) {
+		return children.apply((IRepository<T>) entry.repository);
+	}
+
+	private boolean evict(String key, Entry<?> entry) {
+		if (!entries.remove(key, entry)) {
+			return false;
+		}
+		size -= entry.size;
+		evictions.increment();
+		if (Tracing.DEBUG) {
+			Tracing.debug("Evicted repository from cache: " + entry.repository.getLocation()); //$NON-NLS-1$
+		}
+		return true;
+	}
+}
@@ -23,7 +23,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ AggregateQueryTest.class, BackupTest.class, CollectorTest.class,
 		CompoundQueryableTest.class,
 		FileUtilsTest.class, OrderedPropertiesTest.class, ProvisioningAgentTest.class, QueryTest.class,
-		URLUtilTest.class })
+		SharedHashMapTest.class, URLUtilTest.class })
 public class AllTests {
 // test suite
 }
@@ -15,13 +15,22 @@
 package org.eclipse.equinox.p2.tests.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.tests.harness.TestProgressMonitor;
 import org.eclipse.equinox.p2.query.Collector;
+import org.eclipse.equinox.p2.query.ExpressionMatchQuery;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.IQueryable;
@@ -195,6 +204,48 @@ public class CompoundQueryableTest {
 		AbstractProvisioningTest.assertContains("1.6", queryResult, 12);
 	}
 
+	@Test
+	public void testExpressionMatchQuery() {
+		// enough elements for the queryables to be matched in parallel
+		List<IQueryable<Integer>> queryables = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			List<Integer> elements = new ArrayList<>();
+			for (int n = 0; n < 5000; n++) {
+				elements.add(i * 5000 + n);
+			}
+			queryables.add((query, monitor) -> query.perform(elements.iterator()));
+		}
+		IQueryable<Integer> cQueryable = QueryUtil.compoundQueryable(queryables);
+		CompoundQueryTestProgressMonitor monitor = new CompoundQueryTestProgressMonitor();
+		IQueryResult<Integer> queryResult = cQueryable.query(new ExpressionMatchQuery<>(Integer.class, "this >= $0 && this < $1", 4000, 21000), monitor);
+		assertEquals("1.0", 17000, AbstractProvisioningTest.queryResultSize(queryResult));
+		AbstractProvisioningTest.assertContains("1.1", queryResult, 4000);
+		AbstractProvisioningTest.assertContains("1.2", queryResult, 12345);
+		AbstractProvisioningTest.assertContains("1.3", queryResult, 20999);
+		AbstractProvisioningTest.assertNotContains("1.4", queryResult, 21000);
+		assertTrue("1.5", monitor.isDone());
+		assertTrue("1.6", monitor.isWorkDone());
+	}
+
+	@Test
+	public void testExpressionMatchQueryCanceled() {
+		assumeTrue(ForkJoinPool.getCommonPoolParallelism() > 1);
+		List<Integer> elements = Arrays.asList(1, 2, 3);
+		IQueryable<Integer> cQueryable = QueryUtil.compoundQueryable(Arrays.asList((query, monitor) -> query.perform(elements.iterator()), (query, monitor) -> query.perform(elements.iterator())));
+		IProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		assertThrows(OperationCanceledException.class, () -> cQueryable.query(new ExpressionMatchQuery<>(Integer.class, "this > 1"), monitor));
+	}
+
+	@Test
+	public void testStreamOfOverlappingQueryables() {
+		List<Integer> elements = Arrays.asList(1, 2, 3);
+		IQueryable<Integer> cQueryable = QueryUtil.compoundQueryable(Arrays.asList((query, monitor) -> query.perform(elements.iterator()), (query, monitor) -> query.perform(elements.iterator())));
+		IQuery<Integer> query = new ExpressionMatchQuery<>(Integer.class, "this > 1");
+		assertEquals("1.0", 2, cQueryable.stream(query, null).count());
+		assertEquals("1.1", cQueryable.query(query, null).toUnmodifiableSet(), cQueryable.stream(query, null).collect(Collectors.toSet()));
+	}
+
 	@Test
 	public void testSingleQueryable() {
 		IQueryable<Integer> cQueryable = QueryUtil.compoundQueryable(Arrays.asList(queryable1));
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.core;
+
+import static org.junit.Assert.assertThrows;
+
+import java.util.*;
+import org.eclipse.equinox.internal.p2.core.helpers.SharedHashMap;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+public class SharedHashMapTest extends AbstractProvisioningTest {
+
+	/**
+	 * A key with a poor hash code, so that keys collide.
+	 */
+	private record Key(int value) {
+		@Override
+		public int hashCode() {
+			return value % 7;
+		}
+	}
+
+	public void testPutGetRemove() {
+		SharedHashMap<Key, Integer> map = new SharedHashMap<>();
+		Map<Key, Integer> expected = new HashMap<>();
+		Random random = new Random(4711);
+		for (int i = 0; i < 20000; i++) {
+			Key key = new Key(random.nextInt(2000));
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+		assertEquals(expected, map);
+		assertEquals(expected.size(), map.size());
+		for (Key key : expected.keySet()) {
+			assertTrue(map.containsKey(key));
+		}
+		assertFalse(map.containsKey(new Key(-1)));
+	}
+
+	public void testManyKeys() {
+		SharedHashMap<String, Integer> map = new SharedHashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			map.put("unit" + i, i);
+		}
+		assertEquals(100000, map.size());
+		for (int i = 0; i < 100000; i += 2) {
+			assertEquals(Integer.valueOf(i), map.remove("unit" + i));
+		}
+		assertEquals(50000, map.size());
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get("unit" + i));
+		}
+	}
+
+	public void testSnapshot() {
+		SharedHashMap<String, Integer> map = new SharedHashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			map.put("unit" + i, i);
+		}
+		SharedHashMap<String, Integer> snapshot = map.snapshot();
+		Map<String, Integer> expected = new HashMap<>(map);
+
+		map.put("unit0", -1);
+		map.remove("unit1");
+		map.put("added", 1);
+		snapshot.put("unit2", -2);
+		snapshot.remove("unit3");
+
+		assertEquals(Integer.valueOf(-1), map.get("unit0"));
+		assertEquals(Integer.valueOf(2), map.get("unit2"));
+		assertTrue(map.containsKey("unit3"));
+		assertFalse(map.containsKey("unit1"));
+		assertEquals(1000, map.size());
+
+		expected.put("unit2", -2);
+		expected.remove("unit3");
+		assertEquals(expected, snapshot);
+	}
+
+	public void testIterateWhileChanging() {
+		SharedHashMap<String, Integer> map = new SharedHashMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put("unit" + i, i);
+		}
+		int count = 0;
+		for (Map.Entry<String, Integer> entry : map.entrySet()) {
+			map.remove(entry.getKey());
+			map.put(entry.getKey() + "'", entry.getValue());
+			count++;
+		}
+		assertEquals(100, count);
+		assertEquals(100, map.size());
+		assertTrue(map.containsKey("unit42'"));
+		assertFalse(map.containsKey("unit42"));
+	}
+
+	public void testOpenIteratorIsNotChanged() {
+		SharedHashMap<String, Integer> map = new SharedHashMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put("unit" + i, i);
+		}
+		// an iterator that has run to its end is not affected by later changes
+		for (Iterator<String> keys = map.keySet().iterator(); keys.hasNext();) {
+			keys.next();
+		}
+		Iterator<Map.Entry<String, Integer>> open = map.entrySet().iterator();
+		Map.Entry<String, Integer> first = open.next();
+		Map<String, Integer> expected = new HashMap<>(map);
+		for (int i = 0; i < 100; i++) {
+			map.put("unit" + i, -i);
+			map.put("other" + i, i);
+		}
+		Map<String, Integer> iterated = new HashMap<>();
+		iterated.put(first.getKey(), first.getValue());
+		open.forEachRemaining(entry -> iterated.put(entry.getKey(), entry.getValue()));
+		assertEquals(expected, iterated);
+		assertEquals(200, map.size());
+		assertEquals(Integer.valueOf(-42), map.get("unit42"));
+	}
+
+	public void testNullKey() {
+		SharedHashMap<String, Integer> map = new SharedHashMap<>();
+		assertThrows(NullPointerException.class, () -> map.put(null, 1));
+		assertNull(map.get(null));
+		assertNull(map.remove(null));
+	}
+}
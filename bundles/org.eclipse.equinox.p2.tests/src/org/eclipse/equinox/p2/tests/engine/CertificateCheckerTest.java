@@ -17,18 +17,23 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.*;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.equinox.internal.p2.artifact.processors.pgp.PGPSignatureVerifier;
 import org.eclipse.equinox.internal.p2.core.AgentLocation;
 import org.eclipse.equinox.internal.p2.core.ProvisioningAgent;
 import org.eclipse.equinox.internal.p2.engine.EngineActivator;
 import org.eclipse.equinox.internal.p2.engine.phases.CertificateChecker;
+import org.eclipse.equinox.internal.p2.engine.phases.SignatureCache;
 import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.internal.provisional.p2.repository.DefaultPGPPublicKeyService;
 import org.eclipse.equinox.p2.core.IAgentLocation;
@@ -36,11 +41,17 @@ import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.core.UIServices;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.repository.artifact.IArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.artifact.spi.ArtifactDescriptor;
 import org.eclipse.equinox.p2.repository.spi.PGPPublicKeyService;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
 import org.eclipse.equinox.p2.tests.TestActivator;
 import org.eclipse.equinox.p2.tests.TestData;
+import org.eclipse.osgi.signedcontent.SignedContent;
+import org.eclipse.osgi.signedcontent.SignedContentFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
 
 /**
  * Tests for {@link CertificateChecker}.
@@ -141,6 +152,7 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 	class CertificateTestService extends UIServices {
 		public boolean unsignedReturnValue = true;
 		public boolean wasPrompted = false;
+		public int promptCount = 0;
 
 		@Override
 		public AuthenticationInfo getUsernamePassword(String location) {
@@ -155,6 +167,7 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 		@Override
 		public TrustInfo getTrustInfo(Certificate[][] untrustedChain, String[] unsignedDetail) {
 			wasPrompted = true;
+			promptCount++;
 			return new TrustInfo(Collections.emptyList(), Collections.emptyList(), false, unsignedReturnValue);
 		}
 
@@ -301,6 +314,59 @@ public class CertificateCheckerTest extends AbstractProvisioningTest {
 		}
 	}
 
+	/**
+	 * Tests that the signers of verified artifacts are remembered for the agent,
+	 * and that artifacts verified concurrently still result in a single prompt.
+	 */
+	public void testSignatureCache() throws IOException, GeneralSecurityException {
+		try {
+			System.getProperties().setProperty(EngineActivator.PROP_UNSIGNED_POLICY, EngineActivator.UNSIGNED_PROMPT);
+			serviceUI.unsignedReturnValue = true;
+			Map<IArtifactDescriptor, File> artifacts = Map.of(
+					new ArtifactDescriptor(new ArtifactKey("what", "ever", Version.create("1"))), unsigned,
+					new ArtifactDescriptor(new ArtifactKey("what", "else", Version.create("1"))), unsigned);
+			checker.add(artifacts);
+			assertOK(checker.start());
+			assertEquals("1.0", 1, serviceUI.promptCount);
+			File cacheFile = new File(URIUtil.toFile(testAgent.getService(IAgentLocation.class).getDataArea(EngineActivator.ID)), "signatures.properties");
+			assertTrue("1.1", cacheFile.isFile());
+
+			// a new checker uses the remembered result and still prompts for the unsigned content
+			CertificateChecker second = new CertificateChecker(testAgent);
+			second.add(artifacts);
+			assertOK(second.start());
+			assertEquals("2.0", 2, serviceUI.promptCount);
+
+			// the cache is kept in memory and does not look up the signers again
+			SignatureCache cache = SignatureCache.load(testAgent);
+			assertSame("3.0", cache, SignatureCache.load(testAgent));
+			BundleContext context = TestActivator.getContext();
+			ServiceReference<SignedContentFactory> reference = context.getServiceReference(SignedContentFactory.class);
+			SignedContentFactory factory = context.getService(reference);
+			AtomicInteger lookups = new AtomicInteger();
+			try {
+				assertTrue("3.1", cache.getSigners(unsigned, new SignedContentFactory() {
+					@Override
+					public SignedContent getSignedContent(File content) throws IOException, InvalidKeyException, SignatureException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException {
+						lookups.incrementAndGet();
+						return factory.getSignedContent(content);
+					}
+
+					@Override
+					public SignedContent getSignedContent(Bundle bundle) throws IOException, InvalidKeyException, SignatureException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException {
+						lookups.incrementAndGet();
+						return factory.getSignedContent(bundle);
+					}
+				}).isEmpty());
+			} finally {
+				context.ungetService(reference);
+			}
+			assertEquals("3.2", 0, lookups.get());
+		} finally {
+			System.getProperties().remove(EngineActivator.PROP_UNSIGNED_POLICY);
+		}
+	}
+
 	public void testPGPSignedArtifactUntrustedKey() throws IOException, ProvisionException {
 		try {
 			// create a test profile
@@ -15,15 +15,21 @@ package org.eclipse.equinox.p2.tests.engine;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.URIUtil;
+import org.eclipse.equinox.internal.p2.artifact.repository.ArtifactRequest;
 import org.eclipse.equinox.internal.p2.engine.DownloadManager;
+import org.eclipse.equinox.internal.p2.metadata.ArtifactKey;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
+import org.eclipse.equinox.p2.metadata.Version;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepository;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRequest;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
@@ -236,6 +242,80 @@ public class DownloadManagerTest extends AbstractProvisioningTest {
 
 	}
 
+	/**
+	 * Tests that the download listener is notified of every request that has been
+	 * performed successfully, and only of those.
+	 */
+	public void testDownloadListener() {
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		URI location = getTestData("Simple Artifact Repo", testDataFileLocation).toURI();
+		context.setArtifactRepositories(location);
+		DownloadManager manager = createDownloadManager(context);
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "aaPlugin", Version.create("1.0.0"));
+		IArtifactRequest succeeding = createArtifactRequest(key, Status.OK_STATUS);
+		IArtifactRequest failing = createArtifactRequest(key, new Status(IStatus.ERROR, "test", "failed"));
+		manager.add(new IArtifactRequest[] {succeeding, failing});
+		List<IArtifactRequest> notified = Collections.synchronizedList(new ArrayList<>());
+		manager.setDownloadListener(notified::add);
+
+		manager.start(null);
+		assertEquals("1.0", List.of(succeeding), notified);
+
+		getArtifactRepositoryManager().removeRepository(location);
+	}
+
+	/**
+	 * Tests that the repository performs the requests that were added, and that
+	 * artifact requests notify the listener themselves, once, as soon as they are
+	 * done.
+	 */
+	public void testDownloadListenerOfArtifactRequests() {
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		URI location = getTestData("Simple Artifact Repo", testDataFileLocation).toURI();
+		context.setArtifactRepositories(location);
+		DownloadManager manager = createDownloadManager(context);
+		IArtifactKey key = new ArtifactKey("osgi.bundle", "aaPlugin", Version.create("1.0.0"));
+		List<IArtifactRequest> notified = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> notifiedWhilePerforming = new ArrayList<>();
+		IArtifactRequest request = new ArtifactRequest(key, null) {
+			@Override
+			public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+				setResult(Status.OK_STATUS);
+				notifiedWhilePerforming.add(notified.size());
+			}
+		};
+		manager.add(request);
+		manager.setDownloadListener(notified::add);
+
+		assertOK(manager.start(null));
+		assertEquals("1.0", List.of(request), notified);
+		assertSame("1.1", request, notified.get(0));
+		assertEquals("1.2", List.of(1), notifiedWhilePerforming);
+
+		getArtifactRepositoryManager().removeRepository(location);
+	}
+
+	private IArtifactRequest createArtifactRequest(IArtifactKey key, IStatus status) {
+		return new IArtifactRequest() {
+			private IStatus result;
+
+			@Override
+			public IArtifactKey getArtifactKey() {
+				return key;
+			}
+
+			@Override
+			public void perform(IArtifactRepository sourceRepository, IProgressMonitor monitor) {
+				result = status;
+			}
+
+			@Override
+			public IStatus getResult() {
+				return result;
+			}
+		};
+	}
+
 	private DownloadManager createDownloadManager(ProvisioningContext context) {
 		return new DownloadManager(context, getAgent());
 	}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.engine;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.equinox.internal.p2.engine.EngineExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EngineExecutorTest {
+	@Test
+	public void testParallelismIsBounded() throws Exception {
+		Executor executor = EngineExecutor.limited(2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maximum = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(20);
+		for (int i = 0; i < 20; i++) {
+			executor.execute(() -> {
+				maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					// ignore
+				} finally {
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+		Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+		Assert.assertTrue(maximum.get() <= 2);
+	}
+
+	@Test
+	public void testThreadsAreNamedDaemons() throws Exception {
+		FutureTask<Thread> task = new FutureTask<>(Thread::currentThread);
+		EngineExecutor.limited(2).execute(task);
+		Thread thread = task.get(30, TimeUnit.SECONDS);
+		Assert.assertTrue(thread.isDaemon());
+		Assert.assertTrue(thread.getName(), thread.getName().startsWith("p2 Engine Worker-"));
+	}
+
+	@Test
+	public void testSingleThreadRunsOnCaller() {
+		Thread[] thread = new Thread[1];
+		EngineExecutor.limited(1).execute(() -> thread[0] = Thread.currentThread());
+		Assert.assertSame(Thread.currentThread(), thread[0]);
+	}
+}
@@ -17,18 +17,26 @@ import static org.junit.Assert.assertThrows;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.internal.p2.engine.CollectEvent;
+import org.eclipse.equinox.internal.p2.engine.EngineTimings;
 import org.eclipse.equinox.internal.p2.engine.InstallableUnitOperand;
 import org.eclipse.equinox.internal.p2.engine.InstallableUnitPhase;
 import org.eclipse.equinox.internal.p2.engine.Operand;
@@ -335,6 +343,116 @@ public class PhaseTest extends AbstractProvisioningTest {
 		assertEquals(TestAction.class, ((ParameterizedProvisioningAction) actionsList2.get(0)).getAction().getClass());
 	}
 
+	/**
+	 * A phase with independent operands whose actions wait until two operands are
+	 * performed at the same time, and fail for the unit with the given id.
+	 */
+	static class IndependentPhase extends InstallableUnitPhase {
+		final CountDownLatch concurrent = new CountDownLatch(2);
+		final AtomicBoolean wasConcurrent = new AtomicBoolean();
+		final AtomicInteger executed = new AtomicInteger();
+		final Set<Object> undone = Collections.synchronizedSet(new HashSet<>());
+		final Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+		private final String failingId;
+
+		IndependentPhase(String failingId) {
+			super("test", 1);
+			this.failingId = failingId;
+		}
+
+		@Override
+		protected boolean hasIndependentOperands() {
+			return true;
+		}
+
+		@Override
+		protected List<ProvisioningAction> getActions(InstallableUnitOperand operand) {
+			return Collections.singletonList(new ProvisioningAction() {
+				@Override
+				public IStatus execute(Map<String, Object> parameters) {
+					executed.incrementAndGet();
+					threads.add(Thread.currentThread().getName());
+					concurrent.countDown();
+					try {
+						if (concurrent.await(10, TimeUnit.SECONDS)) {
+							wasConcurrent.set(true);
+						}
+					} catch (InterruptedException e) {
+						return Status.CANCEL_STATUS;
+					}
+					return operand.second().getId().equals(failingId) ? new Status(IStatus.ERROR, "test", "failed") : null;
+				}
+
+				@Override
+				public IStatus undo(Map<String, Object> parameters) {
+					undone.add(parameters.get("operand"));
+					return null;
+				}
+			});
+		}
+	}
+
+	public void testIndependentOperands() {
+		IndependentPhase phase = new IndependentPhase(null);
+		IProfile profile = createProfile("PhaseTest");
+		IProvisioningPlan plan = engine.createPlan(profile, null);
+		for (int i = 0; i < 8; i++) {
+			plan.addInstallableUnit(createIU("testIndependentOperands" + i));
+		}
+		IStatus status = engine.perform(plan, new TestPhaseSet(phase), new NullProgressMonitor());
+		assertOK(status);
+		assertTrue(phase.wasConcurrent.get());
+		assertEquals(8, phase.executed.get());
+		assertTrue(phase.undone.isEmpty());
+		// the operands run on at most the default number of the shared engine threads
+		assertTrue(phase.threads.toString(), phase.threads.size() <= 4);
+		for (String thread : phase.threads) {
+			assertTrue(thread, thread.startsWith("p2 Engine Worker-"));
+		}
+	}
+
+	public void testIndependentOperandsRollback() {
+		IndependentPhase phase = new IndependentPhase("testIndependentOperandsRollback3");
+		IProfile profile = createProfile("PhaseTest");
+		IProvisioningPlan plan = engine.createPlan(profile, null);
+		for (int i = 0; i < 8; i++) {
+			plan.addInstallableUnit(createIU("testIndependentOperandsRollback" + i));
+		}
+		IStatus status = engine.perform(plan, new TestPhaseSet(phase), new NullProgressMonitor());
+		assertTrue(status.matches(IStatus.ERROR));
+		// every operand started on any thread is undone
+		assertEquals(phase.executed.get(), phase.undone.size());
+
+		// the shared threads do not keep the operands that failed
+		IndependentPhase next = new IndependentPhase(null);
+		assertOK(engine.perform(plan, new TestPhaseSet(next), new NullProgressMonitor()));
+		assertEquals(8, next.executed.get());
+	}
+
+	public void testTimings() throws IOException {
+		File report = new File(getTempFolder(), "timings.json");
+		System.setProperty(EngineTimings.PROP_TIMINGS, "true");
+		System.setProperty(EngineTimings.PROP_TIMINGS_REPORT, report.getAbsolutePath());
+		try {
+			IndependentPhase phase = new IndependentPhase(null);
+			IProfile profile = createProfile("PhaseTest");
+			IProvisioningPlan plan = engine.createPlan(profile, null);
+			for (int i = 0; i < 2; i++) {
+				plan.addInstallableUnit(createIU("testTimings" + i));
+			}
+			assertOK(engine.perform(plan, new TestPhaseSet(phase), new NullProgressMonitor()));
+		} finally {
+			System.clearProperty(EngineTimings.PROP_TIMINGS);
+			System.clearProperty(EngineTimings.PROP_TIMINGS_REPORT);
+		}
+		assertTrue(report.isFile());
+		String content = Files.readString(report.toPath());
+		assertTrue(content, content.contains("{\"phase\": \"test\", \"count\": 1,"));
+		assertTrue(content, content.contains("testTimings0"));
+		assertTrue(content, content.contains("testTimings1"));
+		assertTrue(content, content.contains("\"action\": "));
+	}
+
 	public void testCancelHappenBeforeCompleteCollectPhase() {
 		final String testDataLocation = "testData/mirror/mirrorSourceRepo3";
 		Set<IInstallableUnit> ius = null;
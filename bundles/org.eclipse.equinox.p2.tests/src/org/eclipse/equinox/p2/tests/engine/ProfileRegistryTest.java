@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.engine;
 
+import static org.junit.Assert.assertThrows;
+
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
@@ -22,6 +24,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.equinox.internal.p2.engine.EngineActivator;
@@ -678,6 +681,193 @@ public class ProfileRegistryTest extends AbstractProvisioningTest {
 		assertEquals(1, fail);
 	}
 
+	public void testDeltaSnapshots() throws ProvisionException {
+		System.setProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL, "3");
+		try {
+			File folder = getTempFolder();
+			folder.mkdirs();
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			Profile profile = (Profile) profileRegistry.addProfile(getName());
+			for (int i = 0; i < 10; i++) {
+				profile.addInstallableUnit(createIU("base" + i));
+			}
+			saveProfile(profileRegistry, profile);
+
+			Map<Long, Profile> expected = new HashMap<>();
+			for (int i = 0; i < 8; i++) {
+				profile.addInstallableUnit(createIU("unit" + i));
+				profile.setInstallableUnitProperty(createIU("unit" + i), "index", Integer.toString(i));
+				profile.removeInstallableUnit(createIU("base" + i));
+				profile.setInstallableUnitProperty(createIU("base9"), "count", Integer.toString(i));
+				profile.setProperty("count", Integer.toString(i));
+				saveProfile(profileRegistry, profile);
+				expected.put(profile.getTimestamp(), profile.snapshot());
+			}
+			assertTrue(countFiles(folder, ".profile.delta.gz") > 0);
+			assertTrue(countFiles(folder, ".profile.gz") > 1);
+
+			// a new registry reconstructs every state from the snapshot files
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			assertEquals(10, profileRegistry.listProfileTimestamps(getName()).length);
+			for (Map.Entry<Long, Profile> entry : expected.entrySet()) {
+				assertProfileEquals(entry.getValue(), profileRegistry.getProfile(getName(), entry.getKey()));
+			}
+			long[] timestamps = profileRegistry.listProfileTimestamps(getName());
+			assertProfileEquals(expected.get(timestamps[timestamps.length - 1]), profileRegistry.getProfile(getName()));
+
+			// removing a state keeps the following delta snapshots readable
+			for (int i = 1; i < 4; i++) {
+				profileRegistry.removeProfile(getName(), timestamps[i]);
+			}
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			for (int i = 4; i < timestamps.length; i++) {
+				assertProfileEquals(expected.get(timestamps[i]), profileRegistry.getProfile(getName(), timestamps[i]));
+			}
+		} finally {
+			System.clearProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL);
+		}
+	}
+
+	public void testDeltaSnapshotsByDefault() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		Profile profile = (Profile) profileRegistry.addProfile(getName());
+		for (int i = 0; i < 10; i++) {
+			profile.addInstallableUnit(createIU("base" + i));
+		}
+		saveProfile(profileRegistry, profile);
+		profile.setInstallableUnitProperty(createIU("base0"), "index", "0");
+		saveProfile(profileRegistry, profile);
+		Profile expected = profile.snapshot();
+		assertEquals(1, countFiles(folder, ".profile.delta.gz"));
+
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		assertProfileEquals(expected, profileRegistry.getProfile(getName(), expected.getTimestamp()));
+	}
+
+	public void testCompactSnapshots() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		Map<Long, Profile> expected = new HashMap<>();
+		System.setProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL, "0");
+		try {
+			SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			Profile profile = (Profile) profileRegistry.addProfile(getName());
+			for (int i = 0; i < 10; i++) {
+				profile.addInstallableUnit(createIU("base" + i));
+			}
+			saveProfile(profileRegistry, profile);
+			for (int i = 0; i < 6; i++) {
+				profile.setInstallableUnitProperty(createIU("base" + i), "index", Integer.toString(i));
+				saveProfile(profileRegistry, profile);
+				expected.put(profile.getTimestamp(), profile.snapshot());
+			}
+			assertEquals(0, countFiles(folder, ".profile.delta.gz"));
+
+			// the first full snapshot written with delta snapshots enabled compacts the history
+			System.setProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL, "2");
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			profile = (Profile) profileRegistry.getProfile(getName());
+			for (int i = 0; i < 3; i++) {
+				profile.setInstallableUnitProperty(createIU("base9"), "count", Integer.toString(i));
+				saveProfile(profileRegistry, profile);
+				expected.put(profile.getTimestamp(), profile.snapshot());
+			}
+			assertEquals(11, profileRegistry.listProfileTimestamps(getName()).length);
+			assertEquals(5, countFiles(folder, ".profile.gz"));
+
+			profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+			for (Map.Entry<Long, Profile> entry : expected.entrySet()) {
+				assertProfileEquals(entry.getValue(), profileRegistry.getProfile(getName(), entry.getKey()));
+			}
+		} finally {
+			System.clearProperty(SimpleProfileRegistry.PROP_CHECKPOINT_INTERVAL);
+		}
+	}
+
+	public void testLazyProfileLoading() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		Map<String, String> properties = new HashMap<>();
+		properties.put("test", "value");
+		Profile profile = (Profile) profileRegistry.addProfile(getName(), properties);
+		profile.addInstallableUnit(createIU("unit1"));
+		profile.setInstallableUnitProperty(createIU("unit1"), "key", "value1");
+		saveProfile(profileRegistry, profile);
+		IProfile expected = profile.snapshot();
+
+		// a new registry only reads the properties of the profiles
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		IProfile[] profiles = profileRegistry.getProfiles();
+		assertEquals(1, profiles.length);
+		Profile handle = (Profile) profiles[0];
+		assertFalse(handle.isLoaded());
+		assertEquals("value", handle.getProperty("test"));
+		assertEquals(expected.getTimestamp(), handle.getTimestamp());
+		assertProfileEquals(expected, handle);
+		assertTrue(handle.isLoaded());
+
+		// a handle keeps the content of its snapshot when the profile changes
+		Profile older = (Profile) profileRegistry.getProfile(getName());
+		profile = (Profile) profileRegistry.getProfile(getName());
+		profile.addInstallableUnit(createIU("unit2"));
+		saveProfile(profileRegistry, profile);
+		assertFalse(older.isLoaded());
+		assertProfileEquals(expected, older);
+		assertProfileEquals(profile, profileRegistry.getProfile(getName()));
+
+		profileRegistry.evictProfile(getName());
+		Profile evicted = (Profile) profileRegistry.getProfile(getName());
+		assertFalse(evicted.isLoaded());
+		assertProfileEquals(profile, evicted);
+	}
+
+	public void testLazyProfileLoadingFailure() throws ProvisionException {
+		File folder = getTempFolder();
+		folder.mkdirs();
+		SimpleProfileRegistry profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		Profile profile = (Profile) profileRegistry.addProfile(getName());
+		profile.addInstallableUnit(createIU("unit1"));
+		saveProfile(profileRegistry, profile);
+
+		profileRegistry = new SimpleProfileRegistry(getAgent(), folder, null, false);
+		Profile handle = (Profile) profileRegistry.getProfile(getName());
+		File profileFolder = new File(folder, getName() + ".profile");
+		File hidden = new File(getTempFolder(), "hidden");
+		hidden.mkdirs();
+		File[] snapshots = profileFolder.listFiles();
+		for (File snapshot : snapshots) {
+			assertTrue(snapshot.renameTo(new File(hidden, snapshot.getName())));
+		}
+		// a snapshot that cannot be read does not leave an empty profile behind
+		assertThrows(IllegalStateException.class, () -> handle.query(QueryUtil.createIUAnyQuery(), null));
+		assertFalse(handle.isLoaded());
+
+		for (File snapshot : snapshots) {
+			assertTrue(new File(hidden, snapshot.getName()).renameTo(snapshot));
+		}
+		assertEquals(1, handle.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet().size());
+		assertTrue(handle.isLoaded());
+	}
+
+	private int countFiles(File folder, String extension) {
+		File profileFolder = new File(folder, getName() + ".profile");
+		return profileFolder.listFiles((FileFilter) pathname -> pathname.getName().endsWith(extension)).length;
+	}
+
+	private static void assertProfileEquals(IProfile expected, IProfile actual) {
+		assertNotNull(actual);
+		assertEquals(expected.getTimestamp(), actual.getTimestamp());
+		assertEquals(expected.getProperties(), actual.getProperties());
+		Set<IInstallableUnit> units = expected.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet();
+		assertEquals(units, actual.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+		for (IInstallableUnit unit : units) {
+			assertEquals(expected.getInstallableUnitProperties(unit), actual.getInstallableUnitProperties(unit));
+		}
+	}
+
 	public void testSetProfileStateProperties() throws ProvisionException {
 		assertNull(registry.getProfile(PROFILE_NAME));
 		Profile profile = (Profile) registry.addProfile(PROFILE_NAME);
@@ -15,26 +15,44 @@ package org.eclipse.equinox.p2.tests.engine;
 
 import static org.junit.Assert.assertThrows;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.equinox.internal.p2.engine.ISurrogateProfileHandler;
 import org.eclipse.equinox.internal.p2.engine.Profile;
+import org.eclipse.equinox.internal.p2.engine.ProfileBinaryReader;
+import org.eclipse.equinox.internal.p2.engine.ProfileBinaryWriter;
 import org.eclipse.equinox.internal.p2.engine.ProfileParser;
+import org.eclipse.equinox.internal.p2.engine.ProfileSnapshot;
 import org.eclipse.equinox.internal.p2.engine.ProfileWriter;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionFactory;
 import org.eclipse.equinox.p2.core.ProvisionException;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.IProfileRegistry;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IInstallableUnitFragment;
+import org.eclipse.equinox.p2.metadata.IInstallableUnitPatch;
+import org.eclipse.equinox.p2.metadata.IProvidedCapability;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.IRequirementChange;
+import org.eclipse.equinox.p2.metadata.MetadataFactory;
 import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.metadata.index.IIndex;
 import org.eclipse.equinox.p2.query.Collector;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
@@ -131,6 +149,85 @@ public class ProfileTest extends AbstractProvisioningTest {
 		assertNull(registry.getProfile(PROFILE_NAME));
 	}
 
+	public void testSnapshotIsIndependent() {
+		Profile profile = new Profile(getAgent(), PROFILE_NAME, null, null);
+		IInstallableUnit a = createIU("a");
+		IInstallableUnit b = createIU("b");
+		profile.addInstallableUnit(a);
+		profile.setInstallableUnitProperty(a, "key", "value");
+
+		Profile snapshot = profile.snapshot();
+		assertFalse(snapshot.isChanged());
+		profile.addInstallableUnit(b);
+		profile.setInstallableUnitProperty(a, "key", "changed");
+		snapshot.removeInstallableUnitProperty(a, "key");
+
+		assertEquals(2, queryResultSize(profile.query(QueryUtil.createIUAnyQuery(), null)));
+		assertEquals("changed", profile.getInstallableUnitProperty(a, "key"));
+		assertEquals(1, queryResultSize(snapshot.query(QueryUtil.createIUAnyQuery(), null)));
+		assertFalse(snapshot.contains(b));
+		assertNull(snapshot.getInstallableUnitProperty(a, "key"));
+	}
+
+	public void testHandedOutPropertiesDoNotChange() {
+		Profile profile = new Profile(getAgent(), PROFILE_NAME, null, null);
+		IInstallableUnit a = createIU("a");
+		profile.addInstallableUnit(a);
+		profile.setInstallableUnitProperty(a, "key1", "value1");
+		profile.setInstallableUnitProperty(a, "key2", "value2");
+		Map<String, String> properties = profile.getInstallableUnitProperties(a);
+		profile.setInstallableUnitProperty(a, "key1", "changed");
+		profile.removeInstallableUnitProperty(a, "key2");
+
+		assertEquals(Map.of("key1", "value1", "key2", "value2"), properties);
+		assertEquals(Map.of("key1", "changed"), profile.getInstallableUnitProperties(a));
+	}
+
+	public void testCapabilityIndexFollowsChanges() {
+		Profile profile = new Profile(getAgent(), PROFILE_NAME, null, null);
+		IInstallableUnit a1 = createIU("a", Version.create("1.0.0"));
+		IInstallableUnit a2 = createIU("a", Version.create("2.0.0"));
+		IInstallableUnit b = createIU("b");
+		IRequirement requirement = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "a", VersionRange.emptyRange, null, false, false);
+		IQuery<IInstallableUnit> query = QueryUtil.createMatchQuery(requirement.getMatches());
+
+		profile.addInstallableUnit(a1);
+		profile.addInstallableUnit(b);
+		assertEquals(1, queryResultSize(profile.query(query, null)));
+
+		profile.addInstallableUnit(a2);
+		assertEquals(2, queryResultSize(profile.query(query, null)));
+
+		profile.removeInstallableUnit(createIU("a", Version.create("1.0.0")));
+		assertEquals(Set.of(a2), profile.query(query, null).toUnmodifiableSet());
+
+		profile.removeInstallableUnit(a2);
+		assertTrue(profile.query(query, null).isEmpty());
+		assertEquals(Set.of(b), profile.query(QueryUtil.createIUAnyQuery(), null).toUnmodifiableSet());
+	}
+
+	public void testCapabilityIndexCandidatesSurviveChanges() {
+		Profile profile = new Profile(getAgent(), PROFILE_NAME, null, null);
+		for (int i = 0; i < 5; i++) {
+			profile.addInstallableUnit(createIU("a", Version.createOSGi(i, 0, 0)));
+		}
+		IRequirement requirement = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "a", VersionRange.emptyRange, null, false, false);
+		IIndex<IInstallableUnit> index = profile.getIndex(InstallableUnit.MEMBER_PROVIDED_CAPABILITIES);
+		Iterator<IInstallableUnit> candidates = index.getCandidates(null, ExpressionFactory.THIS, requirement.getMatches());
+
+		// the candidates handed out are not changed by units added or removed later
+		candidates.next();
+		profile.addInstallableUnit(createIU("a", Version.create("5.0.0")));
+		profile.removeInstallableUnit(createIU("a", Version.create("2.0.0")));
+		int count = 1;
+		while (candidates.hasNext()) {
+			candidates.next();
+			count++;
+		}
+		assertEquals(5, count);
+		assertEquals(5, queryResultSize(profile.query(QueryUtil.createMatchQuery(requirement.getMatches()), null)));
+	}
+
 	public void testAvailable() throws ProvisionException {
 		IProfileRegistry registry = getProfileRegistry();
 		assertNull(registry.getProfile(PROFILE_NAME));
@@ -162,6 +259,68 @@ public class ProfileTest extends AbstractProvisioningTest {
 		assertNull(registry.getProfile(PROFILE_NAME));
 	}
 
+	public void testBinarySnapshot() throws IOException {
+		Map<String, Object> capabilityProperties = new HashMap<>();
+		capabilityProperties.put("test.capability", "cap");
+		capabilityProperties.put(IProvidedCapability.PROPERTY_VERSION, Version.create("1.2.3"));
+		capabilityProperties.put("count", Long.valueOf(3));
+		capabilityProperties.put("names", List.of("a", "b"));
+		IProvidedCapability capability = MetadataFactory.createProvidedCapability("test.capability", capabilityProperties);
+		IRequirement requirement = MetadataFactory.createRequirement("test.capability", "cap", VersionRange.create("[1.0.0,2.0.0)"), "(os=linux)", true, false, true);
+		IRequirement propertiesRequirement = MetadataFactory.createRequirement("test.capability", "(count>=2)", null, 1, 1, true);
+		Map<String, String> iuProperties = new LinkedHashMap<>();
+		iuProperties.put("key", "value");
+		IInstallableUnit unit = createIU("unit", Version.create("1.0.0"), createFilter("os", "linux"), new IRequirement[] {requirement, propertiesRequirement}, new IProvidedCapability[] {capability}, iuProperties, TOUCHPOINT_OSGI, MetadataFactory.createTouchpointData(Map.of("install", "installBundle(bundle:${artifact})")), true, MetadataFactory.createUpdateDescriptor("unit", VersionRange.create("[0.0.0,1.0.0)"), 1, "update"), new IRequirement[] {requirement});
+		IInstallableUnitFragment fragment = createIUFragment(unit, "fragment", Version.create("1.0.0"), new IRequirement[] {requirement}, TOUCHPOINT_OSGI, NO_TP_DATA);
+		IRequirementChange change = MetadataFactory.createRequirementChange(requirement, MetadataFactory.createRequirement("test.capability", "cap", VersionRange.create("[1.5.0,2.0.0)"), null, false, false));
+		IInstallableUnitPatch patch = createIUPatch("patch", Version.create("1.0.0"), false, new IRequirementChange[] {change}, new IRequirement[][] {{requirement}}, requirement);
+
+		ProfileSnapshot snapshot = new ProfileSnapshot(PROFILE_NAME);
+		snapshot.setParentId("parent");
+		snapshot.setTimestamp(42);
+		snapshot.setProperties(Map.of("profile", "property"));
+		snapshot.addInstallableUnit(unit, Map.of("unit", "property"));
+		snapshot.addInstallableUnit(fragment, null);
+		snapshot.addInstallableUnit(patch, null);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new ProfileBinaryWriter(output).writeProfile(snapshot);
+
+		// a fresh pool makes sure the metadata is decoded
+		ProfileSnapshot read = new ProfileBinaryReader(new ByteArrayInputStream(output.toByteArray()), new MetadataPool()).readProfile();
+		assertEquals(PROFILE_NAME, read.getProfileId());
+		assertEquals("parent", read.getParentId());
+		assertEquals(42, read.getTimestamp());
+		assertEquals(snapshot.getProperties(), read.getProperties());
+		assertEquals(Set.copyOf(snapshot.getInstallableUnits()), Set.copyOf(read.getInstallableUnits()));
+		for (IInstallableUnit expected : snapshot.getInstallableUnits()) {
+			IInstallableUnit actual = read.getInstallableUnits().stream().filter(expected::equals).findFirst().get();
+			assertNotSame(expected, actual);
+			assertEquals(snapshot.getInstallableUnitProperties(expected), read.getInstallableUnitProperties(actual));
+			assertEquals(expected.getProperties(), actual.getProperties());
+			assertEquals(expected.isSingleton(), actual.isSingleton());
+			assertEquals(expected.getFilter(), actual.getFilter());
+			assertEquals(expected.getRequirements(), actual.getRequirements());
+			assertEquals(expected.getMetaRequirements(), actual.getMetaRequirements());
+			assertEquals(expected.getProvidedCapabilities(), actual.getProvidedCapabilities());
+			assertEquals(expected.getTouchpointType(), actual.getTouchpointType());
+			assertEquals(expected.getTouchpointData(), actual.getTouchpointData());
+			assertEquals(expected.getUpdateDescriptor() == null, actual.getUpdateDescriptor() == null);
+		}
+		IInstallableUnitFragment readFragment = (IInstallableUnitFragment) read.getInstallableUnits().stream().filter(fragment::equals).findFirst().get();
+		assertEquals(fragment.getHost(), readFragment.getHost());
+		IInstallableUnitPatch readPatch = (IInstallableUnitPatch) read.getInstallableUnits().stream().filter(patch::equals).findFirst().get();
+		assertEquals(patch.getRequirementsChange(), readPatch.getRequirementsChange());
+		assertEquals(patch.getLifeCycle(), readPatch.getLifeCycle());
+		assertEquals(1, readPatch.getApplicabilityScope().length);
+		assertEquals(requirement, readPatch.getApplicabilityScope()[0][0]);
+
+		// the recorded units are read even if the pool holds units with the same id and version
+		MetadataPool pool = new MetadataPool();
+		pool.getInstallableUnitPool().add(unit);
+		read = new ProfileBinaryReader(new ByteArrayInputStream(output.toByteArray()), pool).readProfile();
+		assertNotSame(unit, read.getInstallableUnits().stream().filter(unit::equals).findFirst().get());
+	}
+
 	private final static String PROFILE_TEST_TARGET = "profileTest";
 	final static Version PROFILE_TEST_VERSION = Version.create("0.0.1");
 
@@ -16,6 +16,7 @@ package org.eclipse.equinox.p2.tests.engine;
 
 import java.net.URI;
 import java.util.Collections;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.director.ProfileChangeRequest;
 import org.eclipse.equinox.p2.engine.IProvisioningPlan;
 import org.eclipse.equinox.p2.engine.ProvisioningContext;
@@ -101,6 +102,53 @@ public class ProvisioningContextTest extends AbstractProvisioningTest {
 		assertEquals("3 artifact repos", 3, followed.length);
 	}
 
+	public void testContextSkipsDuplicateAndMissingRepos() throws Exception {
+		URI missing = getTempFolder().toURI();
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setMetadataRepositories(repoA.getLocation(), missing, repoC.getLocation(), repoA.getLocation());
+		context.setArtifactRepositories();
+		context.setProperty(ProvisioningContext.FOLLOW_REPOSITORY_REFERENCES, "true");
+		IQueryable<IInstallableUnit> queryable = context.getMetadata(getMonitor());
+		IInstallableUnit[] units = queryable.query(QueryUtil.createIUQuery("B"), getMonitor()).toArray(IInstallableUnit.class);
+		assertTrue("should find B", units.length > 0);
+		units = queryable.query(QueryUtil.createIUQuery("C"), getMonitor()).toArray(IInstallableUnit.class);
+		assertTrue("should find C", units.length > 0);
+		IQuery<IArtifactRepository> all = new ExpressionMatchQuery<>(IArtifactRepository.class, ExpressionUtil.TRUE_EXPRESSION);
+		IArtifactRepository[] followed = context.getArtifactRepositories(getMonitor()).query(all, getMonitor()).toArray(IArtifactRepository.class);
+		assertEquals("3 artifact repos", 3, followed.length);
+	}
+
+	public void testContextReportsLoadProgress() {
+		getMetadataRepositoryManager().removeRepository(uriB);
+		getMetadataRepositoryManager().removeRepository(uriC);
+		ProvisioningContext context = new ProvisioningContext(getAgent());
+		context.setMetadataRepositories(uriB, uriC);
+		context.setArtifactRepositories();
+		class RecordingMonitor extends NullProgressMonitor {
+			int total;
+			double worked;
+
+			@Override
+			public void beginTask(String name, int totalWork) {
+				total = totalWork;
+			}
+
+			@Override
+			public void internalWorked(double work) {
+				worked += work;
+			}
+
+			@Override
+			public void worked(int work) {
+				internalWorked(work);
+			}
+		}
+		RecordingMonitor monitor = new RecordingMonitor();
+		context.getMetadata(monitor);
+		assertTrue("progress reported", monitor.total > 0);
+		assertEquals("all work done", monitor.total, monitor.worked, 1);
+	}
+
 	public void testContextTwoRepoNoFollow() {
 		ProvisioningContext context = new ProvisioningContext(getAgent());
 		context.setMetadataRepositories(repoA.getLocation(), repoB.getLocation());
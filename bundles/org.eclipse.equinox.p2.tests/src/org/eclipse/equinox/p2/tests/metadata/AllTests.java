@@ -23,7 +23,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ ArtifactKeyParsingTest.class, FragmentMethodTest.class, FragmentTest.class,
 		InstallableUnitTest.class, InstallableUnitPatchTest.class, IUPersistenceTest.class, LatestIUTest.class,
-		LicenseTest.class, MultipleIUAndFragmentTest.class, PersistNegation.class, PersistFragment.class,
+		LicenseTest.class, MetadataPoolTest.class, MultipleIUAndFragmentTest.class, PersistNegation.class, PersistFragment.class,
 		ProvidedCapabilityTest.class, RequirementToString.class, RequirementParsingTest.class })
 public class AllTests {
 //test suite
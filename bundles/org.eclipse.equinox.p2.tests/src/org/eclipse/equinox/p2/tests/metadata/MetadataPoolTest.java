@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.metadata;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.equinox.internal.p2.metadata.MetadataPool;
+import org.eclipse.equinox.p2.metadata.*;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for {@link MetadataPool}.
+ */
+public class MetadataPoolTest extends AbstractProvisioningTest {
+
+	public void testVersionsAreShared() {
+		assertSame(Version.create("1.2.3.qualifier"), Version.create(new String("1.2.3.qualifier")));
+		assertSame(VersionRange.create("[1.0.0,2.0.0)"), VersionRange.create(new String("[1.0.0,2.0.0)")));
+		assertNull(Version.create(null));
+		assertNull(VersionRange.create(""));
+	}
+
+	public void testAgentPoolSharesWithDefaultPool() {
+		MetadataPool pool = MetadataPool.getPool(getAgent());
+		assertNotSame(MetadataPool.getDefault(), pool);
+		assertSame(pool, MetadataPool.getPool(getAgent()));
+		assertSame(Version.create("4.5.6"), pool.parseVersion("4.5.6"));
+		String name = new String("org.example.shared");
+		assertSame(MetadataPool.getDefault().share(name), pool.share(new String("org.example.shared")));
+	}
+
+	public void testCapabilitiesAreShared() {
+		MetadataPool pool = new MetadataPool();
+		IProvidedCapability capability = pool.share(MetadataFactory.createProvidedCapability("namespace", "name", DEFAULT_VERSION));
+		assertSame(capability, pool.share(MetadataFactory.createProvidedCapability("namespace", "name", DEFAULT_VERSION)));
+
+		IRequirement requirement = pool.share(MetadataFactory.createRequirement("namespace", "name", VersionRange.emptyRange, null, false, false));
+		assertSame(requirement, pool.share(MetadataFactory.createRequirement("namespace", "name", VersionRange.emptyRange, null, false, false)));
+
+		// requirements are equal regardless of their description, so they must not be shared
+		IRequirement described = MetadataFactory.createRequirement("namespace", "name", VersionRange.emptyRange, null, 1, 1, true, "description");
+		assertSame(described, pool.share(described));
+	}
+
+	public void testConcurrentSharing() throws Exception {
+		MetadataPool pool = new MetadataPool();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<Version>>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> {
+					List<Version> versions = new ArrayList<>();
+					for (int j = 0; j < 1000; j++) {
+						versions.add(pool.parseVersion("1.0." + j));
+					}
+					return versions;
+				}));
+			}
+			List<Version> first = results.get(0).get();
+			for (Future<List<Version>> result : results) {
+				List<Version> versions = result.get();
+				for (int j = 0; j < versions.size(); j++) {
+					assertSame(first.get(j), versions.get(j));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
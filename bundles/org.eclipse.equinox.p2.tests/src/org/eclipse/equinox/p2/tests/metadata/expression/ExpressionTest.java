@@ -13,6 +13,9 @@
  *******************************************************************************/
 package org.eclipse.equinox.p2.tests.metadata.expression;
 
+import org.eclipse.equinox.internal.p2.metadata.expression.ExpressionCompiler.CompiledMatch;
+import org.eclipse.equinox.internal.p2.metadata.expression.MatchExpression;
+import org.eclipse.equinox.p2.metadata.*;
 import org.eclipse.equinox.p2.metadata.expression.*;
 import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
 
@@ -58,6 +61,34 @@ public class ExpressionTest extends AbstractProvisioningTest {
 		testMatch("false == 'False'", true);
 	}
 
+	public void testCompiledMatch() {
+		IInstallableUnit[] ius = new IInstallableUnit[] {createIU("a", Version.create("1.0.0")), createIU("a", Version.create("2.0.0")), createIU("b", Version.create("1.5.0"), BUNDLE_CAPABILITY)};
+		IMatchExpression<?>[] expressions = new IMatchExpression<?>[] { //
+				MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "a", new VersionRange("[1.0.0,2.0.0)"), null, false, false).getMatches(), //
+				MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "a", VersionRange.emptyRange, null, false, false).getMatches(), //
+				MetadataFactory.createRequirement("eclipse.touchpoint", "bundle", new VersionRange("1.0.0"), null, false, false).getMatches(), //
+				factory.matchExpression(ExpressionUtil.parse("id == $0 || version ~= $1"), "b", new VersionRange("[2.0.0,3.0.0)")), //
+				factory.matchExpression(ExpressionUtil.parse("!(providedCapabilities.all(x | x.namespace == $0))"), IInstallableUnit.NAMESPACE_IU_ID)};
+		for (IMatchExpression<?> expression : expressions) {
+			@SuppressWarnings("unchecked")
+			MatchExpression<IInstallableUnit> matchExpression = (MatchExpression<IInstallableUnit>) expression;
+			CompiledMatch compiled = null;
+			// the expression is interpreted until it has been used a few times
+			for (int i = 0; i < 10 && compiled == null; i++) {
+				compiled = matchExpression.getCompiled();
+			}
+			assertNotNull(expression.toString(), compiled);
+			for (IInstallableUnit iu : ius) {
+				assertEquals(expression + " " + iu, matchExpression.isMatch(matchExpression.createContext(), iu), compiled.isMatch(iu));
+			}
+		}
+		IMatchExpression<IInstallableUnit> requirement = MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, "a", new VersionRange("[1.0.0,2.0.0)"), null, false, false).getMatches();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(requirement.isMatch(ius[0]));
+			assertFalse(requirement.isMatch(ius[1]));
+		}
+	}
+
 	public void testLeftToRigthAssociativity() throws Exception {
 		testMatch("2 < 10 == true", true);
 		try {
@@ -14,6 +14,7 @@
 package org.eclipse.equinox.p2.tests.metadata.expression;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -175,6 +176,16 @@ public class FilterTest {
 		assertParseError("  (room = =b**oo*m*) ) ");
 	}
 
+	@Test
+	public void testParsedExpressionsAreShared() {
+		assertSame(ExpressionUtil.parseLDAP("(osgi.os=win32)"), ExpressionUtil.parseLDAP(" (osgi.os=win32) "));
+		assertSame(ExpressionUtil.parse("id == $0"), ExpressionUtil.parse("id == $0"));
+		assertSame(ExpressionUtil.parseQuery("select(x | x.id == $0)"), ExpressionUtil.parseQuery("select(x | x.id == $0)"));
+		// a string that cannot be parsed fails every time
+		assertParseError("(osgi.os=win32");
+		assertParseError("(osgi.os=win32");
+	}
+
 	private void assertMatch(String query, Dictionary<String, Object> props) {
 		expectMatch(query, props, true);
 	}
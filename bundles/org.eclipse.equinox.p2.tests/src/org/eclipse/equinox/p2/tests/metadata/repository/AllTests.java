@@ -24,7 +24,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 		BatchExecuteMetadataRepositoryTest.class, CompositeMetadataRepositoryTest.class,
 		JarURLMetadataRepositoryTest.class, LocalMetadataRepositoryTest.class, SPIMetadataRepositoryTest.class,
-		StandaloneSerializationTest.class, MetadataRepositoryManagerTest.class, NoFailOver.class,
+		StandaloneSerializationTest.class, MetadataRepositoryManagerTest.class, NoFailOver.class, PullParserTest.class,
 		SiteIndexFileTest.class, XZedRepositoryTest.class
 })
 public class AllTests {
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.metadata.repository;
+
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.metadata.repository.MetadataRepositoryIO;
+import org.eclipse.equinox.internal.p2.persistence.XMLParser;
+import org.eclipse.equinox.p2.core.ProvisionException;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IRequirement;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.query.QueryUtil;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Verifies that the StAX pull parser backend of {@link XMLParser} reads
+ * metadata exactly like the SAX backend.
+ */
+public class PullParserTest extends AbstractProvisioningTest {
+	private File repoLocation;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		repoLocation = new File(System.getProperty("java.io.tmpdir"), "PullParserTest");
+		delete(repoLocation);
+		repoLocation.mkdir();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		System.clearProperty(XMLParser.PROP_PULL_PARSER);
+		getMetadataRepositoryManager().removeRepository(repoLocation.toURI());
+		delete(repoLocation);
+		super.tearDown();
+	}
+
+	public void testPullParserReadsLikeSAXParser() throws Exception {
+		IMetadataRepository repository = getMetadataRepositoryManager().createRepository(repoLocation.toURI(), "PullParserTest", IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+		repository.setProperty("p2.timestamp", "1234");
+		List<IInstallableUnit> units = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Map<String, String> properties = new HashMap<>();
+			properties.put("org.eclipse.equinox.p2.name", "Unit " + i);
+			properties.put("org.eclipse.equinox.p2.type.group", Boolean.toString(i % 2 == 0));
+			IRequirement[] requires = createRequiredCapabilities("java.package", "org.example.p" + i, new VersionRange("[1.0.0,2.0.0)"), "(osgi.os=win32)");
+			units.add(createIU("unit" + i, Version.create("1.0." + i), requires, properties, true));
+		}
+		repository.addInstallableUnits(units);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new MetadataRepositoryIO(getAgent()).write(repository, output);
+		byte[] content = output.toByteArray();
+
+		IMetadataRepository saxRepository = read(content, false);
+		IMetadataRepository pullRepository = read(content, true);
+
+		assertEquals(repository.getName(), pullRepository.getName());
+		assertEquals(saxRepository.getProperties(), pullRepository.getProperties());
+		assertContains("1.0", saxRepository, pullRepository);
+		assertContains("1.1", pullRepository, saxRepository);
+		for (IInstallableUnit unit : units) {
+			IInstallableUnit parsed = pullRepository.query(QueryUtil.createIUQuery(unit.getId(), unit.getVersion()), null).iterator().next();
+			assertEquals(unit.getProperties(), parsed.getProperties());
+			assertEquals(unit.getRequirements(), parsed.getRequirements());
+			assertEquals(unit.getFilter(), parsed.getFilter());
+		}
+	}
+
+	public void testPullParserReportsMalformedContent() throws Exception {
+		byte[] content = "<?xml version='1.0' encoding='UTF-8'?>\n<repository name='broken'><units>".getBytes("UTF-8");
+		assertThrows(ProvisionException.class, () -> read(content, true));
+	}
+
+	private IMetadataRepository read(byte[] content, boolean pullParser) throws Exception {
+		System.setProperty(XMLParser.PROP_PULL_PARSER, Boolean.toString(pullParser));
+		return new MetadataRepositoryIO(getAgent()).read(repoLocation.toURI().toURL(), new ByteArrayInputStream(content), new NullProgressMonitor());
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.perf;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.IRepositoryManager;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+
+/**
+ * Stress test for the repository managers, where several threads concurrently
+ * read the known repositories, toggle their properties and load them.
+ */
+public class RepositoryManagerPerformanceTest extends ProvisioningPerformanceTest {
+	private static final int REPEATS = 5;
+	private static final int REPOSITORY_COUNT = 25;
+	private static final int THREAD_COUNT = 8;
+	private static final int OPERATIONS = 2000;
+
+	private File repoLocation;
+	private final List<URI> locations = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		repoLocation = new File(System.getProperty("java.io.tmpdir"), "RepositoryManagerPerformanceTest");
+		delete(repoLocation);
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		for (int i = 0; i < REPOSITORY_COUNT; i++) {
+			File location = new File(repoLocation, "repo" + i);
+			location.mkdirs();
+			manager.createRepository(location.toURI(), "Repo " + i, IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+			locations.add(location.toURI());
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (URI location : locations) {
+			getMetadataRepositoryManager().removeRepository(location);
+		}
+		delete(repoLocation);
+		super.tearDown();
+	}
+
+	public void testConcurrentAccess() {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+				try {
+					List<Future<?>> futures = new ArrayList<>();
+					for (int t = 0; t < THREAD_COUNT; t++) {
+						final int thread = t;
+						futures.add(executor.submit(() -> {
+							for (int i = 0; i < OPERATIONS; i++) {
+								URI location = locations.get((i + thread) % REPOSITORY_COUNT);
+								assertTrue(manager.contains(location));
+								manager.isEnabled(location);
+								manager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL);
+								if (i % 100 == thread) {
+									manager.setRepositoryProperty(location, IRepository.PROP_NICKNAME, "nick" + i);
+								}
+								manager.loadRepository(location, null);
+							}
+							return null;
+						}));
+					}
+					for (Future<?> future : futures) {
+						future.get();
+					}
+				} catch (InterruptedException | ExecutionException e) {
+					fail("Concurrent access failed", e);
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+		}.run(this, "Test concurrent access to " + REPOSITORY_COUNT + " repositories by " + THREAD_COUNT + " threads", REPEATS, 1);
+	}
+}
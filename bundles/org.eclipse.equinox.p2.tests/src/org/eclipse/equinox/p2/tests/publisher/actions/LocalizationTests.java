@@ -18,16 +18,26 @@ package org.eclipse.equinox.p2.tests.publisher.actions;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.IntStream;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.equinox.internal.p2.metadata.TranslationSupport;
 import org.eclipse.equinox.internal.p2.updatesite.SiteXMLAction;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IProvidedCapability;
+import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitDescription;
+import org.eclipse.equinox.p2.metadata.MetadataFactory.InstallableUnitFragmentDescription;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
 import org.eclipse.equinox.p2.publisher.PublisherInfo;
 import org.eclipse.equinox.p2.publisher.PublisherResult;
 import org.eclipse.equinox.p2.publisher.eclipse.BundlesAction;
 import org.eclipse.equinox.p2.publisher.eclipse.FeaturesAction;
+import org.eclipse.equinox.p2.query.CollectionResult;
 import org.eclipse.equinox.p2.query.IQueryResult;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.equinox.p2.tests.*;
@@ -319,6 +329,41 @@ public class LocalizationTests extends AbstractProvisioningTest {
 		assertEquals("1.1", "English Fragment Provider", utils.getIUProperty(iu, IInstallableUnit.PROP_PROVIDER, Locale.ENGLISH.toString()));
 	}
 
+	public void testFragmentsOfManyHosts() {
+		List<IInstallableUnit> hosts = new ArrayList<>();
+		List<IInstallableUnit> units = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			InstallableUnitDescription host = new InstallableUnitDescription();
+			host.setId("host" + i);
+			host.setVersion(Version.createOSGi(1, 0, 0));
+			host.setCapabilities(new IProvidedCapability[] {MetadataFactory.createProvidedCapability(IInstallableUnit.NAMESPACE_IU_ID, host.getId(), host.getVersion())});
+			host.setProperty(IInstallableUnit.PROP_NAME, "%name");
+			hosts.add(MetadataFactory.createInstallableUnit(host));
+
+			// the odd fragments require another version of their host
+			InstallableUnitFragmentDescription fragment = new InstallableUnitFragmentDescription();
+			fragment.setId("host" + i + ".nl_de");
+			fragment.setVersion(Version.createOSGi(1, 0, 0));
+			fragment.setHost(MetadataFactory.createRequirement(IInstallableUnit.NAMESPACE_IU_ID, host.getId(), new VersionRange(i % 2 == 0 ? "[1.0.0,2.0.0)" : "[2.0.0,3.0.0)"), null, false, false));
+			fragment.setCapabilities(new IProvidedCapability[] {MetadataFactory.createProvidedCapability("org.eclipse.equinox.p2.localization", "de", Version.createOSGi(1, 0, 0))});
+			fragment.setProperty("de.name", "Name " + i);
+			units.add(MetadataFactory.createInstallableUnitFragment(fragment));
+		}
+		units.addAll(hosts);
+
+		TranslationSupport utils = new TranslationSupport(new CollectionResult<>(units));
+		// the translations are looked up and cached on the hosts from several threads at once
+		IntStream.range(0, 10 * hosts.size()).parallel().forEach(n -> {
+			int i = n % hosts.size();
+			String expected = i % 2 == 0 ? "Name " + i : "name";
+			assertEquals(expected, utils.getIUProperty(hosts.get(i), IInstallableUnit.PROP_NAME, Locale.GERMAN.toString()));
+		});
+		for (int i = 0; i < hosts.size(); i++) {
+			String expected = i % 2 == 0 ? "Name " + i : "name";
+			assertEquals(expected, utils.getIUProperty(hosts.get(i), IInstallableUnit.PROP_NAME, Locale.GERMAN.toString()));
+		}
+	}
+
 	public void testSite_DE() throws IOException {
 		File feature = TestData.getFile("localizationtests/foofeature", "");
 		URI site = TestData.getFile("localizationtests/site", "").toURI();
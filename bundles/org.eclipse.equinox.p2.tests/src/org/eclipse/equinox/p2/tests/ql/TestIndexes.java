@@ -14,12 +14,23 @@
 package org.eclipse.equinox.p2.tests.ql;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.equinox.internal.p2.metadata.InstallableUnit;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.metadata.IProvidedCapability;
 import org.eclipse.equinox.p2.metadata.IRequirement;
 import org.eclipse.equinox.p2.metadata.MetadataFactory;
+import org.eclipse.equinox.p2.metadata.Version;
+import org.eclipse.equinox.p2.metadata.VersionRange;
+import org.eclipse.equinox.p2.metadata.expression.SimplePattern;
+import org.eclipse.equinox.p2.metadata.index.IIndexProvider;
 import org.eclipse.equinox.p2.query.IQuery;
 import org.eclipse.equinox.p2.query.IQueryResult;
+import org.eclipse.equinox.p2.query.IQueryable;
 import org.eclipse.equinox.p2.query.QueryUtil;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
@@ -48,6 +59,17 @@ public class TestIndexes extends AbstractProvisioningTest {
 		assertEquals(queryResultSize(result), 3464);
 	}
 
+	public void testIdIndexPattern() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("org.eclipse.equinox.p2.*")), -1);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("*.feature.group")), -1);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("org.eclipse.?dt*.jar")), -1);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("*")), -1);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("org.eclipse.sdk.feature.group")), 1);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= $0", SimplePattern.compile("no.such.*")), 0);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery("id ~= /org.eclipse.jdt.*/ || id == $0", "org.eclipse.sdk.feature.group"), -1);
+	}
+
 	public void testCapabilityIndexSimple() throws Exception {
 		IMetadataRepository repo = getMDR("/testData/galileoM7");
 		IQuery<IInstallableUnit> query = QueryUtil.createQuery("select(x | x.providedCapabilities.exists(pc | pc.namespace == 'org.eclipse.equinox.p2.iu' && pc.name == $0))", "org.eclipse.core.resources");
@@ -63,6 +85,28 @@ public class TestIndexes extends AbstractProvisioningTest {
 		assertEquals(queryResultSize(result), 1);
 	}
 
+	public void testCapabilityIndexVersionRange() throws Exception {
+		List<IInstallableUnit> units = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			IProvidedCapability[] provides = {MetadataFactory.createProvidedCapability("java.package", "org.example", Version.createOSGi(i % 10, i % 3, 0)), MetadataFactory.createProvidedCapability("osgi.bundle", "org.example", Version.createOSGi(1, 0, i))};
+			units.add(createIU("unit" + i, Version.createOSGi(1, 0, 0), provides));
+		}
+		IMetadataRepository repo = createMetadataRepository(getTempFolder().toURI(), null);
+		repo.addInstallableUnits(units);
+
+		IRequirement requirement = MetadataFactory.createRequirement("java.package", "org.example", new VersionRange("[1.0.0,2.0.0)"), null, false, false);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery(requirement.getMatches()), 4);
+		for (String range : new String[] {"[2.1.0,2.1.0]", "3.0.0", "(4.0.0,6.1.0]", "0.0.0", "[20.0.0,21.0.0)"}) {
+			requirement = MetadataFactory.createRequirement("java.package", "org.example", new VersionRange(range), null, false, false);
+			assertIndexedResult(repo, QueryUtil.createMatchQuery(requirement.getMatches()), -1);
+			assertIndexedResult(repo, QueryUtil.createQuery("select(x | x ~= $0)", requirement), -1);
+		}
+
+		repo.removeInstallableUnits(units.subList(0, 20));
+		requirement = MetadataFactory.createRequirement("java.package", "org.example", new VersionRange("[1.0.0,2.0.0)"), null, false, false);
+		assertIndexedResult(repo, QueryUtil.createMatchQuery(requirement.getMatches()), 2);
+	}
+
 	public void testComplexIndexMatches() throws Exception {
 		IMetadataRepository repo = getMDR("/testData/galileoM7");
 		IQuery<IInstallableUnit> query = QueryUtil.createMatchQuery("id ~= /*.feature.group/ && properties['org.eclipse.equinox.p2.type.group'] == true && providedCapabilities.exists(p | p.namespace == 'org.eclipse.equinox.p2.iu' && p.name == id)");
@@ -70,6 +114,71 @@ public class TestIndexes extends AbstractProvisioningTest {
 		assertEquals(queryResultSize(result), 487);
 	}
 
+	public void testCompoundQueryAcrossIndexes() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		IRequirement requirement = MetadataFactory.createRequirement("org.eclipse.equinox.p2.iu", "org.eclipse.core.resources", null, null, 1, 2, true);
+		IQuery<IInstallableUnit> byCapability = QueryUtil.createMatchQuery(requirement.getMatches());
+		IQuery<IInstallableUnit> byId = QueryUtil.createIUQuery("org.eclipse.sdk.feature.group");
+		IQuery<IInstallableUnit> byProperty = QueryUtil.createIUGroupQuery();
+
+		assertIndexedResult(repo, QueryUtil.createCompoundQuery(byCapability, byId, false), 2);
+		assertIndexedResult(repo, QueryUtil.createCompoundQuery(byId, byProperty, true), 1);
+		assertIndexedResult(repo, QueryUtil.createCompoundQuery(byCapability, byProperty, false), -1);
+		assertIndexedResult(repo, QueryUtil.createLatestQuery(QueryUtil.createCompoundQuery(byId, byProperty, true)), 1);
+		assertIndexedResult(repo, QueryUtil.createQuery("select(x | x.id == $0 && x ~= $1)", "org.eclipse.sdk.feature.group", requirement), 0);
+	}
+
+	public void testPropertyIndex() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		assertNotNull(((IIndexProvider<?>) repo).getIndex(InstallableUnit.MEMBER_PROPERTIES));
+
+		assertIndexedResult(repo, QueryUtil.createIUGroupQuery(), 487);
+		assertIndexedResult(repo, QueryUtil.createIUCategoryQuery(), -1);
+		assertIndexedResult(repo, QueryUtil.createIUPropertyQuery(QueryUtil.PROP_TYPE_GROUP, QueryUtil.ANY), 487);
+		assertIndexedResult(repo, QueryUtil.createIUPropertyQuery(QueryUtil.PROP_TYPE_GROUP, null), -1);
+		assertIndexedResult(repo, QueryUtil.createIUPropertyQuery(IInstallableUnit.PROP_NAME, "Eclipse Project SDK"), -1);
+		assertIndexedResult(repo, QueryUtil.createQuery("select(x | x.properties[$0] != $1)", IInstallableUnit.PROP_NAME, "Eclipse Project SDK"), -1);
+	}
+
+	public void testStream() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		IQuery<IInstallableUnit> query = QueryUtil.createIUGroupQuery();
+		Set<IInstallableUnit> streamed = repo.stream(query, getMonitor()).collect(Collectors.toSet());
+		assertEquals(repo.query(query, getMonitor()).toUnmodifiableSet(), streamed);
+		assertEquals(487, streamed.size());
+
+		IQuery<IInstallableUnit> noMatch = QueryUtil.createIUQuery("no.such.unit");
+		assertFalse(repo.stream(noMatch, getMonitor()).findAny().isPresent());
+		IQuery<IInstallableUnit> byId = QueryUtil.createIUQuery("org.eclipse.sdk.feature.group");
+		assertEquals(queryResultSize(repo.query(byId, getMonitor())), repo.stream(byId, getMonitor()).count());
+	}
+
+	public void testStreamLazily() throws Exception {
+		IMetadataRepository repo = getMDR("/testData/galileoM7");
+		IQueryable<IInstallableUnit> queryable = QueryUtil.compoundQueryable(List.of(repo));
+		IQuery<IInstallableUnit> query = QueryUtil.createIUGroupQuery();
+		Set<IInstallableUnit> streamed = queryable.stream(query, getMonitor()).collect(Collectors.toSet());
+		assertEquals(repo.query(query, getMonitor()).toUnmodifiableSet(), streamed);
+
+		// a cancelled monitor ends the stream
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		assertEquals(0, queryable.stream(query, monitor).count());
+	}
+
+	/**
+	 * Checks that a query gives the same result with the indexes of the
+	 * repository as it does when it is applied to all the units.
+	 */
+	private void assertIndexedResult(IMetadataRepository repo, IQuery<IInstallableUnit> query, int expectedSize) {
+		IQueryResult<IInstallableUnit> result = repo.query(query, getMonitor());
+		IQueryResult<IInstallableUnit> all = repo.query(QueryUtil.createIUAnyQuery(), getMonitor());
+		assertEquals(query.perform(all.iterator()).toUnmodifiableSet(), result.toUnmodifiableSet());
+		if (expectedSize >= 0) {
+			assertEquals(expectedSize, queryResultSize(result));
+		}
+	}
+
 	private IMetadataRepository getMDR(String uri) throws Exception {
 		URI metadataRepo = getTestData("1.1", uri).toURI();
 
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.equinox.internal.p2.core.ProvisioningAgent;
+import org.eclipse.equinox.internal.p2.repository.helpers.RepositoryCache;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Tests for {@link RepositoryCache}.
+ */
+public class RepositoryCacheTest extends AbstractProvisioningTest {
+	private RepositoryCache<IInstallableUnit> cache;
+	private IMetadataRepository repo1, repo2, repo3;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new RepositoryCache<>(250);
+		repo1 = createTestMetdataRepository(new IInstallableUnit[0]);
+		repo2 = createTestMetdataRepository(new IInstallableUnit[0]);
+		repo3 = createTestMetdataRepository(new IInstallableUnit[0]);
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() {
+		cache.put("1", repo1, 100);
+		cache.put("2", repo2, 100);
+		assertSame(repo1, cache.get("1"));
+		cache.put("3", repo3, 100);
+		assertSame(repo1, cache.get("1"));
+		assertNull(cache.get("2"));
+		assertSame(repo3, cache.get("3"));
+
+		RepositoryCache.Statistics statistics = cache.getStatistics();
+		assertEquals(3, statistics.hits());
+		assertEquals(1, statistics.misses());
+		assertEquals(1, statistics.evictions());
+		assertEquals(2, statistics.count());
+		assertEquals(200, statistics.size());
+	}
+
+	public void testPinnedIsNotEvicted() {
+		cache.put("1", repo1, 100);
+		RepositoryCache<IInstallableUnit>.Pin pin = cache.pin("1");
+		assertNotNull(pin);
+		cache.put("2", repo2, 100);
+		cache.put("3", repo3, 100);
+		assertSame(repo1, cache.get("1"));
+		assertNull(cache.get("2"));
+
+		// the cache may exceed its size while everything is pinned
+		RepositoryCache<IInstallableUnit>.Pin pin3 = cache.pin("3");
+		cache.put("2", repo2, 100);
+		assertEquals(300, cache.getStatistics().size());
+		pin.close();
+		pin3.close();
+		assertNull(cache.get("1"));
+		assertEquals(200, cache.getStatistics().size());
+	}
+
+	public void testReplaceAndRemove() {
+		cache.put("1", repo1, 100);
+		assertTrue(cache.contains("1", repo1));
+		cache.put("1", repo2, 50);
+		assertFalse(cache.contains("1", repo1));
+		assertSame(repo2, cache.get("1"));
+		assertEquals(50, cache.getStatistics().size());
+		cache.remove("1");
+		assertNull(cache.get("1"));
+		assertEquals(0, cache.getStatistics().size());
+		assertNull(cache.pin("1"));
+	}
+
+	public void testChildrenOfCompositeAreNotEvicted() {
+		cache = new RepositoryCache<>(250, repository -> repository == repo1 ? List.of("2") : Collections.emptyList());
+		cache.put("2", repo2, 100);
+		cache.put("1", repo1, 100);
+		cache.put("3", repo3, 100);
+		// the child is the least recently used, but its composite is cached
+		assertSame(repo2, cache.get("2"));
+		assertNull(cache.get("1"));
+
+		// once the composite is gone, its children are evicted like any other
+		cache.put("3", repo3, 200);
+		assertNull(cache.get("2"));
+		assertSame(repo3, cache.get("3"));
+	}
+
+	public void testCachesShareTheirBudget() {
+		ProvisioningAgent agent = new ProvisioningAgent();
+		RepositoryCache<IInstallableUnit> other = RepositoryCache.shared(agent, 251, repository -> Collections.emptyList());
+		cache = RepositoryCache.shared(agent, 251, repository -> Collections.emptyList());
+		// the caches of another agent have a budget of their own
+		RepositoryCache<IInstallableUnit> unrelated = RepositoryCache.shared(new ProvisioningAgent(), 251, repository -> Collections.emptyList());
+		unrelated.put("1", repo1, 200);
+		other.put("1", repo1, 100);
+		cache.put("2", repo2, 100);
+		cache.put("3", repo3, 100);
+		assertNull(other.get("1"));
+		assertSame(repo2, cache.get("2"));
+		assertEquals(1, other.getStatistics().evictions());
+		assertEquals(0, other.getStatistics().size());
+		assertEquals(200, cache.getStatistics().size());
+		assertEquals(251, cache.getStatistics().maximumSize());
+		assertSame(repo1, unrelated.get("1"));
+		assertEquals(0, unrelated.getStatistics().evictions());
+	}
+
+	public void testPinnedForOwner() {
+		Object owner = new Object();
+		cache.put("1", repo1, 100);
+		assertTrue(cache.pin("1", owner));
+		assertTrue(cache.pin("1", owner));
+		assertFalse(cache.pin("2", owner));
+		cache.put("2", repo2, 100);
+		cache.put("3", repo3, 100);
+		assertSame(repo1, cache.get("1"));
+		assertNull(cache.get("2"));
+	}
+}
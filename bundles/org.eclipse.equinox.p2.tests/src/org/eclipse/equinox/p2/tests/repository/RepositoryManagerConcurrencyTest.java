@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.p2.tests.repository;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import org.eclipse.equinox.p2.repository.IRepository;
+import org.eclipse.equinox.p2.repository.IRepositoryManager;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepository;
+import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
+import org.eclipse.equinox.p2.tests.AbstractProvisioningTest;
+
+/**
+ * Several threads read the known repositories of a repository manager, change
+ * their properties and load them at the same time. A smaller and time bounded
+ * version of the stress test in the performance tests.
+ */
+public class RepositoryManagerConcurrencyTest extends AbstractProvisioningTest {
+	private static final int REPOSITORY_COUNT = 8;
+	private static final int THREAD_COUNT = 4;
+	private static final int OPERATIONS = 200;
+	private static final int TIMEOUT_SECONDS = 60;
+
+	private final List<URI> locations = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File folder = getTempFolder();
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		for (int i = 0; i < REPOSITORY_COUNT; i++) {
+			File location = new File(folder, "repo" + i);
+			location.mkdirs();
+			manager.createRepository(location.toURI(), "Repo " + i, IMetadataRepositoryManager.TYPE_SIMPLE_REPOSITORY, null);
+			locations.add(location.toURI());
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (URI location : locations) {
+			getMetadataRepositoryManager().removeRepository(location);
+		}
+		super.tearDown();
+	}
+
+	public void testConcurrentAccess() throws Exception {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREAD_COUNT; t++) {
+				final int thread = t;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < OPERATIONS; i++) {
+						URI location = locations.get((i + thread) % REPOSITORY_COUNT);
+						assertTrue(manager.contains(location));
+						manager.isEnabled(location);
+						manager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL);
+						if (i % 20 == thread) {
+							manager.setRepositoryProperty(location, IRepository.PROP_NICKNAME, "nick" + i);
+						}
+						assertNotNull(manager.loadRepository(location, null));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testConcurrentLoadsOfOneRepository() throws Exception {
+		IMetadataRepositoryManager manager = getMetadataRepositoryManager();
+		URI location = locations.get(0);
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			for (int i = 0; i < 10; i++) {
+				manager.removeRepository(location);
+				CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+				List<Future<IMetadataRepository>> futures = new ArrayList<>();
+				for (int t = 0; t < THREAD_COUNT; t++) {
+					futures.add(executor.submit(() -> {
+						barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+						return manager.loadRepository(location, null);
+					}));
+				}
+				// the threads wait for the one that loads the repository
+				IMetadataRepository loaded = futures.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				for (Future<IMetadataRepository> future : futures) {
+					assertSame(loaded, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -23,6 +23,8 @@ import org.eclipse.equinox.internal.p2.touchpoint.eclipse.EclipseTouchpoint;
 import org.eclipse.equinox.internal.p2.touchpoint.eclipse.Util;
 import org.eclipse.equinox.internal.p2.touchpoint.eclipse.actions.ActionConstants;
 import org.eclipse.equinox.internal.p2.touchpoint.eclipse.actions.InstallBundleAction;
+import org.eclipse.equinox.internal.p2.touchpoint.eclipse.actions.SetStartLevelAction;
+import org.eclipse.equinox.internal.p2.touchpoint.eclipse.actions.UninstallBundleAction;
 import org.eclipse.equinox.internal.provisional.frameworkadmin.Manipulator;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.IArtifactKey;
@@ -87,6 +89,55 @@ public class InstallBundleActionTest extends AbstractProvisioningTest {
 		assertFalse(inBundles(manipulator, osgiTarget));
 	}
 
+	public void testBundleChangesAppliedOnCompletePhase() throws Exception {
+		Map<String, String> profileProperties = new HashMap<>();
+		File installFolder = getTempFolder();
+		profileProperties.put(IProfile.PROP_INSTALL_FOLDER, installFolder.toString());
+		profileProperties.put(IProfile.PROP_CACHE, installFolder.toString());
+		IProfile profile = createProfile("test", profileProperties);
+
+		IFileArtifactRepository bundlePool = Util.getBundlePoolRepository(getAgent(), profile);
+		File osgiSource = getTestData("1.0", "/testData/eclipseTouchpoint/bundles/org.eclipse.osgi_3.4.2.R34x_v20080826-1230.jar");
+		File targetPlugins = new File(installFolder, "plugins");
+		assertTrue(targetPlugins.mkdir());
+		File osgiTarget = new File(targetPlugins, "org.eclipse.osgi_3.4.2.R34x_v20080826-1230.jar");
+		copy("2.0", osgiSource, osgiTarget);
+
+		BundleDescription bundleDescription = BundlesAction.createBundleDescription(osgiTarget);
+		IArtifactKey key = BundlesAction.createBundleArtifactKey(bundleDescription.getSymbolicName(), bundleDescription.getVersion().toString());
+		IArtifactDescriptor descriptor = PublisherHelper.createArtifactDescriptor(key, osgiTarget);
+		IInstallableUnit iu = createBundleIU(bundleDescription, osgiTarget.isDirectory(), key);
+		bundlePool.addDescriptor(descriptor, new NullProgressMonitor());
+
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put(ActionConstants.PARM_AGENT, getAgent());
+		parameters.put(ActionConstants.PARM_PROFILE, profile);
+		EclipseTouchpoint touchpoint = new EclipseTouchpoint();
+		touchpoint.initializePhase(null, profile, "test", parameters);
+		Map<String, Object> phaseParameters = new HashMap<>(parameters);
+		InstallableUnitOperand operand = new InstallableUnitOperand(null, iu);
+		parameters.put("iu", operand.second());
+		touchpoint.initializeOperand(profile, parameters);
+
+		parameters.put(ActionConstants.PARM_BUNDLE, key.toString());
+		parameters.put(ActionConstants.PARM_START_LEVEL, "4");
+		parameters = Collections.unmodifiableMap(parameters);
+
+		// the actions of a phase see the bundles changed by the previous actions
+		assertOK(new InstallBundleAction().execute(parameters));
+		UninstallBundleAction uninstall = new UninstallBundleAction();
+		assertOK(uninstall.execute(parameters));
+		assertOK(uninstall.undo(parameters));
+		assertOK(new SetStartLevelAction().execute(parameters));
+		assertOK(touchpoint.completePhase(null, profile, "test", phaseParameters));
+
+		Manipulator manipulator = (Manipulator) parameters.get(EclipseTouchpoint.PARM_MANIPULATOR);
+		assertTrue(inBundles(manipulator, osgiTarget));
+		BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
+		assertNotNull(bundleInfo);
+		assertEquals(4, bundleInfo.getStartLevel());
+	}
+
 	private boolean inBundles(Manipulator manipulator, File osgiTarget) {
 		URI location = osgiTarget.toURI();
 		BundleInfo[] bundles = manipulator.getConfigData().getBundles();
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Eclipse contributors and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+package org.eclipse.equinox.internal.p2.touchpoint.eclipse;
+
+import java.util.*;
+import org.eclipse.equinox.frameworkadmin.BundleInfo;
+import org.eclipse.equinox.internal.provisional.frameworkadmin.ConfigData;
+import org.eclipse.equinox.p2.metadata.IInstallableUnit;
+
+/**
+ * The bundles of a {@link ConfigData} as changed by the bundle actions of a
+ * phase. The bundle list of the configuration is read once and indexed by
+ * symbolic name and version, so that finding the bundle of a unit does not scan
+ * the list for every operand. Added and removed bundles are kept here until
+ * {@link #apply()} replaces the bundle list of the configuration in one pass,
+ * which the {@link LazyManipulator} does when the phase completes or before
+ * anyone else looks at the configuration.
+ */
+public class BundleChanges {
+
+	private record BundleKey(String symbolicName, String version) {
+	}
+
+	private final ConfigData configData;
+	// in the order of the configuration, like ConfigData itself
+	private final Set<BundleInfo> bundles;
+	private final Map<BundleKey, List<BundleInfo>> index = new HashMap<>();
+	private boolean modified;
+
+	BundleChanges(ConfigData configData) {
+		this.configData = configData;
+		this.bundles = new LinkedHashSet<>(Arrays.asList(configData.getBundles()));
+		for (BundleInfo bundle : bundles) {
+			index(bundle);
+		}
+	}
+
+	ConfigData getConfigData() {
+		return configData;
+	}
+
+	/**
+	 * Returns the bundle of the given unit, as {@link Util#findBundleInfo(ConfigData, IInstallableUnit)}
+	 * would find it in the changed configuration.
+	 */
+	public synchronized BundleInfo find(IInstallableUnit unit) {
+		BundleInfo bundleInfo = Util.createBundleInfo(null, unit);
+		if (bundleInfo.getSymbolicName() == null) {
+			return null;
+		}
+		List<BundleInfo> candidates = index.get(new BundleKey(bundleInfo.getSymbolicName(), bundleInfo.getVersion()));
+		return candidates == null ? null : candidates.get(0);
+	}
+
+	public synchronized void add(BundleInfo bundleInfo) {
+		if (bundles.add(bundleInfo)) {
+			index(bundleInfo);
+			modified = true;
+		}
+	}
+
+	public synchronized boolean remove(BundleInfo bundleInfo) {
+		if (bundleInfo == null) {
+			throw new IllegalArgumentException("Bundle info can't be null:" + bundleInfo); //$NON-NLS-1$
+		}
+		if (!bundles.remove(bundleInfo)) {
+			return false;
+		}
+		BundleKey key = getKey(bundleInfo);
+		List<BundleInfo> candidates = index.get(key);
+		if (candidates != null) {
+			for (Iterator<BundleInfo> it = candidates.iterator(); it.hasNext();) {
+				if (bundleInfo.equals(it.next())) {
+					it.remove();
+					break;
+				}
+			}
+			if (candidates.isEmpty()) {
+				index.remove(key);
+			}
+		}
+		modified = true;
+		return true;
+	}
+
+	/**
+	 * Replaces the bundles of the configuration with the changed bundles, if any
+	 * bundle has been added or removed.
+	 */
+	public synchronized void apply() {
+		if (modified) {
+			configData.setBundles(bundles.toArray(new BundleInfo[bundles.size()]));
+			modified = false;
+		}
+	}
+
+	private void index(BundleInfo bundle) {
+		index.computeIfAbsent(getKey(bundle), k -> new ArrayList<>(1)).add(bundle);
+	}
+
+	private static BundleKey getKey(BundleInfo bundle) {
+		return new BundleKey(bundle.getSymbolicName(), bundle.getVersion());
+	}
+}
@@ -194,6 +194,18 @@ public class EclipseTouchpoint extends Touchpoint {
 		return null;
 	}
 
+	@Override
+	public IStatus completePhase(IProgressMonitor monitor, IProfile profile, String phaseId,
+			Map<String, Object> touchpointParameters) {
+		// the bundle actions of the phase only changed the bundles indexed by the
+		// manipulator, the configuration is updated once for all of them
+		LazyManipulator manipulator = (LazyManipulator) touchpointParameters.get(PARM_MANIPULATOR);
+		if (manipulator != null) {
+			manipulator.applyBundleChanges();
+		}
+		return Status.OK_STATUS;
+	}
+
 	@Override
 	public IStatus initializeOperand(IProfile profile, Map<String, Object> parameters) {
 		IInstallableUnit iu = (IInstallableUnit) parameters.get(PARM_IU);
@@ -33,6 +33,7 @@ public class LazyManipulator implements Manipulator {
 	private final static String filterFwAdmin = "(&" + FILTER_OBJECTCLASS + filterFwName + filterLauncherName + ')'; //$NON-NLS-1$ ;
 
 	private Manipulator manipulator;
+	private BundleChanges bundleChanges;
 	private final IProfile profile;
 	private final IProvisioningAgent agent;
 
@@ -102,9 +103,35 @@ public class LazyManipulator implements Manipulator {
 		return null;
 	}
 
+	/**
+	 * Returns the bundles of the configuration as changed by the bundle actions of
+	 * the current phase.
+	 */
+	public synchronized BundleChanges getBundleChanges() {
+		loadDelegate();
+		ConfigData configData = manipulator.getConfigData();
+		if (bundleChanges == null || bundleChanges.getConfigData() != configData) {
+			bundleChanges = new BundleChanges(configData);
+		}
+		return bundleChanges;
+	}
+
+	/**
+	 * Applies the bundles changed since {@link #getBundleChanges()} to the
+	 * configuration.
+	 */
+	public synchronized void applyBundleChanges() {
+		if (bundleChanges != null) {
+			bundleChanges.apply();
+			// the configuration may be changed directly from now on
+			bundleChanges = null;
+		}
+	}
+
 	@Override
 	public void save(boolean backup) throws IOException, FrameworkAdminRuntimeException {
 		if (manipulator != null) {
+			applyBundleChanges();
 			manipulator.save(backup);
 		}
 	}
@@ -114,18 +141,21 @@ public class LazyManipulator implements Manipulator {
 	@Override
 	public BundlesState getBundlesState() throws FrameworkAdminRuntimeException {
 		loadDelegate();
+		applyBundleChanges();
 		return manipulator.getBundlesState();
 	}
 
 	@Override
 	public ConfigData getConfigData() throws FrameworkAdminRuntimeException {
 		loadDelegate();
+		applyBundleChanges();
 		return manipulator.getConfigData();
 	}
 
 	@Override
 	public BundleInfo[] getExpectedState() throws IllegalStateException, IOException, FrameworkAdminRuntimeException {
 		loadDelegate();
+		applyBundleChanges();
 		return manipulator.getExpectedState();
 	}
 
@@ -144,6 +174,7 @@ public class LazyManipulator implements Manipulator {
 	@Override
 	public void initialize() {
 		loadDelegate();
+		discardBundleChanges();
 		manipulator.initialize();
 	}
 
@@ -155,6 +186,7 @@ public class LazyManipulator implements Manipulator {
 	@Override
 	public void setConfigData(ConfigData configData) {
 		loadDelegate();
+		discardBundleChanges();
 		manipulator.setConfigData(configData);
 	}
 
@@ -163,4 +195,8 @@ public class LazyManipulator implements Manipulator {
 		loadDelegate();
 		manipulator.setLauncherData(launcherData);
 	}
+
+	private synchronized void discardBundleChanges() {
+		bundleChanges = null;
+	}
 }
@@ -26,6 +26,7 @@ import org.eclipse.equinox.frameworkadmin.BundleInfo;
 import org.eclipse.equinox.internal.p2.core.helpers.*;
 import org.eclipse.equinox.internal.p2.metadata.IRequiredCapability;
 import org.eclipse.equinox.internal.provisional.frameworkadmin.ConfigData;
+import org.eclipse.equinox.internal.provisional.frameworkadmin.Manipulator;
 import org.eclipse.equinox.p2.core.*;
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.metadata.*;
@@ -248,6 +249,41 @@ public class Util {
 		return null;
 	}
 
+	/**
+	 * Finds the bundle of the given unit in the configuration of the given
+	 * manipulator, taking the bundles changed in the current phase into account.
+	 */
+	public static BundleInfo findBundleInfo(Manipulator manipulator, IInstallableUnit unit) {
+		if (manipulator instanceof LazyManipulator lazyManipulator) {
+			return lazyManipulator.getBundleChanges().find(unit);
+		}
+		return findBundleInfo(manipulator.getConfigData(), unit);
+	}
+
+	/**
+	 * Adds a bundle to the configuration of the given manipulator. A
+	 * {@link LazyManipulator} applies the change when the phase completes.
+	 */
+	public static void addBundle(Manipulator manipulator, BundleInfo bundleInfo) {
+		if (manipulator instanceof LazyManipulator lazyManipulator) {
+			lazyManipulator.getBundleChanges().add(bundleInfo);
+		} else {
+			manipulator.getConfigData().addBundle(bundleInfo);
+		}
+	}
+
+	/**
+	 * Removes a bundle from the configuration of the given manipulator. A
+	 * {@link LazyManipulator} applies the change when the phase completes.
+	 */
+	public static void removeBundle(Manipulator manipulator, BundleInfo bundleInfo) {
+		if (manipulator instanceof LazyManipulator lazyManipulator) {
+			lazyManipulator.getBundleChanges().remove(bundleInfo);
+		} else {
+			manipulator.getConfigData().removeBundle(bundleInfo);
+		}
+	}
+
 	private static String getFragmentHost(IInstallableUnit unit, String fragmentName) {
 		Collection<IRequirement> requires = unit.getRequirements();
 		for (IRequirement iRequirement : requires) {
@@ -84,7 +84,7 @@ public class InstallBundleAction extends ProvisioningAction {
 		if (bundleInfo == null) {
 			return Util.createError(NLS.bind(Messages.failed_create_bundleinfo, iu));
 		}
-		manipulator.getConfigData().addBundle(bundleInfo);
+		Util.addBundle(manipulator, bundleInfo);
 
 		return Status.OK_STATUS;
 	}
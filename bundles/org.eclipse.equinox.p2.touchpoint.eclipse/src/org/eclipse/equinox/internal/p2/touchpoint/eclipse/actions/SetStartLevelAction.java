@@ -38,7 +38,7 @@ public class SetStartLevelAction extends ProvisioningAction {
 
 		// Changes to this object will be reflected in the backing runtime configuration
 		// store
-		BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
+		BundleInfo bundleInfo = Util.findBundleInfo(manipulator, iu);
 		if (bundleInfo == null) {
 			return Util.createWarning(NLS.bind(Messages.failed_find_bundleinfo, iu));
 		}
@@ -69,7 +69,7 @@ public class SetStartLevelAction extends ProvisioningAction {
 
 		// Changes to this object will be reflected in the backing runtime configuration
 		// store
-		BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
+		BundleInfo bundleInfo = Util.findBundleInfo(manipulator, iu);
 		if (bundleInfo == null) {
 			return Util.createWarning(NLS.bind(Messages.failed_find_bundleinfo, iu));
 		}
@@ -54,12 +54,12 @@ public class UninstallBundleAction extends ProvisioningAction {
 
 		// Changes to this object will be reflected in the backing runtime configuration
 		// store
-		BundleInfo bundleInfo = Util.findBundleInfo(manipulator.getConfigData(), iu);
+		BundleInfo bundleInfo = Util.findBundleInfo(manipulator, iu);
 		if (bundleInfo == null) {
 			return Util.createWarning(NLS.bind(Messages.failed_find_bundleinfo, iu));
 		}
 
-		manipulator.getConfigData().removeBundle(bundleInfo);
+		Util.removeBundle(manipulator, bundleInfo);
 		return Status.OK_STATUS;
 	}
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Map;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.equinox.internal.p2.engine.EngineTimings;
 import org.eclipse.equinox.internal.p2.engine.Profile;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.*;
 import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
@@ -85,6 +86,7 @@ public class CopyAction extends ProvisioningAction {
 			return new Status(IStatus.ERROR, Activator.ID, IStatus.OK,
 					NLS.bind(Messages.copy_failed, sourceFile.getPath()), e);
 		}
+		EngineTimings.recordFilesWritten(copiedFiles.length);
 		// keep copied file in the profile as memento for CleanupCopy
 		StringBuffer copiedFileNameBuffer = new StringBuffer();
 		for (File copiedFile : copiedFiles) {
@@ -18,6 +18,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import org.eclipse.core.runtime.*;
+import org.eclipse.equinox.internal.p2.engine.EngineTimings;
 import org.eclipse.equinox.internal.p2.engine.Profile;
 import org.eclipse.equinox.internal.p2.touchpoint.natives.*;
 import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
@@ -78,6 +79,7 @@ public class UnzipAction extends ProvisioningAction {
 		String excludePattern = (String) parameters.get(ActionConstants.PARM_EXCLUDE);
 
 		File[] unzippedFiles = unzip(source, target, path, includePattern, excludePattern, store);
+		EngineTimings.recordFilesWritten(unzippedFiles.length);
 		String[] filesAsString = new String[unzippedFiles.length];
 		for (int i = 0; i < unzippedFiles.length; i++) {
 			filesAsString[i] = unzippedFiles[i].getAbsolutePath();
@@ -59,7 +59,7 @@ public class ElementQueryDescriptor {
 		Collector<Object> results = this.collector;
 		// If the query is completely described, perform it
 		if (query != null && collector != null && queryable != null) {
-			results.addAll(this.queryable.query(this.query, monitor));
+			this.queryable.stream(this.query, monitor).forEach(results::accept);
 		} else if (results == null) {
 			results = new Collector<>();
 		}